@@ -0,0 +1,27 @@
+plugins {
+    application
+}
+
+val trinoVersion:String by project
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_21
+    targetCompatibility = JavaVersion.VERSION_21
+}
+
+dependencies {
+    implementation("org.apache.parquet:parquet-hadoop:1.14.1")
+    listOf("hadoop-client-api", "hadoop-client-runtime").forEach { name ->
+        implementation("org.apache.hadoop:${name}:3.3.6")
+    }
+    implementation("io.trino:trino-jdbc:$trinoVersion")
+}
+
+application {
+    mainClass.set("com.github.skhatri.loadgen.ActivityGenerator")
+}
+
+tasks.register<JavaExec>("loadDriver") {
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.github.skhatri.loadgen.LoadDriver")
+}
@@ -0,0 +1,225 @@
+package com.github.skhatri.loadgen;
+
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.NanoTime;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.LocalOutputFile;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.JulianFields;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes a synthetic version of the {@code finance.activity} delta table: snappy Parquet files
+ * under {@code version=YYYY-MM-DD} partitions, the per-partition {@code _symlink_format_manifest}
+ * and the cumulative {@code _delta_manifest}, in the layout of {@code hive/output/activity}, so
+ * the Hive DDL in the README works on it unchanged.
+ * <p>
+ * Files are written in parallel until the requested size is reached; each thread finishes the
+ * file it is writing, so the result overshoots by at most one file per thread. Accounts and merchants are
+ * drawn from Zipf distributions, and partition sizes can be skewed the same way:
+ * <pre>
+ * ./gradlew :activity-loadgen:run --args="--output /tmp/activity --size-gb 5 --days 30 --accounts 100000 --skew 1.1"
+ * </pre>
+ * Options, with defaults: {@code --output} (required), {@code --size-gb 1}, {@code --start-date 2021-03-01},
+ * {@code --days 10}, {@code --day-skew 0}, {@code --accounts 10000}, {@code --merchants 2000},
+ * {@code --skew 1.0}, {@code --rows-per-file 500000}, {@code --threads} (processors),
+ * {@code --seed 42} and {@code --location} (the URI written into manifests, {@code file:} plus the output).
+ * Trino and Hive read the manifests inside their containers, where {@code ./hive/output} is
+ * {@code /opt/data/output}, so data written there needs {@code --location file:/opt/data/output/...}.
+ */
+public class ActivityGenerator {
+    private static final MessageType SCHEMA = MessageTypeParser.parseMessageType("""
+        message spark_schema {
+          optional binary account (STRING);
+          optional binary txn_id (STRING);
+          optional binary merchant (STRING);
+          optional binary category (STRING);
+          optional int96 last_updated;
+          optional boolean deleted;
+          optional int32 txn_date (DATE);
+          optional float amount;
+        }
+        """);
+    private static final String[] CATEGORIES = {
+        "Groceries", "Fashion", "Jewellery", "Hardware", "Phone", "Travel", "Dining", "Fuel", "Health", "Entertainment"};
+
+    private final Options options;
+    private final Zipf accounts;
+    private final Zipf merchants;
+    private final Zipf days;
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicInteger nextFile = new AtomicInteger();
+    private final AtomicInteger filesWritten = new AtomicInteger();
+    private final Map<LocalDate, ConcurrentLinkedQueue<String>> files = new ConcurrentHashMap<>();
+
+    ActivityGenerator(Options options) {
+        this.options = options;
+        this.accounts = new Zipf(options.accounts, options.skew);
+        this.merchants = new Zipf(options.merchants, options.skew);
+        this.days = new Zipf(options.days, options.daySkew);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        long start = System.nanoTime();
+        ActivityGenerator generator = new ActivityGenerator(options);
+        generator.generate();
+        generator.writeManifests();
+        System.out.printf("wrote %,d rows, %,d bytes in %,d files to %s in %.1fs%n",
+            generator.rowsWritten.get(), generator.bytesWritten.get(), generator.filesWritten.get(),
+            options.output, (System.nanoTime() - start) / 1e9);
+    }
+
+    void generate() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(options.threads);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < options.threads; i++) {
+            workers.add(executor.submit(() -> {
+                while (bytesWritten.get() < options.targetBytes) {
+                    writeFile(nextFile.getAndIncrement());
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    private void writeFile(int index) throws IOException {
+        SplittableRandom random = new SplittableRandom(options.seed * 1_000_003L + index);
+        LocalDate version = options.startDate.plusDays(days.sample(random));
+        String name = String.format("part-%05d-%s.c000.snappy.parquet", index, new UUID(random.nextLong(), random.nextLong()));
+        String partition = "version=" + version;
+        Path directory = options.output.resolve(partition);
+        Files.createDirectories(directory);
+        Path file = directory.resolve(name);
+
+        SimpleGroupFactory groups = new SimpleGroupFactory(SCHEMA);
+        try (ParquetWriter<Group> writer = ExampleParquetWriter.builder(new LocalOutputFile(file))
+                .withType(SCHEMA)
+                .withCompressionCodec(CompressionCodecName.SNAPPY)
+                .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+                .build()) {
+            for (int row = 0; row < options.rowsPerFile; row++) {
+                writer.write(row(groups, random, version, index, row));
+            }
+        }
+        bytesWritten.addAndGet(Files.size(file));
+        rowsWritten.addAndGet(options.rowsPerFile);
+        filesWritten.incrementAndGet();
+        files.computeIfAbsent(version, ignored -> new ConcurrentLinkedQueue<>())
+            .add(options.location + "/" + partition + "/" + name);
+    }
+
+    private Group row(SimpleGroupFactory groups, SplittableRandom random, LocalDate version, int file, int row) {
+        LocalDate txnDate = version.minusDays(random.nextInt(3));
+        LocalTime updated = LocalTime.ofSecondOfDay(random.nextInt(86_400));
+        Group group = groups.newGroup()
+            .append("account", "acc" + accounts.sample(random))
+            .append("txn_id", "txn" + file + "-" + row)
+            .append("merchant", "merchant" + merchants.sample(random))
+            .append("category", CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        group.add("last_updated", new NanoTime(
+            (int) version.getLong(JulianFields.JULIAN_DAY), updated.toNanoOfDay()).toBinary());
+        return group
+            .append("deleted", random.nextInt(100) == 0)
+            .append("txn_date", (int) txnDate.toEpochDay())
+            .append("amount", (float) Math.round(Math.exp(random.nextDouble() * 8) * 100) / 100);
+    }
+
+    /**
+     * A symlink manifest per partition, and per version a delta manifest with the files of that
+     * and every earlier partition, as Spark's delta manifest generation leaves them.
+     */
+    void writeManifests() throws IOException {
+        List<String> cumulative = new ArrayList<>();
+        for (int day = 0; day < options.days; day++) {
+            LocalDate version = options.startDate.plusDays(day);
+            ConcurrentLinkedQueue<String> partitionFiles = files.get(version);
+            if (partitionFiles == null) {
+                continue;
+            }
+            List<String> sorted = new ArrayList<>(partitionFiles);
+            sorted.sort(null);
+            cumulative.addAll(sorted);
+            writeManifest(options.output.resolve("_symlink_format_manifest").resolve("version=" + version), sorted);
+            writeManifest(options.output.resolve("_delta_manifest").resolve("version=" + version), cumulative);
+        }
+    }
+
+    private static void writeManifest(Path directory, List<String> lines) throws IOException {
+        Files.createDirectories(directory);
+        Files.write(directory.resolve("manifest"), lines, UTF_8);
+    }
+
+    record Options(
+            Path output,
+            long targetBytes,
+            LocalDate startDate,
+            int days,
+            double daySkew,
+            int accounts,
+            int merchants,
+            double skew,
+            int rowsPerFile,
+            int threads,
+            long seed,
+            String location) {
+        static Options parse(String[] args) {
+            Map<String, String> values = new ConcurrentHashMap<>();
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                if (!args[i].startsWith("--")) {
+                    throw new IllegalArgumentException("expected an option but got " + args[i]);
+                }
+                values.put(args[i].substring(2), args[i + 1]);
+            }
+            if (!values.containsKey("output")) {
+                throw new IllegalArgumentException("--output is required");
+            }
+            Path output = Path.of(values.get("output")).toAbsolutePath();
+            return new Options(
+                output,
+                (long) (Double.parseDouble(values.getOrDefault("size-gb", "1")) * (1L << 30)),
+                LocalDate.parse(values.getOrDefault("start-date", "2021-03-01")),
+                Integer.parseInt(values.getOrDefault("days", "10")),
+                Double.parseDouble(values.getOrDefault("day-skew", "0")),
+                Integer.parseInt(values.getOrDefault("accounts", "10000")),
+                Integer.parseInt(values.getOrDefault("merchants", "2000")),
+                Double.parseDouble(values.getOrDefault("skew", "1.0")),
+                Integer.parseInt(values.getOrDefault("rows-per-file", "500000")),
+                Integer.parseInt(values.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                values.getOrDefault("location", "file:" + output));
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.github.skhatri.loadgen;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Replays a weighted mix of dashboard queries against Trino at a fixed concurrency and reports
+ * latency percentiles per query and overall. Each worker holds its own connection and runs
+ * queries back to back, reading every row, so the concurrency is the number of queries in flight.
+ * <p>
+ * The mix file has one {@code name|weight|sql} line per query; blank lines and lines starting
+ * with {@code #} are skipped. Latencies of the warmup period are discarded:
+ * <pre>
+ * TRINO_PASSWORD=password ./gradlew :activity-loadgen:loadDriver --args="--concurrency 16 --duration 300"
+ * </pre>
+ * Options, with defaults: {@code --url} (the local coordinator over TLS), {@code --user admin},
+ * {@code --source loadgen}, {@code --mix queries/dashboard.mix}, {@code --concurrency 8},
+ * {@code --duration 60} and {@code --warmup 10}, both in seconds. The password is read from
+ * {@code TRINO_PASSWORD}.
+ * <p>
+ * {@code queries/planning.mix} runs TPC-H and TPC-DS queries as {@code EXPLAIN}, so latency is
+ * planning time; comparing runs under different rules files measures access control overhead.
+ */
+public class LoadDriver {
+    private static final String DEFAULT_URL = "jdbc:trino://localhost:8443/hive/finance"
+        + "?SSL=true&SSLTrustStorePath=../certs/truststore.jks&SSLTrustStorePassword=password";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        List<Query> mix = parseMix(Path.of(options.getOrDefault("mix", "queries/dashboard.mix")));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "8"));
+        long warmupNanos = Long.parseLong(options.getOrDefault("warmup", "10")) * 1_000_000_000L;
+        long durationNanos = Long.parseLong(options.getOrDefault("duration", "60")) * 1_000_000_000L;
+
+        Properties properties = new Properties();
+        properties.setProperty("user", options.getOrDefault("user", "admin"));
+        // queries of a run are grouped under this source in the audit log and query stats
+        properties.setProperty("source", options.getOrDefault("source", "loadgen"));
+        String password = System.getenv("TRINO_PASSWORD");
+        if (password != null) {
+            properties.setProperty("password", password);
+        }
+        String url = options.getOrDefault("url", DEFAULT_URL);
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        List<Future<Samples>> workers = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            SplittableRandom random = new SplittableRandom(i);
+            workers.add(executor.submit(() -> run(url, properties, mix, random, measureFrom, end)));
+        }
+        Samples total = new Samples(mix.size());
+        for (Future<Samples> worker : workers) {
+            total.merge(worker.get());
+        }
+        executor.shutdown();
+        report(mix, total, durationNanos);
+    }
+
+    private static Samples run(String url, Properties properties, List<Query> mix, SplittableRandom random, long measureFrom, long end) throws SQLException {
+        Samples samples = new Samples(mix.size());
+        int totalWeight = mix.stream().mapToInt(Query::weight).sum();
+        try (Connection connection = DriverManager.getConnection(url, properties);
+                Statement statement = connection.createStatement()) {
+            while (System.nanoTime() < end) {
+                int index = pick(mix, random.nextInt(totalWeight));
+                long started = System.nanoTime();
+                boolean failed = false;
+                try (ResultSet rows = statement.executeQuery(mix.get(index).sql())) {
+                    while (rows.next()) {
+                        // drain the result like a dashboard would
+                    }
+                } catch (SQLException e) {
+                    failed = true;
+                }
+                if (started >= measureFrom) {
+                    samples.add(index, System.nanoTime() - started, failed);
+                }
+            }
+        }
+        return samples;
+    }
+
+    private static int pick(List<Query> mix, int ticket) {
+        for (int i = 0; i < mix.size(); i++) {
+            ticket -= mix.get(i).weight();
+            if (ticket < 0) {
+                return i;
+            }
+        }
+        return mix.size() - 1;
+    }
+
+    private static void report(List<Query> mix, Samples samples, long durationNanos) {
+        System.out.printf("%-24s %8s %6s %9s %9s %9s %9s %9s%n", "query", "count", "errors", "qps", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        long[] all = new long[0];
+        int errors = 0;
+        for (int i = 0; i < mix.size(); i++) {
+            long[] latencies = samples.latencies(i);
+            all = concat(all, latencies);
+            errors += samples.errors[i];
+            print(mix.get(i).name(), latencies, samples.errors[i], durationNanos);
+        }
+        print("total", all, errors, durationNanos);
+    }
+
+    private static void print(String name, long[] latencies, int errors, long durationNanos) {
+        Arrays.sort(latencies);
+        System.out.printf("%-24s %8d %6d %9.2f %9.1f %9.1f %9.1f %9.1f%n",
+            name, latencies.length, errors, latencies.length / (durationNanos / 1e9),
+            percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99), percentile(latencies, 1.0));
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    private static long[] concat(long[] left, long[] right) {
+        long[] result = Arrays.copyOf(left, left.length + right.length);
+        System.arraycopy(right, 0, result, left.length, right.length);
+        return result;
+    }
+
+    private static List<Query> parseMix(Path file) throws IOException {
+        List<Query> queries = new ArrayList<>();
+        for (String line : Files.readAllLines(file, UTF_8)) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\\|", 3);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("expected name|weight|sql in " + file + ": " + line);
+            }
+            queries.add(new Query(parts[0].trim(), Integer.parseInt(parts[1].trim()), parts[2].trim()));
+        }
+        if (queries.isEmpty()) {
+            throw new IllegalArgumentException("no queries in " + file);
+        }
+        return queries;
+    }
+
+    record Query(String name, int weight, String sql) {}
+
+    /**
+     * Latencies in nanoseconds per query of the mix, collected by one worker without locking.
+     */
+    private static final class Samples {
+        private final long[][] latencies;
+        private final int[] counts;
+        private final int[] errors;
+
+        Samples(int queries) {
+            latencies = new long[queries][64];
+            counts = new int[queries];
+            errors = new int[queries];
+        }
+
+        void add(int query, long nanos, boolean failed) {
+            if (failed) {
+                errors[query]++;
+                return;
+            }
+            if (counts[query] == latencies[query].length) {
+                latencies[query] = Arrays.copyOf(latencies[query], counts[query] * 2);
+            }
+            latencies[query][counts[query]++] = nanos;
+        }
+
+        long[] latencies(int query) {
+            return Arrays.copyOf(latencies[query], counts[query]);
+        }
+
+        void merge(Samples other) {
+            for (int i = 0; i < counts.length; i++) {
+                for (long nanos : other.latencies(i)) {
+                    add(i, nanos, false);
+                }
+                errors[i] += other.errors[i];
+            }
+        }
+    }
+}
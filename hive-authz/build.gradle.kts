@@ -5,8 +5,13 @@ java {
     targetCompatibility = JavaVersion.VERSION_1_8
 }
 
+// hive-authz.jar is copied into Hive's lib and Trino's hive plugin on its own, so libraries in
+// this configuration are packed into it
+val bundled: Configuration by configurations.creating
+
 configurations {
     implementation {
+        extendsFrom(bundled)
         resolutionStrategy.failOnVersionConflict()
     }
 }
@@ -22,5 +27,20 @@ dependencies {
         compileOnly("io.trino:${name}:455")
     }
     compileOnly("org.slf4j:slf4j-api:1.7.36")
+    bundled("org.mindrot:jbcrypt:0.4")
+
+    testImplementation("com.amazonaws:aws-java-sdk-sts:1.11.860")
+    testImplementation("org.junit.jupiter:junit-jupiter:5.10.3")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher:1.10.3")
+}
+
+tasks.jar {
+    from(provider { bundled.map { zipTree(it) } }) {
+        exclude("META-INF/**")
+    }
+}
+
+tasks.test {
+    useJUnitPlatform()
 }
 
@@ -0,0 +1,270 @@
+package com.github.skhatri.hive;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Catalog, schema and table rules of the Trino rules.json, compiled once, evaluated with the same
+ * first-match semantics as Trino's file based access control: the first rule whose user, group
+ * and object patterns all match decides, and no matching rule means no access. A section missing
+ * from the file allows everything, as in Trino.
+ * <p>
+ * Hive has no roles, so rules constrained by {@code role} never match here. Hive cannot apply row
+ * filters or column masks either, so a table rule with a {@code filter} grants no SELECT here and
+ * a column with a {@code mask} is treated as denied, rather than showing Hive users the unfiltered
+ * data that Trino users cannot see.
+ */
+final class AccessRules {
+    static final String SELECT = "SELECT";
+    static final String INSERT = "INSERT";
+    static final String DELETE = "DELETE";
+    static final String OWNERSHIP = "OWNERSHIP";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TableAccess ALL_TABLE_ACCESS = new TableAccess(
+        new HashSet<>(Arrays.asList(SELECT, INSERT, DELETE, OWNERSHIP)), Collections.<String>emptySet(), false);
+    private static final TableAccess NO_TABLE_ACCESS = new TableAccess(Collections.<String>emptySet(), Collections.<String>emptySet(), false);
+
+    private final List<CatalogRule> catalogRules;
+    private final List<SchemaRule> schemaRules;
+    private final List<TableRule> tableRules;
+
+    private AccessRules(List<CatalogRule> catalogRules, List<SchemaRule> schemaRules, List<TableRule> tableRules) {
+        this.catalogRules = catalogRules;
+        this.schemaRules = schemaRules;
+        this.tableRules = tableRules;
+    }
+
+    static AccessRules load(Path file) throws IOException {
+        JsonNode root;
+        try (InputStream in = Files.newInputStream(file)) {
+            root = MAPPER.readTree(in);
+        }
+        List<CatalogRule> catalogs = null;
+        if (root.has("catalogs")) {
+            catalogs = new ArrayList<>();
+            for (JsonNode rule : root.get("catalogs")) {
+                catalogs.add(new CatalogRule(new Subject(rule), pattern(rule, "catalog"), CatalogAccess.parse(rule.path("allow"))));
+            }
+        }
+        List<SchemaRule> schemas = null;
+        if (root.has("schemas")) {
+            schemas = new ArrayList<>();
+            for (JsonNode rule : root.get("schemas")) {
+                schemas.add(new SchemaRule(new Subject(rule), pattern(rule, "catalog"), pattern(rule, "schema"), rule.path("owner").asBoolean(false)));
+            }
+        }
+        List<TableRule> tables = null;
+        if (root.has("tables")) {
+            tables = new ArrayList<>();
+            for (JsonNode rule : root.get("tables")) {
+                Set<String> privileges = new HashSet<>();
+                for (JsonNode privilege : rule.path("privileges")) {
+                    privileges.add(privilege.asText().toUpperCase(Locale.ENGLISH));
+                }
+                Set<String> deniedColumns = new HashSet<>();
+                for (JsonNode column : rule.path("columns")) {
+                    if (!column.path("allow").asBoolean(true) || hasText(column, "mask")) {
+                        deniedColumns.add(column.path("name").asText().toLowerCase(Locale.ENGLISH));
+                    }
+                }
+                tables.add(new TableRule(
+                    new Subject(rule),
+                    pattern(rule, "catalog"),
+                    pattern(rule, "schema"),
+                    pattern(rule, "table"),
+                    new TableAccess(privileges, deniedColumns, hasText(rule, "filter"))));
+            }
+        }
+        return new AccessRules(catalogs, schemas, tables);
+    }
+
+    CatalogAccess catalogAccess(String user, List<String> groups, String catalog) {
+        if (catalogRules == null) {
+            return CatalogAccess.ALL;
+        }
+        for (CatalogRule rule : catalogRules) {
+            if (rule.subject.matches(user, groups) && matches(rule.catalog, catalog)) {
+                return rule.access;
+            }
+        }
+        return CatalogAccess.NONE;
+    }
+
+    boolean isSchemaOwner(String user, List<String> groups, String catalog, String schema) {
+        if (schemaRules == null) {
+            return true;
+        }
+        for (SchemaRule rule : schemaRules) {
+            if (rule.subject.matches(user, groups) && matches(rule.catalog, catalog) && matches(rule.schema, schema)) {
+                return rule.owner;
+            }
+        }
+        return false;
+    }
+
+    TableAccess tableAccess(String user, List<String> groups, String catalog, String schema, String table) {
+        if (tableRules == null) {
+            return ALL_TABLE_ACCESS;
+        }
+        for (TableRule rule : tableRules) {
+            if (rule.subject.matches(user, groups) && matches(rule.catalog, catalog) && matches(rule.schema, schema) && matches(rule.table, table)) {
+                return rule.access;
+            }
+        }
+        return NO_TABLE_ACCESS;
+    }
+
+    private static Pattern pattern(JsonNode rule, String field) {
+        JsonNode value = rule.get(field);
+        return value == null || value.isNull() ? null : Pattern.compile(value.asText());
+    }
+
+    private static boolean hasText(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && !value.isNull() && !value.asText().trim().isEmpty();
+    }
+
+    private static boolean matches(Pattern pattern, String value) {
+        return pattern == null || pattern.matcher(value).matches();
+    }
+
+    enum CatalogAccess {
+        ALL, READ_ONLY, NONE;
+
+        static CatalogAccess parse(JsonNode allow) {
+            if (allow.isBoolean()) {
+                return allow.asBoolean() ? ALL : NONE;
+            }
+            switch (allow.asText("none").toLowerCase(Locale.ENGLISH)) {
+                case "all":
+                    return ALL;
+                case "read-only":
+                    return READ_ONLY;
+                default:
+                    return NONE;
+            }
+        }
+    }
+
+    /**
+     * Privileges granted on a table by the rule that matched, the columns that rule hides or masks,
+     * and whether it filters rows.
+     */
+    static final class TableAccess {
+        private final Set<String> privileges;
+        private final Set<String> deniedColumns;
+        private final boolean filtered;
+
+        TableAccess(Set<String> privileges, Set<String> deniedColumns, boolean filtered) {
+            this.privileges = privileges;
+            this.deniedColumns = deniedColumns;
+            this.filtered = filtered;
+        }
+
+        boolean isFiltered() {
+            return filtered;
+        }
+
+        boolean has(String privilege) {
+            return privileges.contains(privilege);
+        }
+
+        /**
+         * Returns the first of the columns hidden from the user, or null.
+         */
+        String deniedColumn(List<String> columns) {
+            if (columns == null || deniedColumns.isEmpty()) {
+                return null;
+            }
+            for (String column : columns) {
+                if (deniedColumns.contains(column.toLowerCase(Locale.ENGLISH))) {
+                    return column;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class Subject {
+        private final Pattern user;
+        private final Pattern group;
+        private final boolean hasRole;
+
+        Subject(JsonNode rule) {
+            this.user = pattern(rule, "user");
+            this.group = pattern(rule, "group");
+            this.hasRole = rule.has("role");
+        }
+
+        boolean matches(String userName, List<String> groups) {
+            if (hasRole || !AccessRules.matches(user, userName)) {
+                return false;
+            }
+            if (group == null) {
+                return true;
+            }
+            for (String name : groups) {
+                if (group.matcher(name).matches()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class CatalogRule {
+        private final Subject subject;
+        private final Pattern catalog;
+        private final CatalogAccess access;
+
+        CatalogRule(Subject subject, Pattern catalog, CatalogAccess access) {
+            this.subject = subject;
+            this.catalog = catalog;
+            this.access = access;
+        }
+    }
+
+    private static final class SchemaRule {
+        private final Subject subject;
+        private final Pattern catalog;
+        private final Pattern schema;
+        private final boolean owner;
+
+        SchemaRule(Subject subject, Pattern catalog, Pattern schema, boolean owner) {
+            this.subject = subject;
+            this.catalog = catalog;
+            this.schema = schema;
+            this.owner = owner;
+        }
+    }
+
+    private static final class TableRule {
+        private final Subject subject;
+        private final Pattern catalog;
+        private final Pattern schema;
+        private final Pattern table;
+        private final TableAccess access;
+
+        TableRule(Subject subject, Pattern catalog, Pattern schema, Pattern table, TableAccess access) {
+            this.subject = subject;
+            this.catalog = catalog;
+            this.schema = schema;
+            this.table = table;
+            this.access = access;
+        }
+    }
+}
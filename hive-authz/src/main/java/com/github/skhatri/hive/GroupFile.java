@@ -0,0 +1,131 @@
+package com.github.skhatri.hive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Groups of the {@code group:user1,user2} files Trino's group provider reads, so a rule with a
+ * {@code group} matches the same users on both engines. The source is a single file or a
+ * directory whose regular files are merged. It is re-read at most once per refresh period when a
+ * file was added, removed or modified; a source that does not exist yet has no groups, and one
+ * that fails to parse keeps the previous groups.
+ */
+final class GroupFile {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GroupFile.class);
+    private static final long MISSING = Long.MIN_VALUE;
+
+    private final Path source;
+    private final long refreshMillis;
+    private final AtomicLong nextCheck = new AtomicLong();
+    private volatile Map<String, List<String>> groupsByUser = Collections.emptyMap();
+    private volatile long loadedSignature = MISSING;
+
+    GroupFile(Path source, long refreshMillis) {
+        this.source = source;
+        this.refreshMillis = refreshMillis;
+        if (Files.exists(source)) {
+            try {
+                loadedSignature = signature(source);
+                groupsByUser = load(source);
+            } catch (IOException e) {
+                throw new IllegalStateException("cannot read groups from " + source, e);
+            }
+            LOGGER.info("loaded groups of {} users from {}", groupsByUser.size(), source);
+        } else {
+            LOGGER.info("{} not found, no groups until it appears", source);
+        }
+        nextCheck.set(System.currentTimeMillis() + refreshMillis);
+    }
+
+    List<String> groups(String user) {
+        long now = System.currentTimeMillis();
+        long check = nextCheck.get();
+        if (now >= check && nextCheck.compareAndSet(check, now + refreshMillis)) {
+            refresh();
+        }
+        List<String> groups = groupsByUser.get(user);
+        return groups == null ? Collections.<String>emptyList() : groups;
+    }
+
+    void refresh() {
+        if (loadedSignature == MISSING && !Files.exists(source)) {
+            return;
+        }
+        try {
+            long signature = signature(source);
+            if (signature != loadedSignature) {
+                groupsByUser = load(source);
+                loadedSignature = signature;
+                LOGGER.info("reloaded groups of {} users from {}", groupsByUser.size(), source);
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("failed to reload groups from {}, keeping previous groups", source, e);
+        }
+    }
+
+    static Map<String, List<String>> load(Path source) throws IOException {
+        Map<String, Set<String>> groupsByUser = new HashMap<>();
+        for (Path file : files(source)) {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i).trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int separator = line.indexOf(':');
+                if (separator <= 0) {
+                    throw new IllegalArgumentException("invalid entry in " + file + " at line " + (i + 1));
+                }
+                String group = line.substring(0, separator).trim();
+                for (String user : line.substring(separator + 1).split(",")) {
+                    user = user.trim();
+                    if (!user.isEmpty()) {
+                        groupsByUser.computeIfAbsent(user, ignored -> new LinkedHashSet<>()).add(group);
+                    }
+                }
+            }
+        }
+        Map<String, List<String>> groups = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : groupsByUser.entrySet()) {
+            groups.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+        }
+        return Collections.unmodifiableMap(groups);
+    }
+
+    private static long signature(Path source) throws IOException {
+        long signature = 17;
+        for (Path file : files(source)) {
+            signature = signature * 31 + file.getFileName().hashCode();
+            signature = signature * 31 + Files.getLastModifiedTime(file).toMillis();
+            signature = signature * 31 + Files.size(file);
+        }
+        return signature;
+    }
+
+    private static List<Path> files(Path source) throws IOException {
+        if (!Files.isDirectory(source)) {
+            return Collections.singletonList(source);
+        }
+        try (Stream<Path> entries = Files.list(source)) {
+            return entries.filter(Files::isRegularFile)
+                .filter(path -> !path.getFileName().toString().startsWith("."))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+}
@@ -1,15 +1,334 @@
 package com.github.skhatri.hive;
 
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hive.service.auth.PasswdAuthenticationProvider;
+import org.mindrot.jbcrypt.BCrypt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.crypto.Mac;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
 import javax.security.sasl.AuthenticationException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * HiveServer2 password authentication ({@code hive.server2.authentication=CUSTOM}) against the
+ * same {@code user:hash} password file Trino uses, with bcrypt ({@code $2y$...}) or PBKDF2
+ * ({@code iterations:saltHex:hashHex}) hashes.
+ * <p>
+ * Hive creates a provider for every connection, so the parsed file and the cache of successful
+ * verifications live in a store shared per file. A daemon thread replaces the parsed entries when
+ * the file's modification time changes. Verified credentials are remembered for
+ * {@value #CACHE_TTL_SECONDS} (five minutes by default) under an HMAC of (user, password, stored
+ * hash) keyed with a random per-process key, so reconnecting clients skip the bcrypt rounds, the
+ * password is never kept, and a changed hash stops matching old entries. Once {@value #CACHE_SIZE}
+ * entries are held, each new one evicts the least recently used. A user that is not in the file is
+ * checked against another user's hash, so the response time does not tell which users exist.
+ * <p>
+ * Hashes are validated when the file is loaded, with the same rules as the Trino side: bcrypt with a
+ * cost of at least {@value #MIN_BCRYPT_COST}, PBKDF2 with at least {@value #MIN_PBKDF2_ITERATIONS}
+ * iterations and hex salt and hash. A file with an invalid entry is rejected as a whole. Bcrypt
+ * hashes are checked with jBCrypt, which is bundled into this jar.
+ */
+public class HiveExtAuthenticator implements PasswdAuthenticationProvider, Configurable {
+    static final String PASSWORD_FILE = "hive.ext.authn.password-file";
+    static final String REFRESH_SECONDS = "hive.ext.authn.refresh-seconds";
+    static final String CACHE_TTL_SECONDS = "hive.ext.authn.cache-ttl-seconds";
+    static final String CACHE_SIZE = "hive.ext.authn.cache-size";
+    static final int MIN_BCRYPT_COST = 8;
+    static final int MIN_PBKDF2_ITERATIONS = 1000;
+    // jBCrypt rejects a cost of 31
+    static final int MAX_BCRYPT_COST = 30;
+    private static final Pattern BCRYPT_HASH = Pattern.compile("\\$2[aby]\\$(\\d{2})\\$[./A-Za-z0-9]{53}");
+
+    private static final ConcurrentMap<String, PasswordStore> STORES = new ConcurrentHashMap<>();
+
+    private Configuration conf;
 
-//hive.server2.custom.authentication.class
-public class HiveExtAuthenticator implements PasswdAuthenticationProvider {
     @Override
     public void Authenticate(String user, String password) throws AuthenticationException {
-        if (!"password".equals(password)) {
-            throw new AuthenticationException("invalid password");
+        if (user == null || password == null) {
+            throw new AuthenticationException("invalid credentials");
+        }
+        if (!store().authenticate(user, password)) {
+            throw new AuthenticationException("invalid credentials for " + user);
+        }
+    }
+
+    private PasswordStore store() throws AuthenticationException {
+        final Configuration conf = this.conf == null ? new Configuration(false) : this.conf;
+        final String passwordFile = conf.get(PASSWORD_FILE, "/opt/hive/security/passwords/password.db");
+        try {
+            return STORES.computeIfAbsent(passwordFile, file -> new PasswordStore(
+                Paths.get(file),
+                TimeUnit.SECONDS.toMillis(conf.getLong(REFRESH_SECONDS, 60)),
+                TimeUnit.SECONDS.toMillis(conf.getLong(CACHE_TTL_SECONDS, 300)),
+                conf.getInt(CACHE_SIZE, 10_000)));
+        } catch (RuntimeException e) {
+            throw new AuthenticationException("cannot load password file " + passwordFile, e);
+        }
+    }
+
+    @Override
+    public void setConf(Configuration configuration) {
+        this.conf = configuration;
+    }
+
+    @Override
+    public Configuration getConf() {
+        return conf;
+    }
+
+    static boolean matches(String password, String hash) {
+        if (BCRYPT_HASH.matcher(hash).matches()) {
+            // jBCrypt only reads $2a$; $2b$ and $2y$ mark other implementations' bug fixes and
+            // hash a password the same way
+            try {
+                return BCrypt.checkpw(password, "$2a" + hash.substring(3));
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+        String[] parts = hash.split(":", -1);
+        if (parts.length != 3) {
+            return false;
+        }
+        byte[] salt = hex(parts[1]);
+        byte[] expected = hex(parts[2]);
+        if (salt == null || expected == null) {
+            return false;
+        }
+        try {
+            PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, Integer.parseInt(parts[0]), expected.length * 8);
+            byte[] actual = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+            return MessageDigest.isEqual(expected, actual);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2WithHmacSHA256 is not available", e);
+        }
+    }
+
+    static void checkHash(String hash) {
+        if (hash.startsWith("$2")) {
+            Matcher bcrypt = BCRYPT_HASH.matcher(hash);
+            if (!bcrypt.matches()) {
+                throw new IllegalArgumentException("malformed bcrypt hash");
+            }
+            int cost = Integer.parseInt(bcrypt.group(1));
+            if (cost < MIN_BCRYPT_COST || cost > MAX_BCRYPT_COST) {
+                throw new IllegalArgumentException("bcrypt cost must be between " + MIN_BCRYPT_COST + " and " + MAX_BCRYPT_COST);
+            }
+            return;
+        }
+        String[] parts = hash.split(":", -1);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("hash is neither bcrypt nor PBKDF2");
+        }
+        int iterations;
+        try {
+            iterations = Integer.parseInt(parts[0]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("PBKDF2 iteration count is not a number");
+        }
+        if (iterations < MIN_PBKDF2_ITERATIONS) {
+            throw new IllegalArgumentException("PBKDF2 iteration count must be at least " + MIN_PBKDF2_ITERATIONS);
+        }
+        if (hex(parts[1]) == null) {
+            throw new IllegalArgumentException("PBKDF2 salt is not hex");
+        }
+        if (hex(parts[2]) == null) {
+            throw new IllegalArgumentException("PBKDF2 hash is not hex");
+        }
+    }
+
+    /**
+     * Decodes a non-empty, even length hex string, or returns null for anything else.
+     */
+    static byte[] hex(String value) {
+        if (value.isEmpty() || value.length() % 2 != 0) {
+            return null;
+        }
+        byte[] bytes = new byte[value.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(value.charAt(2 * i), 16);
+            int low = Character.digit(value.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        return bytes;
+    }
+
+    private static final class PasswordStore {
+        private static final Logger LOGGER = LoggerFactory.getLogger(PasswordStore.class);
+
+        private final Path file;
+        private final long cacheTtlMillis;
+        private final byte[] cacheKey = new byte[32];
+        private final ThreadLocal<Mac> mac;
+        private final VerifiedCache verified;
+        private volatile Map<String, String> hashes;
+        private volatile String unknownUserHash;
+        private volatile long loadedModified;
+
+        PasswordStore(Path file, long refreshMillis, long cacheTtlMillis, int cacheSize) {
+            this.file = file;
+            this.cacheTtlMillis = cacheTtlMillis;
+            this.verified = new VerifiedCache(cacheSize);
+            new SecureRandom().nextBytes(cacheKey);
+            this.mac = ThreadLocal.withInitial(() -> {
+                try {
+                    Mac mac = Mac.getInstance("HmacSHA256");
+                    mac.init(new SecretKeySpec(cacheKey, "HmacSHA256"));
+                    return mac;
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("HmacSHA256 is not available", e);
+                }
+            });
+            try {
+                reload();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            ScheduledExecutorService reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "password-file-reloader");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reloader.scheduleWithFixedDelay(this::reloadIfModified, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+        }
+
+        boolean authenticate(String user, String password) {
+            String hash = hashes.get(user);
+            if (hash == null) {
+                String decoy = unknownUserHash;
+                if (decoy != null) {
+                    // same work as a wrong password of a known user, the result does not matter
+                    matches(password, decoy);
+                }
+                return false;
+            }
+            String key = cacheKey(user, password, hash);
+            long now = System.currentTimeMillis();
+            if (verified.contains(key, now)) {
+                return true;
+            }
+            if (!matches(password, hash)) {
+                return false;
+            }
+            verified.put(key, now + cacheTtlMillis);
+            return true;
+        }
+
+        private String cacheKey(String user, String password, String hash) {
+            Mac mac = this.mac.get();
+            mac.update(user.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            mac.update(password.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return Base64.getEncoder().encodeToString(mac.doFinal(hash.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        private void reloadIfModified() {
+            try {
+                if (Files.getLastModifiedTime(file).toMillis() != loadedModified) {
+                    reload();
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("failed to reload password file {}, keeping previous entries", file, e);
+            }
+        }
+
+        private void reload() throws IOException {
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            Map<String, String> loaded = parse(Files.readAllLines(file, StandardCharsets.UTF_8));
+            hashes = loaded;
+            unknownUserHash = loaded.isEmpty() ? null : loaded.values().iterator().next();
+            loadedModified = modified;
+            LOGGER.info("loaded {} users from password file {}", hashes.size(), file);
+        }
+
+        private Map<String, String> parse(List<String> lines) {
+            Map<String, String> entries = new HashMap<>();
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i).trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int separator = line.indexOf(':');
+                if (separator <= 0) {
+                    throw new IllegalArgumentException("invalid entry in " + file + " at line " + (i + 1));
+                }
+                String hash = line.substring(separator + 1);
+                try {
+                    checkHash(hash);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("invalid entry in " + file + " at line " + (i + 1) + ": " + e.getMessage());
+                }
+                entries.put(line.substring(0, separator), hash);
+            }
+            return Collections.unmodifiableMap(entries);
+        }
+    }
+
+    /**
+     * Expiry times of verified credentials, bounded to a fixed number of entries. Lookups refresh
+     * an entry's position, so a full cache evicts the credential that was used longest ago and
+     * clients that keep reconnecting stay cached.
+     */
+    static final class VerifiedCache {
+        private final Map<String, Long> expiries;
+
+        VerifiedCache(final int maxSize) {
+            this.expiries = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        synchronized boolean contains(String key, long now) {
+            Long expiry = expiries.get(key);
+            if (expiry == null) {
+                return false;
+            }
+            if (expiry <= now) {
+                expiries.remove(key);
+                return false;
+            }
+            return true;
+        }
+
+        synchronized void put(String key, long expiry) {
+            expiries.put(key, expiry);
+        }
+
+        synchronized int size() {
+            return expiries.size();
         }
     }
 }
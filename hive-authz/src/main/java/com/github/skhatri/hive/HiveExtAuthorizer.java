@@ -9,57 +9,292 @@ import org.apache.hadoop.hive.ql.metadata.Table;
 import org.apache.hadoop.hive.ql.security.HiveAuthenticationProvider;
 import org.apache.hadoop.hive.ql.security.authorization.HiveAuthorizationProvider;
 import org.apache.hadoop.hive.ql.security.authorization.Privilege;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * HiveServer2 authorization from the rules.json Trino uses, so a user gets the same access to the
+ * hive catalog whichever engine they query it through. Hive databases are Trino schemas of the
+ * catalog named by {@value #CATALOG} ({@code hive} by default). A user's groups are those Hive
+ * reports plus those of the group file named by {@value #GROUPS_FILE}, the files Trino's group
+ * provider reads.
+ * <p>
+ * Hive asks once per partition, thousands of times for one query over a date partitioned table,
+ * so the rule match for a (user, groups, table) is cached and each partition costs one map lookup.
+ * Hive creates an authorizer per session; the compiled rules and the decision cache are shared by
+ * all sessions and replaced together when the rules file changes. A full cache evicts one entry
+ * per new decision.
+ */
 public class HiveExtAuthorizer implements HiveAuthorizationProvider {
+    static final String RULES_FILE = "hive.ext.authz.rules-file";
+    static final String CATALOG = "hive.ext.authz.catalog";
+    static final String REFRESH_SECONDS = "hive.ext.authz.refresh-seconds";
+    static final String DECISION_CACHE_SIZE = "hive.ext.authz.decision-cache-size";
+    static final String GROUPS_FILE = "hive.ext.authz.groups-file";
+
+    private static final ConcurrentMap<String, SharedRules> SHARED_RULES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, GroupFile> SHARED_GROUPS = new ConcurrentHashMap<>();
+
+    private Configuration conf;
+    private HiveAuthenticationProvider authenticator;
+    private SharedRules rules;
+    private GroupFile groupFile;
+    private String catalog;
+
     @Override
     public void init(Configuration conf) throws HiveException {
-
+        this.conf = conf;
+        this.catalog = conf.get(CATALOG, "hive");
+        final String rulesFile = conf.get(RULES_FILE, "/opt/hive/security/rules/rules.json");
+        final long refreshMillis = TimeUnit.SECONDS.toMillis(conf.getLong(REFRESH_SECONDS, 60));
+        final int cacheSize = conf.getInt(DECISION_CACHE_SIZE, 100_000);
+        final String groupsFile = conf.get(GROUPS_FILE, "/opt/hive/security/groups");
+        try {
+            this.rules = SHARED_RULES.computeIfAbsent(rulesFile, file -> new SharedRules(Paths.get(file), refreshMillis, cacheSize));
+        } catch (RuntimeException e) {
+            throw new HiveException("cannot load authorization rules from " + rulesFile, e);
+        }
+        try {
+            this.groupFile = SHARED_GROUPS.computeIfAbsent(groupsFile, file -> new GroupFile(Paths.get(file), refreshMillis));
+        } catch (RuntimeException e) {
+            throw new HiveException("cannot load groups from " + groupsFile, e);
+        }
     }
 
     @Override
     public HiveAuthenticationProvider getAuthenticator() {
-        return null;
+        return authenticator;
     }
 
     @Override
     public void setAuthenticator(HiveAuthenticationProvider authenticator) {
-
+        this.authenticator = authenticator;
     }
 
     @Override
     public void authorize(Privilege[] readRequiredPriv, Privilege[] writeRequiredPriv) throws HiveException, AuthorizationException {
-
+        AccessRules.CatalogAccess access = rules.current().rules.catalogAccess(user(), groups(), catalog);
+        checkCatalogAccess(access, writeRequiredPriv, catalog);
     }
 
     @Override
     public void authorize(Database db, Privilege[] readRequiredPriv, Privilege[] writeRequiredPriv) throws HiveException, AuthorizationException {
-
+        String user = user();
+        List<String> groups = groups();
+        AccessRules rules = this.rules.current().rules;
+        checkCatalogAccess(rules.catalogAccess(user, groups, catalog), writeRequiredPriv, db.getName());
+        if (hasAny(writeRequiredPriv) && !rules.isSchemaOwner(user, groups, catalog, db.getName())) {
+            throw new AuthorizationException(user + " does not own database " + db.getName());
+        }
     }
 
     @Override
     public void authorize(Table table, Privilege[] readRequiredPriv, Privilege[] writeRequiredPriv) throws HiveException, AuthorizationException {
-
+        authorize(table, null, readRequiredPriv, writeRequiredPriv);
     }
 
     @Override
     public void authorize(Partition part, Privilege[] readRequiredPriv, Privilege[] writeRequiredPriv) throws HiveException, AuthorizationException {
-
+        authorize(part.getTable(), null, readRequiredPriv, writeRequiredPriv);
     }
 
     @Override
     public void authorize(Table table, Partition part, List<String> columns, Privilege[] readRequiredPriv, Privilege[] writeRequiredPriv) throws HiveException, AuthorizationException {
+        authorize(table, columns, readRequiredPriv, writeRequiredPriv);
+    }
+
+    private void authorize(Table table, List<String> columns, Privilege[] readRequiredPriv, Privilege[] writeRequiredPriv) {
+        String user = user();
+        Decision decision = rules.current().decide(user, groups(), catalog, table.getDbName(), table.getTableName());
+        String name = table.getDbName() + "." + table.getTableName();
+        checkCatalogAccess(decision.catalogAccess, writeRequiredPriv, name);
+        for (Privilege[] privileges : new Privilege[][] {readRequiredPriv, writeRequiredPriv}) {
+            if (privileges == null) {
+                continue;
+            }
+            for (Privilege privilege : privileges) {
+                String required = ruleName(privilege);
+                if (required != null && !decision.tableAccess.has(required)) {
+                    throw new AuthorizationException(user + " lacks " + required + " on " + name);
+                }
+                if (AccessRules.SELECT.equals(required) && decision.tableAccess.isFiltered()) {
+                    throw new AuthorizationException(user + " has a row filter on " + name + " that Hive cannot apply");
+                }
+            }
+        }
+        if (hasAny(readRequiredPriv)) {
+            String column = decision.tableAccess.deniedColumn(columns);
+            if (column != null) {
+                throw new AuthorizationException(user + " cannot read column " + column + " of " + name);
+            }
+        }
+    }
+
+    private void checkCatalogAccess(AccessRules.CatalogAccess access, Privilege[] writeRequiredPriv, String object) {
+        if (access == AccessRules.CatalogAccess.NONE) {
+            throw new AuthorizationException(user() + " has no access to catalog " + catalog);
+        }
+        if (access == AccessRules.CatalogAccess.READ_ONLY && hasAny(writeRequiredPriv)) {
+            throw new AuthorizationException(user() + " has read-only access to catalog " + catalog + " and cannot modify " + object);
+        }
+    }
+
+    /**
+     * Maps a Hive privilege to the rules.json table privilege it needs, or null when none.
+     */
+    private static String ruleName(Privilege privilege) {
+        switch (privilege.getPriv().name()) {
+            case "SELECT":
+                return AccessRules.SELECT;
+            case "INSERT":
+            case "UPDATE":
+            case "ALTER_DATA":
+                return AccessRules.INSERT;
+            case "DELETE":
+                return AccessRules.DELETE;
+            case "SHOW_DATABASE":
+                return null;
+            default:
+                return AccessRules.OWNERSHIP;
+        }
+    }
+
+    private static boolean hasAny(Privilege[] privileges) {
+        return privileges != null && privileges.length > 0;
+    }
+
+    private String user() {
+        if (authenticator == null || authenticator.getUserName() == null) {
+            throw new AuthorizationException("no authenticated user");
+        }
+        return authenticator.getUserName();
+    }
 
+    private List<String> groups() {
+        List<String> reported = authenticator == null ? null : authenticator.getGroupNames();
+        List<String> listed = groupFile.groups(user());
+        if (reported == null || reported.isEmpty()) {
+            return listed;
+        }
+        if (listed.isEmpty()) {
+            return reported;
+        }
+        Set<String> groups = new LinkedHashSet<>(reported);
+        groups.addAll(listed);
+        return new ArrayList<>(groups);
     }
 
     @Override
     public void setConf(Configuration configuration) {
-
+        this.conf = configuration;
     }
 
     @Override
     public Configuration getConf() {
-        return null;
+        return conf;
+    }
+
+    /**
+     * Rules of one file with their decision cache, reloaded at most once per refresh period when
+     * the file's modification time changed. The check happens on the calling thread; only the
+     * thread that wins the next-check slot stats the file.
+     */
+    private static final class SharedRules {
+        private static final Logger LOGGER = LoggerFactory.getLogger(SharedRules.class);
+
+        private final Path file;
+        private final long refreshMillis;
+        private final int cacheSize;
+        private final AtomicLong nextCheck = new AtomicLong();
+        private volatile Snapshot snapshot;
+
+        SharedRules(Path file, long refreshMillis, int cacheSize) {
+            this.file = file;
+            this.refreshMillis = refreshMillis;
+            this.cacheSize = cacheSize;
+            try {
+                this.snapshot = load();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            nextCheck.set(System.currentTimeMillis() + refreshMillis);
+        }
+
+        Snapshot current() {
+            long now = System.currentTimeMillis();
+            long check = nextCheck.get();
+            if (now >= check && nextCheck.compareAndSet(check, now + refreshMillis)) {
+                try {
+                    if (Files.getLastModifiedTime(file).toMillis() != snapshot.modified) {
+                        snapshot = load();
+                        LOGGER.info("reloaded authorization rules from {}", file);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.warn("failed to reload authorization rules from {}, keeping previous rules", file, e);
+                }
+            }
+            return snapshot;
+        }
+
+        private Snapshot load() throws IOException {
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            return new Snapshot(AccessRules.load(file), modified, cacheSize);
+        }
+    }
+
+    private static final class Snapshot {
+        private final AccessRules rules;
+        private final long modified;
+        private final int cacheSize;
+        private final ConcurrentMap<String, Decision> decisions = new ConcurrentHashMap<>();
+
+        Snapshot(AccessRules rules, long modified, int cacheSize) {
+            this.rules = rules;
+            this.modified = modified;
+            this.cacheSize = cacheSize;
+        }
+
+        Decision decide(String user, List<String> groups, String catalog, String schema, String table) {
+            String key = user + '\u0000' + groups + '\u0000' + catalog + '\u0000' + schema + '\u0000' + table;
+            Decision decision = decisions.get(key);
+            if (decision == null) {
+                decision = new Decision(
+                    rules.catalogAccess(user, groups, catalog),
+                    rules.tableAccess(user, groups, catalog, schema, table));
+                if (decisions.size() >= cacheSize) {
+                    // one out per one in; clearing would make every running query miss at once
+                    Iterator<String> keys = decisions.keySet().iterator();
+                    if (keys.hasNext()) {
+                        decisions.remove(keys.next());
+                    }
+                }
+                decisions.put(key, decision);
+            }
+            return decision;
+        }
+    }
+
+    private static final class Decision {
+        private final AccessRules.CatalogAccess catalogAccess;
+        private final AccessRules.TableAccess tableAccess;
+
+        Decision(AccessRules.CatalogAccess catalogAccess, AccessRules.TableAccess tableAccess) {
+            this.catalogAccess = catalogAccess;
+            this.tableAccess = tableAccess;
+        }
     }
 }
@@ -2,16 +2,31 @@ package com.github.skhatri.s3;
 
 import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.auth.AWSCredentialsProvider;
-import com.amazonaws.auth.BasicAWSCredentials;
+import org.apache.hadoop.conf.Configuration;
+
+import java.net.URI;
 
 public class AwsCustomCredentialsProvider implements AWSCredentialsProvider {
+    private final CachedCredentials credentials;
+
+    public AwsCustomCredentialsProvider() {
+        this.credentials = CachedCredentials.shared();
+    }
+
+    /**
+     * Used by S3A, which prefers this constructor and passes the bucket being opened.
+     */
+    public AwsCustomCredentialsProvider(URI uri, Configuration conf) {
+        this.credentials = RoleMapping.credentialsFor(uri, conf);
+    }
 
     @Override
     public AWSCredentials getCredentials() {
-        return CredentialsFactory.create();
+        return credentials.get();
     }
 
     @Override
     public void refresh() {
+        credentials.refresh();
     }
 }
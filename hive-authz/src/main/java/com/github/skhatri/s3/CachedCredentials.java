@@ -0,0 +1,176 @@
+package com.github.skhatri.s3;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.auth.AWSCredentials;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Session credentials of one role, shared by the credentials providers of the process: the
+ * environment's role is {@link #shared()}, mapped roles are pooled by {@link RoleMapping}. S3
+ * clients ask for credentials on each request; reading them here is a volatile read, while a
+ * daemon thread fetches new ones once about three quarters of the session lifetime has passed.
+ * <p>
+ * A failed fetch is retried with jittered exponential backoff and the current credentials keep
+ * being served until they actually expire. Only when there are no unexpired credentials does a
+ * caller fetch synchronously; concurrent callers wait for that one fetch, and its failure is
+ * reported to them. After a failure, callers fail fast until the next background attempt instead
+ * of each calling STS. STS is never called while holding the monitor, so a slow exchange does not
+ * block {@link #refresh()} or the scheduling of the next attempt.
+ */
+final class CachedCredentials {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachedCredentials.class);
+    private static final CachedCredentials DEFAULT = new CachedCredentials("default", CredentialsFactory::create);
+
+    private static final long MAX_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(2);
+    // credentials this close to expiry are treated as expired, S3 requests take a while
+    private static final long EXPIRY_MARGIN_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final ScheduledExecutorService REFRESHER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "aws-credentials-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String name;
+    private final Callable<CredentialsFactory.Session> loader;
+    private volatile CredentialsFactory.Session session;
+    // guarded by this
+    private ScheduledFuture<?> scheduled;
+    private long backoffMillis;
+    private CompletableFuture<CredentialsFactory.Session> inFlight;
+    private Exception lastFailure;
+    private long retryAtMillis;
+
+    CachedCredentials(String name, Callable<CredentialsFactory.Session> loader) {
+        this.name = name;
+        this.loader = loader;
+    }
+
+    static CachedCredentials shared() {
+        return DEFAULT;
+    }
+
+    AWSCredentials get() {
+        CredentialsFactory.Session current = session;
+        if (current != null && isUsable(current)) {
+            return current.credentials;
+        }
+        return load().credentials;
+    }
+
+    /**
+     * Asks for new credentials in the background, e.g. after S3 rejected the current ones.
+     */
+    synchronized void refresh() {
+        if (session != null && session.expiresAtMillis != Long.MAX_VALUE) {
+            schedule(0);
+        }
+    }
+
+    private CredentialsFactory.Session load() {
+        CompletableFuture<CredentialsFactory.Session> fetch;
+        boolean owner = false;
+        synchronized (this) {
+            CredentialsFactory.Session current = session;
+            if (current != null && isUsable(current)) {
+                return current;
+            }
+            if (inFlight != null) {
+                fetch = inFlight;
+            } else {
+                long now = System.currentTimeMillis();
+                if (lastFailure != null && now < retryAtMillis) {
+                    throw new SdkClientException("cannot obtain " + name + " AWS credentials, next attempt in " + (retryAtMillis - now) + "ms", lastFailure);
+                }
+                fetch = new CompletableFuture<>();
+                inFlight = fetch;
+                owner = true;
+            }
+        }
+        if (owner) {
+            fetch(fetch);
+        }
+        try {
+            return fetch.join();
+        } catch (CompletionException e) {
+            throw new SdkClientException("cannot obtain " + name + " AWS credentials", e.getCause());
+        }
+    }
+
+    private void refreshInBackground() {
+        CompletableFuture<CredentialsFactory.Session> fetch = new CompletableFuture<>();
+        synchronized (this) {
+            if (inFlight != null) {
+                // a caller is fetching, its outcome schedules the next attempt
+                return;
+            }
+            inFlight = fetch;
+        }
+        fetch(fetch);
+    }
+
+    /**
+     * Calls STS outside the monitor and publishes the outcome to {@code result}.
+     */
+    private void fetch(CompletableFuture<CredentialsFactory.Session> result) {
+        CredentialsFactory.Session fresh;
+        try {
+            fresh = loader.call();
+        } catch (Exception e) {
+            synchronized (this) {
+                inFlight = null;
+                failed(e);
+            }
+            result.completeExceptionally(e);
+            return;
+        }
+        synchronized (this) {
+            inFlight = null;
+            update(fresh);
+        }
+        result.complete(fresh);
+    }
+
+    private void failed(Exception e) {
+        backoffMillis = Math.min(Math.max(backoffMillis * 2, TimeUnit.SECONDS.toMillis(1)), MAX_BACKOFF_MILLIS);
+        long delay = backoffMillis / 2 + ThreadLocalRandom.current().nextLong(backoffMillis / 2 + 1);
+        lastFailure = e;
+        retryAtMillis = System.currentTimeMillis() + delay;
+        LOGGER.warn("failed to obtain {} AWS credentials, retrying in {}ms", name, delay, e);
+        schedule(delay);
+    }
+
+    private void update(CredentialsFactory.Session fresh) {
+        session = fresh;
+        backoffMillis = 0;
+        lastFailure = null;
+        if (fresh.expiresAtMillis == Long.MAX_VALUE) {
+            return;
+        }
+        long lifetime = fresh.expiresAtMillis - EXPIRY_MARGIN_MILLIS - System.currentTimeMillis();
+        // spread refreshes of processes started together
+        long delay = lifetime * 3 / 4 - ThreadLocalRandom.current().nextLong(Math.max(lifetime / 20, 1));
+        LOGGER.info("obtained {} AWS credentials valid for {}s, refreshing in {}s", name, lifetime / 1000, delay / 1000);
+        schedule(Math.max(delay, TimeUnit.SECONDS.toMillis(1)));
+    }
+
+    private void schedule(long delayMillis) {
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+        scheduled = REFRESHER.schedule(this::refreshInBackground, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static boolean isUsable(CredentialsFactory.Session session) {
+        return session.expiresAtMillis - EXPIRY_MARGIN_MILLIS > System.currentTimeMillis();
+    }
+}
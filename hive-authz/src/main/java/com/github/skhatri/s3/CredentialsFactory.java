@@ -1,39 +1,114 @@
 package com.github.skhatri.s3;
 
 import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AnonymousAWSCredentials;
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
-import com.amazonaws.auth.WebIdentityTokenCredentialsProvider;
+import com.amazonaws.auth.BasicSessionCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.services.securitytoken.AWSSecurityTokenService;
+import com.amazonaws.services.securitytoken.AWSSecurityTokenServiceClientBuilder;
+import com.amazonaws.services.securitytoken.model.AssumeRoleWithWebIdentityRequest;
+import com.amazonaws.services.securitytoken.model.Credentials;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
 class CredentialsFactory {
     private static final Logger LOGGER = LoggerFactory.getLogger(CredentialsFactory.class);
 
     private CredentialsFactory() {
     }
 
-    static final AWSCredentials create() {
+    /**
+     * Returns static credentials from {@code STORE_KEY}/{@code STORE_SECRET} when set, otherwise
+     * exchanges the web identity token for session credentials of the role. The token file is
+     * read on every call since the platform rotates it. {@code STORE_STS_ENDPOINT} and
+     * {@code STORE_STS_REGION} point the exchange at a non-default STS, such as a local stub.
+     */
+    static Session create() {
         String accessKey = System.getenv("STORE_KEY");
         String secretKey = System.getenv("STORE_SECRET");
-        String identityFile = System.getenv("STORE_TOKEN_FILE");
-        String roleArn = System.getenv("STORE_ROLE_ARN");
-
-        AWSCredentials credentials = null;
-        if(accessKey != null && secretKey != null) {
-            LOGGER.info("using basic AWS credentials {}**\n", accessKey.substring(0, accessKey.length() > 5 ? 5 : accessKey.length()));
-            credentials = new BasicAWSCredentials(accessKey, secretKey);
-        } else {
-            WebIdentityTokenCredentialsProvider.Builder builder = WebIdentityTokenCredentialsProvider.builder();
-            if (roleArn != null) {
-                LOGGER.info("adding ROLE ARN {}", roleArn);
-                builder = builder.roleArn(roleArn);
-            }
-            if (identityFile != null) {
-                LOGGER.info("adding identity file {} to create S3 credentials", identityFile);
-                builder = builder.webIdentityTokenFile(identityFile);
-            }
-            credentials = builder.build().getCredentials();
+        if (accessKey != null && secretKey != null) {
+            LOGGER.info("using basic AWS credentials {}**", accessKey.substring(0, accessKey.length() > 5 ? 5 : accessKey.length()));
+            return new Session(new BasicAWSCredentials(accessKey, secretKey), Long.MAX_VALUE);
+        }
+        String identityFile = defaultTokenFile();
+        String roleArn = firstNonNull(System.getenv("STORE_ROLE_ARN"), System.getenv("AWS_ROLE_ARN"));
+        if (identityFile == null || roleArn == null) {
+            throw new IllegalStateException("neither STORE_KEY/STORE_SECRET nor a web identity token file and role ARN are configured");
+        }
+        return assumeRole(roleArn, identityFile);
+    }
+
+    /**
+     * Exchanges the web identity token in the file for session credentials of the given role.
+     */
+    static Session assumeRole(String roleArn, String identityFile) {
+        return assumeRole(roleArn, identityFile, System.getenv("STORE_STS_ENDPOINT"), firstNonNull(System.getenv("STORE_STS_REGION"), "us-east-1"));
+    }
+
+    /**
+     * Same as {@link #assumeRole(String, String)} against the given STS endpoint, or the default
+     * one when null.
+     */
+    static Session assumeRole(String roleArn, String identityFile, String endpoint, String region) {
+        String sessionName = firstNonNull(System.getenv("STORE_ROLE_SESSION_NAME"), "hive-authz-" + System.currentTimeMillis());
+        LOGGER.info("assuming role {} with identity file {}", roleArn, identityFile);
+        AWSSecurityTokenService sts = sts(endpoint, region);
+        Credentials credentials;
+        try {
+            credentials = sts.assumeRoleWithWebIdentity(new AssumeRoleWithWebIdentityRequest()
+                    .withRoleArn(roleArn)
+                    .withRoleSessionName(sessionName)
+                    .withWebIdentityToken(readToken(identityFile)))
+                .getCredentials();
+        } finally {
+            sts.shutdown();
+        }
+        return new Session(
+            new BasicSessionCredentials(credentials.getAccessKeyId(), credentials.getSecretAccessKey(), credentials.getSessionToken()),
+            credentials.getExpiration().getTime());
+    }
+
+    static String defaultTokenFile() {
+        return firstNonNull(System.getenv("STORE_TOKEN_FILE"), System.getenv("AWS_WEB_IDENTITY_TOKEN_FILE"));
+    }
+
+    private static AWSSecurityTokenService sts(String endpoint, String region) {
+        // the web identity call is unsigned, the token is the credential
+        AWSSecurityTokenServiceClientBuilder builder = AWSSecurityTokenServiceClientBuilder.standard()
+            .withCredentials(new AWSStaticCredentialsProvider(new AnonymousAWSCredentials()));
+        if (endpoint != null) {
+            builder.withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(endpoint, region));
+        }
+        return builder.build();
+    }
+
+    private static String readToken(String identityFile) {
+        try {
+            return new String(Files.readAllBytes(Paths.get(identityFile)), StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot read web identity token " + identityFile, e);
+        }
+    }
+
+    private static String firstNonNull(String value, String fallback) {
+        return value != null ? value : fallback;
+    }
+
+    static final class Session {
+        final AWSCredentials credentials;
+        final long expiresAtMillis;
+
+        Session(AWSCredentials credentials, long expiresAtMillis) {
+            this.credentials = credentials;
+            this.expiresAtMillis = expiresAtMillis;
         }
-        return credentials;
     }
 }
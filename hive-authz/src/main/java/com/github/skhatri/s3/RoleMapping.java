@@ -0,0 +1,109 @@
+package com.github.skhatri.s3;
+
+import org.apache.hadoop.conf.Configuration;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Maps S3 buckets to the role whose credentials access them, from the {@value #ROLE_MAPPING}
+ * property: comma separated {@code bucket=roleArn[|tokenFile]} entries, for example
+ * {@code finance=arn:aws:iam::123456789012:role/finance,hr=arn:aws:iam::123456789012:role/hr|/var/run/hr-token}.
+ * Buckets without an entry use the role from the environment. A mapping without a token file uses
+ * the environment's token file. The S3 filesystems of Hive and Trino hand providers only the
+ * bucket URI, so entries with a key prefix could never match and are rejected.
+ * <p>
+ * Credentials are pooled by (role, token file), so the many filesystem instances created for a
+ * query share warm credentials and each role makes one STS exchange per session lifetime.
+ */
+final class RoleMapping {
+    static final String ROLE_MAPPING = "hive.ext.s3.role-mapping";
+
+    private static final ConcurrentMap<String, RoleMapping> PARSED = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, CachedCredentials> POOL = new ConcurrentHashMap<>();
+
+    private final Map<String, Entry> entries;
+
+    private RoleMapping(Map<String, Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Returns the pooled credentials for the location, or the shared default credentials when
+     * the location or the configuration is missing or no mapping matches.
+     */
+    static CachedCredentials credentialsFor(URI uri, Configuration conf) {
+        if (uri == null || conf == null) {
+            return CachedCredentials.shared();
+        }
+        String mapping = conf.get(ROLE_MAPPING);
+        if (mapping == null || mapping.trim().isEmpty()) {
+            return CachedCredentials.shared();
+        }
+        Entry entry = PARSED.computeIfAbsent(mapping, RoleMapping::parse).find(uri);
+        if (entry == null) {
+            return CachedCredentials.shared();
+        }
+        final String roleArn = entry.roleArn;
+        final String tokenFile = entry.tokenFile != null ? entry.tokenFile : CredentialsFactory.defaultTokenFile();
+        return POOL.computeIfAbsent(roleArn + '|' + tokenFile,
+            key -> new CachedCredentials(roleArn, () -> CredentialsFactory.assumeRole(roleArn, tokenFile)));
+    }
+
+    private Entry find(URI uri) {
+        // not getHost(): bucket names with an underscore are not valid host names and have none
+        String bucket = uri.getAuthority();
+        return bucket == null ? null : entries.get(bucket);
+    }
+
+    static RoleMapping parse(String mapping) {
+        Map<String, Entry> entries = new HashMap<>();
+        for (String item : mapping.split(",")) {
+            item = item.trim();
+            if (item.isEmpty()) {
+                continue;
+            }
+            int equals = item.indexOf('=');
+            if (equals <= 0 || equals == item.length() - 1) {
+                throw new IllegalArgumentException("invalid " + ROLE_MAPPING + " entry: " + item);
+            }
+            String bucket = item.substring(0, equals).trim();
+            if (bucket.startsWith("s3://") || bucket.startsWith("s3a://")) {
+                bucket = bucket.substring(bucket.indexOf("://") + 3);
+            }
+            if (bucket.endsWith("/")) {
+                bucket = bucket.substring(0, bucket.length() - 1);
+            }
+            if (bucket.isEmpty() || bucket.indexOf('/') >= 0) {
+                throw new IllegalArgumentException("invalid " + ROLE_MAPPING + " entry, roles map to whole buckets: " + item);
+            }
+            String target = item.substring(equals + 1).trim();
+            int bar = target.indexOf('|');
+            Entry entry = bar < 0
+                ? new Entry(target, null)
+                : new Entry(target.substring(0, bar).trim(), target.substring(bar + 1).trim());
+            if (entries.put(bucket, entry) != null) {
+                throw new IllegalArgumentException("duplicate " + ROLE_MAPPING + " entry for bucket " + bucket);
+            }
+        }
+        return new RoleMapping(entries);
+    }
+
+    String roleArn(URI uri) {
+        Entry entry = find(uri);
+        return entry == null ? null : entry.roleArn;
+    }
+
+    private static final class Entry {
+        private final String roleArn;
+        private final String tokenFile;
+
+        Entry(String roleArn, String tokenFile) {
+            this.roleArn = roleArn;
+            this.tokenFile = tokenFile;
+        }
+    }
+}
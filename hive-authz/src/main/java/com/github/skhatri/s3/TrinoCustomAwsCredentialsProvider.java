@@ -10,18 +10,21 @@ import java.net.URI;
 public class TrinoCustomAwsCredentialsProvider implements AWSCredentialsProvider {
     private static final Logger LOGGER = LoggerFactory.getLogger(TrinoCustomAwsCredentialsProvider.class);
 
+    private final CachedCredentials credentials;
+
     public TrinoCustomAwsCredentialsProvider(URI uri, Configuration hadoopConf) {
-        LOGGER.info("credentials initialised for S3 URI {}", uri);
+        this.credentials = RoleMapping.credentialsFor(uri, hadoopConf);
+        LOGGER.debug("credentials initialised for S3 URI {}", uri);
     }
 
     @Override
     public AWSCredentials getCredentials() {
-        return CredentialsFactory.create();
+        return credentials.get();
     }
 
     @Override
     public void refresh() {
-
+        credentials.refresh();
     }
 
 
@@ -0,0 +1,101 @@
+package com.github.skhatri.hive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestAccessRules {
+    private static final List<String> NO_GROUPS = Collections.emptyList();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testFirstMatchingRuleDecides() throws Exception {
+        AccessRules rules = rules("{\"catalogs\": ["
+            + "{\"user\": \"admin\", \"catalog\": \".*\", \"allow\": \"all\"},"
+            + "{\"group\": \"analysts\", \"catalog\": \"hive\", \"allow\": \"read-only\"}],"
+            + "\"tables\": ["
+            + "{\"user\": \"admin\", \"privileges\": [\"SELECT\", \"INSERT\", \"DELETE\", \"OWNERSHIP\"]},"
+            + "{\"group\": \"analysts\", \"schema\": \"fit\", \"privileges\": [\"select\"]}]}");
+        List<String> analysts = Collections.singletonList("analysts");
+
+        assertEquals(AccessRules.CatalogAccess.ALL, rules.catalogAccess("admin", NO_GROUPS, "hive"));
+        assertEquals(AccessRules.CatalogAccess.READ_ONLY, rules.catalogAccess("alice", analysts, "hive"));
+        assertEquals(AccessRules.CatalogAccess.NONE, rules.catalogAccess("alice", NO_GROUPS, "hive"));
+
+        assertTrue(rules.tableAccess("admin", NO_GROUPS, "hive", "fit", "activity").has(AccessRules.DELETE));
+        assertTrue(rules.tableAccess("alice", analysts, "hive", "fit", "activity").has(AccessRules.SELECT));
+        assertFalse(rules.tableAccess("alice", analysts, "hive", "fit", "activity").has(AccessRules.INSERT));
+        assertFalse(rules.tableAccess("alice", analysts, "hive", "hr", "salary").has(AccessRules.SELECT));
+    }
+
+    @Test
+    public void testRowFiltersAndColumnMasksFailClosed() throws Exception {
+        AccessRules rules = rules("{\"tables\": ["
+            + "{\"user\": \"alice\", \"table\": \"activity\", \"privileges\": [\"SELECT\"], \"filter\": \"region = 'apac'\"},"
+            + "{\"user\": \"alice\", \"table\": \"people\", \"privileges\": [\"SELECT\"], \"columns\": ["
+            + "{\"name\": \"ssn\", \"mask\": \"mask_keep_last(ssn, 4)\"},"
+            + "{\"name\": \"salary\", \"allow\": false},"
+            + "{\"name\": \"email\", \"allow\": true}]}]}");
+
+        AccessRules.TableAccess activity = rules.tableAccess("alice", NO_GROUPS, "hive", "fit", "activity");
+        assertTrue(activity.isFiltered());
+
+        AccessRules.TableAccess people = rules.tableAccess("alice", NO_GROUPS, "hive", "fit", "people");
+        assertFalse(people.isFiltered());
+        assertEquals("SSN", people.deniedColumn(Arrays.asList("name", "SSN")));
+        assertEquals("salary", people.deniedColumn(Arrays.asList("name", "salary")));
+        assertNull(people.deniedColumn(Arrays.asList("name", "email")));
+    }
+
+    @Test
+    public void testMissingSectionsAllowEverything() throws Exception {
+        AccessRules rules = rules("{}");
+        assertEquals(AccessRules.CatalogAccess.ALL, rules.catalogAccess("anyone", NO_GROUPS, "hive"));
+        assertTrue(rules.isSchemaOwner("anyone", NO_GROUPS, "hive", "fit"));
+        assertTrue(rules.tableAccess("anyone", NO_GROUPS, "hive", "fit", "activity").has(AccessRules.OWNERSHIP));
+    }
+
+    @Test
+    public void testRulesWithRolesNeverMatch() throws Exception {
+        AccessRules rules = rules("{\"tables\": [{\"role\": \"admin\", \"privileges\": [\"SELECT\"]}]}");
+        assertFalse(rules.tableAccess("admin", NO_GROUPS, "hive", "fit", "activity").has(AccessRules.SELECT));
+    }
+
+    @Test
+    public void testGroupFile() throws Exception {
+        Path groups = directory.resolve("groups");
+        GroupFile file = new GroupFile(groups, 0);
+        assertEquals(NO_GROUPS, file.groups("alice"));
+
+        Files.createDirectory(groups);
+        Files.write(groups.resolve("groups.txt"), "# comment\nanalysts: alice, bob\nadmins:alice\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(groups.resolve("hr.txt"), "hr:carol\n".getBytes(StandardCharsets.UTF_8));
+        file.refresh();
+        assertEquals(Arrays.asList("analysts", "admins"), file.groups("alice"));
+        assertEquals(Collections.singletonList("hr"), file.groups("carol"));
+
+        // a broken file keeps the previous groups
+        Files.write(groups.resolve("hr.txt"), "hr carol, dave\n".getBytes(StandardCharsets.UTF_8));
+        file.refresh();
+        assertEquals(Collections.singletonList("hr"), file.groups("carol"));
+    }
+
+    private AccessRules rules(String json) throws Exception {
+        Path file = directory.resolve("rules.json");
+        Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+        return AccessRules.load(file);
+    }
+}
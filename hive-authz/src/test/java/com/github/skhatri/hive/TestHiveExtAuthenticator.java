@@ -0,0 +1,152 @@
+package com.github.skhatri.hive;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.security.sasl.AuthenticationException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestHiveExtAuthenticator {
+    // "abc" at bcrypt cost 10 and PBKDF2 with 1000 iterations
+    private static final String BCRYPT_HASH = "$2a$10$WvvTPHKwdBJ3uk0Z37EMR.hLA2W6N9AEBhEgrAOljy2Ae5MtaSIUi";
+    private static final String PBKDF2_HASH = "1000:5b4240333032306164:715a88701821ac0fe6ae3f15799099878d8e449f5543a5d91b0b2e530a13e086344e096365598a706adaa3f27f2c1732c7ad6f29830f5e6da6c3d861684ba9a4";
+    // known answers from the jBCrypt and OpenBSD test vectors
+    private static final String[][] BCRYPT_VECTORS = {
+        {"", "$2a$06$DCq7YPn5Rq63x1Lad4cll.TV4S6ytwfsfvkgY8jIucDrjc8deX1s."},
+        {"", "$2a$08$HqWuK6/Ng6sg9gQzbLrgb.Tl.ZHfXLhvt/SgVyWhQqgqcZ7ZuUtye"},
+        {"a", "$2a$06$m0CrhHm10qJ3lXRY.5zDGO3rS2KdeeWLuGmsfGlMfOxih58VYVfxe"},
+        {"a", "$2a$08$cfcvVd2aQ8CMvoMpP2EBfeodLEkkFJ9umNEfPD18.hUF62qqlC/V."},
+        {"abc", "$2a$06$If6bvum7DFjUnE9p2uDeDu0YHzrHM6tf.iqN8.yx.jNN1ILEf7h0i"},
+        {"abc", "$2a$08$Ro0CUfOqk6cXEKf3dyaM7OhSCvnwM9s4wIX9JeLapehKK5YdLxKcm"},
+        {"abc", BCRYPT_HASH},
+        {"abcdefghijklmnopqrstuvwxyz", "$2a$06$.rCVZVOThsIa97pEDOxvGuRRgzG64bvtJ0938xuqzv18d3ZpQhstC"},
+        {"~!@#$%^&*()      ~!@#$%^&*()PNBFRD", "$2a$06$fPIsBO8qRqkjj273rfaOI.HtSV9jLDpTbZn782DC6/t7qT67P6FfO"},
+    };
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testHex() {
+        assertArrayEquals(new byte[] {0x0a, (byte) 0xff}, HiveExtAuthenticator.hex("0aFF"));
+        assertNull(HiveExtAuthenticator.hex(""));
+        assertNull(HiveExtAuthenticator.hex("abc"));
+        assertNull(HiveExtAuthenticator.hex("zz"));
+        assertNull(HiveExtAuthenticator.hex("0g"));
+    }
+
+    @Test
+    public void testBcryptKnownAnswers() {
+        for (String[] vector : BCRYPT_VECTORS) {
+            assertTrue(HiveExtAuthenticator.matches(vector[0], vector[1]), vector[1]);
+            assertFalse(HiveExtAuthenticator.matches(vector[0] + "x", vector[1]), vector[1]);
+            // htpasswd and newer OpenBSD write the same hash as $2y$ and $2b$
+            assertTrue(HiveExtAuthenticator.matches(vector[0], "$2y" + vector[1].substring(3)), vector[1]);
+            assertTrue(HiveExtAuthenticator.matches(vector[0], "$2b" + vector[1].substring(3)), vector[1]);
+        }
+    }
+
+    @Test
+    public void testBcryptKeyLengthLimit() {
+        // crypt_blowfish hashes of 71 and 72 bytes, everything after the 72nd byte is ignored
+        String password = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789chars after 72 are ignored";
+        String hash71 = "$2a$05$abcdefghijklmnopqrstuua4cI5kRltpWhR1kYKGZBo9ct1SFvSem";
+        String hash72 = "$2a$05$abcdefghijklmnopqrstuu5s2v8.iXieOjg/.AySBTTZIIVFJeBui";
+        assertTrue(HiveExtAuthenticator.matches(password.substring(0, 71), hash71));
+        assertFalse(HiveExtAuthenticator.matches(password.substring(0, 72), hash71));
+        assertTrue(HiveExtAuthenticator.matches(password.substring(0, 72), hash72));
+        assertTrue(HiveExtAuthenticator.matches(password, hash72));
+
+        String multiByte72 = "éééééééééééééééééééééééééééééééééééé";
+        assertEquals(72, multiByte72.getBytes(StandardCharsets.UTF_8).length);
+        assertTrue(HiveExtAuthenticator.matches(multiByte72, "$2b$05$CCCCCCCCCCCCCCCCCCCCC.Msh9GTqEdRbfZzYwvijW0diUTS7ZS6e"));
+        assertTrue(HiveExtAuthenticator.matches(multiByte72 + "é", "$2b$05$CCCCCCCCCCCCCCCCCCCCC.Msh9GTqEdRbfZzYwvijW0diUTS7ZS6e"));
+    }
+
+    @Test
+    public void testBcryptRejectsMalformedHashes() {
+        assertFalse(HiveExtAuthenticator.matches("abc", BCRYPT_HASH.substring(0, 59)));
+        assertFalse(HiveExtAuthenticator.matches("abc", "$2a$03" + BCRYPT_HASH.substring(6)));
+        assertFalse(HiveExtAuthenticator.matches("abc", "$2x" + BCRYPT_HASH.substring(3)));
+    }
+
+    @Test
+    public void testVerifiedCacheEvictsLeastRecentlyUsed() {
+        HiveExtAuthenticator.VerifiedCache cache = new HiveExtAuthenticator.VerifiedCache(2);
+        cache.put("a", 100);
+        cache.put("b", 100);
+        // a is used again, so b is the one to go
+        assertTrue(cache.contains("a", 0));
+        cache.put("c", 100);
+        assertEquals(2, cache.size());
+        assertTrue(cache.contains("a", 0));
+        assertFalse(cache.contains("b", 0));
+        assertTrue(cache.contains("c", 0));
+
+        assertFalse(cache.contains("a", 100));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testRejectsInvalidHashes() {
+        assertInvalid("$2a$10$short", "malformed bcrypt hash");
+        assertInvalid("$2x$10" + BCRYPT_HASH.substring(6), "malformed bcrypt hash");
+        assertInvalid("$2a$06$If6bvum7DFjUnE9p2uDeDu0YHzrHM6tf.iqN8.yx.jNN1ILEf7h0i", "bcrypt cost must be between 8 and 30");
+        assertInvalid("$2a$31" + BCRYPT_HASH.substring(6), "bcrypt cost must be between 8 and 30");
+        assertInvalid("plain", "hash is neither bcrypt nor PBKDF2");
+        assertInvalid("x:00:00", "PBKDF2 iteration count is not a number");
+        assertInvalid("999:00:00", "PBKDF2 iteration count must be at least 1000");
+        assertInvalid("1000:0:00", "PBKDF2 salt is not hex");
+        assertInvalid("1000:00:", "PBKDF2 hash is not hex");
+        assertInvalid("1000:00:0x", "PBKDF2 hash is not hex");
+        HiveExtAuthenticator.checkHash(BCRYPT_HASH);
+        HiveExtAuthenticator.checkHash(PBKDF2_HASH);
+    }
+
+    @Test
+    public void testAuthenticates() throws Exception {
+        HiveExtAuthenticator authenticator = authenticator(write("alice:" + BCRYPT_HASH, "bob:" + PBKDF2_HASH));
+        authenticator.Authenticate("alice", "abc");
+        authenticator.Authenticate("bob", "abc");
+        assertThrows(AuthenticationException.class, () -> authenticator.Authenticate("alice", "abd"));
+        assertThrows(AuthenticationException.class, () -> authenticator.Authenticate("carol", "abc"));
+    }
+
+    @Test
+    public void testRejectsFileWithInvalidEntry() throws IOException {
+        HiveExtAuthenticator authenticator = authenticator(write("alice:" + BCRYPT_HASH, "bob:1000:00:abc"));
+        AuthenticationException failure = assertThrows(AuthenticationException.class, () -> authenticator.Authenticate("alice", "abc"));
+        assertEquals("invalid entry in " + directory.resolve("password.db") + " at line 2: PBKDF2 hash is not hex", failure.getCause().getMessage());
+    }
+
+    private static void assertInvalid(String hash, String message) {
+        IllegalArgumentException failure = assertThrows(IllegalArgumentException.class, () -> HiveExtAuthenticator.checkHash(hash));
+        assertEquals(message, failure.getMessage());
+    }
+
+    private Path write(String... lines) throws IOException {
+        Path file = directory.resolve("password.db");
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static HiveExtAuthenticator authenticator(Path file) {
+        Configuration configuration = new Configuration(false);
+        configuration.set(HiveExtAuthenticator.PASSWORD_FILE, file.toString());
+        HiveExtAuthenticator authenticator = new HiveExtAuthenticator();
+        authenticator.setConf(configuration);
+        return authenticator;
+    }
+}
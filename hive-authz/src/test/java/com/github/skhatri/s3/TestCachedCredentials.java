@@ -0,0 +1,202 @@
+package com.github.skhatri.s3;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSSessionCredentials;
+import com.amazonaws.auth.BasicSessionCredentials;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestCachedCredentials {
+    private static final String ROLE = "arn:aws:iam::123456789012:role/store";
+    private static final long LIFETIME_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    @TempDir
+    Path directory;
+
+    private HttpServer sts;
+    private String endpoint;
+    private Path tokenFile;
+    private final AtomicInteger exchanges = new AtomicInteger();
+    private final AtomicBoolean failing = new AtomicBoolean();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        tokenFile = directory.resolve("token");
+        Files.write(tokenFile, "web-identity-token".getBytes(StandardCharsets.UTF_8));
+        sts = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        sts.createContext("/", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                while (in.read() >= 0) {
+                    // drain the form body
+                }
+            }
+            int number = exchanges.incrementAndGet();
+            boolean fail = failing.get();
+            byte[] body = (fail ? error() : credentials(number)).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/xml");
+            exchange.sendResponseHeaders(fail ? 400 : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        sts.start();
+        endpoint = "http://127.0.0.1:" + sts.getAddress().getPort();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        sts.stop(0);
+    }
+
+    @Test
+    public void testServesCachedCredentials() {
+        CachedCredentials credentials = credentials();
+        AWSCredentials first = credentials.get();
+        assertEquals("ACCESS1", first.getAWSAccessKeyId());
+        assertEquals("TOKEN1", ((AWSSessionCredentials) first).getSessionToken());
+        for (int i = 0; i < 100; i++) {
+            assertSame(first, credentials.get());
+        }
+        assertEquals(1, exchanges.get());
+    }
+
+    @Test
+    public void testRefreshFetchesInBackground() throws Exception {
+        CachedCredentials credentials = credentials();
+        assertEquals("ACCESS1", credentials.get().getAWSAccessKeyId());
+        credentials.refresh();
+        await(() -> "ACCESS2".equals(credentials.get().getAWSAccessKeyId()));
+        assertEquals(2, exchanges.get());
+    }
+
+    @Test
+    public void testKeepsServingCurrentCredentialsWhileStsFails() throws Exception {
+        CachedCredentials credentials = credentials();
+        AWSCredentials current = credentials.get();
+        failing.set(true);
+        credentials.refresh();
+        await(() -> exchanges.get() >= 2);
+        assertSame(current, credentials.get());
+    }
+
+    @Test
+    public void testFailedFirstLoadBacksOffAndRetries() throws Exception {
+        failing.set(true);
+        CachedCredentials credentials = credentials();
+        assertThrows(SdkClientException.class, credentials::get);
+        assertEquals(1, exchanges.get());
+        // callers fail fast until the next attempt instead of each calling STS
+        for (int i = 0; i < 10; i++) {
+            assertThrows(SdkClientException.class, credentials::get);
+        }
+        assertEquals(1, exchanges.get());
+
+        failing.set(false);
+        // the retry was scheduled by the failure, no caller needed
+        await(() -> exchanges.get() >= 2);
+        await(() -> {
+            try {
+                return credentials.get() != null;
+            } catch (SdkClientException e) {
+                return false;
+            }
+        });
+    }
+
+    @Test
+    public void testConcurrentCallersShareOneFetch() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        CachedCredentials credentials = new CachedCredentials("test", () -> {
+            calls.incrementAndGet();
+            release.await();
+            return new CredentialsFactory.Session(
+                new BasicSessionCredentials("ACCESS", "SECRET", "TOKEN"),
+                System.currentTimeMillis() + LIFETIME_MILLIS);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<AWSCredentials>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(credentials::get));
+            }
+            await(() -> calls.get() == 1);
+            // the fetch does not hold the monitor
+            credentials.refresh();
+            release.countDown();
+            AWSCredentials first = futures.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<AWSCredentials> future : futures) {
+                assertSame(first, future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, calls.get());
+    }
+
+    private CachedCredentials credentials() {
+        return new CachedCredentials(ROLE, () -> CredentialsFactory.assumeRole(ROLE, tokenFile.toString(), endpoint, "us-east-1"));
+    }
+
+    private String credentials(int number) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return "<AssumeRoleWithWebIdentityResponse xmlns=\"https://sts.amazonaws.com/doc/2011-06-15/\">"
+            + "<AssumeRoleWithWebIdentityResult>"
+            + "<Credentials>"
+            + "<AccessKeyId>ACCESS" + number + "</AccessKeyId>"
+            + "<SecretAccessKey>SECRET" + number + "</SecretAccessKey>"
+            + "<SessionToken>TOKEN" + number + "</SessionToken>"
+            + "<Expiration>" + format.format(new Date(System.currentTimeMillis() + LIFETIME_MILLIS)) + "</Expiration>"
+            + "</Credentials>"
+            + "<SubjectFromWebIdentityToken>store</SubjectFromWebIdentityToken>"
+            + "<AssumedRoleUser><Arn>" + ROLE + "/session</Arn><AssumedRoleId>AROA:session</AssumedRoleId></AssumedRoleUser>"
+            + "</AssumeRoleWithWebIdentityResult>"
+            + "<ResponseMetadata><RequestId>request-" + number + "</RequestId></ResponseMetadata>"
+            + "</AssumeRoleWithWebIdentityResponse>";
+    }
+
+    private static String error() {
+        return "<ErrorResponse xmlns=\"https://sts.amazonaws.com/doc/2011-06-15/\">"
+            + "<Error><Type>Sender</Type><Code>InvalidIdentityToken</Code><Message>token rejected</Message></Error>"
+            + "<RequestId>failed</RequestId>"
+            + "</ErrorResponse>";
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met in time");
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.skhatri.s3;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestRoleMapping {
+    private static final String FINANCE = "arn:aws:iam::123456789012:role/finance";
+    private static final String LEGACY = "arn:aws:iam::123456789012:role/legacy";
+
+    @Test
+    public void testMapsBuckets() {
+        RoleMapping mapping = RoleMapping.parse(" finance=" + FINANCE + ", s3a://legacy_data/=" + LEGACY + "|/var/run/legacy-token ,");
+        assertEquals(FINANCE, mapping.roleArn(URI.create("s3://finance/ledger/2024")));
+        assertEquals(FINANCE, mapping.roleArn(URI.create("s3a://finance")));
+        // not a valid host name, so URI has no host for it
+        assertNull(URI.create("s3://legacy_data/table").getHost());
+        assertEquals(LEGACY, mapping.roleArn(URI.create("s3://legacy_data/table")));
+        assertNull(mapping.roleArn(URI.create("s3://other/finance")));
+        assertNull(mapping.roleArn(URI.create("file:///tmp/finance")));
+    }
+
+    @Test
+    public void testRejectsInvalidEntries() {
+        assertThrows(IllegalArgumentException.class, () -> RoleMapping.parse("shared/hr=" + FINANCE));
+        assertThrows(IllegalArgumentException.class, () -> RoleMapping.parse("s3://shared/hr/=" + FINANCE));
+        assertThrows(IllegalArgumentException.class, () -> RoleMapping.parse("finance="));
+        assertThrows(IllegalArgumentException.class, () -> RoleMapping.parse("=" + FINANCE));
+        assertThrows(IllegalArgumentException.class, () -> RoleMapping.parse("finance=" + FINANCE + ",s3://finance=" + LEGACY));
+    }
+}
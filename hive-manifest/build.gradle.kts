@@ -0,0 +1,17 @@
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    compileOnly("org.apache.hadoop:hadoop-common:3.3.6")
+    compileOnly("org.slf4j:slf4j-api:1.7.36")
+
+    testImplementation("org.apache.hadoop:hadoop-common:3.3.6")
+    testImplementation("org.junit.jupiter:junit-jupiter:5.10.3")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher:1.10.3")
+}
+
+tasks.test {
+    useJUnitPlatform()
+}
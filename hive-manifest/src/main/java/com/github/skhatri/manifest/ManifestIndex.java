@@ -0,0 +1,214 @@
+package com.github.skhatri.manifest;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Data files of one table root, as listed by the manifests in its {@code _symlink_format_manifest}
+ * and {@code _delta_manifest} directories, grouped by the directory they are in.
+ * <p>
+ * Manifests are found again at most once per refresh interval. A parsed manifest is kept with the
+ * modification time it was read at and is read again only when that changes. Statuses of newly
+ * listed files are fetched in parallel and kept for as long as a manifest lists the file. Data files
+ * are never rewritten in place, so their sizes do not go stale. A listed file that does not exist is
+ * left out and looked up again at the next refresh.
+ */
+final class ManifestIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ManifestIndex.class);
+    static final List<String> MANIFEST_DIRECTORIES = Collections.unmodifiableList(Arrays.asList("_symlink_format_manifest", "_delta_manifest"));
+    private static final String MANIFEST_FILE = "manifest";
+
+    private final FileSystem fs;
+    private final Path root;
+    private final long refreshNanos;
+    private final ExecutorService prefetcher;
+
+    // guarded by this
+    private final Map<Path, Manifest> manifests = new HashMap<>();
+    private final Map<Path, LocatedFileStatus> statuses = new HashMap<>();
+
+    private volatile Map<Path, List<LocatedFileStatus>> directories = Collections.emptyMap();
+    private volatile boolean loaded;
+    private volatile long refreshedAt;
+
+    ManifestIndex(FileSystem fs, Path root, long refreshNanos, ExecutorService prefetcher) {
+        this.fs = fs;
+        this.root = root;
+        this.refreshNanos = refreshNanos;
+        this.prefetcher = prefetcher;
+    }
+
+    /**
+     * Whether {@code directory} is a data directory of this table, somewhere under the root but not
+     * in a directory such as {@code _delta_log} or the manifest directories.
+     */
+    boolean covers(Path directory) {
+        for (Path child = directory; child.getParent() != null; child = child.getParent()) {
+            if (root.equals(child.getParent())) {
+                String name = child.getName();
+                return !name.startsWith("_") && !name.startsWith(".");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The listed files in {@code directory}, or null when no manifest lists a file there.
+     */
+    List<LocatedFileStatus> list(Path directory) throws IOException {
+        if (!loaded || System.nanoTime() - refreshedAt >= refreshNanos) {
+            refresh();
+        }
+        return directories.get(directory);
+    }
+
+    private synchronized void refresh() throws IOException {
+        long start = System.nanoTime();
+        if (loaded && start - refreshedAt < refreshNanos) {
+            return;
+        }
+        Map<Path, FileStatus> found = new HashMap<>();
+        for (String name : MANIFEST_DIRECTORIES) {
+            findManifests(new Path(root, name), found);
+        }
+
+        int read = 0;
+        Map<Path, Manifest> current = new HashMap<>();
+        Set<Path> files = new LinkedHashSet<>();
+        for (FileStatus status : found.values()) {
+            Manifest manifest = manifests.get(status.getPath());
+            if (manifest == null || manifest.modificationTime != status.getModificationTime()) {
+                manifest = read(status);
+                read++;
+            }
+            current.put(status.getPath(), manifest);
+            files.addAll(manifest.files);
+        }
+        manifests.clear();
+        manifests.putAll(current);
+
+        statuses.keySet().retainAll(files);
+        List<Path> missing = new ArrayList<>();
+        for (Path file : files) {
+            if (!statuses.containsKey(file)) {
+                missing.add(file);
+            }
+        }
+        statuses.putAll(fetch(missing));
+
+        Map<Path, List<LocatedFileStatus>> grouped = new HashMap<>();
+        for (Map.Entry<Path, LocatedFileStatus> entry : statuses.entrySet()) {
+            grouped.computeIfAbsent(entry.getKey().getParent(), directory -> new ArrayList<>()).add(entry.getValue());
+        }
+        for (Map.Entry<Path, List<LocatedFileStatus>> entry : grouped.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        directories = grouped;
+        loaded = true;
+        refreshedAt = System.nanoTime();
+        if (read > 0 || !missing.isEmpty()) {
+            LOGGER.info("indexed {} files in {} directories of {} manifests under {}, read {} manifests and {} statuses in {}ms",
+                statuses.size(), grouped.size(), current.size(), root, read, missing.size(), TimeUnit.NANOSECONDS.toMillis(refreshedAt - start));
+        }
+    }
+
+    private void findManifests(Path directory, Map<Path, FileStatus> found) throws IOException {
+        FileStatus[] entries;
+        try {
+            entries = fs.listStatus(directory);
+        } catch (FileNotFoundException e) {
+            return;
+        }
+        for (FileStatus entry : entries) {
+            if (entry.isDirectory()) {
+                findManifests(entry.getPath(), found);
+            } else if (MANIFEST_FILE.equals(entry.getPath().getName())) {
+                found.put(entry.getPath(), entry);
+            }
+        }
+    }
+
+    private Manifest read(FileStatus status) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(fs.open(status.getPath()), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty()) {
+                    files.add(fs.makeQualified(new Path(line)));
+                }
+            }
+        }
+        return new Manifest(status.getModificationTime(), files);
+    }
+
+    private Map<Path, LocatedFileStatus> fetch(List<Path> files) throws IOException {
+        List<Future<LocatedFileStatus>> pending = new ArrayList<>(files.size());
+        for (Path file : files) {
+            pending.add(prefetcher.submit(() -> status(file)));
+        }
+        Map<Path, LocatedFileStatus> fetched = new HashMap<>();
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                LocatedFileStatus status = pending.get(i).get();
+                if (status != null) {
+                    fetched.put(files.get(i), status);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted reading file statuses under " + root);
+        } catch (ExecutionException e) {
+            throw new IOException("cannot read file statuses under " + root, e.getCause());
+        } finally {
+            for (Future<LocatedFileStatus> future : pending) {
+                future.cancel(true);
+            }
+        }
+        return fetched;
+    }
+
+    private LocatedFileStatus status(Path file) throws IOException {
+        FileStatus status;
+        try {
+            status = fs.getFileStatus(file);
+        } catch (FileNotFoundException e) {
+            LOGGER.warn("{} is listed by a manifest under {} but does not exist", file, root);
+            return null;
+        }
+        return new LocatedFileStatus(status, fs.getFileBlockLocations(status, 0, status.getLen()));
+    }
+
+    private static final class Manifest {
+        private final long modificationTime;
+        private final List<Path> files;
+
+        private Manifest(long modificationTime, List<Path> files) {
+            this.modificationTime = modificationTime;
+            this.files = files;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.skhatri.manifest;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.LocalFileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local file system that lists the data directories of manifest tables from their manifests. Set
+ * as {@code fs.file.impl} in a configuration resource of the Hive catalog, it sits under Trino's
+ * split loader: listing a partition directory of a table in {@code hive.ext.manifest.tables}
+ * returns the files the table's {@code _symlink_format_manifest} and {@code _delta_manifest}
+ * manifests list there, with sizes and block locations from a {@link ManifestIndex}, instead of
+ * reading the directory. Planning a partition of thousands of small files then costs a map lookup
+ * once the index is warm.
+ * <p>
+ * Other directories, including the table root and the manifest directories, are listed as usual.
+ * Data directories are served only from manifests, so files written there without a manifest entry
+ * are not listed.
+ */
+public class ManifestListingFileSystem extends LocalFileSystem {
+    static final String TABLES = "hive.ext.manifest.tables";
+    static final String REFRESH_SECONDS = "hive.ext.manifest.refresh-seconds";
+    static final String PREFETCH_THREADS = "hive.ext.manifest.prefetch-threads";
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private final List<ManifestIndex> indexes = new ArrayList<>();
+    private ExecutorService prefetcher;
+
+    @Override
+    public void initialize(URI name, Configuration conf) throws IOException {
+        super.initialize(name, conf);
+        String[] tables = conf.getTrimmedStrings(TABLES);
+        if (tables.length == 0) {
+            return;
+        }
+        long refreshNanos = TimeUnit.SECONDS.toNanos(conf.getLong(REFRESH_SECONDS, 30));
+        prefetcher = Executors.newFixedThreadPool(conf.getInt(PREFETCH_THREADS, 16), runnable -> {
+            Thread thread = new Thread(runnable, "manifest-prefetch-" + THREADS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (String table : tables) {
+            indexes.add(new ManifestIndex(this, makeQualified(new Path(table)), refreshNanos, prefetcher));
+        }
+    }
+
+    @Override
+    public FileStatus[] listStatus(Path f) throws IOException {
+        List<LocatedFileStatus> files = listed(f);
+        return files == null ? super.listStatus(f) : files.toArray(new FileStatus[0]);
+    }
+
+    @Override
+    public RemoteIterator<LocatedFileStatus> listLocatedStatus(Path f) throws IOException {
+        List<LocatedFileStatus> files = listed(f);
+        return files == null ? super.listLocatedStatus(f) : iterator(files);
+    }
+
+    @Override
+    public RemoteIterator<FileStatus> listStatusIterator(Path p) throws IOException {
+        List<LocatedFileStatus> files = listed(p);
+        return files == null ? super.listStatusIterator(p) : iterator(files);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (prefetcher != null) {
+            prefetcher.shutdownNow();
+        }
+        super.close();
+    }
+
+    private List<LocatedFileStatus> listed(Path directory) throws IOException {
+        if (indexes.isEmpty()) {
+            return null;
+        }
+        Path qualified = makeQualified(directory);
+        for (ManifestIndex index : indexes) {
+            if (index.covers(qualified)) {
+                return index.list(qualified);
+            }
+        }
+        return null;
+    }
+
+    private static <T> RemoteIterator<T> iterator(List<? extends T> files) {
+        Iterator<? extends T> iterator = files.iterator();
+        return new RemoteIterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!iterator.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return iterator.next();
+            }
+        };
+    }
+}
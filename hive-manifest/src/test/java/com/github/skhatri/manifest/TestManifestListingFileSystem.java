@@ -0,0 +1,166 @@
+package com.github.skhatri.manifest;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestManifestListingFileSystem {
+    @TempDir
+    Path directory;
+
+    private final List<ManifestListingFileSystem> created = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        for (ManifestListingFileSystem fs : created) {
+            fs.close();
+        }
+    }
+
+    @Test
+    public void testListsFilesOfPartitionManifest() throws IOException {
+        Path table = directory.resolve("activity");
+        write(table.resolve("version=2021-03-02/part-0.parquet"), 10);
+        write(table.resolve("version=2021-03-02/part-1.parquet"), 20);
+        write(table.resolve("version=2021-03-02/unlisted.parquet"), 30);
+        manifest(table.resolve("_symlink_format_manifest/version=2021-03-02/manifest"),
+            table.resolve("version=2021-03-02/part-0.parquet"),
+            table.resolve("version=2021-03-02/part-1.parquet"),
+            table.resolve("version=2021-03-02/missing.parquet"));
+
+        ManifestListingFileSystem fs = fs(30, table);
+        Map<String, Long> expected = new TreeMap<>();
+        expected.put("part-0.parquet", 10L);
+        expected.put("part-1.parquet", 20L);
+        assertEquals(expected, sizes(fs.listStatus(path(table.resolve("version=2021-03-02")))));
+
+        RemoteIterator<LocatedFileStatus> located = fs.listFiles(path(table.resolve("version=2021-03-02")), true);
+        List<FileStatus> statuses = new ArrayList<>();
+        while (located.hasNext()) {
+            LocatedFileStatus status = located.next();
+            assertEquals(1, status.getBlockLocations().length);
+            statuses.add(status);
+        }
+        assertEquals(expected, sizes(statuses.toArray(new FileStatus[0])));
+    }
+
+    @Test
+    public void testDeltaManifestListsEarlierPartitions() throws IOException {
+        Path table = directory.resolve("activity");
+        write(table.resolve("version=2021-03-02/part-0.parquet"), 10);
+        write(table.resolve("version=2021-03-02/part-1.parquet"), 20);
+        write(table.resolve("version=2021-03-03/part-2.parquet"), 30);
+        manifest(table.resolve("_symlink_format_manifest/version=2021-03-02/manifest"), table.resolve("version=2021-03-02/part-0.parquet"));
+        // the snapshot of 2021-03-03 still reads part-1 of 2021-03-02
+        manifest(table.resolve("_delta_manifest/version=2021-03-03/manifest"),
+            table.resolve("version=2021-03-02/part-1.parquet"),
+            table.resolve("version=2021-03-03/part-2.parquet"));
+
+        ManifestListingFileSystem fs = fs(30, table);
+        assertEquals(Arrays.asList("part-0.parquet", "part-1.parquet"), new ArrayList<>(sizes(fs.listStatus(path(table.resolve("version=2021-03-02")))).keySet()));
+        assertEquals(Arrays.asList("part-2.parquet"), new ArrayList<>(sizes(fs.listStatus(path(table.resolve("version=2021-03-03")))).keySet()));
+    }
+
+    @Test
+    public void testRereadsOnlyChangedManifests() throws IOException {
+        Path table = directory.resolve("activity");
+        Path first = write(table.resolve("version=2021-03-02/part-0.parquet"), 10);
+        Path second = write(table.resolve("version=2021-03-02/part-1.parquet"), 20);
+        Path manifest = manifest(table.resolve("_symlink_format_manifest/version=2021-03-02/manifest"), first, second);
+        ManifestListingFileSystem fs = fs(0, table);
+        org.apache.hadoop.fs.Path partition = path(table.resolve("version=2021-03-02"));
+        assertEquals(2, fs.listStatus(partition).length);
+
+        // unchanged manifest, the cached statuses are served
+        Files.delete(first);
+        assertEquals(2, fs.listStatus(partition).length);
+
+        long modified = Files.getLastModifiedTime(manifest).toMillis();
+        manifest(manifest, second);
+        assertTrue(manifest.toFile().setLastModified(modified + 1000));
+        assertEquals(Arrays.asList("part-1.parquet"), new ArrayList<>(sizes(fs.listStatus(partition)).keySet()));
+    }
+
+    @Test
+    public void testKeepsIndexUntilRefreshInterval() throws IOException {
+        Path table = directory.resolve("activity");
+        manifest(table.resolve("_symlink_format_manifest/version=2021-03-02/manifest"), write(table.resolve("version=2021-03-02/part-0.parquet"), 10));
+        ManifestListingFileSystem fs = fs(3600, table);
+        assertEquals(1, fs.listStatus(path(table.resolve("version=2021-03-02"))).length);
+
+        // not indexed yet, so the directory is read
+        manifest(table.resolve("_symlink_format_manifest/version=2021-03-03/manifest"), write(table.resolve("version=2021-03-03/part-1.parquet"), 10));
+        write(table.resolve("version=2021-03-03/part-2.parquet"), 10);
+        assertEquals(2, fs.listStatus(path(table.resolve("version=2021-03-03"))).length);
+    }
+
+    @Test
+    public void testListsOtherDirectoriesAsIs() throws IOException {
+        Path table = directory.resolve("activity");
+        manifest(table.resolve("_symlink_format_manifest/version=2021-03-02/manifest"), write(table.resolve("version=2021-03-02/part-0.parquet"), 10));
+        write(table.resolve("_delta_log/00000.json"), 10);
+        write(directory.resolve("other/version=2021-03-02/part-0.parquet"), 10);
+        write(directory.resolve("other/version=2021-03-02/part-1.parquet"), 10);
+
+        ManifestListingFileSystem fs = fs(30, table);
+        assertEquals(Arrays.asList("_delta_log", "_symlink_format_manifest", "version=2021-03-02"), new ArrayList<>(sizes(fs.listStatus(path(table))).keySet()));
+        assertEquals(Arrays.asList("version=2021-03-02"), new ArrayList<>(sizes(fs.listStatus(path(table.resolve("_symlink_format_manifest")))).keySet()));
+        assertEquals(1, fs.listStatus(path(table.resolve("_delta_log"))).length);
+        assertEquals(2, fs.listStatus(path(directory.resolve("other/version=2021-03-02"))).length);
+    }
+
+    private ManifestListingFileSystem fs(long refreshSeconds, Path table) throws IOException {
+        Configuration conf = new Configuration(false);
+        conf.set(ManifestListingFileSystem.TABLES, "file:" + table.toAbsolutePath());
+        conf.setLong(ManifestListingFileSystem.REFRESH_SECONDS, refreshSeconds);
+        conf.setInt(ManifestListingFileSystem.PREFETCH_THREADS, 4);
+        ManifestListingFileSystem fs = new ManifestListingFileSystem();
+        fs.initialize(URI.create("file:///"), conf);
+        created.add(fs);
+        return fs;
+    }
+
+    private static Path write(Path file, int size) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.write(file, new byte[size]);
+    }
+
+    private static Path manifest(Path file, Path... files) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (Path listed : files) {
+            lines.append("file:").append(listed.toAbsolutePath()).append('\n');
+        }
+        Files.createDirectories(file.getParent());
+        return Files.write(file, lines.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static org.apache.hadoop.fs.Path path(Path path) {
+        return new org.apache.hadoop.fs.Path("file:" + path.toAbsolutePath());
+    }
+
+    private static Map<String, Long> sizes(FileStatus[] statuses) {
+        Map<String, Long> sizes = new TreeMap<>();
+        for (FileStatus status : statuses) {
+            sizes.put(status.getPath().getName(), status.isDirectory() ? 0 : status.getLen());
+        }
+        return sizes;
+    }
+}
@@ -1,6 +1,6 @@
 rootProject.name="trino-demo"
 
-listOf("trino-ext-authz", "hive-authz").forEach { folder ->
+listOf("trino-ext-authz", "hive-authz", "hive-manifest", "activity-loadgen").forEach { folder ->
     include(folder)
     project(":${folder}").projectDir = file(folder)
 }
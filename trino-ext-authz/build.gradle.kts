@@ -1,3 +1,7 @@
+plugins {
+    id("me.champeau.jmh") version "0.7.2"
+}
+
 val trinoVersion:String by project
 
 java {
@@ -16,8 +20,28 @@ dependencies {
         implementation("io.trino:${name}:$trinoVersion")
     }
     implementation("com.google.guava:guava:33.3.0-jre")
+    implementation("at.favre.lib:bcrypt:0.10.2")
     compileOnly("org.slf4j:slf4j-api:1.7.36")
 
+    testImplementation("org.junit.jupiter:junit-jupiter:5.10.3")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher:1.10.3")
+    listOf("trino-testing", "trino-tpch", "trino-tpcds").forEach { name ->
+        testImplementation("io.trino:${name}:$trinoVersion")
+    }
+}
+
+tasks.test {
+    useJUnitPlatform()
+}
+
+jmh {
+    jmhVersion.set("1.37")
+}
+
+tasks.register<JavaExec>("planningBenchmark") {
+    classpath = sourceSets["test"].runtimeClasspath
+    mainClass.set("io.trino.plugin.base.security.BenchmarkAccessControlPlanning")
+    args(rootProject.file("activity-loadgen/queries/planning.mix"), rootProject.file("security/rules/rules.json"))
 }
 
 
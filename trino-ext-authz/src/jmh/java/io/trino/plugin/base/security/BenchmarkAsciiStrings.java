@@ -0,0 +1,84 @@
+package io.trino.plugin.base.security;
+
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceUtf8;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static io.airlift.slice.Slices.wrappedBuffer;
+
+/**
+ * SWAR case conversion against airlift's UTF-8 aware conversion on the same ASCII strings, the
+ * check for ASCII input included as the functions pay it on every row.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BenchmarkAsciiStrings {
+    @Param({"8", "32", "256", "4096"})
+    private int length;
+
+    private Slice value;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            // mixed case text with spaces and digits
+            int kind = random.nextInt(10);
+            bytes[i] = (byte) (kind < 4 ? 'a' + random.nextInt(26) : kind < 8 ? 'A' + random.nextInt(26) : kind < 9 ? ' ' : '0' + random.nextInt(10));
+        }
+        value = wrappedBuffer(bytes);
+    }
+
+    @Benchmark
+    public Slice upperSwar() {
+        return AsciiStrings.isAscii(value) ? AsciiStrings.toUpperCase(value) : SliceUtf8.toUpperCase(value);
+    }
+
+    @Benchmark
+    public Slice upperUtf8() {
+        return SliceUtf8.toUpperCase(value);
+    }
+
+    @Benchmark
+    public Slice lowerSwar() {
+        return AsciiStrings.isAscii(value) ? AsciiStrings.toLowerCase(value) : SliceUtf8.toLowerCase(value);
+    }
+
+    @Benchmark
+    public Slice lowerUtf8() {
+        return SliceUtf8.toLowerCase(value);
+    }
+
+    @Benchmark
+    public boolean isAscii() {
+        return AsciiStrings.isAscii(value);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(".*" + BenchmarkAsciiStrings.class.getSimpleName() + ".*")
+            .build())
+            .run();
+    }
+}
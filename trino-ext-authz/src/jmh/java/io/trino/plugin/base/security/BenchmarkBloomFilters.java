@@ -0,0 +1,91 @@
+package io.trino.plugin.base.security;
+
+import io.airlift.slice.Slice;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static io.airlift.slice.Slices.utf8Slice;
+
+/**
+ * Probe cost per row of {@code bloom_might_contain} for filters that fit in cache and filters that
+ * do not, on a mix of present and absent values.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BenchmarkBloomFilters {
+    private static final int PROBES = 4096;
+
+    @Param({"10000", "1000000", "10000000"})
+    private long insertions;
+
+    private Slice filter;
+    private final long[] longValues = new long[PROBES];
+    private final Slice[] varcharValues = new Slice[PROBES];
+
+    @Setup
+    public void setup() {
+        filter = BloomFilters.create(insertions * 2, 0.01);
+        for (long value = 0; value < insertions; value++) {
+            BloomFilters.put(filter, BloomFilters.hash(value));
+            BloomFilters.put(filter, BloomFilters.hash(utf8Slice("user-" + value)));
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < PROBES; i++) {
+            // half present, half absent
+            long value = random.nextBoolean() ? random.nextLong(insertions) : insertions + random.nextLong(insertions);
+            longValues[i] = value;
+            varcharValues[i] = utf8Slice("user-" + value);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int probeBigint() {
+        int hits = 0;
+        for (long value : longValues) {
+            if (BloomFilterFunctions.mightContain(filter, value)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int probeVarchar() {
+        int hits = 0;
+        for (Slice value : varcharValues) {
+            if (BloomFilterFunctions.mightContain(filter, value)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(".*" + BenchmarkBloomFilters.class.getSimpleName() + ".*")
+            .build())
+            .run();
+    }
+}
@@ -0,0 +1,125 @@
+package io.trino.plugin.base.security;
+
+import io.trino.spi.security.HeaderAuthenticator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Principal;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Authentication of a request carrying a token seen before, which is what a polling client sends,
+ * against full signature verification of every request.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BenchmarkJwtHeaderAuthenticator {
+    @Param({"RS256", "ES256"})
+    private String algorithm;
+
+    private Path keyFile;
+    private JsonWebKeySet keySet;
+    private JwtHeaderAuthenticator cached;
+    private JwtHeaderAuthenticator uncached;
+    private HeaderAuthenticator.Headers headers;
+
+    @Setup
+    public void setup() throws Exception {
+        boolean rsa = algorithm.startsWith("RS");
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(rsa ? "RSA" : "EC");
+        if (rsa) {
+            generator.initialize(2048);
+        } else {
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+        }
+        KeyPair pair = generator.generateKeyPair();
+        String jwk;
+        if (rsa) {
+            RSAPublicKey key = (RSAPublicKey) pair.getPublic();
+            jwk = "{\"kty\":\"RSA\",\"kid\":\"k1\",\"alg\":\"RS256\",\"n\":\"" + unsigned(key.getModulus()) + "\",\"e\":\"" + unsigned(key.getPublicExponent()) + "\"}";
+        } else {
+            ECPublicKey key = (ECPublicKey) pair.getPublic();
+            jwk = "{\"kty\":\"EC\",\"kid\":\"k1\",\"crv\":\"P-256\",\"alg\":\"ES256\",\"x\":\"" + unsigned(key.getW().getAffineX()) + "\",\"y\":\"" + unsigned(key.getW().getAffineY()) + "\"}";
+        }
+        keyFile = Files.createTempFile("jwks", ".json");
+        Files.writeString(keyFile, "{\"keys\":[" + jwk + "]}");
+        keySet = new JsonWebKeySet(keyFile, 60_000);
+        cached = new JwtHeaderAuthenticator(keySet, "Authorization", Optional.empty(), Optional.empty(), "sub", 30_000, 10_000);
+        uncached = new JwtHeaderAuthenticator(keySet, "Authorization", Optional.empty(), Optional.empty(), "sub", 30_000, 0);
+
+        String content = base64("{\"alg\":\"" + algorithm + "\",\"kid\":\"k1\",\"typ\":\"JWT\"}")
+            + "." + base64("{\"sub\":\"alice\",\"exp\":" + (System.currentTimeMillis() / 1000 + 3_600) + "}");
+        Signature signer = Signature.getInstance(rsa ? "SHA256withRSA" : "SHA256withECDSAinP1363Format");
+        signer.initSign(pair.getPrivate());
+        signer.update(content.getBytes(UTF_8));
+        List<String> value = List.of("Bearer " + content + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signer.sign()));
+        headers = name -> value;
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        keySet.shutdown();
+        Files.deleteIfExists(keyFile);
+    }
+
+    @Benchmark
+    public Principal cachedToken() {
+        return cached.createAuthenticatedPrincipal(headers);
+    }
+
+    @Benchmark
+    public Principal verifiedToken() {
+        return uncached.createAuthenticatedPrincipal(headers);
+    }
+
+    private static String base64(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(UTF_8));
+    }
+
+    private static String unsigned(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes[0] == 0 && bytes.length > 1) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(".*" + BenchmarkJwtHeaderAuthenticator.class.getSimpleName() + ".*")
+            .build())
+            .run();
+    }
+}
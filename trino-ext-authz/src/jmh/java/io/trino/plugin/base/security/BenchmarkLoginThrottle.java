@@ -0,0 +1,78 @@
+package io.trino.plugin.base.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the throttle check on the login path, and of recording failures while many threads
+ * hammer the same cells, as during a guessing attack on one user.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BenchmarkLoginThrottle {
+    private static final int USERS = 1024;
+
+    private LoginThrottle throttle;
+    private String[] users;
+
+    @Setup
+    public void setup() {
+        throttle = new LoginThrottle(1 << 16, 4, 5, 1, 300);
+        users = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            users[i] = "user" + i;
+        }
+        // background noise of failed logins from many names
+        for (int i = 0; i < 100_000; i++) {
+            throttle.recordFailure("noise" + i);
+        }
+    }
+
+    @Benchmark
+    public boolean isThrottled() {
+        return throttle.isThrottled(users[ThreadLocalRandom.current().nextInt(USERS)]);
+    }
+
+    @Benchmark
+    public void recordFailure() {
+        throttle.recordFailure(users[ThreadLocalRandom.current().nextInt(USERS)]);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void recordFailureSameUserContended() {
+        throttle.recordFailure("admin");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean isThrottledContended() {
+        return throttle.isThrottled("admin");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(".*" + BenchmarkLoginThrottle.class.getSimpleName() + ".*")
+            .build())
+            .run();
+    }
+}
@@ -0,0 +1,124 @@
+package io.trino.plugin.base.security;
+
+import at.favre.lib.crypto.bcrypt.BCrypt;
+import io.trino.spi.security.AccessDeniedException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a legitimate login through {@link PasswordFileAuthenticator} while one other thread
+ * floods failed logins, against the same login with no attack. The token cache is disabled so
+ * every legitimate login pays a real bcrypt check. Compare the p50 and p99 of the legitimate
+ * method in each group:
+ * <ul>
+ * <li>{@code quiet}: the legitimate user alone
+ * <li>{@code guessing}: wrong passwords for known users, which the throttle soon rejects unhashed
+ * <li>{@code spraying}: wrong passwords for ever new unknown names, each paying a decoy hash
+ * </ul>
+ */
+@State(Scope.Group)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.SampleTime)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BenchmarkPasswordFileLogin {
+    private static final String PASSWORD = "correct horse battery staple";
+    private static final int VICTIMS = 256;
+
+    private Path file;
+    private PasswordFileAuthenticator authenticator;
+    // only the single attacker thread of a group touches it
+    private long attempt;
+
+    @Setup
+    public void setup() throws IOException {
+        String hash = BCrypt.withDefaults().hashToString(10, PASSWORD.toCharArray());
+        List<String> lines = new ArrayList<>();
+        lines.add("alice:" + hash);
+        for (int i = 0; i < VICTIMS; i++) {
+            lines.add("user" + i + ":" + hash);
+        }
+        file = Files.createTempFile("password", ".db");
+        Files.write(file, lines);
+        authenticator = new PasswordFileAuthenticator(file, 60_000, 300_000, 0, new LoginThrottle(16384, 4, 5, 1, 300));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    @Group("quiet")
+    @GroupThreads(1)
+    public Principal quietLogin() {
+        return authenticator.createAuthenticatedPrincipal("alice", PASSWORD);
+    }
+
+    @Benchmark
+    @Group("guessing")
+    @GroupThreads(1)
+    public Principal guessingLogin() {
+        return authenticator.createAuthenticatedPrincipal("alice", PASSWORD);
+    }
+
+    @Benchmark
+    @Group("guessing")
+    @GroupThreads(1)
+    public boolean guessingAttack() {
+        return failedLogin("user" + (attempt++ % VICTIMS));
+    }
+
+    @Benchmark
+    @Group("spraying")
+    @GroupThreads(1)
+    public Principal sprayingLogin() {
+        return authenticator.createAuthenticatedPrincipal("alice", PASSWORD);
+    }
+
+    @Benchmark
+    @Group("spraying")
+    @GroupThreads(1)
+    public boolean sprayingAttack() {
+        return failedLogin("unknown" + attempt++);
+    }
+
+    private boolean failedLogin(String user) {
+        try {
+            authenticator.createAuthenticatedPrincipal(user, "guess");
+            return true;
+        } catch (AccessDeniedException e) {
+            return false;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(".*" + BenchmarkPasswordFileLogin.class.getSimpleName() + ".*")
+            .build())
+            .run();
+    }
+}
@@ -0,0 +1,15 @@
+package io.trino.plugin.base.security;
+
+/**
+ * Calls to one access control method since the coordinator started. Denied calls are those
+ * that threw an access denied exception; time is wall time spent in the method.
+ */
+public interface AccessControlCallsMXBean {
+    long getCalls();
+
+    long getDeniedCalls();
+
+    long getTotalMicros();
+
+    double getAverageMicros();
+}
@@ -0,0 +1,321 @@
+package io.trino.plugin.base.security;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.airlift.log.Logger;
+import io.trino.spi.eventlistener.ColumnInfo;
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import io.trino.spi.eventlistener.QueryInputMetadata;
+import io.trino.spi.eventlistener.TableInfo;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Read counts, physical input bytes and rows per table and per column from the IO metadata of
+ * completed queries. A column is charged with the input of its table, so its bytes are those
+ * scanned by queries that read it. Up to {@code capacity} tables and columns each are counted
+ * exactly; accesses of further keys go to count-min sketches, which still answer estimates for
+ * the long tail. Once the sketch estimates more reads for an untracked key than the least read
+ * tracked entry has, the two swap: the key is tracked from its estimates and the entry's counts move
+ * into the sketches, so a newly hot key reaches the top lists even when capacity is taken by keys
+ * read now and then.
+ * <p>
+ * Recording runs on the event thread and updates atomic counters, taking a lock only to swap a key
+ * into tracking. Every report interval a daemon thread publishes the top entries to JMX and the
+ * file, then multiplies all counters by the decay factor and drops entries that decayed to zero,
+ * which frees capacity for keys that became hot later. Partitions are not covered, the SPI only exposes them in connector specific form.
+ */
+class AccessHeatmap implements AccessHeatmapMXBean {
+    private static final Logger LOG = Logger.get(AccessHeatmap.class);
+    private static final int SKETCH_DEPTH = 4;
+
+    private final int capacity;
+    private final int reportSize;
+    private final double decay;
+    private final Optional<Path> file;
+    private final Tracked tables = new Tracked();
+    private final Tracked columns = new Tracked();
+    private final CountMinSketch tailReads;
+    private final CountMinSketch tailBytes;
+    private final CountMinSketch tailRows;
+    private final LongAdder untracked = new LongAdder();
+    private final ScheduledExecutorService reporter;
+    private final ObjectName objectName;
+    private volatile String[] topTables = new String[0];
+    private volatile String[] topColumns = new String[0];
+
+    AccessHeatmap(int capacity, int reportSize, int sketchWidth, double decay, long reportIntervalMillis, Optional<Path> file) {
+        this.capacity = capacity;
+        this.reportSize = reportSize;
+        this.decay = decay;
+        this.file = file;
+        this.tailReads = new CountMinSketch(SKETCH_DEPTH, sketchWidth);
+        this.tailBytes = new CountMinSketch(SKETCH_DEPTH, sketchWidth);
+        this.tailRows = new CountMinSketch(SKETCH_DEPTH, sketchWidth);
+        this.reporter = newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("audit-access-heatmap").setDaemon(true).build());
+        this.reporter.scheduleWithFixedDelay(this::report, reportIntervalMillis, reportIntervalMillis, MILLISECONDS);
+        this.objectName = register();
+    }
+
+    void record(QueryCompletedEvent event) {
+        List<QueryInputMetadata> inputs = event.getIoMetadata().getInputs();
+        if (inputs.isEmpty()) {
+            return;
+        }
+        // a table scanned twice in one query is one read of the sum of its inputs
+        Map<String, long[]> read = new HashMap<>();
+        for (QueryInputMetadata input : inputs) {
+            long[] totals = read.computeIfAbsent(input.getCatalogName() + "." + input.getSchema() + "." + input.getTable(), ignored -> new long[2]);
+            totals[0] += input.getPhysicalInputBytes().orElse(0);
+            totals[1] += input.getPhysicalInputRows().orElse(0);
+        }
+        read.forEach((table, totals) -> recordTable(table, totals[0], totals[1]));
+        for (TableInfo table : event.getMetadata().getTables()) {
+            String name = table.getCatalog() + "." + table.getSchema() + "." + table.getTable();
+            long[] totals = read.get(name);
+            if (totals == null) {
+                continue;
+            }
+            for (ColumnInfo column : table.getColumns()) {
+                recordColumn(name + "." + column.getColumn(), totals[0], totals[1]);
+            }
+        }
+    }
+
+    void recordTable(String table, long bytes, long rows) {
+        add(tables, table, bytes, rows);
+    }
+
+    void recordColumn(String column, long bytes, long rows) {
+        add(columns, column, bytes, rows);
+    }
+
+    private void add(Tracked tracked, String key, long bytes, long rows) {
+        Counters entry = tracked.counters.get(key);
+        if (entry == null) {
+            if (tracked.counters.size() >= capacity) {
+                untracked.increment();
+                tailReads.add(key, 1);
+                tailBytes.add(key, bytes);
+                tailRows.add(key, rows);
+                promote(tracked, key);
+                return;
+            }
+            entry = tracked.counters.computeIfAbsent(key, ignored -> new Counters(0, 0, 0));
+        }
+        entry.add(bytes, rows);
+    }
+
+    /**
+     * Swaps an untracked key with the least read tracked entry when the sketch estimates more reads
+     * for it. Most accesses only compare against the remembered smallest entry; a swap rescans.
+     */
+    private void promote(Tracked tracked, String key) {
+        long reads = tailReads.estimate(key);
+        Map.Entry<String, Counters> smallest = tracked.smallest;
+        if (smallest != null && reads <= smallest.getValue().reads.get()) {
+            return;
+        }
+        synchronized (tracked) {
+            smallest = tracked.smallest();
+            if (smallest == null || reads <= smallest.getValue().reads.get() || tracked.counters.containsKey(key)) {
+                return;
+            }
+            if (tracked.counters.remove(smallest.getKey(), smallest.getValue())) {
+                Counters evicted = smallest.getValue();
+                tailReads.add(smallest.getKey(), evicted.reads.get());
+                tailBytes.add(smallest.getKey(), evicted.bytes.get());
+                tailRows.add(smallest.getKey(), evicted.rows.get());
+                tracked.counters.put(key, new Counters(reads, tailBytes.estimate(key), tailRows.estimate(key)));
+            }
+            tracked.smallest = null;
+        }
+    }
+
+    void report() {
+        try {
+            topTables = top(tables.counters);
+            topColumns = top(columns.counters);
+            file.ifPresent(this::write);
+            decay(tables);
+            decay(columns);
+            tailReads.decay(decay);
+            tailBytes.decay(decay);
+            tailRows.decay(decay);
+        } catch (RuntimeException e) {
+            LOG.warn(e, "failed to report access heatmap");
+        }
+    }
+
+    private String[] top(Map<String, Counters> counters) {
+        return counters.entrySet().stream()
+            .sorted(Comparator.comparingLong((Map.Entry<String, Counters> entry) -> entry.getValue().reads.get()).reversed())
+            .limit(reportSize)
+            .map(entry -> format(entry.getKey(), entry.getValue().reads.get(), entry.getValue().bytes.get(), entry.getValue().rows.get()))
+            .toArray(String[]::new);
+    }
+
+    /**
+     * Writes all tracked entries as {@code kind key reads bytes rows} lines, replacing the file
+     * atomically so readers never see a partial snapshot.
+     */
+    private void write(Path target) {
+        try {
+            Files.createDirectories(target.toAbsolutePath().getParent());
+            Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+            try (BufferedWriter out = Files.newBufferedWriter(temporary, UTF_8)) {
+                write(out, "table", tables.counters);
+                write(out, "column", columns.counters);
+            }
+            Files.move(temporary, target, REPLACE_EXISTING, ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warn(e, "failed to write access heatmap to %s", target);
+        }
+    }
+
+    private static void write(BufferedWriter out, String kind, Map<String, Counters> counters) throws IOException {
+        for (Map.Entry<String, Counters> entry : counters.entrySet()) {
+            Counters value = entry.getValue();
+            out.write(kind + "\t" + entry.getKey() + "\t" + value.reads.get() + "\t" + value.bytes.get() + "\t" + value.rows.get());
+            out.newLine();
+        }
+    }
+
+    private void decay(Tracked tracked) {
+        tracked.counters.forEach((key, value) -> {
+            if (value.decay(decay) == 0) {
+                // a read racing with the removal is lost, as if it had decayed
+                tracked.counters.remove(key, value);
+            }
+        });
+        synchronized (tracked) {
+            tracked.smallest = null;
+        }
+    }
+
+    private static String format(String key, long reads, long bytes, long rows) {
+        return key + " " + reads + " " + bytes + " " + rows;
+    }
+
+    @Override
+    public String[] getTopTables() {
+        return topTables;
+    }
+
+    @Override
+    public String[] getTopColumns() {
+        return topColumns;
+    }
+
+    @Override
+    public int getTrackedTables() {
+        return tables.counters.size();
+    }
+
+    @Override
+    public int getTrackedColumns() {
+        return columns.counters.size();
+    }
+
+    @Override
+    public long getUntrackedAccesses() {
+        return untracked.sum();
+    }
+
+    @Override
+    public String estimate(String key) {
+        Counters tracked = tables.counters.getOrDefault(key, columns.counters.get(key));
+        if (tracked != null) {
+            return format(key, tracked.reads.get(), tracked.bytes.get(), tracked.rows.get());
+        }
+        return format(key, tailReads.estimate(key), tailBytes.estimate(key), tailRows.estimate(key));
+    }
+
+    private ObjectName register() {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(QueryStatsCollector.JMX_DOMAIN + ":type=AccessHeatmap");
+            mBeanServer.registerMBean(this, name);
+            return name;
+        } catch (JMException e) {
+            LOG.warn(e, "failed to register access heatmap");
+            return null;
+        }
+    }
+
+    void shutdown() {
+        reporter.shutdownNow();
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (JMException ignored) {
+                // already gone
+            }
+        }
+    }
+
+    /**
+     * Exactly counted keys of one kind, and the least read of them as of the last swap or report.
+     */
+    private static final class Tracked {
+        private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+        private volatile Map.Entry<String, Counters> smallest;
+
+        // called holding the lock
+        Map.Entry<String, Counters> smallest() {
+            if (smallest == null) {
+                smallest = counters.entrySet().stream()
+                    .min(Comparator.comparingLong(entry -> entry.getValue().reads.get()))
+                    .map(entry -> Map.entry(entry.getKey(), entry.getValue()))
+                    .orElse(null);
+            }
+            return smallest;
+        }
+    }
+
+    private static final class Counters {
+        private final AtomicLong reads;
+        private final AtomicLong bytes;
+        private final AtomicLong rows;
+
+        Counters(long reads, long bytes, long rows) {
+            this.reads = new AtomicLong(reads);
+            this.bytes = new AtomicLong(bytes);
+            this.rows = new AtomicLong(rows);
+        }
+
+        void add(long bytesRead, long rowsRead) {
+            reads.incrementAndGet();
+            bytes.addAndGet(bytesRead);
+            rows.addAndGet(rowsRead);
+        }
+
+        long decay(double factor) {
+            bytes.updateAndGet(value -> (long) (value * factor));
+            rows.updateAndGet(value -> (long) (value * factor));
+            return reads.updateAndGet(value -> (long) (value * factor));
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package io.trino.plugin.base.security;
+
+/**
+ * Most read tables and columns as of the last report, decayed each report interval, one entry per
+ * key formatted as {@code catalog.schema.table[.column] reads bytes rows}.
+ */
+public interface AccessHeatmapMXBean {
+    String[] getTopTables();
+
+    String[] getTopColumns();
+
+    int getTrackedTables();
+
+    int getTrackedColumns();
+
+    /**
+     * Accesses of keys beyond the tracking capacity, counted only in the sketches.
+     */
+    long getUntrackedAccesses();
+
+    /**
+     * Returns the entry of a table or column, estimated from the sketches when it is not tracked.
+     */
+    String estimate(String key);
+}
@@ -0,0 +1,144 @@
+package io.trino.plugin.base.security;
+
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+/**
+ * Byte level string kernels for ASCII input, eight bytes at a time (SWAR over longs).
+ * <p>
+ * Bytes of a long word are processed in parallel with plain arithmetic: once a word is known to
+ * hold only ASCII bytes (high bit clear), adding a per-byte constant can never carry into the next
+ * byte, so {@code b + (0x80 - 'a')} sets the high bit of exactly the bytes {@code >= 'a'}. Two such
+ * comparisons give a mask of the letters to change, and flipping bit 5 converts their case.
+ * Callers fall back to the UTF-8 aware implementation when {@link #isAscii} is false.
+ */
+final class AsciiStrings {
+    private static final long HIGH_BITS = 0x8080_8080_8080_8080L;
+    private static final long ONES = 0x0101_0101_0101_0101L;
+
+    private AsciiStrings() {
+    }
+
+    static boolean isAscii(Slice slice) {
+        int length = slice.length();
+        int offset = 0;
+        long bits = 0;
+        for (; offset + Long.BYTES <= length; offset += Long.BYTES) {
+            bits |= slice.getLong(offset);
+        }
+        for (; offset < length; offset++) {
+            bits |= slice.getByte(offset);
+        }
+        return (bits & HIGH_BITS) == 0;
+    }
+
+    static Slice toUpperCase(Slice slice) {
+        return convertCase(slice, 'a', 'z');
+    }
+
+    static Slice toLowerCase(Slice slice) {
+        return convertCase(slice, 'A', 'Z');
+    }
+
+    /**
+     * Flips the case of every byte in {@code [first, last]}; the input must be ASCII.
+     */
+    private static Slice convertCase(Slice slice, char first, char last) {
+        int length = slice.length();
+        Slice result = Slices.allocate(length);
+        long aboveFirst = ONES * (0x80 - first);
+        long aboveLast = ONES * (0x80 - last - 1);
+        int offset = 0;
+        for (; offset + Long.BYTES <= length; offset += Long.BYTES) {
+            long word = slice.getLong(offset);
+            long letters = ((word + aboveFirst) ^ (word + aboveLast)) & HIGH_BITS;
+            result.setLong(offset, word ^ (letters >>> 2));
+        }
+        for (; offset < length; offset++) {
+            byte value = slice.getByte(offset);
+            result.setByte(offset, value >= first && value <= last ? value ^ 0x20 : value);
+        }
+        return result;
+    }
+
+    /**
+     * Upper cases the first letter of every word and lower cases the others; a word is a run of
+     * letters and digits. The input must be ASCII.
+     */
+    static Slice initcap(Slice slice) {
+        int length = slice.length();
+        Slice result = Slices.allocate(length);
+        boolean wordStart = true;
+        for (int offset = 0; offset < length; offset++) {
+            int value = slice.getByte(offset);
+            boolean upper = value >= 'A' && value <= 'Z';
+            boolean lower = value >= 'a' && value <= 'z';
+            if (wordStart && lower) {
+                value ^= 0x20;
+            } else if (!wordStart && upper) {
+                value ^= 0x20;
+            }
+            result.setByte(offset, value);
+            wordStart = !(upper || lower || (value >= '0' && value <= '9'));
+        }
+        return result;
+    }
+
+    /**
+     * Removes leading and trailing ASCII whitespace and replaces inner whitespace runs with a single
+     * space. Safe on any UTF-8 input: bytes of multi-byte characters never look like ASCII.
+     * Returns the input itself when it is already normalized.
+     */
+    static Slice trimNormalize(Slice slice) {
+        int length = slice.length();
+        int start = 0;
+        while (start < length && isWhitespace(slice.getByte(start))) {
+            start++;
+        }
+        int end = length;
+        while (end > start && isWhitespace(slice.getByte(end - 1))) {
+            end--;
+        }
+        if (isNormalized(slice, start, end)) {
+            return start == 0 && end == length ? slice : slice.slice(start, end - start);
+        }
+        Slice result = Slices.allocate(end - start);
+        int position = 0;
+        boolean inWhitespace = false;
+        for (int offset = start; offset < end; offset++) {
+            byte value = slice.getByte(offset);
+            if (isWhitespace(value)) {
+                inWhitespace = true;
+                continue;
+            }
+            if (inWhitespace) {
+                result.setByte(position++, ' ');
+                inWhitespace = false;
+            }
+            result.setByte(position++, value);
+        }
+        return result.slice(0, position);
+    }
+
+    private static boolean isNormalized(Slice slice, int start, int end) {
+        boolean previousSpace = false;
+        for (int offset = start; offset < end; offset++) {
+            byte value = slice.getByte(offset);
+            if (value == ' ') {
+                if (previousSpace) {
+                    return false;
+                }
+                previousSpace = true;
+            } else if (isWhitespace(value)) {
+                return false;
+            } else {
+                previousSpace = false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(byte value) {
+        return value == ' ' || (value >= '\t' && value <= '\r');
+    }
+}
@@ -0,0 +1,28 @@
+package io.trino.plugin.base.security;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.trino.spi.connector.ColumnHandle;
+
+import static java.util.Objects.requireNonNull;
+
+public record AuditColumnHandle(String name, int ordinal)
+        implements ColumnHandle {
+    @JsonCreator
+    public AuditColumnHandle(@JsonProperty("name") String name, @JsonProperty("ordinal") int ordinal) {
+        this.name = requireNonNull(name, "name is null");
+        this.ordinal = ordinal;
+    }
+
+    @Override
+    @JsonProperty
+    public String name() {
+        return name;
+    }
+
+    @Override
+    @JsonProperty
+    public int ordinal() {
+        return ordinal;
+    }
+}
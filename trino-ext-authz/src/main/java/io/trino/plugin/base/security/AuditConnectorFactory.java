@@ -0,0 +1,127 @@
+package io.trino.plugin.base.security;
+
+import io.trino.plugin.base.security.QueryHistory.QuerySummary;
+import io.trino.spi.HostAddress;
+import io.trino.spi.NodeManager;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.Connector;
+import io.trino.spi.connector.ConnectorContext;
+import io.trino.spi.connector.ConnectorFactory;
+import io.trino.spi.connector.ConnectorMetadata;
+import io.trino.spi.connector.ConnectorRecordSetProvider;
+import io.trino.spi.connector.ConnectorSession;
+import io.trino.spi.connector.ConnectorSplit;
+import io.trino.spi.connector.ConnectorSplitManager;
+import io.trino.spi.connector.ConnectorSplitSource;
+import io.trino.spi.connector.ConnectorTableHandle;
+import io.trino.spi.connector.ConnectorTransactionHandle;
+import io.trino.spi.connector.Constraint;
+import io.trino.spi.connector.DynamicFilter;
+import io.trino.spi.connector.FixedSplitSource;
+import io.trino.spi.connector.InMemoryRecordSet;
+import io.trino.spi.connector.RecordSet;
+import io.trino.spi.transaction.IsolationLevel;
+import io.trino.spi.type.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves the query history captured by the {@code auditlog} event listener as the read-only
+ * {@code recent} schema, e.g. {@code SELECT * FROM audit.recent.queries WHERE user = 'user1'}.
+ */
+public class AuditConnectorFactory implements ConnectorFactory {
+    @Override
+    public String getName() {
+        return "audit";
+    }
+
+    @Override
+    public Connector create(String catalogName, Map<String, String> config, ConnectorContext context) {
+        return new AuditConnector(context.getNodeManager());
+    }
+}
+
+enum AuditTransactionHandle implements ConnectorTransactionHandle {
+    INSTANCE
+}
+
+class AuditConnector implements Connector {
+    private final AuditMetadata metadata = new AuditMetadata();
+    private final AuditSplitManager splitManager;
+    private final AuditRecordSetProvider recordSetProvider = new AuditRecordSetProvider();
+
+    AuditConnector(NodeManager nodeManager) {
+        this.splitManager = new AuditSplitManager(nodeManager);
+    }
+
+    @Override
+    public ConnectorTransactionHandle beginTransaction(IsolationLevel isolationLevel, boolean readOnly, boolean autoCommit) {
+        return AuditTransactionHandle.INSTANCE;
+    }
+
+    @Override
+    public ConnectorMetadata getMetadata(ConnectorSession session, ConnectorTransactionHandle transactionHandle) {
+        return metadata;
+    }
+
+    @Override
+    public ConnectorSplitManager getSplitManager() {
+        return splitManager;
+    }
+
+    @Override
+    public ConnectorRecordSetProvider getRecordSetProvider() {
+        return recordSetProvider;
+    }
+}
+
+class AuditSplitManager implements ConnectorSplitManager {
+    private final NodeManager nodeManager;
+
+    AuditSplitManager(NodeManager nodeManager) {
+        this.nodeManager = nodeManager;
+    }
+
+    @Override
+    public ConnectorSplitSource getSplits(
+            ConnectorTransactionHandle transaction,
+            ConnectorSession session,
+            ConnectorTableHandle table,
+            DynamicFilter dynamicFilter,
+            Constraint constraint) {
+        HostAddress coordinator = nodeManager.getCurrentNode().getHostAndPort();
+        return new FixedSplitSource(List.of(new AuditSplit(coordinator)));
+    }
+}
+
+class AuditRecordSetProvider implements ConnectorRecordSetProvider {
+    @Override
+    public RecordSet getRecordSet(
+            ConnectorTransactionHandle transaction,
+            ConnectorSession session,
+            ConnectorSplit split,
+            ConnectorTableHandle table,
+            List<? extends ColumnHandle> columns) {
+        AuditTableHandle handle = (AuditTableHandle) table;
+        List<QuerySummary> summaries = QueryHistory.current().scan(handle::matches);
+
+        List<Type> types = new ArrayList<>(columns.size());
+        int[] ordinals = new int[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            ordinals[i] = ((AuditColumnHandle) columns.get(i)).ordinal();
+            types.add(handle.table().getType(ordinals[i]));
+        }
+
+        InMemoryRecordSet.Builder records = InMemoryRecordSet.builder(types);
+        for (Object[] row : handle.table().rows(summaries)) {
+            Object[] projected = new Object[ordinals.length];
+            for (int i = 0; i < ordinals.length; i++) {
+                projected[i] = row[ordinals[i]];
+            }
+            records.addRow(projected);
+        }
+        return records.build();
+    }
+}
@@ -0,0 +1,190 @@
+package io.trino.plugin.base.security;
+
+import io.airlift.slice.Slice;
+import io.trino.spi.function.Description;
+import io.trino.spi.function.ScalarFunction;
+import io.trino.spi.function.SqlNullable;
+import io.trino.spi.function.SqlType;
+import io.trino.spi.type.StandardTypes;
+
+import static io.airlift.slice.Slices.utf8Slice;
+
+/**
+ * Field access on audit lines written by {@link AttributeLogger}, i.e. flat JSON objects of string
+ * values, for querying archived audit logs through the hive catalog, e.g.
+ * {@code SELECT audit_field(line, 'user'), sum(audit_field_bigint(line, 'cpu_time')) ... GROUP BY 1}.
+ * <p>
+ * The line is scanned forward once, comparing keys in place; nothing is materialized except the
+ * returned value, which is a view of the line unless it contains escapes.
+ */
+public class AuditFunctions {
+    @Description("Returns the value of a field of an audit log line, or null when absent")
+    @ScalarFunction("audit_field")
+    @SqlNullable
+    @SqlType(StandardTypes.VARCHAR)
+    public static Slice auditField(@SqlType(StandardTypes.VARCHAR) Slice line, @SqlType(StandardTypes.VARCHAR) Slice field) {
+        long value = find(line, field);
+        if (value < 0) {
+            return null;
+        }
+        int start = (int) (value >>> 32);
+        int end = (int) value;
+        for (int offset = start; offset < end; offset++) {
+            if (line.getByte(offset) == '\\') {
+                return unescape(line, start, end);
+            }
+        }
+        return line.slice(start, end - start);
+    }
+
+    @Description("Returns the value of a numeric field of an audit log line, or null when absent or not a number")
+    @ScalarFunction("audit_field_bigint")
+    @SqlNullable
+    @SqlType(StandardTypes.BIGINT)
+    public static Long auditFieldBigint(@SqlType(StandardTypes.VARCHAR) Slice line, @SqlType(StandardTypes.VARCHAR) Slice field) {
+        long value = find(line, field);
+        if (value < 0) {
+            return null;
+        }
+        int start = (int) (value >>> 32);
+        int end = (int) value;
+        boolean negative = start < end && line.getByte(start) == '-';
+        int offset = negative ? start + 1 : start;
+        if (offset == end || end - offset > 18) {
+            return null;
+        }
+        long result = 0;
+        for (; offset < end; offset++) {
+            int digit = line.getByte(offset) - '0';
+            if (digit < 0 || digit > 9) {
+                return null;
+            }
+            result = result * 10 + digit;
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Returns the byte range of the raw value of the field packed as {@code start << 32 | end},
+     * without surrounding quotes, or -1 when the field is absent or the line is not an object.
+     */
+    private static long find(Slice line, Slice field) {
+        int length = line.length();
+        int offset = skipSpaces(line, 0);
+        if (offset >= length || line.getByte(offset) != '{') {
+            return -1;
+        }
+        offset++;
+        while (true) {
+            offset = skipSpaces(line, offset);
+            if (offset >= length || line.getByte(offset) != '"') {
+                return -1;
+            }
+            int keyStart = offset + 1;
+            int keyEnd = stringEnd(line, keyStart);
+            if (keyEnd < 0) {
+                return -1;
+            }
+            offset = skipSpaces(line, keyEnd + 1);
+            if (offset >= length || line.getByte(offset) != ':') {
+                return -1;
+            }
+            offset = skipSpaces(line, offset + 1);
+            if (offset >= length) {
+                return -1;
+            }
+            int valueStart;
+            int valueEnd;
+            if (line.getByte(offset) == '"') {
+                valueStart = offset + 1;
+                valueEnd = stringEnd(line, valueStart);
+                if (valueEnd < 0) {
+                    return -1;
+                }
+                offset = valueEnd + 1;
+            } else {
+                valueStart = offset;
+                while (offset < length && line.getByte(offset) != ',' && line.getByte(offset) != '}') {
+                    offset++;
+                }
+                valueEnd = offset;
+                while (valueEnd > valueStart && line.getByte(valueEnd - 1) == ' ') {
+                    valueEnd--;
+                }
+            }
+            if (keyEnd - keyStart == field.length() && line.equals(keyStart, keyEnd - keyStart, field, 0, field.length())) {
+                return ((long) valueStart << 32) | valueEnd;
+            }
+            offset = skipSpaces(line, offset);
+            if (offset >= length || line.getByte(offset) != ',') {
+                return -1;
+            }
+            offset++;
+        }
+    }
+
+    /**
+     * Returns the offset of the quote closing the string starting at {@code offset}, or -1.
+     */
+    private static int stringEnd(Slice line, int offset) {
+        int length = line.length();
+        while (offset < length) {
+            byte value = line.getByte(offset);
+            if (value == '"') {
+                return offset;
+            }
+            offset += value == '\\' ? 2 : 1;
+        }
+        return -1;
+    }
+
+    private static int skipSpaces(Slice line, int offset) {
+        while (offset < line.length() && line.getByte(offset) == ' ') {
+            offset++;
+        }
+        return offset;
+    }
+
+    private static Slice unescape(Slice line, int start, int end) {
+        String value = line.slice(start, end - start).toStringUtf8();
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 == value.length()) {
+                result.append(c);
+                continue;
+            }
+            char escaped = value.charAt(++i);
+            switch (escaped) {
+                case 'n' -> result.append('\n');
+                case 'r' -> result.append('\r');
+                case 't' -> result.append('\t');
+                case 'b' -> result.append('\b');
+                case 'f' -> result.append('\f');
+                case 'u' -> {
+                    int codeUnit = i + 4 < value.length() ? hexValue(value, i + 1) : -1;
+                    if (codeUnit < 0) {
+                        result.append("\\u");
+                    } else {
+                        result.append((char) codeUnit);
+                        i += 4;
+                    }
+                }
+                default -> result.append(escaped);
+            }
+        }
+        return utf8Slice(result.toString());
+    }
+
+    private static int hexValue(String value, int offset) {
+        int result = 0;
+        for (int i = offset; i < offset + 4; i++) {
+            int digit = Character.digit(value.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            result = result * 16 + digit;
+        }
+        return result;
+    }
+}
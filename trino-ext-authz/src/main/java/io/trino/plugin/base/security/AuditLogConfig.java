@@ -0,0 +1,196 @@
+package io.trino.plugin.base.security;
+
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Settings of the {@code auditlog} event listener read from event-listener.properties.
+ */
+class AuditLogConfig {
+    static final String STATS_ENABLED = "trino.auditlog.stats.enabled";
+    static final String STATS_WINDOW = "trino.auditlog.stats.window";
+    static final String STATS_SLOTS = "trino.auditlog.stats.slots";
+    static final String STATS_MAX_KEYS = "trino.auditlog.stats.max-keys";
+    static final String HISTORY_CAPACITY = "trino.auditlog.history.capacity";
+    static final String HISTORY_MAX_QUERY_LENGTH = "trino.auditlog.history.max-query-length";
+    static final String SINK = "trino.auditlog.sink";
+    static final String DEDUPLICATE_QUERY_TEXT = "trino.auditlog.deduplicate-query-text";
+    static final String FLUSH_INTERVAL = "trino.auditlog.flush-interval";
+    static final String STDOUT_SEGMENT_INTERVAL = "trino.auditlog.stdout.segment-interval";
+    static final String FILE_DIRECTORY = "trino.auditlog.file.directory";
+    static final String FILE_MAX_SEGMENT_SIZE = "trino.auditlog.file.max-segment-size";
+    static final String FILE_MAX_SEGMENT_AGE = "trino.auditlog.file.max-segment-age";
+    static final String HTTP_URL = "trino.auditlog.http.url";
+    static final String HTTP_SEGMENT_INTERVAL = "trino.auditlog.http.segment-interval";
+    static final String HTTP_MAX_BATCH_LINES = "trino.auditlog.http.max-batch-lines";
+    static final String HTTP_MAX_BATCH_SIZE = "trino.auditlog.http.max-batch-size";
+    static final String HTTP_LINGER = "trino.auditlog.http.linger";
+    static final String HTTP_MAX_IN_FLIGHT = "trino.auditlog.http.max-in-flight";
+    static final String HTTP_TIMEOUT = "trino.auditlog.http.timeout";
+    static final String HTTP_SPOOL_DIRECTORY = "trino.auditlog.http.spool.directory";
+    static final String HTTP_SPOOL_SEGMENT_SIZE = "trino.auditlog.http.spool.segment-size";
+    static final String HTTP_SPOOL_MAX_SIZE = "trino.auditlog.http.spool.max-size";
+    static final String HTTP_SPOOL_MAX_SEGMENTS = "trino.auditlog.http.spool.max-segments";
+    static final String HEAVY_HITTERS_ENABLED = "trino.auditlog.heavy-hitters.enabled";
+    static final String HEAVY_HITTERS_CAPACITY = "trino.auditlog.heavy-hitters.capacity";
+    static final String HEAVY_HITTERS_REPORT_SIZE = "trino.auditlog.heavy-hitters.report-size";
+    static final String HEAVY_HITTERS_QUEUE_SIZE = "trino.auditlog.heavy-hitters.queue-size";
+    static final String HEAVY_HITTERS_REPORT_INTERVAL = "trino.auditlog.heavy-hitters.report-interval";
+    static final String HEATMAP_ENABLED = "trino.auditlog.heatmap.enabled";
+    static final String HEATMAP_CAPACITY = "trino.auditlog.heatmap.capacity";
+    static final String HEATMAP_REPORT_SIZE = "trino.auditlog.heatmap.report-size";
+    static final String HEATMAP_SKETCH_WIDTH = "trino.auditlog.heatmap.sketch-width";
+    static final String HEATMAP_DECAY = "trino.auditlog.heatmap.decay";
+    static final String HEATMAP_REPORT_INTERVAL = "trino.auditlog.heatmap.report-interval";
+    static final String HEATMAP_FILE = "trino.auditlog.heatmap.file";
+
+    private final Map<String, String> config;
+
+    AuditLogConfig(Map<String, String> config) {
+        this.config = config;
+    }
+
+    boolean isStatsEnabled() {
+        return getBoolean(STATS_ENABLED, true);
+    }
+
+    long getStatsWindowMillis() {
+        return getDuration(STATS_WINDOW, "5m").toMillis();
+    }
+
+    int getStatsSlots() {
+        return getInt(STATS_SLOTS, 10);
+    }
+
+    int getStatsMaxKeys() {
+        return getInt(STATS_MAX_KEYS, 100);
+    }
+
+    int getHistoryCapacity() {
+        return getInt(HISTORY_CAPACITY, 10_000);
+    }
+
+    int getHistoryMaxQueryLength() {
+        return getInt(HISTORY_MAX_QUERY_LENGTH, 2_000);
+    }
+
+    AuditSink createSink() {
+        boolean deduplicate = getBoolean(DEDUPLICATE_QUERY_TEXT, false);
+        List<AuditSink> sinks = new ArrayList<>();
+        for (String sink : getString(SINK, "stdout").split(",")) {
+            sinks.add(createSink(sink.trim(), deduplicate));
+        }
+        AuditSink sink = sinks.size() == 1 ? sinks.get(0) : new CompositeAuditSink(deduplicate, sinks);
+        sink.flushEvery(getDuration(FLUSH_INTERVAL, "1s").toMillis());
+        return sink;
+    }
+
+    private AuditSink createSink(String sink, boolean deduplicate) {
+        switch (sink) {
+            case "stdout":
+                return new StdoutAuditSink(deduplicate, getDuration(STDOUT_SEGMENT_INTERVAL, "1h").toMillis());
+            case "file":
+                return new SegmentedFileAuditSink(
+                    Paths.get(getString(FILE_DIRECTORY, "/data/trino/audit")),
+                    deduplicate,
+                    DataSize.valueOf(getString(FILE_MAX_SEGMENT_SIZE, "64MB").trim()).toBytes(),
+                    getDuration(FILE_MAX_SEGMENT_AGE, "1h").toMillis());
+            case "http":
+                String url = config.get(HTTP_URL);
+                if (url == null) {
+                    throw new IllegalArgumentException(HTTP_URL + " is required for the http audit sink");
+                }
+                return new HttpAuditSink(
+                    URI.create(url.trim()),
+                    deduplicate,
+                    getDuration(HTTP_SEGMENT_INTERVAL, "1h").toMillis(),
+                    getInt(HTTP_MAX_BATCH_LINES, 1_000),
+                    DataSize.valueOf(getString(HTTP_MAX_BATCH_SIZE, "1MB").trim()).toBytes(),
+                    getDuration(HTTP_LINGER, "2s").toMillis(),
+                    getInt(HTTP_MAX_IN_FLIGHT, 4),
+                    java.time.Duration.ofMillis(getDuration(HTTP_TIMEOUT, "10s").toMillis()),
+                    new AuditSpool(
+                        Paths.get(getString(HTTP_SPOOL_DIRECTORY, "/data/trino/audit-spool")),
+                        DataSize.valueOf(getString(HTTP_SPOOL_SEGMENT_SIZE, "64MB").trim()).toBytes(),
+                        DataSize.valueOf(getString(HTTP_SPOOL_MAX_SIZE, "2GB").trim()).toBytes(),
+                        getInt(HTTP_SPOOL_MAX_SEGMENTS, 64)));
+            default:
+                throw new IllegalArgumentException("unknown " + SINK + ": " + sink);
+        }
+    }
+
+    boolean isHeavyHittersEnabled() {
+        return getBoolean(HEAVY_HITTERS_ENABLED, true);
+    }
+
+    int getHeavyHittersCapacity() {
+        return getInt(HEAVY_HITTERS_CAPACITY, 500);
+    }
+
+    int getHeavyHittersReportSize() {
+        return getInt(HEAVY_HITTERS_REPORT_SIZE, 20);
+    }
+
+    int getHeavyHittersQueueSize() {
+        return getInt(HEAVY_HITTERS_QUEUE_SIZE, 10_000);
+    }
+
+    long getHeavyHittersReportIntervalMillis() {
+        return getDuration(HEAVY_HITTERS_REPORT_INTERVAL, "5m").toMillis();
+    }
+
+    boolean isHeatmapEnabled() {
+        return getBoolean(HEATMAP_ENABLED, true);
+    }
+
+    int getHeatmapCapacity() {
+        return getInt(HEATMAP_CAPACITY, 2_000);
+    }
+
+    int getHeatmapReportSize() {
+        return getInt(HEATMAP_REPORT_SIZE, 20);
+    }
+
+    int getHeatmapSketchWidth() {
+        return getInt(HEATMAP_SKETCH_WIDTH, 4_096);
+    }
+
+    double getHeatmapDecay() {
+        return Double.parseDouble(getString(HEATMAP_DECAY, "0.9").trim());
+    }
+
+    long getHeatmapReportIntervalMillis() {
+        return getDuration(HEATMAP_REPORT_INTERVAL, "5m").toMillis();
+    }
+
+    Optional<Path> getHeatmapFile() {
+        String file = getString(HEATMAP_FILE, "").trim();
+        return file.isEmpty() ? Optional.empty() : Optional.of(Paths.get(file));
+    }
+
+    boolean getBoolean(String name, boolean defaultValue) {
+        String value = config.get(name);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    int getInt(String name, int defaultValue) {
+        String value = config.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    Duration getDuration(String name, String defaultValue) {
+        return Duration.valueOf(config.getOrDefault(name, defaultValue).trim());
+    }
+
+    String getString(String name, String defaultValue) {
+        return config.getOrDefault(name, defaultValue);
+    }
+}
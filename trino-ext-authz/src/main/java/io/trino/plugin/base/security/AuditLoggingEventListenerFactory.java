@@ -12,6 +12,7 @@ import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.TreeMap;
 import java.util.stream.Collectors;
 
@@ -24,7 +25,37 @@ public class AuditLoggingEventListenerFactory implements EventListenerFactory {
     @Override
     public EventListener create(Map<String, String> config) {
         System.out.println("event listener input " + config);
-        return new LoggingEventListener();
+        AuditLogConfig auditLogConfig = new AuditLogConfig(config);
+        AuditSink sink = auditLogConfig.createSink();
+        Optional<QueryStatsCollector> statsCollector = Optional.empty();
+        if (auditLogConfig.isStatsEnabled()) {
+            statsCollector = Optional.of(new QueryStatsCollector(
+                auditLogConfig.getStatsWindowMillis(),
+                auditLogConfig.getStatsSlots(),
+                auditLogConfig.getStatsMaxKeys()));
+        }
+        Optional<HeavyHitterTracker> heavyHitters = Optional.empty();
+        if (auditLogConfig.isHeavyHittersEnabled()) {
+            heavyHitters = Optional.of(new HeavyHitterTracker(
+                auditLogConfig.getHeavyHittersCapacity(),
+                auditLogConfig.getHeavyHittersReportSize(),
+                auditLogConfig.getHeavyHittersQueueSize(),
+                auditLogConfig.getHeavyHittersReportIntervalMillis(),
+                sink));
+        }
+        Optional<AccessHeatmap> heatmap = Optional.empty();
+        if (auditLogConfig.isHeatmapEnabled()) {
+            heatmap = Optional.of(new AccessHeatmap(
+                auditLogConfig.getHeatmapCapacity(),
+                auditLogConfig.getHeatmapReportSize(),
+                auditLogConfig.getHeatmapSketchWidth(),
+                auditLogConfig.getHeatmapDecay(),
+                auditLogConfig.getHeatmapReportIntervalMillis(),
+                auditLogConfig.getHeatmapFile()));
+        }
+        QueryHistory queryHistory = new QueryHistory(auditLogConfig.getHistoryCapacity(), auditLogConfig.getHistoryMaxQueryLength());
+        QueryHistory.install(queryHistory);
+        return new LoggingEventListener(sink, statsCollector, heavyHitters, heatmap, queryHistory);
     }
 }
 
@@ -39,12 +70,42 @@ class AttributeLogger {
         return this;
     }
 
-    public void log() {
+    public String render() {
         List<String> snippets = new ArrayList<>();
         for (Map.Entry<String, Object> entry : attributes.entrySet()) {
-            snippets.add("\"".concat(entry.getKey()).concat("\":\"").concat(entry.getValue().toString()).concat("\""));
+            snippets.add("\"".concat(escape(entry.getKey())).concat("\":\"").concat(escape(entry.getValue().toString())).concat("\""));
         }
-        System.out.println(snippets.stream().collect(Collectors.joining(",", "{", "}")));
+        return snippets.stream().collect(Collectors.joining(",", "{", "}"));
+    }
+
+    public void log(AuditSink sink) {
+        sink.log(this);
+    }
+
+    private static String escape(String value) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement = switch (c) {
+                case '"' -> "\\\"";
+                case '\\' -> "\\\\";
+                case '\n' -> "\\n";
+                case '\r' -> "\\r";
+                case '\t' -> "\\t";
+                default -> c < 0x20 ? String.format("\\u%04x", (int) c) : null;
+            };
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            if (escaped != null) {
+                if (replacement != null) {
+                    escaped.append(replacement);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped == null ? value : escaped.toString();
     }
 
     public static AttributeLogger newInstance() {
@@ -53,18 +114,31 @@ class AttributeLogger {
 }
 
 class LoggingEventListener implements EventListener {
+    private final AuditSink sink;
+    private final Optional<QueryStatsCollector> statsCollector;
+    private final Optional<HeavyHitterTracker> heavyHitters;
+    private final Optional<AccessHeatmap> heatmap;
+    private final QueryHistory queryHistory;
+
+    LoggingEventListener(AuditSink sink, Optional<QueryStatsCollector> statsCollector, Optional<HeavyHitterTracker> heavyHitters, Optional<AccessHeatmap> heatmap, QueryHistory queryHistory) {
+        this.sink = sink;
+        this.statsCollector = statsCollector;
+        this.heavyHitters = heavyHitters;
+        this.heatmap = heatmap;
+        this.queryHistory = queryHistory;
+    }
+
     @Override
     public void queryCreated(QueryCreatedEvent queryCreatedEvent) {
-        AttributeLogger.newInstance()
+        AttributeLogger event = AttributeLogger.newInstance()
             .withAttribute("phase", "created")
-            .withAttribute("query", queryCreatedEvent.getMetadata().getQuery())
             .withAttribute("query_id", queryCreatedEvent.getMetadata().getQueryId())
             .withAttribute("catalog", queryCreatedEvent.getContext().getCatalog().orElse(""))
             .withAttribute("schema", queryCreatedEvent.getContext().getSchema().orElse(""))
             .withAttribute("principal", queryCreatedEvent.getContext().getPrincipal().orElse(""))
             .withAttribute("user", queryCreatedEvent.getContext().getUser())
-            .withAttribute("time", queryCreatedEvent.getCreateTime().atZone(ZoneId.systemDefault()))
-            .log();
+            .withAttribute("time", queryCreatedEvent.getCreateTime().atZone(ZoneId.systemDefault()));
+        sink.log(event, queryCreatedEvent.getMetadata().getQuery());
     }
 
 
@@ -72,7 +146,6 @@ class LoggingEventListener implements EventListener {
     public void queryCompleted(QueryCompletedEvent queryCompletedEvent) {
         AttributeLogger builder = AttributeLogger.newInstance()
             .withAttribute("phase", "completed")
-            .withAttribute("query", queryCompletedEvent.getMetadata().getQuery())
             .withAttribute("query_id", queryCompletedEvent.getMetadata().getQueryId())
             .withAttribute("catalog", queryCompletedEvent.getContext().getCatalog().orElse(""))
             .withAttribute("schema", queryCompletedEvent.getContext().getSchema().orElse(""))
@@ -95,11 +168,26 @@ class LoggingEventListener implements EventListener {
                 builder.withAttribute("status", "success");
             }
 
-            builder.log();
+            sink.log(builder, queryCompletedEvent.getMetadata().getQuery());
+
+            statsCollector.ifPresent(collector -> collector.record(queryCompletedEvent));
+            heavyHitters.ifPresent(tracker -> tracker.submit(queryCompletedEvent));
+            heatmap.ifPresent(tracker -> tracker.record(queryCompletedEvent));
+            queryHistory.add(queryCompletedEvent);
+            WorkloadProfiles.recordInstalled(queryCompletedEvent);
     }
 
     @Override
     public void splitCompleted(SplitCompletedEvent splitCompletedEvent) {
 
     }
-}
\ No newline at end of file
+
+    @Override
+    public void shutdown() {
+        statsCollector.ifPresent(QueryStatsCollector::shutdown);
+        heavyHitters.ifPresent(HeavyHitterTracker::shutdown);
+        heatmap.ifPresent(AccessHeatmap::shutdown);
+        WorkloadProfiles.shutdownInstalled();
+        sink.close();
+    }
+}
@@ -0,0 +1,141 @@
+package io.trino.plugin.base.security;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.slice.Slice;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.ColumnMetadata;
+import io.trino.spi.connector.ConnectorMetadata;
+import io.trino.spi.connector.ConnectorSession;
+import io.trino.spi.connector.ConnectorTableHandle;
+import io.trino.spi.connector.ConnectorTableMetadata;
+import io.trino.spi.connector.ConnectorTableVersion;
+import io.trino.spi.connector.Constraint;
+import io.trino.spi.connector.ConstraintApplicationResult;
+import io.trino.spi.connector.SchemaTableName;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.Range;
+import io.trino.spi.predicate.TupleDomain;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static io.trino.spi.type.DateTimeEncoding.unpackMillisUtc;
+
+class AuditMetadata implements ConnectorMetadata {
+    @Override
+    public List<String> listSchemaNames(ConnectorSession session) {
+        return ImmutableList.of(AuditTable.SCHEMA_NAME);
+    }
+
+    @Override
+    public ConnectorTableHandle getTableHandle(
+            ConnectorSession session,
+            SchemaTableName tableName,
+            Optional<ConnectorTableVersion> startVersion,
+            Optional<ConnectorTableVersion> endVersion) {
+        if (startVersion.isPresent() || endVersion.isPresent()) {
+            return null;
+        }
+        return AuditTable.fromSchemaTableName(tableName)
+            .map(AuditTableHandle::new)
+            .orElse(null);
+    }
+
+    @Override
+    public ConnectorTableMetadata getTableMetadata(ConnectorSession session, ConnectorTableHandle table) {
+        AuditTable auditTable = ((AuditTableHandle) table).table();
+        return new ConnectorTableMetadata(auditTable.getSchemaTableName(), auditTable.getColumns());
+    }
+
+    @Override
+    public List<SchemaTableName> listTables(ConnectorSession session, Optional<String> schemaName) {
+        if (schemaName.isPresent() && !schemaName.get().equals(AuditTable.SCHEMA_NAME)) {
+            return ImmutableList.of();
+        }
+        ImmutableList.Builder<SchemaTableName> tables = ImmutableList.builder();
+        for (AuditTable table : AuditTable.values()) {
+            tables.add(table.getSchemaTableName());
+        }
+        return tables.build();
+    }
+
+    @Override
+    public Map<String, ColumnHandle> getColumnHandles(ConnectorSession session, ConnectorTableHandle tableHandle) {
+        List<ColumnMetadata> columns = ((AuditTableHandle) tableHandle).table().getColumns();
+        ImmutableMap.Builder<String, ColumnHandle> handles = ImmutableMap.builder();
+        for (int i = 0; i < columns.size(); i++) {
+            handles.put(columns.get(i).getName(), new AuditColumnHandle(columns.get(i).getName(), i));
+        }
+        return handles.buildOrThrow();
+    }
+
+    @Override
+    public ColumnMetadata getColumnMetadata(ConnectorSession session, ConnectorTableHandle tableHandle, ColumnHandle columnHandle) {
+        return ((AuditTableHandle) tableHandle).table().getColumns().get(((AuditColumnHandle) columnHandle).ordinal());
+    }
+
+    /**
+     * Narrows the scan of the history ring by user and end time. The constraint is left in place
+     * as the remaining filter because time ranges are applied as a covering span, not exactly.
+     */
+    @Override
+    public Optional<ConstraintApplicationResult<ConnectorTableHandle>> applyFilter(ConnectorSession session, ConnectorTableHandle handle, Constraint constraint) {
+        AuditTableHandle table = (AuditTableHandle) handle;
+        TupleDomain<ColumnHandle> summary = constraint.getSummary();
+        if (summary.isAll()) {
+            return Optional.empty();
+        }
+
+        Optional<Set<String>> users = table.users();
+        long minEndTime = table.minEndTimeMillis();
+        long maxEndTime = table.maxEndTimeMillis();
+        if (summary.isNone()) {
+            users = Optional.of(ImmutableSet.of());
+        } else {
+            for (Map.Entry<ColumnHandle, Domain> entry : summary.getDomains().orElseThrow().entrySet()) {
+                String column = ((AuditColumnHandle) entry.getKey()).name();
+                Domain domain = entry.getValue();
+                if (column.equals(AuditTable.USER_COLUMN) && domain.getValues().isDiscreteSet() && !domain.isNullAllowed()) {
+                    Set<String> allowed = toStrings(domain.getValues().getDiscreteSet());
+                    users = Optional.of(users.map(current -> intersect(current, allowed)).orElse(allowed));
+                } else if (table.table() == AuditTable.QUERIES && column.equals(AuditTable.END_TIME_COLUMN) && !domain.getValues().isNone()) {
+                    Range span = domain.getValues().getRanges().getSpan();
+                    if (span.getLowValue().isPresent()) {
+                        minEndTime = Math.max(minEndTime, unpackMillisUtc((long) span.getLowValue().get()));
+                    }
+                    if (span.getHighValue().isPresent()) {
+                        maxEndTime = Math.min(maxEndTime, unpackMillisUtc((long) span.getHighValue().get()));
+                    }
+                }
+            }
+        }
+
+        AuditTableHandle narrowed = new AuditTableHandle(table.table(), users, minEndTime, maxEndTime);
+        if (narrowed.equals(table)) {
+            return Optional.empty();
+        }
+        return Optional.of(new ConstraintApplicationResult<>(narrowed, summary, false));
+    }
+
+    private static Set<String> toStrings(List<Object> values) {
+        ImmutableSet.Builder<String> strings = ImmutableSet.builder();
+        for (Object value : values) {
+            strings.add(((Slice) value).toStringUtf8());
+        }
+        return strings.build();
+    }
+
+    private static Set<String> intersect(Set<String> left, Set<String> right) {
+        ImmutableSet.Builder<String> result = ImmutableSet.builder();
+        for (String value : left) {
+            if (right.contains(value)) {
+                result.add(value);
+            }
+        }
+        return result.build();
+    }
+}
@@ -0,0 +1,204 @@
+package io.trino.plugin.base.security;
+
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.airlift.log.Logger;
+
+import java.io.Closeable;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Destination of audit lines, split into segments.
+ * <p>
+ * When query text de-duplication is on, events carry a {@code query_hash} attribute instead of the
+ * statement and each distinct text is written once per segment as a {@code query_text} dictionary
+ * entry. The dictionary entry is always written to the same segment as the first event referring
+ * to it, before that event, so a segment can be read on its own. De-duplication changes the event
+ * format consumers see, so it is off unless configured.
+ * <p>
+ * Events are rendered and hashed on the calling thread before the sink lock is taken; under the
+ * lock lines are only appended to buffers. Sinks that buffer flush them every flush interval, when
+ * a segment rolls over and on close, so the event thread never waits for a disk write per line.
+ */
+abstract class AuditSink implements Closeable {
+    private static final Logger LOG = Logger.get(AuditSink.class);
+    static final String QUERY_TEXT_PHASE = "query_text";
+
+    private final boolean deduplicateQueryText;
+    private final Set<String> emittedQueryHashes = new HashSet<>();
+    private ScheduledExecutorService flusher;
+
+    AuditSink(boolean deduplicateQueryText) {
+        this.deduplicateQueryText = deduplicateQueryText;
+    }
+
+    final void log(AttributeLogger event) {
+        log(event, null);
+    }
+
+    final void log(AttributeLogger event, String queryText) {
+        String hash = null;
+        if (queryText != null) {
+            if (deduplicateQueryText) {
+                hash = hash(queryText);
+                event.withAttribute("query_hash", hash);
+            } else {
+                event.withAttribute("query", queryText);
+            }
+        }
+        String line = event.render();
+        synchronized (this) {
+            if (startNewSegmentIfNeeded()) {
+                emittedQueryHashes.clear();
+            }
+            if (hash != null && emittedQueryHashes.add(hash)) {
+                writeDictionaryEntry(AttributeLogger.newInstance()
+                    .withAttribute("phase", QUERY_TEXT_PHASE)
+                    .withAttribute("query_hash", hash)
+                    .withAttribute("query", queryText)
+                    .render());
+            }
+            writeLine(line);
+        }
+    }
+
+    /**
+     * Flushes buffered lines every {@code intervalMillis} from a daemon thread until the sink is closed.
+     */
+    final void flushEvery(long intervalMillis) {
+        flusher = newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("audit-sink-flush").setDaemon(true).build());
+        flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, MILLISECONDS);
+    }
+
+    private synchronized void flushQuietly() {
+        try {
+            flushBuffered();
+        } catch (RuntimeException e) {
+            LOG.warn(e, "failed to flush audit lines");
+        }
+    }
+
+    static String hash(String queryText) {
+        return Hashing.murmur3_128().hashString(queryText, UTF_8).toString();
+    }
+
+    /**
+     * Starts a new segment when the current one is full or too old.
+     *
+     * @return true when subsequent lines go to a new segment
+     */
+    abstract boolean startNewSegmentIfNeeded();
+
+    abstract void writeLine(String line);
+
+    void writeDictionaryEntry(String line) {
+        writeLine(line);
+    }
+
+    /**
+     * Writes out lines buffered by {@link #writeLine(String)}; called with the sink lock held.
+     */
+    void flushBuffered() {
+    }
+
+    void closeSink() {
+    }
+
+    @Override
+    public final void close() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        flushQuietly();
+        closeSink();
+    }
+}
+
+/**
+ * Writes to standard output as the listener always has; the container runtime owns rotation, so
+ * segments are fixed time intervals after which every query text is written out again. Each line
+ * is printed and flushed as it is written, so a coordinator crash loses none of them.
+ */
+class StdoutAuditSink extends AuditSink {
+    private final long segmentMillis;
+    private long segment = -1;
+
+    StdoutAuditSink(boolean deduplicateQueryText, long segmentMillis) {
+        super(deduplicateQueryText);
+        this.segmentMillis = segmentMillis;
+    }
+
+    @Override
+    boolean startNewSegmentIfNeeded() {
+        long current = System.currentTimeMillis() / segmentMillis;
+        if (current != segment) {
+            segment = current;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    void writeLine(String line) {
+        System.out.println(line);
+        System.out.flush();
+    }
+}
+
+/**
+ * Sends every line to several sinks, e.g. stdout and a remote collector. Query text
+ * de-duplication is done once here; a segment change in any child starts a new segment for all.
+ */
+class CompositeAuditSink extends AuditSink {
+    private final List<AuditSink> sinks;
+
+    CompositeAuditSink(boolean deduplicateQueryText, List<AuditSink> sinks) {
+        super(deduplicateQueryText);
+        this.sinks = List.copyOf(sinks);
+    }
+
+    @Override
+    boolean startNewSegmentIfNeeded() {
+        boolean started = false;
+        for (AuditSink sink : sinks) {
+            started |= sink.startNewSegmentIfNeeded();
+        }
+        return started;
+    }
+
+    @Override
+    void writeLine(String line) {
+        for (AuditSink sink : sinks) {
+            sink.writeLine(line);
+        }
+    }
+
+    @Override
+    void writeDictionaryEntry(String line) {
+        for (AuditSink sink : sinks) {
+            sink.writeDictionaryEntry(line);
+        }
+    }
+
+    @Override
+    void flushBuffered() {
+        for (AuditSink sink : sinks) {
+            sink.flushBuffered();
+        }
+    }
+
+    @Override
+    void closeSink() {
+        for (AuditSink sink : sinks) {
+            sink.close();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.trino.plugin.base.security;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.trino.spi.HostAddress;
+import io.trino.spi.connector.ConnectorSplit;
+
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The query history only exists in the coordinator's memory, so the single split of every
+ * audit table is pinned to the coordinator.
+ */
+public record AuditSplit(HostAddress coordinator)
+        implements ConnectorSplit {
+    @JsonCreator
+    public AuditSplit(@JsonProperty("coordinator") HostAddress coordinator) {
+        this.coordinator = requireNonNull(coordinator, "coordinator is null");
+    }
+
+    @Override
+    @JsonProperty
+    public HostAddress coordinator() {
+        return coordinator;
+    }
+
+    @Override
+    public boolean isRemotelyAccessible() {
+        return false;
+    }
+
+    @Override
+    public List<HostAddress> getAddresses() {
+        return List.of(coordinator);
+    }
+
+    @Override
+    public long getRetainedSizeInBytes() {
+        return 64;
+    }
+}
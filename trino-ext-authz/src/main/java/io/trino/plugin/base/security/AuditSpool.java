@@ -0,0 +1,236 @@
+package io.trino.plugin.base.security;
+
+import io.airlift.log.Logger;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+
+/**
+ * Append-only on-disk queue of payloads that could not be delivered yet.
+ * <p>
+ * Payloads are appended to numbered segment files as {@code [length][crc32][bytes]} records and
+ * are read back strictly in append order. The reader's position in the oldest segment is kept in
+ * a {@code .offset} file, so a restart resumes where draining stopped. A record whose checksum
+ * does not match, typically the tail of a write cut short by a crash, ends its segment.
+ * <p>
+ * The spool is bounded by {@code maxBytes} and {@code maxSegments}: whenever a new segment is
+ * started, the oldest segments are dropped, with a warning, until both limits hold again. During
+ * a long collector outage the most recent batches are kept and the oldest ones are lost.
+ */
+class AuditSpool {
+    private static final Logger LOG = Logger.get(AuditSpool.class);
+    private static final String SUFFIX = ".spool";
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final long maxBytes;
+    private final int maxSegments;
+
+    private long writeSegment;
+    private OutputStream writer;
+    private long writeSegmentBytes;
+
+    AuditSpool(Path directory, long maxSegmentBytes, long maxBytes, int maxSegments) {
+        if (maxSegmentBytes > maxBytes) {
+            throw new IllegalArgumentException("spool segment size " + maxSegmentBytes + " exceeds spool size " + maxBytes);
+        }
+        if (maxSegments < 2) {
+            throw new IllegalArgumentException("spool needs at least 2 segments");
+        }
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.maxBytes = maxBytes;
+        this.maxSegments = maxSegments;
+        try {
+            Files.createDirectories(directory);
+            List<Long> segments = segments();
+            // never append to a segment left over from a previous run, its tail may be torn
+            writeSegment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1) + 1;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    synchronized void append(byte[] payload) throws IOException {
+        if (writer == null || writeSegmentBytes >= maxSegmentBytes) {
+            rollWriter();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        DataOutputStream out = new DataOutputStream(writer);
+        out.writeInt(payload.length);
+        out.writeLong(crc.getValue());
+        out.write(payload);
+        out.flush();
+        writeSegmentBytes += payload.length + 12;
+    }
+
+    synchronized boolean isEmpty() {
+        try {
+            List<Long> segments = segments();
+            return segments.isEmpty() || (segments.size() == 1 && segments.get(0) == writeSegment && writeSegmentBytes == 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the oldest undelivered payload, sealing the segment being written if it is the only one left.
+     */
+    synchronized Optional<Record> peek() throws IOException {
+        Optional<Long> segment = oldestReadableSegment();
+        if (segment.isEmpty()) {
+            return Optional.empty();
+        }
+        Path file = segmentPath(segment.get());
+        long offset = readOffset(segment.get());
+        try (InputStream input = Files.newInputStream(file)) {
+            input.skipNBytes(offset);
+            DataInputStream in = new DataInputStream(input);
+            int length = in.readInt();
+            long checksum = in.readLong();
+            byte[] payload = in.readNBytes(length);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if (payload.length != length || crc.getValue() != checksum) {
+                LOG.warn("discarding corrupt tail of audit spool segment %s at offset %s", file, offset);
+                deleteSegment(segment.get());
+                return peek();
+            }
+            return Optional.of(new Record(segment.get(), offset + 12 + length, payload));
+        } catch (EOFException e) {
+            deleteSegment(segment.get());
+            return peek();
+        }
+    }
+
+    /**
+     * Marks the record returned by {@link #peek()} as delivered.
+     */
+    synchronized void commit(Record record) throws IOException {
+        Path file = segmentPath(record.segment());
+        if (!Files.exists(file)) {
+            // dropped to stay within the spool limits while the record was being sent
+            Files.deleteIfExists(offsetPath(record.segment()));
+            return;
+        }
+        if (record.nextOffset() >= Files.size(file)) {
+            deleteSegment(record.segment());
+            return;
+        }
+        Path offsetFile = offsetPath(record.segment());
+        Path temporary = offsetFile.resolveSibling(offsetFile.getFileName() + ".tmp");
+        Files.writeString(temporary, Long.toString(record.nextOffset()), UTF_8);
+        Files.move(temporary, offsetFile, REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                LOG.warn(e, "failed to close audit spool segment %s", writeSegment);
+            }
+            writer = null;
+        }
+    }
+
+    private synchronized Optional<Long> oldestReadableSegment() throws IOException {
+        List<Long> segments = segments();
+        if (segments.isEmpty()) {
+            return Optional.empty();
+        }
+        long oldest = segments.get(0);
+        if (oldest == writeSegment) {
+            if (writeSegmentBytes == 0) {
+                return Optional.empty();
+            }
+            rollWriter();
+            // rolling may have dropped the sealed segment to stay within the limits
+            return Files.exists(segmentPath(oldest)) ? Optional.of(oldest) : Optional.empty();
+        }
+        return Optional.of(oldest);
+    }
+
+    private void rollWriter() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writeSegment++;
+        }
+        writer = Files.newOutputStream(segmentPath(writeSegment), CREATE, APPEND);
+        writeSegmentBytes = 0;
+        enforceLimits();
+    }
+
+    private void enforceLimits() throws IOException {
+        List<Long> segments = segments();
+        long totalBytes = 0;
+        for (long segment : segments) {
+            totalBytes += Files.size(segmentPath(segment));
+        }
+        int dropped = 0;
+        long droppedBytes = 0;
+        // the segment being written is never dropped, it only holds the newest batches
+        while (segments.size() > 1 && (segments.size() > maxSegments || totalBytes + maxSegmentBytes > maxBytes)) {
+            long oldest = segments.remove(0);
+            long size = Files.size(segmentPath(oldest));
+            deleteSegment(oldest);
+            totalBytes -= size;
+            droppedBytes += size;
+            dropped++;
+        }
+        if (dropped > 0) {
+            LOG.warn("audit spool in %s is full, dropped %s oldest segments with %s bytes of undelivered audit batches", directory, dropped, droppedBytes);
+        }
+    }
+
+    private long readOffset(long segment) throws IOException {
+        Path offsetFile = offsetPath(segment);
+        return Files.exists(offsetFile) ? Long.parseLong(Files.readString(offsetFile, UTF_8).trim()) : 0;
+    }
+
+    private void deleteSegment(long segment) throws IOException {
+        Files.deleteIfExists(segmentPath(segment));
+        Files.deleteIfExists(offsetPath(segment));
+    }
+
+    private List<Long> segments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                .filter(name -> name.endsWith(SUFFIX))
+                .forEach(name -> segments.add(Long.parseLong(name.substring(0, name.length() - SUFFIX.length()))));
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%020d%s", segment, SUFFIX));
+    }
+
+    private Path offsetPath(long segment) {
+        return directory.resolve(String.format("%020d.offset", segment));
+    }
+
+    record Record(long segment, long nextOffset, byte[] payload) {
+    }
+}
@@ -0,0 +1,153 @@
+package io.trino.plugin.base.security;
+
+import com.google.common.collect.ImmutableList;
+import io.trino.plugin.base.security.QueryHistory.QuerySummary;
+import io.trino.spi.connector.ColumnMetadata;
+import io.trino.spi.connector.SchemaTableName;
+import io.trino.spi.type.Type;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.DateTimeEncoding.packDateTimeWithZone;
+import static io.trino.spi.type.TimeZoneKey.UTC_KEY;
+import static io.trino.spi.type.TimestampWithTimeZoneType.TIMESTAMP_TZ_MILLIS;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+
+/**
+ * Tables of the {@code audit} catalog. Every table is derived from the {@link QueryHistory} ring;
+ * {@code user} and {@code end_time} are the columns the connector filters on before rows are built.
+ */
+enum AuditTable {
+    QUERIES("queries", ImmutableList.of(
+        new ColumnMetadata("query_id", VARCHAR),
+        new ColumnMetadata("user", VARCHAR),
+        new ColumnMetadata("source", VARCHAR),
+        new ColumnMetadata("catalog", VARCHAR),
+        new ColumnMetadata("schema", VARCHAR),
+        new ColumnMetadata("status", VARCHAR),
+        new ColumnMetadata("error_code", VARCHAR),
+        new ColumnMetadata("create_time", TIMESTAMP_TZ_MILLIS),
+        new ColumnMetadata("end_time", TIMESTAMP_TZ_MILLIS),
+        new ColumnMetadata("queued_ms", BIGINT),
+        new ColumnMetadata("planning_ms", BIGINT),
+        new ColumnMetadata("execution_ms", BIGINT),
+        new ColumnMetadata("cpu_ms", BIGINT),
+        new ColumnMetadata("peak_memory_bytes", BIGINT),
+        new ColumnMetadata("input_bytes", BIGINT),
+        new ColumnMetadata("output_rows", BIGINT),
+        new ColumnMetadata("query", VARCHAR))) {
+        @Override
+        List<Object[]> rows(List<QuerySummary> summaries) {
+            List<Object[]> rows = new ArrayList<>(summaries.size());
+            for (QuerySummary summary : summaries) {
+                rows.add(new Object[] {
+                    summary.queryId(),
+                    summary.user(),
+                    summary.source(),
+                    summary.catalog(),
+                    summary.schema(),
+                    summary.failed() ? "failure" : "success",
+                    summary.errorCode(),
+                    timestamp(summary.createTimeMillis()),
+                    timestamp(summary.endTimeMillis()),
+                    summary.queuedMillis(),
+                    summary.planningMillis(),
+                    summary.executionMillis(),
+                    summary.cpuMillis(),
+                    summary.peakMemoryBytes(),
+                    summary.inputBytes(),
+                    summary.outputRows(),
+                    summary.query()
+                });
+            }
+            return rows;
+        }
+    },
+    BY_USER("by_user", ImmutableList.of(
+        new ColumnMetadata("user", VARCHAR),
+        new ColumnMetadata("queries", BIGINT),
+        new ColumnMetadata("failed_queries", BIGINT),
+        new ColumnMetadata("execution_ms", BIGINT),
+        new ColumnMetadata("cpu_ms", BIGINT),
+        new ColumnMetadata("max_peak_memory_bytes", BIGINT),
+        new ColumnMetadata("input_bytes", BIGINT),
+        new ColumnMetadata("output_rows", BIGINT),
+        new ColumnMetadata("last_end_time", TIMESTAMP_TZ_MILLIS))) {
+        @Override
+        List<Object[]> rows(List<QuerySummary> summaries) {
+            Map<String, long[]> totals = new LinkedHashMap<>();
+            for (QuerySummary summary : summaries) {
+                long[] total = totals.computeIfAbsent(summary.user(), user -> new long[8]);
+                total[0]++;
+                total[1] += summary.failed() ? 1 : 0;
+                total[2] += summary.executionMillis();
+                total[3] += summary.cpuMillis();
+                total[4] = Math.max(total[4], summary.peakMemoryBytes());
+                total[5] += summary.inputBytes();
+                total[6] += summary.outputRows();
+                total[7] = Math.max(total[7], summary.endTimeMillis());
+            }
+            List<Object[]> rows = new ArrayList<>(totals.size());
+            for (Map.Entry<String, long[]> entry : totals.entrySet()) {
+                long[] total = entry.getValue();
+                rows.add(new Object[] {
+                    entry.getKey(), total[0], total[1], total[2], total[3], total[4], total[5], total[6], timestamp(total[7])
+                });
+            }
+            return rows;
+        }
+    };
+
+    static final String SCHEMA_NAME = "recent";
+    static final String USER_COLUMN = "user";
+    static final String END_TIME_COLUMN = "end_time";
+
+    private final String tableName;
+    private final List<ColumnMetadata> columns;
+
+    AuditTable(String tableName, List<ColumnMetadata> columns) {
+        this.tableName = tableName;
+        this.columns = columns;
+    }
+
+    abstract List<Object[]> rows(List<QuerySummary> summaries);
+
+    SchemaTableName getSchemaTableName() {
+        return new SchemaTableName(SCHEMA_NAME, tableName);
+    }
+
+    List<ColumnMetadata> getColumns() {
+        return columns;
+    }
+
+    Type getType(int ordinal) {
+        return columns.get(ordinal).getType();
+    }
+
+    Optional<Integer> ordinalOf(String columnName) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).getName().equals(columnName)) {
+                return Optional.of(i);
+            }
+        }
+        return Optional.empty();
+    }
+
+    static Optional<AuditTable> fromSchemaTableName(SchemaTableName name) {
+        for (AuditTable table : values()) {
+            if (table.getSchemaTableName().equals(name)) {
+                return Optional.of(table);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static long timestamp(long epochMillis) {
+        return packDateTimeWithZone(epochMillis, UTC_KEY);
+    }
+}
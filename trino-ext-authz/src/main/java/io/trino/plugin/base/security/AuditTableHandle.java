@@ -0,0 +1,67 @@
+package io.trino.plugin.base.security;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.trino.plugin.base.security.QueryHistory.QuerySummary;
+import io.trino.spi.connector.ConnectorTableHandle;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Audit table plus the user and end time constraints pushed down by {@link AuditMetadata#applyFilter}.
+ */
+public record AuditTableHandle(
+        AuditTable table,
+        Optional<Set<String>> users,
+        long minEndTimeMillis,
+        long maxEndTimeMillis)
+        implements ConnectorTableHandle {
+    @JsonCreator
+    public AuditTableHandle(
+            @JsonProperty("table") AuditTable table,
+            @JsonProperty("users") Optional<Set<String>> users,
+            @JsonProperty("minEndTimeMillis") long minEndTimeMillis,
+            @JsonProperty("maxEndTimeMillis") long maxEndTimeMillis) {
+        this.table = requireNonNull(table, "table is null");
+        this.users = users.map(Set::copyOf);
+        this.minEndTimeMillis = minEndTimeMillis;
+        this.maxEndTimeMillis = maxEndTimeMillis;
+    }
+
+    AuditTableHandle(AuditTable table) {
+        this(table, Optional.empty(), Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    @Override
+    @JsonProperty
+    public AuditTable table() {
+        return table;
+    }
+
+    @Override
+    @JsonProperty
+    public Optional<Set<String>> users() {
+        return users;
+    }
+
+    @Override
+    @JsonProperty
+    public long minEndTimeMillis() {
+        return minEndTimeMillis;
+    }
+
+    @Override
+    @JsonProperty
+    public long maxEndTimeMillis() {
+        return maxEndTimeMillis;
+    }
+
+    boolean matches(QuerySummary summary) {
+        return summary.endTimeMillis() >= minEndTimeMillis
+            && summary.endTimeMillis() <= maxEndTimeMillis
+            && users.map(names -> names.contains(summary.user())).orElse(true);
+    }
+}
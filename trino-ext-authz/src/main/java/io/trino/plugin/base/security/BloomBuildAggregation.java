@@ -0,0 +1,80 @@
+package io.trino.plugin.base.security;
+
+import io.airlift.slice.Slice;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.function.AggregationFunction;
+import io.trino.spi.function.AggregationState;
+import io.trino.spi.function.CombineFunction;
+import io.trino.spi.function.Description;
+import io.trino.spi.function.InputFunction;
+import io.trino.spi.function.LiteralParameters;
+import io.trino.spi.function.OutputFunction;
+import io.trino.spi.function.SqlType;
+import io.trino.spi.type.StandardTypes;
+
+import static io.trino.spi.type.VarbinaryType.VARBINARY;
+
+/**
+ * Builds a bloom filter over the values of a bigint or varchar column, to be stored and probed later
+ * with {@code bloom_might_contain}, e.g.
+ * {@code WHERE bloom_might_contain((SELECT filter FROM id_filters WHERE name = 'churned'), user_id)}.
+ * The size is fixed by the expected insertions and false positive probability of the first row,
+ * so partial filters built on different workers merge with a bitwise or. A filter is at most 8MB
+ * and is accounted against the query memory limit, one per group in a grouped aggregation.
+ */
+@AggregationFunction("bloom_build")
+@Description("Builds a bloom filter of the values sized for the expected number of values and false positive probability")
+public final class BloomBuildAggregation {
+    private BloomBuildAggregation() {
+    }
+
+    @InputFunction
+    public static void input(
+            @AggregationState BloomFilterState state,
+            @SqlType(StandardTypes.BIGINT) long value,
+            @SqlType(StandardTypes.BIGINT) long expectedInsertions,
+            @SqlType(StandardTypes.DOUBLE) double falsePositiveProbability) {
+        BloomFilters.put(filter(state, expectedInsertions, falsePositiveProbability), BloomFilters.hash(value));
+    }
+
+    @InputFunction
+    @LiteralParameters("x")
+    public static void input(
+            @AggregationState BloomFilterState state,
+            @SqlType("varchar(x)") Slice value,
+            @SqlType(StandardTypes.BIGINT) long expectedInsertions,
+            @SqlType(StandardTypes.DOUBLE) double falsePositiveProbability) {
+        BloomFilters.put(filter(state, expectedInsertions, falsePositiveProbability), BloomFilters.hash(value));
+    }
+
+    @CombineFunction
+    public static void combine(@AggregationState BloomFilterState state, @AggregationState BloomFilterState otherState) {
+        Slice other = otherState.getFilter();
+        if (other == null) {
+            return;
+        }
+        if (state.getFilter() == null) {
+            state.setFilter(other.copy());
+            return;
+        }
+        BloomFilters.merge(state.getFilter(), other);
+    }
+
+    @OutputFunction(StandardTypes.VARBINARY)
+    public static void output(@AggregationState BloomFilterState state, BlockBuilder out) {
+        if (state.getFilter() == null) {
+            out.appendNull();
+        } else {
+            VARBINARY.writeSlice(out, state.getFilter());
+        }
+    }
+
+    private static Slice filter(BloomFilterState state, long expectedInsertions, double falsePositiveProbability) {
+        Slice filter = state.getFilter();
+        if (filter == null) {
+            filter = BloomFilters.create(expectedInsertions, falsePositiveProbability);
+            state.setFilter(filter);
+        }
+        return filter;
+    }
+}
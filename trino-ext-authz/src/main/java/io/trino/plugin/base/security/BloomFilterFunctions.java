@@ -0,0 +1,29 @@
+package io.trino.plugin.base.security;
+
+import io.airlift.slice.Slice;
+import io.trino.spi.function.Description;
+import io.trino.spi.function.LiteralParameters;
+import io.trino.spi.function.ScalarFunction;
+import io.trino.spi.function.SqlType;
+import io.trino.spi.type.StandardTypes;
+
+/**
+ * Probes filters built by {@link BloomBuildAggregation}. False means the value was certainly not
+ * added; true means it probably was.
+ */
+public class BloomFilterFunctions {
+    @Description("Returns whether the value may have been added to the bloom filter")
+    @ScalarFunction("bloom_might_contain")
+    @SqlType(StandardTypes.BOOLEAN)
+    public static boolean mightContain(@SqlType(StandardTypes.VARBINARY) Slice filter, @SqlType(StandardTypes.BIGINT) long value) {
+        return BloomFilters.mightContain(filter, BloomFilters.hash(value));
+    }
+
+    @Description("Returns whether the value may have been added to the bloom filter")
+    @ScalarFunction("bloom_might_contain")
+    @LiteralParameters("x")
+    @SqlType(StandardTypes.BOOLEAN)
+    public static boolean mightContain(@SqlType(StandardTypes.VARBINARY) Slice filter, @SqlType("varchar(x)") Slice value) {
+        return BloomFilters.mightContain(filter, BloomFilters.hash(value));
+    }
+}
@@ -0,0 +1,12 @@
+package io.trino.plugin.base.security;
+
+import io.airlift.slice.Slice;
+import io.trino.spi.function.AccumulatorState;
+import io.trino.spi.function.AccumulatorStateMetadata;
+
+@AccumulatorStateMetadata(stateFactoryClass = BloomFilterStateFactory.class, stateSerializerClass = BloomFilterStateSerializer.class)
+public interface BloomFilterState extends AccumulatorState {
+    Slice getFilter();
+
+    void setFilter(Slice filter);
+}
@@ -0,0 +1,90 @@
+package io.trino.plugin.base.security;
+
+import io.airlift.slice.Slice;
+import io.trino.spi.function.AccumulatorStateFactory;
+import io.trino.spi.function.GroupedAccumulatorState;
+
+import java.util.Arrays;
+
+import static io.airlift.slice.SizeOf.instanceSize;
+import static io.airlift.slice.SizeOf.sizeOf;
+
+/**
+ * States of {@link BloomBuildAggregation} that report the filters they hold, so the engine
+ * accounts a grouped {@code bloom_build} against the query memory limit like any other
+ * aggregation instead of only seeing the slot array.
+ */
+public class BloomFilterStateFactory implements AccumulatorStateFactory<BloomFilterState> {
+    @Override
+    public BloomFilterState createSingleState() {
+        return new SingleBloomFilterState();
+    }
+
+    @Override
+    public BloomFilterState createGroupedState() {
+        return new GroupedBloomFilterState();
+    }
+
+    static final class SingleBloomFilterState implements BloomFilterState {
+        private static final long INSTANCE_SIZE = instanceSize(SingleBloomFilterState.class);
+
+        private Slice filter;
+
+        @Override
+        public Slice getFilter() {
+            return filter;
+        }
+
+        @Override
+        public void setFilter(Slice filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public long getEstimatedSize() {
+            return INSTANCE_SIZE + (filter == null ? 0 : filter.getRetainedSize());
+        }
+    }
+
+    static final class GroupedBloomFilterState implements BloomFilterState, GroupedAccumulatorState {
+        private static final long INSTANCE_SIZE = instanceSize(GroupedBloomFilterState.class);
+
+        private Slice[] filters = new Slice[0];
+        private long filtersSize;
+        private int groupId;
+
+        @Override
+        public void setGroupId(int groupId) {
+            this.groupId = groupId;
+        }
+
+        @Override
+        public void ensureCapacity(int size) {
+            if (size > filters.length) {
+                filters = Arrays.copyOf(filters, Math.max(size, filters.length + (filters.length >> 1)));
+            }
+        }
+
+        @Override
+        public Slice getFilter() {
+            return filters[groupId];
+        }
+
+        @Override
+        public void setFilter(Slice filter) {
+            Slice previous = filters[groupId];
+            if (previous != null) {
+                filtersSize -= previous.getRetainedSize();
+            }
+            if (filter != null) {
+                filtersSize += filter.getRetainedSize();
+            }
+            filters[groupId] = filter;
+        }
+
+        @Override
+        public long getEstimatedSize() {
+            return INSTANCE_SIZE + sizeOf(filters) + filtersSize;
+        }
+    }
+}
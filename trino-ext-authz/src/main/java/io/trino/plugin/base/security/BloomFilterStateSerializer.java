@@ -0,0 +1,31 @@
+package io.trino.plugin.base.security;
+
+import io.trino.spi.block.Block;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.function.AccumulatorStateSerializer;
+import io.trino.spi.type.Type;
+
+import static io.trino.spi.type.VarbinaryType.VARBINARY;
+
+public class BloomFilterStateSerializer implements AccumulatorStateSerializer<BloomFilterState> {
+    @Override
+    public Type getSerializedType() {
+        return VARBINARY;
+    }
+
+    @Override
+    public void serialize(BloomFilterState state, BlockBuilder out) {
+        if (state.getFilter() == null) {
+            out.appendNull();
+        } else {
+            VARBINARY.writeSlice(out, state.getFilter());
+        }
+    }
+
+    @Override
+    public void deserialize(Block block, int index, BloomFilterState state) {
+        if (!block.isNull(index)) {
+            state.setFilter(VARBINARY.getSlice(block, index));
+        }
+    }
+}
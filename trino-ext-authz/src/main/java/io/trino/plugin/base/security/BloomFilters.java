@@ -0,0 +1,101 @@
+package io.trino.plugin.base.security;
+
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.airlift.slice.XxHash64;
+import io.trino.spi.TrinoException;
+
+import static io.trino.spi.StandardErrorCode.INVALID_FUNCTION_ARGUMENT;
+
+/**
+ * Bloom filters serialized as a varbinary: a one byte version, a one byte number of hash functions
+ * and the bit array as little-endian longs. Filters are read and updated in place, so probing
+ * allocates nothing.
+ * <p>
+ * Values are hashed once with XxHash64 and the k bit positions derived from the two 32-bit halves
+ * (Kirsch and Mitzenmacher double hashing), the scheme Guava's BloomFilter uses.
+ */
+final class BloomFilters {
+    private static final byte VERSION = 1;
+    private static final int HEADER_BYTES = 2;
+    // a single filter stays within 8MB, about 7M values at a 1% false positive probability;
+    // larger requests get this size and a higher false positive probability
+    static final long MAX_BITS = 1L << 26;
+
+    private BloomFilters() {
+    }
+
+    static Slice create(long expectedInsertions, double falsePositiveProbability) {
+        if (expectedInsertions <= 0) {
+            throw new TrinoException(INVALID_FUNCTION_ARGUMENT, "expected insertions must be positive");
+        }
+        if (!(falsePositiveProbability > 0 && falsePositiveProbability < 1)) {
+            throw new TrinoException(INVALID_FUNCTION_ARGUMENT, "false positive probability must be between 0 and 1");
+        }
+        double optimalBits = -expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2));
+        long bits = Math.min(Math.max((long) Math.ceil(optimalBits / Long.SIZE), 1) * Long.SIZE, MAX_BITS);
+        int hashFunctions = (int) Math.max(1, Math.min(30, Math.round((double) bits / expectedInsertions * Math.log(2))));
+        Slice filter = Slices.allocate(HEADER_BYTES + (int) (bits / Byte.SIZE));
+        filter.setByte(0, VERSION);
+        filter.setByte(1, hashFunctions);
+        return filter;
+    }
+
+    static long hash(long value) {
+        return XxHash64.hash(value);
+    }
+
+    static long hash(Slice value) {
+        return XxHash64.hash(value);
+    }
+
+    static void put(Slice filter, long hash) {
+        int hashFunctions = filter.getByte(1);
+        long bits = bitCount(filter);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            int bit = (int) (Integer.toUnsignedLong(hash1 + i * hash2) % bits);
+            int offset = HEADER_BYTES + (bit >>> 6) * Long.BYTES;
+            filter.setLong(offset, filter.getLong(offset) | (1L << bit));
+        }
+    }
+
+    static boolean mightContain(Slice filter, long hash) {
+        checkFormat(filter);
+        int hashFunctions = filter.getByte(1);
+        long bits = bitCount(filter);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            int bit = (int) (Integer.toUnsignedLong(hash1 + i * hash2) % bits);
+            if ((filter.getLong(HEADER_BYTES + (bit >>> 6) * Long.BYTES) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds every value of {@code other} to {@code filter}; both must have been created with the same parameters.
+     */
+    static void merge(Slice filter, Slice other) {
+        if (filter.length() != other.length() || filter.getByte(1) != other.getByte(1)) {
+            throw new TrinoException(INVALID_FUNCTION_ARGUMENT, "cannot merge bloom filters built with different expected insertions or false positive probability");
+        }
+        for (int offset = HEADER_BYTES; offset < filter.length(); offset += Long.BYTES) {
+            filter.setLong(offset, filter.getLong(offset) | other.getLong(offset));
+        }
+    }
+
+    private static long bitCount(Slice filter) {
+        return (long) (filter.length() - HEADER_BYTES) * Byte.SIZE;
+    }
+
+    private static void checkFormat(Slice filter) {
+        int length = filter.length() - HEADER_BYTES;
+        if (length <= 0 || length % Long.BYTES != 0 || filter.getByte(0) != VERSION) {
+            throw new TrinoException(INVALID_FUNCTION_ARGUMENT, "not a bloom filter built by bloom_build");
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package io.trino.plugin.base.security;
+
+import com.google.common.hash.HashFunction;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.google.common.hash.Hashing.murmur3_128;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Count-min sketch (Cormode and Muthukrishnan) over string keys: {@code depth} rows of
+ * {@code width} counters, each key adding to one counter per row. An estimate is the smallest of
+ * the key's counters, which never undercounts and overcounts by at most {@code e * total / width}
+ * with probability {@code 1 - e^-depth}.
+ * <p>
+ * A key is hashed once with 128-bit murmur3 and its row indexes are derived from the two 64-bit
+ * halves as {@code h1 + row * h2} (Kirsch and Mitzenmacher), so keys that share a 32-bit
+ * {@link String#hashCode()} such as {@code "Aa"} and {@code "BB"} land on different counters.
+ * <p>
+ * Counters are atomic, so concurrent adds need no lock; {@link #decay(double)} scales every
+ * counter and may interleave with adds, which only shifts when those adds start decaying.
+ */
+class CountMinSketch {
+    private static final HashFunction HASH = murmur3_128();
+
+    private final int depth;
+    private final int mask;
+    private final AtomicLongArray counters;
+
+    CountMinSketch(int depth, int width) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("depth must be positive");
+        }
+        if (width < 1 || Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("width must be a positive power of two");
+        }
+        this.depth = depth;
+        this.mask = width - 1;
+        this.counters = new AtomicLongArray(depth * width);
+    }
+
+    void add(String key, long count) {
+        ByteBuffer hash = hash(key);
+        long h1 = hash.getLong(0);
+        long h2 = hash.getLong(8);
+        for (int row = 0; row < depth; row++) {
+            counters.addAndGet(index(h1, h2, row), count);
+        }
+    }
+
+    long estimate(String key) {
+        ByteBuffer hash = hash(key);
+        long h1 = hash.getLong(0);
+        long h2 = hash.getLong(8);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(h1, h2, row)));
+        }
+        return estimate;
+    }
+
+    void decay(double factor) {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.updateAndGet(i, value -> (long) (value * factor));
+        }
+    }
+
+    private static ByteBuffer hash(String key) {
+        return ByteBuffer.wrap(HASH.hashString(key, UTF_8).asBytes()).order(LITTLE_ENDIAN);
+    }
+
+    private int index(long h1, long h2, int row) {
+        return row * (mask + 1) + (int) ((h1 + row * h2) & mask);
+    }
+}
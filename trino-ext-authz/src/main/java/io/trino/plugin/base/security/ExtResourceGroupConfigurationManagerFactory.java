@@ -0,0 +1,157 @@
+package io.trino.plugin.base.security;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.airlift.log.Logger;
+import io.airlift.units.Duration;
+import io.trino.spi.memory.MemoryPoolInfo;
+import io.trino.spi.resourcegroups.ResourceGroup;
+import io.trino.spi.resourcegroups.ResourceGroupConfigurationManager;
+import io.trino.spi.resourcegroups.ResourceGroupConfigurationManagerContext;
+import io.trino.spi.resourcegroups.ResourceGroupConfigurationManagerFactory;
+import io.trino.spi.resourcegroups.ResourceGroupId;
+import io.trino.spi.resourcegroups.SelectionContext;
+import io.trino.spi.resourcegroups.SelectionCriteria;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+public class ExtResourceGroupConfigurationManagerFactory implements ResourceGroupConfigurationManagerFactory {
+    static final String CONFIG_FILE = "resource-groups.config-file";
+    static final String REFRESH_PERIOD = "resource-groups.refresh-period";
+    static final String MAX_SELECTIONS = "resource-groups.max-cached-selections";
+
+    @Override
+    public String getName() {
+        return "ext-resource-groups";
+    }
+
+    @Override
+    public ResourceGroupConfigurationManager<?> create(Map<String, String> config, ResourceGroupConfigurationManagerContext context) {
+        String configFile = config.get(CONFIG_FILE);
+        if (configFile == null) {
+            throw new IllegalArgumentException(CONFIG_FILE + " is required");
+        }
+        ExtResourceGroupConfigurationManager manager = new ExtResourceGroupConfigurationManager(
+            Paths.get(configFile.trim()),
+            Duration.valueOf(config.getOrDefault(REFRESH_PERIOD, "30s").trim()).toMillis(),
+            Long.parseLong(config.getOrDefault(MAX_SELECTIONS, "100000").trim()));
+        context.getMemoryPoolManager().addChangeListener(manager::memoryPoolChanged);
+        return manager;
+    }
+}
+
+/**
+ * Assigns queries to the groups of {@link ResourceGroupSelectors} and applies the group limits.
+ * The file is reloaded in the background when its modification time changes; admission only
+ * reads the current compiled selectors, and a file that fails to load keeps the previous ones.
+ * Groups that already exist are reconfigured with the reloaded limits, and groups with a
+ * percentage memory limit follow changes of the cluster memory pool.
+ */
+class ExtResourceGroupConfigurationManager implements ResourceGroupConfigurationManager<String> {
+    private static final Logger LOG = Logger.get(ExtResourceGroupConfigurationManager.class);
+
+    private final Path configFile;
+    private final long maxSelections;
+    private final Map<ResourceGroupId, ResourceGroup> configuredGroups = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService reloader;
+    private volatile ResourceGroupSelectors selectors;
+    private volatile long loadedModified;
+    private volatile long memoryPoolBytes;
+
+    ExtResourceGroupConfigurationManager(Path configFile, long refreshMillis, long maxSelections) {
+        this.configFile = configFile;
+        this.maxSelections = maxSelections;
+        try {
+            loadedModified = Files.getLastModifiedTime(configFile).toMillis();
+            selectors = ResourceGroupSelectors.load(configFile, maxSelections);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        LOG.info("loaded %s resource group selectors from %s", selectors.size(), configFile);
+        this.reloader = newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("resource-groups-reloader").setDaemon(true).build());
+        reloader.scheduleWithFixedDelay(this::reloadIfModified, refreshMillis, refreshMillis, MILLISECONDS);
+    }
+
+    @Override
+    public void configure(ResourceGroup group, SelectionContext<String> context) {
+        configuredGroups.put(group.getId(), group);
+        apply(selectors, group);
+    }
+
+    @Override
+    public Optional<SelectionContext<String>> match(SelectionCriteria criteria) {
+        return selectors.select(criteria)
+            .map(selection -> new SelectionContext<>(selection.groupId(), selection.template()));
+    }
+
+    @Override
+    public SelectionContext<String> parentGroupContext(SelectionContext<String> context) {
+        ResourceGroupId parent = context.getResourceGroupId().getParent()
+            .orElseThrow(() -> new IllegalArgumentException("group has no parent: " + context.getResourceGroupId()));
+        return new SelectionContext<>(parent, context.getContext());
+    }
+
+    void memoryPoolChanged(MemoryPoolInfo info) {
+        if (info.getMaxBytes() != memoryPoolBytes) {
+            memoryPoolBytes = info.getMaxBytes();
+            reconfigure(selectors);
+        }
+    }
+
+    private void reloadIfModified() {
+        try {
+            long modified = Files.getLastModifiedTime(configFile).toMillis();
+            if (modified != loadedModified) {
+                ResourceGroupSelectors reloaded = ResourceGroupSelectors.load(configFile, maxSelections);
+                selectors = reloaded;
+                loadedModified = modified;
+                reconfigure(reloaded);
+                LOG.info("reloaded %s resource group selectors from %s", reloaded.size(), configFile);
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warn(e, "failed to reload resource groups from %s, keeping previous configuration", configFile);
+        }
+    }
+
+    private void reconfigure(ResourceGroupSelectors current) {
+        configuredGroups.values().forEach(group -> apply(current, group));
+    }
+
+    private void apply(ResourceGroupSelectors current, ResourceGroup group) {
+        Optional<ResourceGroupSelectors.GroupSpec> found = current.spec(group.getId().getSegments());
+        if (found.isEmpty()) {
+            // removed from the file, the group keeps its limits until its queries drain
+            LOG.warn("resource group %s is no longer defined in %s", group.getId(), configFile);
+            return;
+        }
+        ResourceGroupSelectors.GroupSpec spec = found.get();
+        spec.softMemoryLimit().ifPresent(limit -> group.setSoftMemoryLimitBytes(limit.toBytes()));
+        spec.softMemoryLimitPercent().ifPresent(percent -> {
+            long poolBytes = memoryPoolBytes;
+            if (poolBytes > 0) {
+                group.setSoftMemoryLimitBytes(poolBytes * percent / 100);
+            }
+        });
+        group.setMaxQueuedQueries(spec.maxQueued());
+        group.setHardConcurrencyLimit(spec.hardConcurrencyLimit());
+        group.setSoftConcurrencyLimit(spec.softConcurrencyLimit().orElse(spec.hardConcurrencyLimit()));
+        spec.schedulingPolicy().ifPresent(group::setSchedulingPolicy);
+        spec.schedulingWeight().ifPresent(group::setSchedulingWeight);
+        group.setJmxExport(spec.jmxExport());
+    }
+
+    void shutdown() {
+        reloader.shutdownNow();
+    }
+}
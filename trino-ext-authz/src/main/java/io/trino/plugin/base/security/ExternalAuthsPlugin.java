@@ -2,9 +2,14 @@ package io.trino.plugin.base.security;
 
 import com.google.common.collect.ImmutableSet;
 import io.trino.spi.Plugin;
+import io.trino.spi.connector.ConnectorFactory;
 import io.trino.spi.eventlistener.EventListenerFactory;
+import io.trino.spi.resourcegroups.ResourceGroupConfigurationManagerFactory;
+import io.trino.spi.security.GroupProviderFactory;
+import io.trino.spi.security.HeaderAuthenticatorFactory;
 import io.trino.spi.security.PasswordAuthenticatorFactory;
 import io.trino.spi.security.SystemAccessControlFactory;
+import io.trino.spi.session.SessionPropertyConfigurationManagerFactory;
 
 import java.util.Set;
 
@@ -21,6 +26,11 @@ public class ExternalAuthsPlugin implements Plugin {
     public Set<Class<?>> getFunctions() {
         return ImmutableSet.<Class<?>>builder()
             .add(StringFunctions.class)
+            .add(MaskingFunctions.class)
+            .add(MembershipFunctions.class)
+            .add(BloomBuildAggregation.class)
+            .add(BloomFilterFunctions.class)
+            .add(AuditFunctions.class)
             .build();
     }
 
@@ -37,4 +47,39 @@ public class ExternalAuthsPlugin implements Plugin {
             .add(new PlainPasswordAuthenticatorFactory())
             .build();
     }
+
+    @Override
+    public Iterable<HeaderAuthenticatorFactory> getHeaderAuthenticatorFactories() {
+        return ImmutableSet.<HeaderAuthenticatorFactory>builder()
+            .add(new JwtHeaderAuthenticatorFactory())
+            .build();
+    }
+
+    @Override
+    public Iterable<GroupProviderFactory> getGroupProviderFactories() {
+        return ImmutableSet.<GroupProviderFactory>builder()
+            .add(new FileGroupProviderFactory())
+            .build();
+    }
+
+    @Override
+    public Iterable<ConnectorFactory> getConnectorFactories() {
+        return ImmutableSet.<ConnectorFactory>builder()
+            .add(new AuditConnectorFactory())
+            .build();
+    }
+
+    @Override
+    public Iterable<ResourceGroupConfigurationManagerFactory> getResourceGroupConfigurationManagerFactories() {
+        return ImmutableSet.<ResourceGroupConfigurationManagerFactory>builder()
+            .add(new ExtResourceGroupConfigurationManagerFactory())
+            .build();
+    }
+
+    @Override
+    public Iterable<SessionPropertyConfigurationManagerFactory> getSessionPropertyConfigurationManagerFactories() {
+        return ImmutableSet.<SessionPropertyConfigurationManagerFactory>builder()
+            .add(new WorkloadSessionPropertyManagerFactory())
+            .build();
+    }
 }
@@ -2,8 +2,6 @@ package io.trino.plugin.base.security;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import com.google.inject.Injector;
-import io.airlift.bootstrap.Bootstrap;
 import io.airlift.bootstrap.LifeCycleManager;
 import io.airlift.log.Logger;
 import io.airlift.units.Duration;
@@ -27,14 +25,15 @@ import java.security.Principal;
 import java.util.*;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 import static com.google.common.base.Suppliers.memoizeWithExpiration;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
-import static io.airlift.configuration.ConfigBinder.configBinder;
 import static io.trino.plugin.base.security.CatalogAccessControlRule.AccessMode.*;
 import static io.trino.plugin.base.security.CatalogAccessControlRule.AccessMode.OWNER;
+import static io.trino.plugin.base.security.FileBasedAccessControlConfig.SECURITY_CONFIG_FILE;
 import static io.trino.plugin.base.security.FileBasedAccessControlConfig.SECURITY_REFRESH_PERIOD;
 import static io.trino.plugin.base.security.TableAccessControlRule.TablePrivilege.*;
 import static io.trino.plugin.base.security.TableAccessControlRule.TablePrivilege.GRANT_SELECT;
@@ -53,10 +52,12 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 public class ExternalAuthzSystemAccessControl implements SystemAccessControl {
     private static final Logger LOG = Logger.get(ExternalAuthzSystemAccessControl.class);
     public static final String NAME = "extauthz";
+    // counts calls and time per method, see ProfilingSystemAccessControl
+    public static final String PROFILE_CALLS = "extauthz.profile-calls";
     private static final String INFORMATION_SCHEMA_NAME = "information_schema";
 
 
-    private final LifeCycleManager lifeCycleManager;
+    private final Runnable shutdownAction;
     private final List<CatalogAccessControlRule> catalogRules;
     private final Optional<List<QueryAccessRule>> queryAccessRules;
     private final Optional<List<ImpersonationRule>> impersonationRules;
@@ -73,7 +74,7 @@ public class ExternalAuthzSystemAccessControl implements SystemAccessControl {
     private final Set<AnyCatalogSchemaPermissionsRule> anyCatalogSchemaPermissionsRules;
 
     private ExternalAuthzSystemAccessControl(
-            LifeCycleManager lifeCycleManager,
+            Runnable shutdownAction,
             List<CatalogAccessControlRule> catalogRules,
             Optional<List<QueryAccessRule>> queryAccessRules,
             Optional<List<ImpersonationRule>> impersonationRules,
@@ -87,7 +88,7 @@ public class ExternalAuthzSystemAccessControl implements SystemAccessControl {
             List<CatalogFunctionAccessControlRule> functionRules,
             List<CatalogProcedureAccessControlRule> procedureRules)
     {
-        this.lifeCycleManager = requireNonNull(lifeCycleManager, "lifeCycleManager is null");
+        this.shutdownAction = requireNonNull(shutdownAction, "shutdownAction is null");
         this.catalogRules = catalogRules;
         this.queryAccessRules = queryAccessRules;
         this.impersonationRules = impersonationRules;
@@ -147,27 +148,75 @@ public class ExternalAuthzSystemAccessControl implements SystemAccessControl {
     public static class Factory
             implements SystemAccessControlFactory
     {
+        private static final Set<String> SUPPORTED_PROPERTIES = ImmutableSet.of(SECURITY_CONFIG_FILE, SECURITY_REFRESH_PERIOD);
+
         @Override
         public String getName()
         {
             return NAME;
         }
 
+        /**
+         * Builds the access control directly from the properties instead of through a Guice
+         * injector: the rules file is parsed into this class's {@link Builder}, and with a refresh
+         * period the instance is rebuilt from the file once the period has expired.
+         */
         @Override
         public SystemAccessControl create(Map<String, String> config)
         {
             requireNonNull(config, "config is null");
+            long start = System.nanoTime();
+            Map<String, String> securityConfig = new HashMap<>(config);
+            boolean profileCalls = Boolean.parseBoolean(securityConfig.remove(PROFILE_CALLS));
+            Set<String> unsupported = new TreeSet<>(securityConfig.keySet());
+            unsupported.removeAll(SUPPORTED_PROPERTIES);
+            if (!unsupported.isEmpty()) {
+                throw new TrinoException(CONFIGURATION_INVALID, "Unsupported access control properties: " + unsupported);
+            }
+            String configFile = securityConfig.get(SECURITY_CONFIG_FILE);
+            if (configFile == null || configFile.isBlank()) {
+                throw new TrinoException(CONFIGURATION_INVALID, SECURITY_CONFIG_FILE + " is required");
+            }
+            String rulesFile = configFile.trim();
+            String refreshPeriod = securityConfig.get(SECURITY_REFRESH_PERIOD);
 
-            Bootstrap bootstrap = new Bootstrap(
-                    binder -> configBinder(binder).bindConfig(FileBasedAccessControlConfig.class),
-                    new FileBasedSystemAccessControlModule());
-
-            Injector injector = bootstrap
-                    .doNotInitializeLogging()
-                    .setRequiredConfigurationProperties(config)
-                    .initialize();
+            SystemAccessControl accessControl;
+            if (refreshPeriod == null) {
+                accessControl = create(rulesFile);
+            }
+            else {
+                Supplier<SystemAccessControl> current = memoizeWithExpiration(
+                        () -> {
+                            LOG.info("Refreshing system access control from %s", rulesFile);
+                            return create(rulesFile);
+                        },
+                        Duration.valueOf(refreshPeriod.trim()).toMillis(),
+                        MILLISECONDS);
+                // load now so a broken rules file fails startup rather than the first query
+                current.get();
+                accessControl = ForwardingSystemAccessControl.of(current);
+            }
+            LOG.info("Created %s access control from %s in %sms", NAME, rulesFile, (System.nanoTime() - start) / 1_000_000);
+            return profileCalls ? ProfilingSystemAccessControl.wrap(accessControl) : accessControl;
+        }
 
-            return injector.getInstance(SystemAccessControl.class);
+        private static ExternalAuthzSystemAccessControl create(String configFile)
+        {
+            FileBasedSystemAccessControlRules rules = parseJson(Paths.get(configFile), FileBasedSystemAccessControlRules.class);
+            return builder()
+                    .setCatalogRules(rules.getCatalogRules())
+                    .setQueryAccessRules(rules.getQueryAccessRules())
+                    .setImpersonationRules(rules.getImpersonationRules())
+                    .setPrincipalUserMatchRules(rules.getPrincipalUserMatchRules())
+                    .setSystemInformationRules(rules.getSystemInformationRules())
+                    .setAuthorizationRules(rules.getAuthorizationRules())
+                    .setSchemaRules(rules.getSchemaRules().orElse(ImmutableList.of(CatalogSchemaAccessControlRule.ALLOW_ALL)))
+                    .setTableRules(rules.getTableRules().orElse(ImmutableList.of(CatalogTableAccessControlRule.ALLOW_ALL)))
+                    .setSessionPropertyRules(rules.getSessionPropertyRules().orElse(ImmutableList.of(SessionPropertyAccessControlRule.ALLOW_ALL)))
+                    .setCatalogSessionPropertyRules(rules.getCatalogSessionPropertyRules().orElse(ImmutableList.of(CatalogSessionPropertyAccessControlRule.ALLOW_ALL)))
+                    .setFunctionRules(rules.getFunctionRules().orElse(ImmutableList.of(CatalogFunctionAccessControlRule.ALLOW_BUILTIN)))
+                    .setProcedureRules(rules.getProcedureRules().orElse(ImmutableList.of(CatalogProcedureAccessControlRule.ALLOW_BUILTIN)))
+                    .build();
         }
     }
 
@@ -1120,7 +1169,7 @@ public class ExternalAuthzSystemAccessControl implements SystemAccessControl {
     @Override
     public final void shutdown()
     {
-        lifeCycleManager.stop();
+        shutdownAction.run();
     }
 
     public static ExternalAuthzSystemAccessControl.Builder builder()
@@ -1130,7 +1179,7 @@ public class ExternalAuthzSystemAccessControl implements SystemAccessControl {
 
     public static final class Builder
     {
-        private LifeCycleManager lifeCycleManager;
+        private Runnable shutdownAction = () -> {};
         private List<CatalogAccessControlRule> catalogRules = ImmutableList.of(CatalogAccessControlRule.ALLOW_ALL);
         private Optional<List<QueryAccessRule>> queryAccessRules = Optional.empty();
         private Optional<List<ImpersonationRule>> impersonationRules = Optional.empty();
@@ -1144,9 +1193,18 @@ public class ExternalAuthzSystemAccessControl implements SystemAccessControl {
         private List<CatalogFunctionAccessControlRule> functionRules = ImmutableList.of(CatalogFunctionAccessControlRule.ALLOW_BUILTIN);
         private List<CatalogProcedureAccessControlRule> procedureRules = ImmutableList.of(CatalogProcedureAccessControlRule.ALLOW_BUILTIN);
 
+        /**
+         * Stops the lifecycle manager on shutdown, for callers that still build through an injector.
+         */
         public ExternalAuthzSystemAccessControl.Builder setLifeCycleManager(LifeCycleManager lifeCycleManager)
         {
-            this.lifeCycleManager = lifeCycleManager;
+            requireNonNull(lifeCycleManager, "lifeCycleManager is null");
+            return setShutdownAction(lifeCycleManager::stop);
+        }
+
+        public ExternalAuthzSystemAccessControl.Builder setShutdownAction(Runnable shutdownAction)
+        {
+            this.shutdownAction = shutdownAction;
             return this;
         }
 
@@ -1243,7 +1301,7 @@ public class ExternalAuthzSystemAccessControl implements SystemAccessControl {
         public ExternalAuthzSystemAccessControl build()
         {
             return new ExternalAuthzSystemAccessControl(
-                    lifeCycleManager,
+                    shutdownAction,
                     catalogRules,
                     queryAccessRules,
                     impersonationRules,
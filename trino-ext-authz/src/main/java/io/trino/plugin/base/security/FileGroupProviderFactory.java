@@ -0,0 +1,43 @@
+package io.trino.plugin.base.security;
+
+import io.airlift.units.Duration;
+import io.trino.spi.security.GroupProvider;
+import io.trino.spi.security.GroupProviderFactory;
+
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Set;
+
+public class FileGroupProviderFactory implements GroupProviderFactory {
+    static final String GROUP_FILE = "file.group-file";
+    static final String REFRESH_PERIOD = "file.refresh-period";
+
+    @Override
+    public String getName() {
+        return "ext-group-file";
+    }
+
+    @Override
+    public GroupProvider create(Map<String, String> config) {
+        String groupFile = config.get(GROUP_FILE);
+        if (groupFile == null) {
+            throw new IllegalArgumentException(GROUP_FILE + " is required");
+        }
+        return new FileGroupProvider(new GroupMembership.Refreshing(
+            Paths.get(groupFile.trim()),
+            Duration.valueOf(config.getOrDefault(REFRESH_PERIOD, "1m").trim()).toMillis()));
+    }
+}
+
+class FileGroupProvider implements GroupProvider {
+    private final GroupMembership.Refreshing membership;
+
+    FileGroupProvider(GroupMembership.Refreshing membership) {
+        this.membership = membership;
+    }
+
+    @Override
+    public Set<String> getGroups(String user) {
+        return membership.get().getGroups(user);
+    }
+}
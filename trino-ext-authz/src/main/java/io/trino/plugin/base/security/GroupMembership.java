@@ -0,0 +1,209 @@
+package io.trino.plugin.base.security;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.airlift.log.Logger;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Stream;
+
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Immutable user to groups index loaded from {@code group:user1,user2} lines, the format of
+ * Trino's file group provider. The source is a single file or a directory whose regular files
+ * are merged, e.g. one file per entitlement exported by an identity system.
+ * <p>
+ * Users with the same memberships share one set instance and group names are interned, so the
+ * index stays small when many users belong to the same few groups. Lookups are a single hash
+ * lookup returning a shared immutable set.
+ */
+final class GroupMembership {
+    static final GroupMembership EMPTY = new GroupMembership(ImmutableMap.of());
+
+    private final ImmutableMap<String, ImmutableSet<String>> groupsByUser;
+    private volatile ImmutableMap<Slice, ImmutableSet<Slice>> groupsByUserSlice;
+
+    private GroupMembership(ImmutableMap<String, ImmutableSet<String>> groupsByUser) {
+        this.groupsByUser = groupsByUser;
+    }
+
+    Set<String> getGroups(String user) {
+        return groupsByUser.getOrDefault(user, ImmutableSet.of());
+    }
+
+    boolean isMember(String user, String group) {
+        ImmutableSet<String> groups = groupsByUser.get(user);
+        return groups != null && groups.contains(group);
+    }
+
+    /**
+     * Same as {@link #isMember(String, String)} on the UTF-8 bytes, for per-row callers that would
+     * otherwise decode both values on every call. The byte keyed copy of the index is built on
+     * first use, sharing sets between users like the string index.
+     */
+    boolean isMember(Slice user, Slice group) {
+        ImmutableMap<Slice, ImmutableSet<Slice>> index = groupsByUserSlice;
+        if (index == null) {
+            index = sliceIndex();
+            groupsByUserSlice = index;
+        }
+        ImmutableSet<Slice> groups = index.get(user);
+        return groups != null && groups.contains(group);
+    }
+
+    private ImmutableMap<Slice, ImmutableSet<Slice>> sliceIndex() {
+        Map<ImmutableSet<String>, ImmutableSet<Slice>> shared = new IdentityHashMap<>();
+        ImmutableMap.Builder<Slice, ImmutableSet<Slice>> index = ImmutableMap.builderWithExpectedSize(groupsByUser.size());
+        groupsByUser.forEach((user, groups) -> index.put(
+            utf8Slice(user),
+            shared.computeIfAbsent(groups, ignored -> groups.stream().map(Slices::utf8Slice).collect(toImmutableSet()))));
+        return index.buildOrThrow();
+    }
+
+    int size() {
+        return groupsByUser.size();
+    }
+
+    static GroupMembership load(Path source) throws IOException {
+        Interner<String> names = Interners.newStrongInterner();
+        Map<String, Set<String>> groupsByUser = new HashMap<>();
+        for (Path file : files(source)) {
+            List<String> lines = Files.readAllLines(file, UTF_8);
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i).trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int separator = line.indexOf(':');
+                if (separator <= 0) {
+                    throw new IllegalArgumentException("invalid entry in " + file + " at line " + (i + 1));
+                }
+                String group = names.intern(line.substring(0, separator).trim());
+                for (String user : line.substring(separator + 1).split(",")) {
+                    user = user.trim();
+                    if (!user.isEmpty()) {
+                        groupsByUser.computeIfAbsent(user, ignored -> new LinkedHashSet<>()).add(group);
+                    }
+                }
+            }
+        }
+        Map<Set<String>, ImmutableSet<String>> shared = new HashMap<>();
+        ImmutableMap.Builder<String, ImmutableSet<String>> index = ImmutableMap.builderWithExpectedSize(groupsByUser.size());
+        groupsByUser.forEach((user, groups) -> index.put(user, shared.computeIfAbsent(groups, ImmutableSet::copyOf)));
+        return new GroupMembership(index.buildOrThrow());
+    }
+
+    /**
+     * Modification signature of the source, changes whenever a file is added, removed or modified.
+     */
+    static long signature(Path source) throws IOException {
+        long signature = 17;
+        for (Path file : files(source)) {
+            signature = signature * 31 + file.getFileName().hashCode();
+            signature = signature * 31 + Files.getLastModifiedTime(file).toMillis();
+            signature = signature * 31 + Files.size(file);
+        }
+        return signature;
+    }
+
+    private static List<Path> files(Path source) throws IOException {
+        if (!Files.isDirectory(source)) {
+            return List.of(source);
+        }
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> entries = Files.list(source)) {
+            entries.filter(Files::isRegularFile)
+                .filter(path -> !path.getFileName().toString().startsWith("."))
+                .sorted()
+                .forEach(files::add);
+        }
+        return files;
+    }
+
+    /**
+     * Keeps a {@link GroupMembership} current by reloading its source in the background whenever
+     * the source signature changes. Readers never wait: they see the previous index until the
+     * new one is fully built, and a source that fails to parse leaves the previous index in place.
+     * An optional source that does not exist yet reads as empty until it appears.
+     */
+    static final class Refreshing {
+        private static final Logger LOG = Logger.get(Refreshing.class);
+        private static final long MISSING = Long.MIN_VALUE;
+
+        private final Path source;
+        private final ScheduledExecutorService refresher;
+        private volatile GroupMembership current;
+        private volatile long loadedSignature;
+
+        Refreshing(Path source, long refreshMillis) {
+            this(source, refreshMillis, false);
+        }
+
+        Refreshing(Path source, long refreshMillis, boolean optional) {
+            this.source = source;
+            if (optional && !Files.exists(source)) {
+                loadedSignature = MISSING;
+                current = EMPTY;
+                LOG.warn("%s not found, no groups until it appears", source);
+            } else {
+                try {
+                    loadedSignature = signature(source);
+                    current = load(source);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                LOG.info("loaded groups of %s users from %s", current.size(), source);
+            }
+            this.refresher = newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("group-membership-refresher").setDaemon(true).build());
+            refresher.scheduleWithFixedDelay(this::refresh, refreshMillis, refreshMillis, MILLISECONDS);
+        }
+
+        GroupMembership get() {
+            return current;
+        }
+
+        @VisibleForTesting
+        void refresh() {
+            if (loadedSignature == MISSING && !Files.exists(source)) {
+                return;
+            }
+            try {
+                long signature = signature(source);
+                if (signature != loadedSignature) {
+                    current = load(source);
+                    loadedSignature = signature;
+                    LOG.info("reloaded groups of %s users from %s", current.size(), source);
+                }
+            } catch (IOException | RuntimeException e) {
+                LOG.warn(e, "failed to reload groups from %s, keeping previous entries", source);
+            }
+        }
+
+        void shutdown() {
+            refresher.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package io.trino.plugin.base.security;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.airlift.log.Logger;
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Fingerprints completed queries and keeps the top fingerprints by CPU and wall time in
+ * {@link SpaceSavingSketch}es. Normalisation runs on a single background thread fed through a
+ * bounded queue, so the event thread only pays for an enqueue; when the queue is full the event
+ * is counted as dropped rather than blocking the listener.
+ */
+class HeavyHitterTracker implements HeavyHittersMXBean {
+    private static final Logger LOG = Logger.get(HeavyHitterTracker.class);
+    private static final int MAX_SAMPLE_LENGTH = 200;
+
+    private final int capacity;
+    private final AuditSink sink;
+    private final int reportSize;
+    private final ThreadPoolExecutor worker;
+    private final ScheduledExecutorService reporter;
+    private final SpaceSavingSketch<String> cpuTime;
+    private final SpaceSavingSketch<String> wallTime;
+    private final Map<String, String> samples = new HashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private final ObjectName objectName;
+    private volatile String[] topByCpuTime = new String[0];
+    private volatile String[] topByWallTime = new String[0];
+
+    HeavyHitterTracker(int capacity, int reportSize, int queueSize, long reportIntervalMillis, AuditSink sink) {
+        this.capacity = capacity;
+        this.sink = sink;
+        this.reportSize = reportSize;
+        this.cpuTime = new SpaceSavingSketch<>(capacity);
+        this.wallTime = new SpaceSavingSketch<>(capacity);
+        this.worker = new ThreadPoolExecutor(1, 1, 0, MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+            new ThreadFactoryBuilder().setNameFormat("audit-heavy-hitters").setDaemon(true).build());
+        this.reporter = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("audit-heavy-hitters-report").setDaemon(true).build());
+        this.reporter.scheduleWithFixedDelay(this::report, reportIntervalMillis, reportIntervalMillis, MILLISECONDS);
+        this.objectName = register();
+    }
+
+    void submit(QueryCompletedEvent event) {
+        String query = event.getMetadata().getQuery();
+        long cpuMillis = event.getStatistics().getCpuTime().toMillis();
+        long wallMillis = event.getStatistics().getWallTime().toMillis();
+        try {
+            worker.execute(() -> record(query, cpuMillis, wallMillis));
+        } catch (RejectedExecutionException e) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void record(String query, long cpuMillis, long wallMillis) {
+        QueryFingerprint fingerprint = QueryFingerprint.of(query);
+        String hash = fingerprint.getHash();
+        cpuTime.add(hash, cpuMillis);
+        wallTime.add(hash, wallMillis);
+        if (!samples.containsKey(hash)) {
+            String normalized = fingerprint.getNormalized();
+            samples.put(hash, normalized.length() > MAX_SAMPLE_LENGTH ? normalized.substring(0, MAX_SAMPLE_LENGTH) : normalized);
+        }
+        if (samples.size() > 4 * capacity) {
+            // evicted fingerprints leave their sample behind; trim back to what the sketches still track
+            Set<String> tracked = new HashSet<>(cpuTime.keys());
+            tracked.addAll(wallTime.keys());
+            samples.keySet().retainAll(tracked);
+        }
+    }
+
+    private void report() {
+        try {
+            // snapshot on the worker thread, the sketches are confined to it
+            worker.submit(() -> {
+                topByCpuTime = format(cpuTime.top(reportSize));
+                topByWallTime = format(wallTime.top(reportSize));
+            }).get();
+        } catch (Exception e) {
+            LOG.warn(e, "failed to snapshot heavy hitters");
+            return;
+        }
+        log("cpu_time", topByCpuTime);
+        log("wall_time", topByWallTime);
+    }
+
+    private void log(String metric, String[] entries) {
+        for (int rank = 0; rank < entries.length; rank++) {
+            AttributeLogger.newInstance()
+                .withAttribute("phase", "heavy_hitter")
+                .withAttribute("metric", metric)
+                .withAttribute("rank", rank + 1)
+                .withAttribute("entry", entries[rank])
+                .log(sink);
+        }
+    }
+
+    private String[] format(List<SpaceSavingSketch.Counter<String>> counters) {
+        String[] entries = new String[counters.size()];
+        for (int i = 0; i < counters.size(); i++) {
+            SpaceSavingSketch.Counter<String> counter = counters.get(i);
+            entries[i] = counter.getKey() + " " + counter.getWeight() + " " + counter.getHits() + " error=" + counter.getError() + " " + samples.getOrDefault(counter.getKey(), "");
+        }
+        return entries;
+    }
+
+    @Override
+    public String[] getTopByCpuTime() {
+        return topByCpuTime;
+    }
+
+    @Override
+    public String[] getTopByWallTime() {
+        return topByWallTime;
+    }
+
+    @Override
+    public long getDroppedEvents() {
+        return dropped.get();
+    }
+
+    private ObjectName register() {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(QueryStatsCollector.JMX_DOMAIN + ":type=HeavyHitters");
+            mBeanServer.registerMBean(this, name);
+            return name;
+        } catch (JMException e) {
+            LOG.warn(e, "failed to register heavy hitters");
+            return null;
+        }
+    }
+
+    void shutdown() {
+        reporter.shutdownNow();
+        worker.shutdownNow();
+        try {
+            worker.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (JMException ignored) {
+                // already gone
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package io.trino.plugin.base.security;
+
+/**
+ * Query fingerprints with the highest total CPU and wall time since the listener started,
+ * one entry per fingerprint formatted as {@code hash total_ms count error=overestimate_ms normalized-sql}.
+ */
+public interface HeavyHittersMXBean {
+    String[] getTopByCpuTime();
+
+    String[] getTopByWallTime();
+
+    long getDroppedEvents();
+}
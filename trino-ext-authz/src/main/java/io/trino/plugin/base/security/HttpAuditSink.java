@@ -0,0 +1,228 @@
+package io.trino.plugin.base.security;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.airlift.log.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Forwards audit lines to a remote collector as gzip-compressed newline-delimited JSON batches.
+ * <p>
+ * Lines are buffered in memory until a batch is full or has lingered long enough, then sent
+ * asynchronously with at most {@code maxInFlight} concurrent requests. A batch that cannot be
+ * sent right away, because all permits are taken, the collector failed, or older batches are
+ * still waiting on disk, is appended to the {@link AuditSpool}. A background drainer replays
+ * the spool oldest first once the collector accepts requests again, so query threads never wait
+ * on the network and nothing is lost while the collector is down, up to the spool limits.
+ */
+class HttpAuditSink extends AuditSink {
+    private static final Logger LOG = Logger.get(HttpAuditSink.class);
+    private static final long WARNING_INTERVAL_MILLIS = 60_000;
+
+    private final URI collector;
+    private final int maxBatchLines;
+    private final long maxBatchBytes;
+    private final long segmentMillis;
+    private final Duration requestTimeout;
+    private final HttpClient client;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final AuditSpool spool;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final AtomicLong lastWarningMillis = new AtomicLong();
+    private final AtomicLong suppressedWarnings = new AtomicLong();
+
+    private StringBuilder batch = new StringBuilder();
+    private int batchLines;
+    private long segment = -1;
+    private long drainBackoffMillis;
+
+    HttpAuditSink(
+            URI collector,
+            boolean deduplicateQueryText,
+            long segmentMillis,
+            int maxBatchLines,
+            long maxBatchBytes,
+            long lingerMillis,
+            int maxInFlight,
+            Duration requestTimeout,
+            AuditSpool spool) {
+        super(deduplicateQueryText);
+        this.collector = collector;
+        this.segmentMillis = segmentMillis;
+        this.maxBatchLines = maxBatchLines;
+        this.maxBatchBytes = maxBatchBytes;
+        this.requestTimeout = requestTimeout;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.spool = spool;
+        this.scheduler = new ScheduledThreadPoolExecutor(2,
+            new ThreadFactoryBuilder().setNameFormat("audit-http-%s").setDaemon(true).build());
+        this.scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.client = HttpClient.newBuilder()
+            .connectTimeout(requestTimeout)
+            .build();
+        scheduler.scheduleWithFixedDelay(this::flush, lingerMillis, lingerMillis, MILLISECONDS);
+        scheduler.schedule(this::drain, lingerMillis, MILLISECONDS);
+    }
+
+    @Override
+    boolean startNewSegmentIfNeeded() {
+        long current = System.currentTimeMillis() / segmentMillis;
+        if (current != segment) {
+            segment = current;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    synchronized void writeLine(String line) {
+        batch.append(line).append('\n');
+        batchLines++;
+        if (batchLines >= maxBatchLines || batch.length() >= maxBatchBytes) {
+            seal();
+        }
+    }
+
+    synchronized void flush() {
+        if (batchLines > 0) {
+            seal();
+        }
+    }
+
+    private void seal() {
+        String lines = batch.toString();
+        batch = new StringBuilder();
+        batchLines = 0;
+        scheduler.execute(() -> dispatch(gzip(lines)));
+    }
+
+    private void dispatch(byte[] payload) {
+        if (!spool.isEmpty() || !inFlight.tryAcquire()) {
+            toSpool(payload);
+            return;
+        }
+        send(payload).whenComplete((delivered, failure) -> {
+            try {
+                if (failure != null || !delivered) {
+                    toSpool(payload);
+                }
+            } finally {
+                // released only once the batch is spooled, so close() does not shut the spool under it
+                inFlight.release();
+            }
+        });
+    }
+
+    private CompletableFuture<Boolean> send(byte[] payload) {
+        HttpRequest request = HttpRequest.newBuilder(collector)
+            .timeout(requestTimeout)
+            .header("Content-Type", "application/x-ndjson")
+            .header("Content-Encoding", "gzip")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(payload))
+            .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .thenApply(response -> {
+                boolean delivered = response.statusCode() / 100 == 2;
+                if (!delivered) {
+                    warnRateLimited(null, "audit collector %s answered %s", collector, response.statusCode());
+                }
+                return delivered;
+            });
+    }
+
+    private void toSpool(byte[] payload) {
+        try {
+            spool.append(payload);
+        } catch (IOException e) {
+            LOG.error(e, "failed to spool audit batch of %s bytes", payload.length);
+        }
+    }
+
+    /**
+     * Replays spooled batches one at a time, in order, backing off exponentially while the collector is unavailable.
+     */
+    private void drain() {
+        long delay = 1_000;
+        try {
+            Optional<AuditSpool.Record> record = spool.peek();
+            while (record.isPresent()) {
+                if (!send(record.get().payload()).get(requestTimeout.toMillis() * 2, MILLISECONDS)) {
+                    throw new IOException("spooled batch rejected by " + collector);
+                }
+                spool.commit(record.get());
+                record = spool.peek();
+            }
+            drainBackoffMillis = 0;
+        } catch (Exception e) {
+            drainBackoffMillis = Math.min(Math.max(drainBackoffMillis * 2, 1_000), 60_000);
+            delay = drainBackoffMillis;
+            warnRateLimited(e, "audit collector %s unavailable, retrying spool drain in %sms", collector, delay);
+        }
+        if (!scheduler.isShutdown()) {
+            scheduler.schedule(this::drain, delay, MILLISECONDS);
+        }
+    }
+
+    /**
+     * Logs at most one warning per interval while the collector fails, with the number of warnings
+     * suppressed since the previous one, so an outage is visible without flooding the server log.
+     */
+    private void warnRateLimited(Throwable failure, String format, Object... args) {
+        long now = System.currentTimeMillis();
+        long last = lastWarningMillis.get();
+        if (now - last < WARNING_INTERVAL_MILLIS || !lastWarningMillis.compareAndSet(last, now)) {
+            suppressedWarnings.incrementAndGet();
+            return;
+        }
+        String message = String.format(format, args);
+        long suppressed = suppressedWarnings.getAndSet(0);
+        if (suppressed > 0) {
+            message += " (" + suppressed + " similar warnings suppressed)";
+        }
+        LOG.warn(failure, "%s", message);
+    }
+
+    private static byte[] gzip(String lines) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(lines.length() / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(lines.getBytes(UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    void closeSink() {
+        flush();
+        scheduler.shutdown();
+        try {
+            // pending dispatches either start a request or spool; then wait for requests to be acknowledged or spooled
+            scheduler.awaitTermination(requestTimeout.toMillis(), MILLISECONDS);
+            if (!inFlight.tryAcquire(maxInFlight, requestTimeout.toMillis() * 2, MILLISECONDS)) {
+                LOG.warn("audit batches still in flight to %s at shutdown", collector);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        spool.close();
+    }
+}
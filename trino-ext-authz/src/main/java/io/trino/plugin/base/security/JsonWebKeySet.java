@@ -0,0 +1,172 @@
+package io.trino.plugin.base.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.airlift.log.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Public keys of a JWK set file ({@code {"keys": [...]}}) indexed by key id, RSA and EC (P-256,
+ * P-384, P-521) only.
+ * <p>
+ * The file is re-read in the background whenever it changes, so an identity provider that
+ * publishes the next signing key ahead of rotation, as they commonly do, has it parsed and ready
+ * before the first token signed with it arrives. Request threads never touch the file. Key ids
+ * must be unique; a file that repeats one is rejected and the previous keys stay in use.
+ */
+class JsonWebKeySet {
+    private static final Logger LOG = Logger.get(JsonWebKeySet.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path file;
+    private final ScheduledExecutorService refresher;
+    private volatile ImmutableMap<String, Key> keys;
+    private volatile long loadedModified;
+
+    JsonWebKeySet(Path file, long refreshMillis) {
+        this.file = file;
+        try {
+            loadedModified = Files.getLastModifiedTime(file).toMillis();
+            keys = load(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.refresher = newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("jwk-set-refresher").setDaemon(true).build());
+        refresher.scheduleWithFixedDelay(this::refresh, refreshMillis, refreshMillis, MILLISECONDS);
+    }
+
+    /**
+     * Returns the key with the given id, or the only key of the set when the token names none.
+     */
+    Optional<Key> get(Optional<String> keyId) {
+        Map<String, Key> current = keys;
+        if (keyId.isPresent()) {
+            return Optional.ofNullable(current.get(keyId.get()));
+        }
+        return current.size() == 1 ? Optional.of(current.values().iterator().next()) : Optional.empty();
+    }
+
+    /**
+     * Returns true while the set still holds a key with the same id, algorithm and key material,
+     * whether or not the file was reloaded since.
+     */
+    boolean contains(Key key) {
+        Key current = keys.get(key.id());
+        return current == key || (current != null
+            && current.fingerprint().equals(key.fingerprint())
+            && current.type().equals(key.type())
+            && current.algorithm().equals(key.algorithm()));
+    }
+
+    @VisibleForTesting
+    void refresh() {
+        try {
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            if (modified != loadedModified) {
+                keys = load(file);
+                loadedModified = modified;
+                LOG.info("reloaded %s keys from %s", keys.size(), file);
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warn(e, "failed to reload JWK set %s, keeping previous keys", file);
+        }
+    }
+
+    private static ImmutableMap<String, Key> load(Path file) throws IOException {
+        Map<String, Key> keys = new LinkedHashMap<>();
+        int position = 0;
+        for (JsonNode jwk : MAPPER.readTree(file.toFile()).path("keys")) {
+            String id = jwk.path("kid").asText("#" + position++);
+            if (!jwk.path("use").asText("sig").equals("sig")) {
+                continue;
+            }
+            if (keys.containsKey(id)) {
+                throw new IllegalArgumentException("duplicate key id " + id + " in " + file);
+            }
+            try {
+                PublicKey publicKey = publicKey(jwk);
+                keys.put(id, new Key(
+                    id,
+                    jwk.path("kty").asText(),
+                    Optional.ofNullable(jwk.path("alg").textValue()),
+                    publicKey,
+                    Hashing.sha256().hashBytes(publicKey.getEncoded())));
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                LOG.warn(e, "skipping unusable key %s in %s", id, file);
+            }
+        }
+        return ImmutableMap.copyOf(keys);
+    }
+
+    private static PublicKey publicKey(JsonNode jwk) throws GeneralSecurityException {
+        switch (jwk.path("kty").asText()) {
+            case "RSA":
+                return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(
+                    integer(jwk, "n"),
+                    integer(jwk, "e")));
+            case "EC":
+                AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+                parameters.init(new ECGenParameterSpec(curve(jwk.path("crv").asText())));
+                return KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(
+                    new ECPoint(integer(jwk, "x"), integer(jwk, "y")),
+                    parameters.getParameterSpec(ECParameterSpec.class)));
+            default:
+                throw new IllegalArgumentException("unsupported key type " + jwk.path("kty").asText());
+        }
+    }
+
+    private static String curve(String name) {
+        switch (name) {
+            case "P-256":
+                return "secp256r1";
+            case "P-384":
+                return "secp384r1";
+            case "P-521":
+                return "secp521r1";
+            default:
+                throw new IllegalArgumentException("unsupported curve " + name);
+        }
+    }
+
+    private static BigInteger integer(JsonNode jwk, String field) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode(jwk.path(field).asText()));
+    }
+
+    void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * @param fingerprint SHA-256 of the encoded public key, compares key material across reloads
+     */
+    record Key(String id, String type, Optional<String> algorithm, PublicKey publicKey, HashCode fingerprint) {
+    }
+}
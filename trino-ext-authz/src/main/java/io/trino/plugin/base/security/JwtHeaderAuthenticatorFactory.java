@@ -0,0 +1,217 @@
+package io.trino.plugin.base.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import io.airlift.units.Duration;
+import io.trino.spi.security.AccessDeniedException;
+import io.trino.spi.security.BasicPrincipal;
+import io.trino.spi.security.HeaderAuthenticator;
+import io.trino.spi.security.HeaderAuthenticatorFactory;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.Principal;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+public class JwtHeaderAuthenticatorFactory implements HeaderAuthenticatorFactory {
+    static final String KEY_FILE = "jwt.key-file";
+    static final String REFRESH_PERIOD = "jwt.refresh-period";
+    static final String HEADER = "jwt.header";
+    static final String REQUIRED_ISSUER = "jwt.required-issuer";
+    static final String REQUIRED_AUDIENCE = "jwt.required-audience";
+    static final String PRINCIPAL_FIELD = "jwt.principal-field";
+    static final String CLOCK_SKEW = "jwt.clock-skew";
+    static final String CACHE_MAX_SIZE = "jwt.cache.max-size";
+
+    @Override
+    public String getName() {
+        return "ext-jwt";
+    }
+
+    @Override
+    public HeaderAuthenticator create(Map<String, String> config) {
+        String keyFile = config.get(KEY_FILE);
+        if (keyFile == null) {
+            throw new IllegalArgumentException(KEY_FILE + " is required");
+        }
+        return new JwtHeaderAuthenticator(
+            new JsonWebKeySet(Paths.get(keyFile.trim()), Duration.valueOf(config.getOrDefault(REFRESH_PERIOD, "1m").trim()).toMillis()),
+            config.getOrDefault(HEADER, "Authorization").trim(),
+            Optional.ofNullable(config.get(REQUIRED_ISSUER)).map(String::trim),
+            Optional.ofNullable(config.get(REQUIRED_AUDIENCE)).map(String::trim),
+            config.getOrDefault(PRINCIPAL_FIELD, "sub").trim(),
+            Duration.valueOf(config.getOrDefault(CLOCK_SKEW, "30s").trim()).toMillis(),
+            Integer.parseInt(config.getOrDefault(CACHE_MAX_SIZE, "10000").trim()));
+    }
+}
+
+/**
+ * Authenticates requests carrying a signed JWT, as forwarded by the gateway, against the keys of
+ * a {@link JsonWebKeySet}. RS256/384/512 and ES256/384/512 signatures are accepted.
+ * <p>
+ * Clients poll the coordinator with the same token for the whole life of a query, so a token that
+ * verified once is remembered by its SHA-256 digest until it expires; later requests with it cost
+ * a digest and a map lookup instead of an RSA or ECDSA verification. A remembered token stops
+ * being accepted as soon as its signing key disappears from the key set or changes; reloading an
+ * unchanged key keeps it valid.
+ */
+class JwtHeaderAuthenticator implements HeaderAuthenticator {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String BEARER = "bearer ";
+
+    private final JsonWebKeySet keys;
+    private final String header;
+    private final Optional<String> requiredIssuer;
+    private final Optional<String> requiredAudience;
+    private final String principalField;
+    private final long clockSkewMillis;
+    private final Cache<HashCode, VerifiedToken> verified;
+
+    JwtHeaderAuthenticator(
+            JsonWebKeySet keys,
+            String header,
+            Optional<String> requiredIssuer,
+            Optional<String> requiredAudience,
+            String principalField,
+            long clockSkewMillis,
+            int cacheMaxSize) {
+        this.keys = keys;
+        this.header = header;
+        this.requiredIssuer = requiredIssuer;
+        this.requiredAudience = requiredAudience;
+        this.principalField = principalField;
+        this.clockSkewMillis = clockSkewMillis;
+        this.verified = CacheBuilder.newBuilder()
+            .maximumSize(cacheMaxSize)
+            .build();
+    }
+
+    @Override
+    public Principal createAuthenticatedPrincipal(Headers headers) {
+        String token = token(headers);
+        HashCode digest = Hashing.sha256().hashString(token, US_ASCII);
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verified.getIfPresent(digest);
+        if (cached != null) {
+            if (now < cached.expiresMillis() + clockSkewMillis && keys.contains(cached.key())) {
+                return new BasicPrincipal(cached.principal());
+            }
+            verified.invalidate(digest);
+        }
+        VerifiedToken verifiedToken = verify(token, now);
+        verified.put(digest, verifiedToken);
+        return new BasicPrincipal(verifiedToken.principal());
+    }
+
+    private String token(Headers headers) {
+        List<String> values = headers.getHeader(header);
+        if (values == null || values.isEmpty()) {
+            throw new AccessDeniedException("missing " + header + " header");
+        }
+        String value = values.get(0).trim();
+        if (value.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            value = value.substring(BEARER.length()).trim();
+        }
+        return value;
+    }
+
+    private VerifiedToken verify(String token, long now) {
+        String[] parts = token.split("\\.", -1);
+        if (parts.length != 3) {
+            throw new AccessDeniedException("malformed JWT");
+        }
+        JsonNode header = decode(parts[0]);
+        String algorithm = header.path("alg").asText();
+        JsonWebKeySet.Key key = keys.get(Optional.ofNullable(header.path("kid").textValue()))
+            .orElseThrow(() -> new AccessDeniedException("JWT signed with unknown key"));
+        if (key.algorithm().isPresent() && !key.algorithm().get().equals(algorithm)) {
+            throw new AccessDeniedException("JWT algorithm does not match its key");
+        }
+        if (!verifySignature(key, algorithm, (parts[0] + "." + parts[1]).getBytes(US_ASCII), parts[2])) {
+            throw new AccessDeniedException("invalid JWT signature");
+        }
+
+        JsonNode claims = decode(parts[1]);
+        if (!claims.path("exp").canConvertToLong()) {
+            throw new AccessDeniedException("JWT has no expiry");
+        }
+        long expiresMillis = claims.path("exp").asLong() * 1000;
+        if (now >= expiresMillis + clockSkewMillis) {
+            throw new AccessDeniedException("JWT expired");
+        }
+        if (claims.has("nbf")) {
+            if (!claims.path("nbf").canConvertToLong()) {
+                throw new AccessDeniedException("JWT has a malformed nbf claim");
+            }
+            if (now + clockSkewMillis < claims.path("nbf").asLong() * 1000) {
+                throw new AccessDeniedException("JWT not yet valid");
+            }
+        }
+        if (requiredIssuer.isPresent() && !requiredIssuer.get().equals(claims.path("iss").asText())) {
+            throw new AccessDeniedException("JWT issuer not accepted");
+        }
+        if (requiredAudience.isPresent() && !hasAudience(claims.path("aud"), requiredAudience.get())) {
+            throw new AccessDeniedException("JWT audience not accepted");
+        }
+        String principal = claims.path(principalField).asText();
+        if (principal.isEmpty()) {
+            throw new AccessDeniedException("JWT has no " + principalField + " claim");
+        }
+        return new VerifiedToken(principal, expiresMillis, key);
+    }
+
+    private static boolean verifySignature(JsonWebKeySet.Key key, String algorithm, byte[] content, String signature) {
+        String jcaAlgorithm = switch (key.type() + ":" + algorithm) {
+            case "RSA:RS256" -> "SHA256withRSA";
+            case "RSA:RS384" -> "SHA384withRSA";
+            case "RSA:RS512" -> "SHA512withRSA";
+            // JWS carries ECDSA signatures as raw r || s, the P1363 format
+            case "EC:ES256" -> "SHA256withECDSAinP1363Format";
+            case "EC:ES384" -> "SHA384withECDSAinP1363Format";
+            case "EC:ES512" -> "SHA512withECDSAinP1363Format";
+            default -> throw new AccessDeniedException("unsupported JWT algorithm " + algorithm);
+        };
+        try {
+            Signature verifier = Signature.getInstance(jcaAlgorithm);
+            verifier.initVerify(key.publicKey());
+            verifier.update(content);
+            return verifier.verify(Base64.getUrlDecoder().decode(signature));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static boolean hasAudience(JsonNode audience, String required) {
+        if (audience.isArray()) {
+            for (JsonNode value : audience) {
+                if (required.equals(value.asText())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return required.equals(audience.asText());
+    }
+
+    private static JsonNode decode(String part) {
+        try {
+            return MAPPER.readTree(Base64.getUrlDecoder().decode(part));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new AccessDeniedException("malformed JWT");
+        }
+    }
+
+    private record VerifiedToken(String principal, long expiresMillis, JsonWebKeySet.Key key) {
+    }
+}
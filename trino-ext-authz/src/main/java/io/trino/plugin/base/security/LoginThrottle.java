@@ -0,0 +1,115 @@
+package io.trino.plugin.base.security;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Tracks failed logins per user name in fixed memory and tells when further attempts must be
+ * rejected without checking the password.
+ * <p>
+ * Failures are counted in a count-min sketch of {@code depth} rows by {@code width} cells, so an
+ * attacker cycling through random user names cannot grow it. Each cell packs the failure count
+ * (high 32 bits) and the second of the latest failure (low 32 bits) into one long updated with
+ * CAS, so recording and checking never take a lock. A cell quiet for {@code forgetSeconds} starts
+ * over. Hash collisions can only overestimate failures, i.e. throttle too early, never too late;
+ * the hash is keyed per process so collisions cannot be aimed at a known user.
+ * <p>
+ * Once a name exceeds {@code threshold} failures, attempts are rejected until
+ * {@code baseDelay * 2^(failures - threshold - 1)}, capped at {@code maxDelay}, has passed since
+ * the latest failure.
+ */
+class LoginThrottle {
+    private final int width;
+    private final int depth;
+    private final int threshold;
+    private final long baseDelaySeconds;
+    private final long maxDelaySeconds;
+    private final long forgetSeconds;
+    private final AtomicLongArray cells;
+    private final HashFunction hash;
+    private final LongSupplier clockNanos;
+    private final long originNanos;
+
+    LoginThrottle(int width, int depth, int threshold, long baseDelaySeconds, long maxDelaySeconds) {
+        this(width, depth, threshold, baseDelaySeconds, maxDelaySeconds, System::nanoTime);
+    }
+
+    LoginThrottle(int width, int depth, int threshold, long baseDelaySeconds, long maxDelaySeconds, LongSupplier clockNanos) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("width and depth must be positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.threshold = threshold;
+        this.baseDelaySeconds = Math.max(baseDelaySeconds, 1);
+        this.maxDelaySeconds = Math.max(maxDelaySeconds, this.baseDelaySeconds);
+        this.forgetSeconds = this.maxDelaySeconds * 2;
+        this.cells = new AtomicLongArray(width * depth);
+        SecureRandom random = new SecureRandom();
+        this.hash = Hashing.sipHash24(random.nextLong(), random.nextLong());
+        this.clockNanos = clockNanos;
+        // start at one second so a zero timestamp always means "never failed"
+        this.originNanos = clockNanos.getAsLong() - 1_000_000_000L;
+    }
+
+    /**
+     * Returns true when the user failed too often recently and must not be checked now.
+     */
+    boolean isThrottled(String user) {
+        long now = now();
+        long code = hash.hashString(user, UTF_8).asLong();
+        long failures = Long.MAX_VALUE;
+        long latest = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            long cell = cells.get(index(code, row));
+            long last = cell & 0xFFFF_FFFFL;
+            if (last == 0 || now - last > forgetSeconds) {
+                return false;
+            }
+            failures = Math.min(failures, cell >>> 32);
+            latest = Math.min(latest, last);
+        }
+        return now < latest + delaySeconds(failures);
+    }
+
+    void recordFailure(String user) {
+        long now = now();
+        long code = hash.hashString(user, UTF_8).asLong();
+        for (int row = 0; row < depth; row++) {
+            int index = index(code, row);
+            long cell;
+            long updated;
+            do {
+                cell = cells.get(index);
+                long last = cell & 0xFFFF_FFFFL;
+                long failures = (last == 0 || now - last > forgetSeconds) ? 0 : cell >>> 32;
+                updated = (Math.min(failures + 1, 0xFFFF_FFFFL) << 32) | now;
+            } while (!cells.compareAndSet(index, cell, updated));
+        }
+    }
+
+    private long delaySeconds(long failures) {
+        if (failures <= threshold) {
+            return 0;
+        }
+        long doublings = Math.min(failures - threshold - 1, 30);
+        return Math.min(baseDelaySeconds << doublings, maxDelaySeconds);
+    }
+
+    private int index(long code, int row) {
+        // double hashing: row i probes h1 + i * h2
+        int h1 = (int) code;
+        int h2 = (int) (code >>> 32) | 1;
+        return row * width + Math.floorMod(h1 + row * h2, width);
+    }
+
+    private long now() {
+        return ((clockNanos.getAsLong() - originNanos) / 1_000_000_000L) & 0xFFFF_FFFFL;
+    }
+}
@@ -0,0 +1,186 @@
+package io.trino.plugin.base.security;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.trino.spi.TrinoException;
+import io.trino.spi.function.Description;
+import io.trino.spi.function.LiteralParameters;
+import io.trino.spi.function.ScalarFunction;
+import io.trino.spi.function.SqlType;
+import io.trino.spi.type.StandardTypes;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Suppliers.memoize;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.trino.spi.StandardErrorCode.CONFIGURATION_INVALID;
+import static io.trino.spi.StandardErrorCode.INVALID_FUNCTION_ARGUMENT;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Masking functions for column masks in rules.json, evaluated per row on the workers.
+ * <p>
+ * They work on the UTF-8 bytes of the value and write into a single output slice: a masked
+ * character becomes one {@code *} however many bytes it had, so the output never has more
+ * characters than the input. Values with nothing to mask are returned as is.
+ */
+public class MaskingFunctions {
+    private static final byte MASK = '*';
+
+    @Description("Masks the local part of an e-mail address except its first character")
+    @ScalarFunction("mask_email")
+    @LiteralParameters("x")
+    @SqlType("varchar(x)")
+    public static Slice maskEmail(@SqlType("varchar(x)") Slice value) {
+        int at = value.indexOfByte('@');
+        return maskRange(value, firstCodePointEnd(value), at < 0 ? value.length() : at);
+    }
+
+    @Description("Masks every character except the last n")
+    @ScalarFunction("mask_keep_last")
+    @LiteralParameters("x")
+    @SqlType("varchar(x)")
+    public static Slice maskKeepLast(@SqlType("varchar(x)") Slice value, @SqlType(StandardTypes.BIGINT) long keep) {
+        int end = value.length();
+        for (long kept = 0; end > 0 && kept < keep; ) {
+            end--;
+            if (!isContinuationByte(value.getByte(end))) {
+                kept++;
+            }
+        }
+        return maskRange(value, 0, end);
+    }
+
+    @Description("Replaces every ASCII digit with #")
+    @ScalarFunction("redact_digits")
+    @LiteralParameters("x")
+    @SqlType("varchar(x)")
+    public static Slice redactDigits(@SqlType("varchar(x)") Slice value) {
+        int length = value.length();
+        int offset = 0;
+        while (offset < length && !isDigit(value.getByte(offset))) {
+            offset++;
+        }
+        if (offset == length) {
+            return value;
+        }
+        Slice result = Slices.allocate(length);
+        result.setBytes(0, value, 0, offset);
+        for (; offset < length; offset++) {
+            byte current = value.getByte(offset);
+            result.setByte(offset, isDigit(current) ? '#' : current);
+        }
+        return result;
+    }
+
+    @Description("Deterministic keyed token of the value: equal values give equal tokens for the same key id")
+    @ScalarFunction("tokenize")
+    @SqlType("varchar(16)")
+    public static Slice tokenize(@SqlType(StandardTypes.VARCHAR) Slice value, @SqlType(StandardTypes.VARCHAR) Slice keyId) {
+        HashFunction key = TokenKeys.get().get(keyId);
+        if (key == null) {
+            throw new TrinoException(INVALID_FUNCTION_ARGUMENT, "Unknown tokenization key: " + keyId.toStringUtf8());
+        }
+        long token = key.hashBytes(value.byteArray(), value.byteArrayOffset(), value.length()).asLong();
+        Slice result = Slices.allocate(16);
+        for (int i = 15; i >= 0; i--) {
+            result.setByte(i, Character.forDigit((int) (token & 0xF), 16));
+            token >>>= 4;
+        }
+        return result;
+    }
+
+    /**
+     * Replaces each character in the byte range {@code [start, end)} with {@link #MASK}.
+     */
+    private static Slice maskRange(Slice value, int start, int end) {
+        if (start >= end) {
+            return value;
+        }
+        int length = value.length();
+        Slice result = Slices.allocate(length);
+        result.setBytes(0, value, 0, start);
+        int position = start;
+        for (int offset = start; offset < end; offset++) {
+            if (!isContinuationByte(value.getByte(offset))) {
+                result.setByte(position++, MASK);
+            }
+        }
+        result.setBytes(position, value, end, length - end);
+        position += length - end;
+        return position == length ? result : result.slice(0, position);
+    }
+
+    private static int firstCodePointEnd(Slice value) {
+        int end = Math.min(1, value.length());
+        while (end < value.length() && isContinuationByte(value.getByte(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    private static boolean isContinuationByte(byte value) {
+        return (value & 0xC0) == 0x80;
+    }
+
+    private static boolean isDigit(byte value) {
+        return value >= '0' && value <= '9';
+    }
+
+    /**
+     * Tokenization keys, read on first use from a properties file of {@code key_id=base64 key}
+     * lines (at least 16 bytes each) named by the {@code extauthz.masking.key-file} system
+     * property, or {@value #DEFAULT_KEY_FILE}. Each key seeds a SipHash-2-4 function. A missing or
+     * invalid file fails the calling query with the reason and is read again on the next call, so
+     * fixing it does not need a restart.
+     */
+    private static final class TokenKeys {
+        private static final String DEFAULT_KEY_FILE = "/etc/trino/masking-keys.properties";
+        private static final Supplier<Map<Slice, HashFunction>> KEYS = memoize(() ->
+            load(Paths.get(System.getProperty("extauthz.masking.key-file", DEFAULT_KEY_FILE))));
+
+        static Map<Slice, HashFunction> get() {
+            return KEYS.get();
+        }
+
+        private static Map<Slice, HashFunction> load(Path file) {
+            if (!Files.exists(file)) {
+                throw new TrinoException(CONFIGURATION_INVALID, "Tokenization key file " + file + " not found");
+            }
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file, UTF_8)) {
+                properties.load(reader);
+            } catch (IOException | IllegalArgumentException e) {
+                throw new TrinoException(CONFIGURATION_INVALID, "Cannot read tokenization keys from " + file, e);
+            }
+            ImmutableMap.Builder<Slice, HashFunction> keys = ImmutableMap.builder();
+            for (String keyId : properties.stringPropertyNames()) {
+                byte[] secret;
+                try {
+                    secret = Base64.getDecoder().decode(properties.getProperty(keyId).trim());
+                } catch (IllegalArgumentException e) {
+                    throw new TrinoException(CONFIGURATION_INVALID, "Tokenization key " + keyId + " in " + file + " is not valid base64", e);
+                }
+                if (secret.length < 16) {
+                    throw new TrinoException(CONFIGURATION_INVALID, "Tokenization key " + keyId + " in " + file + " is shorter than 16 bytes");
+                }
+                ByteBuffer words = ByteBuffer.wrap(secret).order(LITTLE_ENDIAN);
+                keys.put(utf8Slice(keyId), Hashing.sipHash24(words.getLong(0), words.getLong(8)));
+            }
+            return keys.buildOrThrow();
+        }
+    }
+}
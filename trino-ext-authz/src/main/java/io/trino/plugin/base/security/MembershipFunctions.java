@@ -0,0 +1,40 @@
+package io.trino.plugin.base.security;
+
+import io.airlift.slice.Slice;
+import io.airlift.units.Duration;
+import io.trino.spi.function.Description;
+import io.trino.spi.function.ScalarFunction;
+import io.trino.spi.function.SqlType;
+import io.trino.spi.type.StandardTypes;
+
+import java.nio.file.Paths;
+import java.util.function.Supplier;
+
+/**
+ * Membership lookups for row filters in rules.json, e.g.
+ * {@code region = 'apac' OR principal_in(current_user, 'hr-all')}, so a filter stays a simple
+ * predicate instead of a join against a mapping table.
+ * <p>
+ * Memberships come from {@code entitlement:user1,user2} lines in the file or directory named by
+ * the {@code extauthz.membership.file} system property, {@value Index#DEFAULT_FILE} by default,
+ * loaded into an immutable {@link GroupMembership} on each node and refreshed in the background
+ * every {@code extauthz.membership.refresh-period}; a source missing at startup is picked up once
+ * it appears. Lookups compare UTF-8 bytes, so no value is decoded per row. With a constant user
+ * such as {@code current_user} the planner folds the call into a constant.
+ */
+public class MembershipFunctions {
+    @Description("Returns whether the principal has the entitlement in the membership file")
+    @ScalarFunction("principal_in")
+    @SqlType(StandardTypes.BOOLEAN)
+    public static boolean principalIn(@SqlType(StandardTypes.VARCHAR) Slice principal, @SqlType(StandardTypes.VARCHAR) Slice entitlement) {
+        return Index.MEMBERSHIP.get().isMember(principal, entitlement);
+    }
+
+    private static final class Index {
+        private static final String DEFAULT_FILE = "/etc/trino/membership";
+        static final Supplier<GroupMembership> MEMBERSHIP = new GroupMembership.Refreshing(
+            Paths.get(System.getProperty("extauthz.membership.file", DEFAULT_FILE)),
+            Duration.valueOf(System.getProperty("extauthz.membership.refresh-period", "1m")).toMillis(),
+            true)::get;
+    }
+}
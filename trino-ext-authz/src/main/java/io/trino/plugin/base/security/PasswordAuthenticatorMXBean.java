@@ -0,0 +1,14 @@
+package io.trino.plugin.base.security;
+
+/**
+ * Login counters of the password file authenticator since the coordinator started.
+ */
+public interface PasswordAuthenticatorMXBean {
+    long getCachedLogins();
+
+    long getVerifiedLogins();
+
+    long getFailedLogins();
+
+    long getThrottledLogins();
+}
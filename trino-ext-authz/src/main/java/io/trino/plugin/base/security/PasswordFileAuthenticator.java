@@ -0,0 +1,264 @@
+package io.trino.plugin.base.security;
+
+import at.favre.lib.crypto.bcrypt.BCrypt;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.airlift.log.Logger;
+import io.trino.spi.security.AccessDeniedException;
+import io.trino.spi.security.BasicPrincipal;
+import io.trino.spi.security.PasswordAuthenticator;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.Principal;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Locale.ENGLISH;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Checks passwords against a Trino style password file of {@code user:hash} lines, where the hash
+ * is bcrypt ({@code $2y$...}) or PBKDF2 ({@code iterations:saltHex:hashHex}).
+ * <p>
+ * The file is parsed into an immutable map that a background task replaces whenever the file's
+ * modification time changes. Successful verifications are remembered for a while under a SipHash
+ * of (user, password, stored hash) keyed with a per-process random key: the client polls the
+ * coordinator with the same credentials on every request, and a cache hit costs one keyed hash
+ * instead of a bcrypt round. Neither the password nor an unkeyed digest of it is kept in memory,
+ * and a changed hash in the file stops matching old cache entries.
+ * <p>
+ * Credentials that miss the cache go through the {@link LoginThrottle} first, so a user name under
+ * a guessing attack is rejected without computing a hash, while clients whose exact credentials
+ * were verified recently keep logging in from the cache. A user that is not in the file is checked
+ * against the hash of another user, so the response time does not tell which users exist.
+ * <p>
+ * Every hash is validated when the file is loaded: bcrypt hashes must be well formed with a cost of
+ * at least {@value #MIN_BCRYPT_COST}, PBKDF2 hashes need at least {@value #MIN_PBKDF2_ITERATIONS}
+ * iterations and hex salt and hash. A file with an invalid entry is rejected as a whole.
+ */
+class PasswordFileAuthenticator implements PasswordAuthenticator, PasswordAuthenticatorMXBean {
+    private static final Logger LOG = Logger.get(PasswordFileAuthenticator.class);
+    static final int MIN_BCRYPT_COST = 8;
+    static final int MIN_PBKDF2_ITERATIONS = 1000;
+    private static final Pattern BCRYPT_HASH = Pattern.compile("\\$2[abxy]?\\$(\\d{2})\\$[./A-Za-z0-9]{53}");
+
+    private final Path file;
+    private final HashFunction cacheKeyHash;
+    private final Cache<HashCode, Boolean> verified;
+    private final ScheduledExecutorService reloader;
+    private final LoginThrottle throttle;
+    private final LongAdder cachedLogins = new LongAdder();
+    private final LongAdder verifiedLogins = new LongAdder();
+    private final LongAdder failedLogins = new LongAdder();
+    private final LongAdder throttledLogins = new LongAdder();
+
+    private volatile ImmutableMap<String, String> hashes;
+    private volatile String unknownUserHash;
+    private volatile long loadedModified;
+
+    PasswordFileAuthenticator(Path file, long refreshMillis, long cacheTtlMillis, int cacheMaxSize, LoginThrottle throttle) {
+        this.file = file;
+        this.throttle = throttle;
+        SecureRandom random = new SecureRandom();
+        this.cacheKeyHash = Hashing.sipHash24(random.nextLong(), random.nextLong());
+        this.verified = CacheBuilder.newBuilder()
+            .maximumSize(cacheMaxSize)
+            .expireAfterWrite(cacheTtlMillis, MILLISECONDS)
+            .build();
+        reload();
+        this.reloader = newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("password-file-reloader").setDaemon(true).build());
+        // jitter so that coordinators sharing a mounted file do not stat it in lockstep
+        long initialDelay = refreshMillis + ThreadLocalRandom.current().nextLong(Math.max(refreshMillis / 10, 1));
+        reloader.scheduleWithFixedDelay(this::reloadIfModified, initialDelay, refreshMillis, MILLISECONDS);
+        register();
+    }
+
+    @Override
+    public Principal createAuthenticatedPrincipal(String user, String password) {
+        String hash = hashes.get(user);
+        HashCode key = null;
+        if (hash != null) {
+            key = cacheKeyHash.newHasher()
+                .putString(user, UTF_8)
+                .putByte((byte) 0)
+                .putString(password, UTF_8)
+                .putByte((byte) 0)
+                .putString(hash, UTF_8)
+                .hash();
+            if (verified.getIfPresent(key) != null) {
+                cachedLogins.increment();
+                return new BasicPrincipal(user);
+            }
+        }
+        if (throttle.isThrottled(user)) {
+            throttledLogins.increment();
+            throw new AccessDeniedException("Too many failed logins, try again later");
+        }
+        if (hash == null) {
+            String decoy = unknownUserHash;
+            if (decoy != null) {
+                // same work as a wrong password of a known user, the result does not matter
+                matches(password, decoy);
+            }
+        }
+        if (hash == null || !matches(password, hash)) {
+            failedLogins.increment();
+            throttle.recordFailure(user);
+            throw new AccessDeniedException("Invalid credentials");
+        }
+        verifiedLogins.increment();
+        verified.put(key, Boolean.TRUE);
+        return new BasicPrincipal(user);
+    }
+
+    @Override
+    public long getCachedLogins() {
+        return cachedLogins.sum();
+    }
+
+    @Override
+    public long getVerifiedLogins() {
+        return verifiedLogins.sum();
+    }
+
+    @Override
+    public long getFailedLogins() {
+        return failedLogins.sum();
+    }
+
+    @Override
+    public long getThrottledLogins() {
+        return throttledLogins.sum();
+    }
+
+    private void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                new ObjectName(QueryStatsCollector.JMX_DOMAIN + ":type=PasswordAuthenticator"));
+        } catch (JMException e) {
+            LOG.warn(e, "failed to register password authenticator counters");
+        }
+    }
+
+    private void reloadIfModified() {
+        try {
+            if (Files.getLastModifiedTime(file).toMillis() != loadedModified) {
+                reload();
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warn(e, "failed to reload password file %s, keeping previous entries", file);
+        }
+    }
+
+    private void reload() {
+        try {
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            ImmutableMap<String, String> loaded = parse(Files.readAllLines(file, UTF_8));
+            hashes = loaded;
+            unknownUserHash = loaded.isEmpty() ? null : loaded.values().iterator().next();
+            loadedModified = modified;
+            LOG.info("loaded %s users from password file %s", hashes.size(), file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ImmutableMap<String, String> parse(List<String> lines) {
+        ImmutableMap.Builder<String, String> entries = ImmutableMap.builder();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int separator = line.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("invalid entry in " + file + " at line " + (i + 1));
+            }
+            try {
+                checkHash(line.substring(separator + 1));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("invalid entry in " + file + " at line " + (i + 1) + ": " + e.getMessage());
+            }
+            entries.put(line.substring(0, separator), line.substring(separator + 1));
+        }
+        return entries.buildOrThrow();
+    }
+
+    static void checkHash(String hash) {
+        if (hash.startsWith("$2")) {
+            Matcher bcrypt = BCRYPT_HASH.matcher(hash);
+            if (!bcrypt.matches()) {
+                throw new IllegalArgumentException("malformed bcrypt hash");
+            }
+            if (Integer.parseInt(bcrypt.group(1)) < MIN_BCRYPT_COST) {
+                throw new IllegalArgumentException("bcrypt cost must be at least " + MIN_BCRYPT_COST);
+            }
+            return;
+        }
+        String[] parts = hash.split(":", -1);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("hash is neither bcrypt nor PBKDF2");
+        }
+        int iterations;
+        try {
+            iterations = Integer.parseInt(parts[0]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("PBKDF2 iteration count is not a number");
+        }
+        if (iterations < MIN_PBKDF2_ITERATIONS) {
+            throw new IllegalArgumentException("PBKDF2 iteration count must be at least " + MIN_PBKDF2_ITERATIONS);
+        }
+        if (!isHex(parts[1])) {
+            throw new IllegalArgumentException("PBKDF2 salt is not hex");
+        }
+        if (!isHex(parts[2])) {
+            throw new IllegalArgumentException("PBKDF2 hash is not hex");
+        }
+    }
+
+    private static boolean isHex(String value) {
+        return !value.isEmpty() && BaseEncoding.base16().lowerCase().canDecode(value.toLowerCase(ENGLISH));
+    }
+
+    static boolean matches(String password, String hash) {
+        if (hash.startsWith("$2")) {
+            return BCrypt.verifyer().verify(password.toCharArray(), hash).verified;
+        }
+        String[] parts = hash.split(":");
+        int iterations = Integer.parseInt(parts[0]);
+        byte[] salt = BaseEncoding.base16().lowerCase().decode(parts[1].toLowerCase(ENGLISH));
+        byte[] expected = BaseEncoding.base16().lowerCase().decode(parts[2].toLowerCase(ENGLISH));
+        try {
+            PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, expected.length * 8);
+            byte[] actual = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+            return MessageDigest.isEqual(expected, actual);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2WithHmacSHA256 is not available", e);
+        }
+    }
+}
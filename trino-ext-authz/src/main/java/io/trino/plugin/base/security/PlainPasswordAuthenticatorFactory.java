@@ -1,14 +1,28 @@
 package io.trino.plugin.base.security;
 
+import io.airlift.units.Duration;
 import io.trino.spi.security.AccessDeniedException;
 import io.trino.spi.security.BasicPrincipal;
 import io.trino.spi.security.PasswordAuthenticator;
 import io.trino.spi.security.PasswordAuthenticatorFactory;
 
+import java.nio.file.Paths;
 import java.security.Principal;
 import java.util.Map;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
+
 public class PlainPasswordAuthenticatorFactory implements PasswordAuthenticatorFactory {
+    static final String PASSWORD_FILE = "file.password-file";
+    static final String REFRESH_PERIOD = "file.refresh-period";
+    static final String CACHE_TTL = "file.auth-token-cache.ttl";
+    static final String CACHE_MAX_SIZE = "file.auth-token-cache.max-size";
+    static final String THROTTLE_THRESHOLD = "file.login-throttle.threshold";
+    static final String THROTTLE_BASE_DELAY = "file.login-throttle.base-delay";
+    static final String THROTTLE_MAX_DELAY = "file.login-throttle.max-delay";
+    static final String THROTTLE_SKETCH_WIDTH = "file.login-throttle.sketch-width";
+    static final String THROTTLE_SKETCH_DEPTH = "file.login-throttle.sketch-depth";
+
     @Override
     public String getName() {
         return "plain-auth";
@@ -16,7 +30,21 @@ public class PlainPasswordAuthenticatorFactory implements PasswordAuthenticatorF
 
     @Override
     public PasswordAuthenticator create(Map<String, String> config) {
-        return new PlainPasswordAuthenticator();
+        String passwordFile = config.get(PASSWORD_FILE);
+        if (passwordFile == null) {
+            return new PlainPasswordAuthenticator();
+        }
+        return new PasswordFileAuthenticator(
+            Paths.get(passwordFile.trim()),
+            Duration.valueOf(config.getOrDefault(REFRESH_PERIOD, "1m").trim()).toMillis(),
+            Duration.valueOf(config.getOrDefault(CACHE_TTL, "5m").trim()).toMillis(),
+            Integer.parseInt(config.getOrDefault(CACHE_MAX_SIZE, "1000").trim()),
+            new LoginThrottle(
+                Integer.parseInt(config.getOrDefault(THROTTLE_SKETCH_WIDTH, "16384").trim()),
+                Integer.parseInt(config.getOrDefault(THROTTLE_SKETCH_DEPTH, "4").trim()),
+                Integer.parseInt(config.getOrDefault(THROTTLE_THRESHOLD, "5").trim()),
+                Duration.valueOf(config.getOrDefault(THROTTLE_BASE_DELAY, "1s").trim()).roundTo(SECONDS),
+                Duration.valueOf(config.getOrDefault(THROTTLE_MAX_DELAY, "5m").trim()).roundTo(SECONDS)));
     }
 
 }
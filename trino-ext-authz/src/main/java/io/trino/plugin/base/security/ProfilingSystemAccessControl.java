@@ -0,0 +1,111 @@
+package io.trino.plugin.base.security;
+
+import io.airlift.log.Logger;
+import io.trino.spi.security.AccessDeniedException;
+import io.trino.spi.security.SystemAccessControl;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps a system access control to count calls and time per SPI method, for measuring what
+ * access control adds to planning under a given rules file. Each method becomes an MXBean
+ * {@code type=AccessControlCalls,method=<name>} on first call, so a run can be inspected with
+ * {@code SELECT * FROM jmx.current."trino.plugin.extauthz:type=accesscontrolcalls,*"}.
+ * <p>
+ * A dynamic proxy covers every method of the SPI, including ones added by a new Trino version,
+ * at the cost of a reflective call, so it is only installed when profiling is configured.
+ */
+final class ProfilingSystemAccessControl implements InvocationHandler {
+    private static final Logger LOG = Logger.get(ProfilingSystemAccessControl.class);
+
+    private final SystemAccessControl delegate;
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    private final Map<String, Calls> calls = new ConcurrentHashMap<>();
+
+    private ProfilingSystemAccessControl(SystemAccessControl delegate) {
+        this.delegate = delegate;
+    }
+
+    static SystemAccessControl wrap(SystemAccessControl delegate) {
+        return (SystemAccessControl) Proxy.newProxyInstance(
+            SystemAccessControl.class.getClassLoader(),
+            new Class<?>[] {SystemAccessControl.class},
+            new ProfilingSystemAccessControl(delegate));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return method.invoke(delegate, args);
+        }
+        Calls counter = calls.get(method.getName());
+        if (counter == null) {
+            counter = calls.computeIfAbsent(method.getName(), this::register);
+        }
+        long start = System.nanoTime();
+        try {
+            return method.invoke(delegate, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof AccessDeniedException) {
+                counter.denied.increment();
+            }
+            throw e.getCause();
+        } finally {
+            counter.calls.increment();
+            counter.nanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private Calls register(String method) {
+        Calls counter = new Calls();
+        try {
+            ObjectName name = new ObjectName(QueryStatsCollector.JMX_DOMAIN + ":type=AccessControlCalls,method=" + method);
+            // an access control created again, such as for another rules file, takes over the name
+            if (mBeanServer.isRegistered(name)) {
+                mBeanServer.unregisterMBean(name);
+            }
+            mBeanServer.registerMBean(counter, name);
+        } catch (JMException e) {
+            LOG.warn(e, "failed to register access control counters for %s", method);
+        }
+        return counter;
+    }
+
+    static class Calls implements AccessControlCallsMXBean {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder denied = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        @Override
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        @Override
+        public long getDeniedCalls() {
+            return denied.sum();
+        }
+
+        @Override
+        public long getTotalMicros() {
+            return nanos.sum() / 1_000;
+        }
+
+        @Override
+        public double getAverageMicros() {
+            long count = calls.sum();
+            return count == 0 ? 0 : nanos.sum() / 1_000.0 / count;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package io.trino.plugin.base.security;
+
+import com.google.common.hash.Hashing;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reduces a statement to its shape so that dashboard refreshes differing only in literals
+ * collapse to one fingerprint. Comments are dropped, string and numeric literals become
+ * {@code ?}, lists of placeholders such as {@code IN (?, ?, ?)} fold to {@code IN (?)},
+ * whitespace is collapsed and everything outside quoted identifiers is lower-cased.
+ */
+final class QueryFingerprint {
+    private final String normalized;
+    private final String hash;
+
+    private QueryFingerprint(String normalized, String hash) {
+        this.normalized = normalized;
+        this.hash = hash;
+    }
+
+    static QueryFingerprint of(String sql) {
+        String normalized = normalize(sql);
+        String hash = Long.toHexString(Hashing.murmur3_128().hashString(normalized, UTF_8).asLong());
+        return new QueryFingerprint(normalized, hash);
+    }
+
+    String getNormalized() {
+        return normalized;
+    }
+
+    String getHash() {
+        return hash;
+    }
+
+    static String normalize(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                while (i < length && sql.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '\'') {
+                i = skipQuoted(sql, i, '\'');
+                appendPlaceholder(out);
+            } else if (c == '"') {
+                int end = skipQuoted(sql, i, '"');
+                out.append(sql, i, end);
+                i = end;
+            } else if (Character.isDigit(c) && !isIdentifierPart(out)) {
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                appendPlaceholder(out);
+            } else if (Character.isWhitespace(c)) {
+                if (out.length() > 0 && out.charAt(out.length() - 1) != ' ') {
+                    out.append(' ');
+                }
+                i++;
+            } else {
+                out.append(Character.toLowerCase(c));
+                i++;
+            }
+        }
+        int end = out.length();
+        while (end > 0 && (out.charAt(end - 1) == ' ' || out.charAt(end - 1) == ';')) {
+            end--;
+        }
+        out.setLength(end);
+        return out.toString();
+    }
+
+    private static int skipQuoted(String sql, int start, char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return sql.length();
+    }
+
+    private static boolean isIdentifierPart(StringBuilder out) {
+        if (out.length() == 0) {
+            return false;
+        }
+        char previous = out.charAt(out.length() - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_';
+    }
+
+    /**
+     * Appends a {@code ?}, folding {@code ?, ?} into a single placeholder.
+     */
+    private static void appendPlaceholder(StringBuilder out) {
+        int end = out.length();
+        if (end >= 3 && out.charAt(end - 1) == ' ' && out.charAt(end - 2) == ',' && out.charAt(end - 3) == '?') {
+            out.setLength(end - 2);
+            return;
+        }
+        if (end >= 2 && out.charAt(end - 1) == ',' && out.charAt(end - 2) == '?') {
+            out.setLength(end - 1);
+            return;
+        }
+        out.append('?');
+    }
+}
@@ -0,0 +1,118 @@
+package io.trino.plugin.base.security;
+
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import io.trino.spi.eventlistener.QueryStatistics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+/**
+ * Bounded ring of the most recent completed queries, written by the audit listener and read by
+ * the {@code audit} connector. The listener and the connector are created by different factories
+ * of the same plugin, so the active ring is published through {@link #install(QueryHistory)}.
+ * <p>
+ * Entries are flat summaries of primitives and short strings, the query text is truncated, and
+ * the ring never grows, so its footprint is fixed by the configured capacity. Each slot is
+ * published as one reference tagged with the sequence number it was written for, so a reader
+ * skips a slot that is still empty or was already overwritten by a newer query.
+ */
+class QueryHistory {
+    private static final QueryHistory EMPTY = new QueryHistory(1, 0);
+    private static volatile QueryHistory current = EMPTY;
+
+    private final AtomicReferenceArray<Entry> ring;
+    private final AtomicLong sequence = new AtomicLong();
+    private final int maxQueryLength;
+
+    QueryHistory(int capacity, int maxQueryLength) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("query history capacity must be positive");
+        }
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.maxQueryLength = maxQueryLength;
+    }
+
+    static void install(QueryHistory history) {
+        current = history;
+    }
+
+    static QueryHistory current() {
+        return current;
+    }
+
+    void add(QueryCompletedEvent event) {
+        add(QuerySummary.from(event, maxQueryLength));
+    }
+
+    void add(QuerySummary summary) {
+        long slot = sequence.getAndIncrement();
+        ring.set((int) (slot % ring.length()), new Entry(slot, summary));
+    }
+
+    /**
+     * Returns the retained summaries accepted by the filter, oldest first.
+     */
+    List<QuerySummary> scan(Predicate<QuerySummary> filter) {
+        long end = sequence.get();
+        long start = Math.max(0, end - ring.length());
+        List<QuerySummary> result = new ArrayList<>();
+        for (long slot = start; slot < end; slot++) {
+            Entry entry = ring.get((int) (slot % ring.length()));
+            if (entry != null && entry.sequence() == slot && filter.test(entry.summary())) {
+                result.add(entry.summary());
+            }
+        }
+        return result;
+    }
+
+    private record Entry(long sequence, QuerySummary summary) {}
+
+    record QuerySummary(
+            String queryId,
+            String user,
+            String source,
+            String catalog,
+            String schema,
+            String query,
+            boolean failed,
+            String errorCode,
+            long createTimeMillis,
+            long endTimeMillis,
+            long queuedMillis,
+            long planningMillis,
+            long executionMillis,
+            long cpuMillis,
+            long peakMemoryBytes,
+            long inputBytes,
+            long outputRows) {
+        static QuerySummary from(QueryCompletedEvent event, int maxQueryLength) {
+            QueryStatistics statistics = event.getStatistics();
+            String query = event.getMetadata().getQuery();
+            if (query.length() > maxQueryLength) {
+                query = query.substring(0, maxQueryLength);
+            }
+            return new QuerySummary(
+                event.getMetadata().getQueryId(),
+                event.getContext().getUser(),
+                event.getContext().getSource().orElse(""),
+                event.getContext().getCatalog().orElse(""),
+                event.getContext().getSchema().orElse(""),
+                query,
+                event.getFailureInfo().isPresent(),
+                event.getFailureInfo().map(failure -> failure.getErrorCode().getName()).orElse(null),
+                event.getCreateTime().toEpochMilli(),
+                event.getEndTime().toEpochMilli(),
+                statistics.getQueuedTime().toMillis(),
+                statistics.getPlanningTime().orElse(Duration.ZERO).toMillis(),
+                statistics.getExecutionTime().orElse(Duration.ZERO).toMillis(),
+                statistics.getCpuTime().toMillis(),
+                statistics.getPeakUserMemoryBytes(),
+                statistics.getTotalBytes(),
+                statistics.getOutputRows());
+        }
+    }
+}
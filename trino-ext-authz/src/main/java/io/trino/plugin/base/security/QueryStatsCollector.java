@@ -0,0 +1,225 @@
+package io.trino.plugin.base.security;
+
+import io.airlift.log.Logger;
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import io.trino.spi.eventlistener.QueryStatistics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static java.util.Locale.ENGLISH;
+
+/**
+ * Keeps sliding-window latency histograms and counters per user, source and catalog from
+ * completed queries and exposes each key as an MXBean under {@value #JMX_DOMAIN}.
+ * The number of keys per dimension is capped; anything beyond the cap is folded into
+ * {@value #OVERFLOW_KEY} so a client generating random source names cannot exhaust memory.
+ * <p>
+ * Each key holds four histograms of up to {@code slots} slots of about 2KB each, so a key active
+ * in every slot of a 10 slot window takes about 80KB and the default cap of 100 keys in each of
+ * the three dimensions bounds the collector at about 24MB.
+ */
+class QueryStatsCollector {
+    private static final Logger LOG = Logger.get(QueryStatsCollector.class);
+    static final String JMX_DOMAIN = "trino.plugin.extauthz";
+    static final String OVERFLOW_KEY = "__other__";
+
+    enum Dimension {
+        USER, SOURCE, CATALOG
+    }
+
+    private final long windowMillis;
+    private final int slots;
+    private final int maxKeysPerDimension;
+    private final LongSupplier clock = System::currentTimeMillis;
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    private final Map<Dimension, Map<String, QueryStats>> stats = new ConcurrentHashMap<>();
+
+    QueryStatsCollector(long windowMillis, int slots, int maxKeysPerDimension) {
+        this.windowMillis = windowMillis;
+        this.slots = slots;
+        this.maxKeysPerDimension = maxKeysPerDimension;
+        for (Dimension dimension : Dimension.values()) {
+            stats.put(dimension, new ConcurrentHashMap<>());
+        }
+    }
+
+    void record(QueryCompletedEvent event) {
+        long now = clock.getAsLong();
+        boolean failed = event.getFailureInfo().isPresent();
+        QueryStatistics statistics = event.getStatistics();
+        statsFor(Dimension.USER, event.getContext().getUser()).record(statistics, failed, now);
+        statsFor(Dimension.SOURCE, event.getContext().getSource().orElse("")).record(statistics, failed, now);
+        statsFor(Dimension.CATALOG, event.getContext().getCatalog().orElse("")).record(statistics, failed, now);
+    }
+
+    QueryStats get(Dimension dimension, String key) {
+        return stats.get(dimension).get(key);
+    }
+
+    private QueryStats statsFor(Dimension dimension, String key) {
+        Map<String, QueryStats> byKey = stats.get(dimension);
+        QueryStats existing = byKey.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        String effectiveKey = byKey.size() >= maxKeysPerDimension ? OVERFLOW_KEY : key;
+        return byKey.computeIfAbsent(effectiveKey, k -> register(dimension, k, new QueryStats(windowMillis, slots, clock)));
+    }
+
+    private QueryStats register(Dimension dimension, String key, QueryStats queryStats) {
+        try {
+            mBeanServer.registerMBean(queryStats, objectName(dimension, key));
+        } catch (JMException e) {
+            LOG.warn(e, "failed to register query stats for %s %s", dimension, key);
+        }
+        return queryStats;
+    }
+
+    void shutdown() {
+        for (Map.Entry<Dimension, Map<String, QueryStats>> dimension : stats.entrySet()) {
+            for (String key : dimension.getValue().keySet()) {
+                try {
+                    mBeanServer.unregisterMBean(objectName(dimension.getKey(), key));
+                } catch (JMException ignored) {
+                    // already gone
+                }
+            }
+        }
+    }
+
+    private static ObjectName objectName(Dimension dimension, String key) throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=QueryStats,dimension=" + dimension.name().toLowerCase(ENGLISH) + ",name=" + ObjectName.quote(key));
+    }
+
+    static class QueryStats implements QueryStatsMXBean {
+        private final LongSupplier clock;
+        private final SlidingWindowHistogram queuedTime;
+        private final SlidingWindowHistogram planningTime;
+        private final SlidingWindowHistogram executionTime;
+        private final SlidingWindowHistogram cpuTime;
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final LongAccumulator peakMemoryMax = new LongAccumulator(Math::max, 0);
+        private final LongAdder peakMemory = new LongAdder();
+        private final LongAdder inputBytes = new LongAdder();
+        private final LongAdder outputRows = new LongAdder();
+
+        QueryStats(long windowMillis, int slots, LongSupplier clock) {
+            this.clock = clock;
+            this.queuedTime = new SlidingWindowHistogram(windowMillis, slots);
+            this.planningTime = new SlidingWindowHistogram(windowMillis, slots);
+            this.executionTime = new SlidingWindowHistogram(windowMillis, slots);
+            this.cpuTime = new SlidingWindowHistogram(windowMillis, slots);
+        }
+
+        void record(QueryStatistics statistics, boolean failure, long now) {
+            completed.incrementAndGet();
+            if (failure) {
+                failed.incrementAndGet();
+            }
+            queuedTime.record(statistics.getQueuedTime().toMillis(), now);
+            planningTime.record(statistics.getPlanningTime().orElse(Duration.ZERO).toMillis(), now);
+            executionTime.record(statistics.getExecutionTime().orElse(Duration.ZERO).toMillis(), now);
+            cpuTime.record(statistics.getCpuTime().toMillis(), now);
+            peakMemoryMax.accumulate(statistics.getPeakUserMemoryBytes());
+            peakMemory.add(statistics.getPeakUserMemoryBytes());
+            inputBytes.add(statistics.getTotalBytes());
+            outputRows.add(statistics.getOutputRows());
+        }
+
+        @Override
+        public long getCompletedQueries() {
+            return completed.get();
+        }
+
+        @Override
+        public long getFailedQueries() {
+            return failed.get();
+        }
+
+        @Override
+        public long getWindowQueries() {
+            return executionTime.snapshot(clock.getAsLong()).getCount();
+        }
+
+        @Override
+        public long getQueuedTimeP50() {
+            return queuedTime.snapshot(clock.getAsLong()).getPercentile(0.5);
+        }
+
+        @Override
+        public long getQueuedTimeP99() {
+            return queuedTime.snapshot(clock.getAsLong()).getPercentile(0.99);
+        }
+
+        @Override
+        public long getPlanningTimeP50() {
+            return planningTime.snapshot(clock.getAsLong()).getPercentile(0.5);
+        }
+
+        @Override
+        public long getPlanningTimeP99() {
+            return planningTime.snapshot(clock.getAsLong()).getPercentile(0.99);
+        }
+
+        @Override
+        public long getExecutionTimeP50() {
+            return executionTime.snapshot(clock.getAsLong()).getPercentile(0.5);
+        }
+
+        @Override
+        public long getExecutionTimeP90() {
+            return executionTime.snapshot(clock.getAsLong()).getPercentile(0.9);
+        }
+
+        @Override
+        public long getExecutionTimeP99() {
+            return executionTime.snapshot(clock.getAsLong()).getPercentile(0.99);
+        }
+
+        @Override
+        public long getExecutionTimeMax() {
+            return executionTime.snapshot(clock.getAsLong()).getMax();
+        }
+
+        @Override
+        public long getCpuTimeP50() {
+            return cpuTime.snapshot(clock.getAsLong()).getPercentile(0.5);
+        }
+
+        @Override
+        public long getCpuTimeP99() {
+            return cpuTime.snapshot(clock.getAsLong()).getPercentile(0.99);
+        }
+
+        @Override
+        public long getPeakMemoryBytesMax() {
+            return peakMemoryMax.get();
+        }
+
+        @Override
+        public long getTotalPeakMemoryBytes() {
+            return peakMemory.sum();
+        }
+
+        @Override
+        public long getTotalInputBytes() {
+            return inputBytes.sum();
+        }
+
+        @Override
+        public long getTotalOutputRows() {
+            return outputRows.sum();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package io.trino.plugin.base.security;
+
+/**
+ * Rolling query statistics for one user, source or catalog. Latencies are in milliseconds
+ * over the configured window, totals are cumulative since the listener started.
+ */
+public interface QueryStatsMXBean {
+    long getCompletedQueries();
+
+    long getFailedQueries();
+
+    long getWindowQueries();
+
+    long getQueuedTimeP50();
+
+    long getQueuedTimeP99();
+
+    long getPlanningTimeP50();
+
+    long getPlanningTimeP99();
+
+    long getExecutionTimeP50();
+
+    long getExecutionTimeP90();
+
+    long getExecutionTimeP99();
+
+    long getExecutionTimeMax();
+
+    long getCpuTimeP50();
+
+    long getCpuTimeP99();
+
+    long getPeakMemoryBytesMax();
+
+    long getTotalPeakMemoryBytes();
+
+    long getTotalInputBytes();
+
+    long getTotalOutputRows();
+}
@@ -0,0 +1,328 @@
+package io.trino.plugin.base.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.units.DataSize;
+import io.trino.spi.resourcegroups.ResourceGroupId;
+import io.trino.spi.resourcegroups.SchedulingPolicy;
+import io.trino.spi.resourcegroups.SelectionCriteria;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.util.Locale.ENGLISH;
+
+/**
+ * Resource groups and selectors read from a file in the format of Trino's file based resource
+ * group manager ({@code rootGroups} and {@code selectors}), compiled for selection at admission
+ * rate.
+ * <p>
+ * Selectors keep their first-match order. Those whose user pattern is a literal name or an
+ * alternation of literal names ({@code alice|bob}) are indexed by name, so a query only evaluates
+ * the indexed selectors of its user merged with the selectors that have to run their patterns.
+ * Since a selection depends on nothing but the criteria, the group chosen for a (user, groups,
+ * source, client tags, query type) tuple is remembered until the file is reloaded.
+ * <p>
+ * Fields of the file format this manager does not implement, such as {@code selectorResourceEstimate}
+ * or {@code hardCpuLimit}, fail the load: ignoring a selector condition would make it match more
+ * queries than written.
+ */
+final class ResourceGroupSelectors {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Pattern LITERAL_ALTERNATION = Pattern.compile("[\\w@\\-]+(\\|[\\w@\\-]+)*");
+    private static final Pattern VARIABLE = Pattern.compile("\\$\\{([A-Za-z][A-Za-z0-9]*)}");
+    private static final int[] NONE = new int[0];
+    private static final Set<String> ROOT_FIELDS = ImmutableSet.of("rootGroups", "selectors");
+    private static final Set<String> SELECTOR_FIELDS = ImmutableSet.of("user", "userGroup", "source", "queryType", "clientTags", "group");
+    private static final Set<String> GROUP_FIELDS = ImmutableSet.of(
+        "name",
+        "softMemoryLimit",
+        "hardConcurrencyLimit",
+        "softConcurrencyLimit",
+        "maxQueued",
+        "schedulingPolicy",
+        "schedulingWeight",
+        "jmxExport",
+        "subGroups");
+
+    private final List<GroupSpec> rootGroups;
+    private final List<Selector> selectors;
+    private final Map<String, int[]> selectorsByUser;
+    private final int[] unindexedSelectors;
+    private final Cache<Criteria, Optional<Selection>> selections;
+
+    private ResourceGroupSelectors(List<GroupSpec> rootGroups, List<Selector> selectors, long maxSelections) {
+        this.rootGroups = rootGroups;
+        this.selectors = selectors;
+        Map<String, List<Integer>> byUser = new HashMap<>();
+        List<Integer> unindexed = new ArrayList<>();
+        for (int i = 0; i < selectors.size(); i++) {
+            Optional<Pattern> user = selectors.get(i).user();
+            if (user.isPresent() && LITERAL_ALTERNATION.matcher(user.get().pattern()).matches()) {
+                for (String name : user.get().pattern().split("\\|")) {
+                    List<Integer> indexes = byUser.computeIfAbsent(name, ignored -> new ArrayList<>());
+                    if (indexes.isEmpty() || indexes.getLast() != i) {
+                        indexes.add(i);
+                    }
+                }
+            } else {
+                unindexed.add(i);
+            }
+        }
+        ImmutableMap.Builder<String, int[]> index = ImmutableMap.builderWithExpectedSize(byUser.size());
+        byUser.forEach((name, indexes) -> index.put(name, indexes.stream().mapToInt(Integer::intValue).toArray()));
+        this.selectorsByUser = index.buildOrThrow();
+        this.unindexedSelectors = unindexed.stream().mapToInt(Integer::intValue).toArray();
+        this.selections = CacheBuilder.newBuilder().maximumSize(maxSelections).build();
+    }
+
+    static ResourceGroupSelectors load(Path file, long maxSelections) throws IOException {
+        JsonNode root = MAPPER.readTree(file.toFile());
+        checkFields(root, ROOT_FIELDS, "resource group file " + file);
+        ImmutableList.Builder<GroupSpec> rootGroups = ImmutableList.builder();
+        for (JsonNode group : root.path("rootGroups")) {
+            rootGroups.add(GroupSpec.parse(group));
+        }
+        ResourceGroupSelectors result = new ResourceGroupSelectors(rootGroups.build(), parseSelectors(root.path("selectors")), maxSelections);
+        for (Selector selector : result.selectors) {
+            if (result.spec(selector.group()).isEmpty()) {
+                throw new IllegalArgumentException("selector group " + String.join(".", selector.group()) + " is not defined in " + file);
+            }
+        }
+        return result;
+    }
+
+    private static List<Selector> parseSelectors(JsonNode selectors) {
+        ImmutableList.Builder<Selector> result = ImmutableList.builder();
+        for (JsonNode selector : selectors) {
+            checkFields(selector, SELECTOR_FIELDS, "selector");
+            String group = selector.path("group").asText("");
+            if (group.isEmpty()) {
+                throw new IllegalArgumentException("selector without group: " + selector);
+            }
+            ImmutableSet.Builder<String> clientTags = ImmutableSet.builder();
+            selector.path("clientTags").forEach(tag -> clientTags.add(tag.asText()));
+            result.add(new Selector(
+                pattern(selector, "user"),
+                pattern(selector, "userGroup"),
+                pattern(selector, "source"),
+                text(selector, "queryType").map(type -> type.toUpperCase(ENGLISH)),
+                clientTags.build(),
+                List.of(group.split("\\."))));
+        }
+        return result.build();
+    }
+
+    int size() {
+        return selectors.size();
+    }
+
+    List<GroupSpec> rootGroups() {
+        return rootGroups;
+    }
+
+    /**
+     * Returns the group the first matching selector assigns the query to.
+     */
+    Optional<Selection> select(SelectionCriteria criteria) {
+        Criteria key = new Criteria(
+            criteria.getUser(),
+            criteria.getUserGroups(),
+            criteria.getSource(),
+            criteria.getClientTags(),
+            criteria.getQueryType().map(type -> type.toUpperCase(ENGLISH)));
+        return select(key);
+    }
+
+    Optional<Selection> select(Criteria key) {
+        Optional<Selection> selection = selections.getIfPresent(key);
+        if (selection == null) {
+            selection = evaluate(key);
+            selections.put(key, selection);
+        }
+        return selection;
+    }
+
+    private Optional<Selection> evaluate(Criteria criteria) {
+        int[] indexed = selectorsByUser.getOrDefault(criteria.user(), NONE);
+        int i = 0;
+        int j = 0;
+        while (i < indexed.length || j < unindexedSelectors.length) {
+            int next = j == unindexedSelectors.length || (i < indexed.length && indexed[i] < unindexedSelectors[j])
+                ? indexed[i++]
+                : unindexedSelectors[j++];
+            Optional<Selection> selection = selectors.get(next).match(criteria);
+            if (selection.isPresent()) {
+                return selection;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the group definition of a group created from a selection: segments are matched
+     * against group names literally first, then against templated names such as {@code ${USER}}.
+     */
+    Optional<GroupSpec> spec(List<String> segments) {
+        List<GroupSpec> candidates = rootGroups;
+        GroupSpec spec = null;
+        for (String segment : segments) {
+            spec = null;
+            for (GroupSpec candidate : candidates) {
+                if (candidate.name().equals(segment)) {
+                    spec = candidate;
+                    break;
+                }
+                if (spec == null && candidate.templated()) {
+                    spec = candidate;
+                }
+            }
+            if (spec == null) {
+                return Optional.empty();
+            }
+            candidates = spec.subGroups();
+        }
+        return Optional.ofNullable(spec);
+    }
+
+    private static void checkFields(JsonNode node, Set<String> supported, String owner) {
+        node.fieldNames().forEachRemaining(field -> {
+            if (!supported.contains(field)) {
+                throw new IllegalArgumentException(owner + " has unsupported field " + field);
+            }
+        });
+    }
+
+    private static Optional<Pattern> pattern(JsonNode node, String field) {
+        return text(node, field).map(Pattern::compile);
+    }
+
+    private static Optional<String> text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? Optional.empty() : Optional.of(value.asText());
+    }
+
+    record Criteria(String user, Set<String> userGroups, Optional<String> source, Set<String> clientTags, Optional<String> queryType) {}
+
+    record Selection(ResourceGroupId groupId, String template) {}
+
+    record Selector(
+        Optional<Pattern> user,
+        Optional<Pattern> userGroup,
+        Optional<Pattern> source,
+        Optional<String> queryType,
+        Set<String> clientTags,
+        List<String> group)
+    {
+        Optional<Selection> match(Criteria criteria) {
+            Map<String, String> variables = new HashMap<>();
+            if (user.isPresent() && !matches(user.get(), criteria.user(), variables)) {
+                return Optional.empty();
+            }
+            if (userGroup.isPresent() && criteria.userGroups().stream().noneMatch(name -> matches(userGroup.get(), name, variables))) {
+                return Optional.empty();
+            }
+            if (source.isPresent() && !matches(source.get(), criteria.source().orElse(""), variables)) {
+                return Optional.empty();
+            }
+            if (queryType.isPresent() && !queryType.equals(criteria.queryType())) {
+                return Optional.empty();
+            }
+            if (!criteria.clientTags().containsAll(clientTags)) {
+                return Optional.empty();
+            }
+            variables.put("USER", criteria.user());
+            variables.put("SOURCE", criteria.source().orElse(""));
+            ImmutableList.Builder<String> segments = ImmutableList.builder();
+            for (String segment : group) {
+                Matcher matcher = VARIABLE.matcher(segment);
+                String expanded = matcher.replaceAll(result -> Matcher.quoteReplacement(variables.getOrDefault(result.group(1), "")));
+                if (expanded.isEmpty()) {
+                    return Optional.empty();
+                }
+                segments.add(expanded);
+            }
+            return Optional.of(new Selection(new ResourceGroupId(segments.build()), String.join(".", group)));
+        }
+
+        private static boolean matches(Pattern pattern, String value, Map<String, String> variables) {
+            Matcher matcher = pattern.matcher(value);
+            if (!matcher.matches()) {
+                return false;
+            }
+            pattern.namedGroups().forEach((name, index) -> {
+                String captured = matcher.group(index);
+                if (captured != null) {
+                    variables.put(name, captured);
+                }
+            });
+            return true;
+        }
+    }
+
+    /**
+     * One group of {@code rootGroups}. {@code softMemoryLimit} is either a size or a percentage
+     * of the cluster memory pool.
+     */
+    record GroupSpec(
+        String name,
+        Optional<DataSize> softMemoryLimit,
+        OptionalInt softMemoryLimitPercent,
+        int hardConcurrencyLimit,
+        OptionalInt softConcurrencyLimit,
+        int maxQueued,
+        Optional<SchedulingPolicy> schedulingPolicy,
+        OptionalInt schedulingWeight,
+        boolean jmxExport,
+        List<GroupSpec> subGroups)
+    {
+        boolean templated() {
+            return name.contains("${");
+        }
+
+        static GroupSpec parse(JsonNode node) {
+            String name = node.path("name").asText("");
+            if (name.isEmpty() || name.contains(".")) {
+                throw new IllegalArgumentException("invalid resource group name: " + node.path("name"));
+            }
+            checkFields(node, GROUP_FIELDS, "resource group " + name);
+            String memory = node.path("softMemoryLimit").asText("100%").trim();
+            ImmutableList.Builder<GroupSpec> subGroups = ImmutableList.builder();
+            for (JsonNode subGroup : node.path("subGroups")) {
+                subGroups.add(parse(subGroup));
+            }
+            return new GroupSpec(
+                name,
+                memory.endsWith("%") ? Optional.empty() : Optional.of(DataSize.valueOf(memory)),
+                memory.endsWith("%") ? OptionalInt.of(Integer.parseInt(memory.substring(0, memory.length() - 1).trim())) : OptionalInt.empty(),
+                required(node, "hardConcurrencyLimit"),
+                node.has("softConcurrencyLimit") ? OptionalInt.of(node.get("softConcurrencyLimit").asInt()) : OptionalInt.empty(),
+                required(node, "maxQueued"),
+                text(node, "schedulingPolicy").map(policy -> SchedulingPolicy.valueOf(policy.toUpperCase(ENGLISH).replace('-', '_'))),
+                node.has("schedulingWeight") ? OptionalInt.of(node.get("schedulingWeight").asInt()) : OptionalInt.empty(),
+                node.path("jmxExport").asBoolean(false),
+                subGroups.build());
+        }
+
+        private static int required(JsonNode node, String field) {
+            if (!node.path(field).canConvertToInt()) {
+                throw new IllegalArgumentException("resource group " + node.path("name").asText() + " requires " + field);
+            }
+            return node.get(field).asInt();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package io.trino.plugin.base.security;
+
+import com.google.common.base.Utf8;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.airlift.log.Logger;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+
+/**
+ * Writes audit lines to size and age bounded segment files. Query texts go to a side file
+ * ({@code <segment>.queries}) next to the event file ({@code <segment>.log}). Both are buffered
+ * and reach the disk on flush or when the segment is rotated.
+ * <p>
+ * Rotated segments are deflated in the background into {@code .z} files. The side file is
+ * compressed with a preset dictionary made of the tail of the previous segment's query texts:
+ * dashboards replay the same statements every segment, so most texts are found in the
+ * dictionary and shrink to back-references. The dictionary is stored once under
+ * {@code dictionaries/<hash>}, and its hash is recorded in the compressed file header.
+ */
+class SegmentedFileAuditSink extends AuditSink {
+    private static final Logger LOG = Logger.get(SegmentedFileAuditSink.class);
+    private static final DateTimeFormatter SEGMENT_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final int MAGIC = 0x41445a31;
+    // deflate only looks back 32KB, a longer dictionary would be ignored
+    private static final int MAX_DICTIONARY_BYTES = 32 * 1024;
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final long maxSegmentMillis;
+    private final ExecutorService compressor = Executors.newSingleThreadExecutor(
+        new ThreadFactoryBuilder().setNameFormat("audit-segment-compressor").setDaemon(true).build());
+
+    private Path segment;
+    private BufferedWriter events;
+    private BufferedWriter queries;
+    private long segmentBytes;
+    private long segmentStartMillis;
+    private int sequence;
+    // only touched by the compressor thread, which handles segments in rotation order
+    private byte[] previousQueriesTail = new byte[0];
+
+    SegmentedFileAuditSink(Path directory, boolean deduplicateQueryText, long maxSegmentBytes, long maxSegmentMillis) {
+        super(deduplicateQueryText);
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.maxSegmentMillis = maxSegmentMillis;
+        try {
+            Files.createDirectories(directory.resolve("dictionaries"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    boolean startNewSegmentIfNeeded() {
+        long now = System.currentTimeMillis();
+        if (segment != null && segmentBytes < maxSegmentBytes && now - segmentStartMillis < maxSegmentMillis) {
+            return false;
+        }
+        try {
+            closeSegment();
+            segment = directory.resolve("audit-" + LocalDateTime.now().format(SEGMENT_NAME) + "-" + (sequence++));
+            events = Files.newBufferedWriter(path(segment, ".log"), UTF_8, CREATE, APPEND);
+            queries = Files.newBufferedWriter(path(segment, ".queries"), UTF_8, CREATE, APPEND);
+            segmentBytes = 0;
+            segmentStartMillis = now;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    @Override
+    void writeLine(String line) {
+        write(events, line);
+    }
+
+    @Override
+    void writeDictionaryEntry(String line) {
+        write(queries, line);
+    }
+
+    private void write(BufferedWriter writer, String line) {
+        try {
+            writer.write(line);
+            writer.newLine();
+            segmentBytes += Utf8.encodedLength(line) + 1;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    void flushBuffered() {
+        if (segment == null) {
+            return;
+        }
+        try {
+            events.flush();
+            queries.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void closeSegment() throws IOException {
+        if (segment == null) {
+            return;
+        }
+        events.close();
+        queries.close();
+        Path rotated = segment;
+        segment = null;
+        compressor.execute(() -> compress(rotated));
+    }
+
+    private void compress(Path rotated) {
+        try {
+            byte[] dictionary = previousQueriesTail;
+            previousQueriesTail = tail(Files.readAllBytes(path(rotated, ".queries")));
+            deflate(path(rotated, ".log"), new byte[0], "");
+            String dictionaryHash = "";
+            if (dictionary.length > 0) {
+                dictionaryHash = Hashing.murmur3_128().hashBytes(dictionary).toString();
+                Path stored = directory.resolve("dictionaries").resolve(dictionaryHash);
+                if (!Files.exists(stored)) {
+                    Files.write(stored, dictionary);
+                }
+            }
+            deflate(path(rotated, ".queries"), dictionary, dictionaryHash);
+        } catch (IOException e) {
+            LOG.warn(e, "failed to compress audit segment %s", rotated);
+        }
+    }
+
+    private static void deflate(Path source, byte[] dictionary, String dictionaryHash) throws IOException {
+        Path target = source.resolveSibling(source.getFileName() + ".z");
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (OutputStream file = Files.newOutputStream(target);
+                DataOutputStream header = new DataOutputStream(file)) {
+            header.writeInt(MAGIC);
+            header.writeUTF(dictionaryHash);
+            if (dictionary.length > 0) {
+                deflater.setDictionary(dictionary);
+            }
+            try (DeflaterOutputStream out = new DeflaterOutputStream(header, deflater, 64 * 1024)) {
+                Files.copy(source, out);
+            }
+        } finally {
+            deflater.end();
+        }
+        Files.delete(source);
+    }
+
+    /**
+     * Restores a compressed segment file written by this sink.
+     */
+    static byte[] inflate(Path compressed, Path dictionaries) throws IOException {
+        try (InputStream file = Files.newInputStream(compressed);
+                DataInputStream header = new DataInputStream(file)) {
+            if (header.readInt() != MAGIC) {
+                throw new IOException("not a compressed audit segment: " + compressed);
+            }
+            String dictionaryHash = header.readUTF();
+            Inflater inflater = new Inflater();
+            try {
+                byte[] input = header.readAllBytes();
+                inflater.setInput(input);
+                ByteArrayOutputStream out = new ByteArrayOutputStream(input.length * 4);
+                byte[] buffer = new byte[64 * 1024];
+                while (!inflater.finished()) {
+                    int count = inflater.inflate(buffer);
+                    if (count == 0 && inflater.needsDictionary()) {
+                        inflater.setDictionary(Files.readAllBytes(dictionaries.resolve(dictionaryHash)));
+                    } else if (count == 0 && inflater.needsInput()) {
+                        throw new IOException("truncated audit segment: " + compressed);
+                    }
+                    out.write(buffer, 0, count);
+                }
+                return out.toByteArray();
+            } catch (DataFormatException e) {
+                throw new IOException("corrupt audit segment: " + compressed, e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    private static byte[] tail(byte[] bytes) {
+        return bytes.length <= MAX_DICTIONARY_BYTES ? bytes : Arrays.copyOfRange(bytes, bytes.length - MAX_DICTIONARY_BYTES, bytes.length);
+    }
+
+    private static Path path(Path segment, String suffix) {
+        return segment.resolveSibling(segment.getFileName() + suffix);
+    }
+
+    @Override
+    synchronized void closeSink() {
+        try {
+            closeSegment();
+        } catch (IOException e) {
+            LOG.warn(e, "failed to close audit segment %s", segment);
+        }
+        compressor.shutdown();
+        try {
+            compressor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
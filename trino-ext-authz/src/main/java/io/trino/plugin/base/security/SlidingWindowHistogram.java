@@ -0,0 +1,146 @@
+package io.trino.plugin.base.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Log-linear histogram over a sliding time window. Each power of two is split into
+ * {@value #SUB_BUCKETS} linear sub-buckets which bounds the relative error of a
+ * percentile at 12.5%, the same trade-off HdrHistogram makes with 1 significant digit.
+ * <p>
+ * The window is a ring of interval slots. A writer that finds a slot belonging to an
+ * older interval swaps in a fresh slot with a CAS instead of clearing it, so recording
+ * never blocks and readers never see a half-reset slot.
+ * <p>
+ * Values are clamped at 2^32 - 1 (about 49 days in milliseconds), giving {@value #BUCKET_COUNT}
+ * buckets, so a slot takes about 2KB. Slots are only allocated for intervals with recordings
+ * and a snapshot releases the ones that fell out of the window, so an idle histogram holds none.
+ */
+class SlidingWindowHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 32;
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final long slotMillis;
+    private final AtomicReferenceArray<Slot> slots;
+
+    SlidingWindowHistogram(long windowMillis, int slotCount) {
+        if (slotCount < 1 || windowMillis < slotCount) {
+            throw new IllegalArgumentException("invalid histogram window " + windowMillis + "ms / " + slotCount + " slots");
+        }
+        this.slotMillis = windowMillis / slotCount;
+        this.slots = new AtomicReferenceArray<>(slotCount);
+    }
+
+    void record(long value, long nowMillis) {
+        long interval = nowMillis / slotMillis;
+        int index = (int) (interval % slots.length());
+        Slot slot = slots.get(index);
+        while (slot == null || slot.interval < interval) {
+            Slot fresh = new Slot(interval);
+            if (slots.compareAndSet(index, slot, fresh)) {
+                slot = fresh;
+                break;
+            }
+            slot = slots.get(index);
+        }
+        if (slot.interval != interval) {
+            // a clock step backwards put us behind the slot; drop rather than corrupt a newer interval
+            return;
+        }
+        slot.counts.incrementAndGet(bucketIndex(value));
+    }
+
+    Snapshot snapshot(long nowMillis) {
+        long interval = nowMillis / slotMillis;
+        long oldest = interval - slots.length() + 1;
+        long[] merged = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            Slot slot = slots.get(i);
+            if (slot != null && slot.interval < oldest) {
+                // expired, let it be collected; a writer that already replaced it wins the CAS
+                slots.compareAndSet(i, slot, null);
+                continue;
+            }
+            if (slot == null || slot.interval > interval) {
+                continue;
+            }
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                long count = slot.counts.get(bucket);
+                merged[bucket] += count;
+                total += count;
+            }
+        }
+        return new Snapshot(merged, total);
+    }
+
+    static int bucketIndex(long value) {
+        long clamped = Math.min(Math.max(value, 0), MAX_VALUE);
+        if (clamped < SUB_BUCKETS) {
+            return (int) clamped;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(clamped);
+        int subBucket = (int) ((clamped >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + (subBucket + 1) * width - 1;
+    }
+
+    private static final class Slot {
+        private final long interval;
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+        private Slot(long interval) {
+            this.interval = interval;
+        }
+    }
+
+    static final class Snapshot {
+        private final long[] counts;
+        private final long total;
+
+        private Snapshot(long[] counts, long total) {
+            this.counts = counts;
+            this.total = total;
+        }
+
+        long getCount() {
+            return total;
+        }
+
+        long getPercentile(double percentile) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                seen += counts[bucket];
+                if (seen >= rank) {
+                    return bucketUpperBound(bucket);
+                }
+            }
+            return bucketUpperBound(counts.length - 1);
+        }
+
+        long getMax() {
+            for (int bucket = counts.length - 1; bucket >= 0; bucket--) {
+                if (counts[bucket] > 0) {
+                    return bucketUpperBound(bucket);
+                }
+            }
+            return 0;
+        }
+    }
+}
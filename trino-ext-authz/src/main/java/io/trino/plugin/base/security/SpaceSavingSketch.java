@@ -0,0 +1,144 @@
+package io.trino.plugin.base.security;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Weighted space-saving sketch (Metwally et al.) keeping at most {@code capacity} counters.
+ * When a new key arrives and the sketch is full, the smallest counter is reassigned to it and its
+ * old weight becomes the new key's overestimation error, so any key whose true weight exceeds
+ * {@code total / capacity} is guaranteed to be retained.
+ * <p>
+ * Counters are also kept in an indexed binary min-heap on weight. Weights only grow, so an add
+ * sifts its counter down and an eviction replaces the root, both {@code O(log capacity)},
+ * instead of scanning every counter for the smallest one. A heap rather than the stream-summary
+ * bucket list because adds are weighted, not unit increments.
+ * <p>
+ * Not thread-safe; callers confine it to a single thread.
+ */
+class SpaceSavingSketch<K> {
+    private final int capacity;
+    private final Map<K, Counter<K>> counters;
+    private final Counter<K>[] heap;
+
+    SpaceSavingSketch(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+        @SuppressWarnings("unchecked")
+        Counter<K>[] heap = new Counter[capacity];
+        this.heap = heap;
+    }
+
+    /**
+     * Adds weight to the key and returns its counter.
+     */
+    Counter<K> add(K key, long weight) {
+        Counter<K> counter = counters.get(key);
+        if (counter == null) {
+            int size = counters.size();
+            if (size < capacity) {
+                counter = new Counter<>(key, 0);
+                counter.position = size;
+                heap[size] = counter;
+                siftUp(size);
+            } else {
+                Counter<K> smallest = heap[0];
+                counters.remove(smallest.key);
+                counter = new Counter<>(key, smallest.weight);
+                heap[0] = counter;
+            }
+            counters.put(key, counter);
+        }
+        counter.weight += weight;
+        counter.hits++;
+        siftDown(counter.position);
+        return counter;
+    }
+
+    /**
+     * Returns the counters ordered by descending weight.
+     */
+    List<Counter<K>> top(int limit) {
+        List<Counter<K>> sorted = new ArrayList<>(counters.values());
+        sorted.sort((left, right) -> Long.compare(right.weight, left.weight));
+        return sorted.subList(0, Math.min(limit, sorted.size()));
+    }
+
+    Set<K> keys() {
+        return counters.keySet();
+    }
+
+    private void siftUp(int position) {
+        Counter<K> counter = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (heap[parent].weight <= counter.weight) {
+                break;
+            }
+            move(heap[parent], position);
+            position = parent;
+        }
+        move(counter, position);
+    }
+
+    private void siftDown(int position) {
+        int size = counters.size();
+        Counter<K> counter = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].weight < heap[child].weight) {
+                child++;
+            }
+            if (counter.weight <= heap[child].weight) {
+                break;
+            }
+            move(heap[child], position);
+            position = child;
+        }
+        move(counter, position);
+    }
+
+    private void move(Counter<K> counter, int position) {
+        heap[position] = counter;
+        counter.position = position;
+    }
+
+    static final class Counter<K> {
+        private final K key;
+        private final long error;
+        private long weight;
+        private long hits;
+        private int position;
+
+        private Counter(K key, long error) {
+            this.key = key;
+            this.error = error;
+            this.weight = error;
+        }
+
+        K getKey() {
+            return key;
+        }
+
+        long getWeight() {
+            return weight;
+        }
+
+        long getError() {
+            return error;
+        }
+
+        long getHits() {
+            return hits;
+        }
+    }
+}
@@ -7,8 +7,14 @@ import io.trino.spi.function.LiteralParameters;
 import io.trino.spi.function.ScalarFunction;
 import io.trino.spi.function.SqlType;
 
+import static io.airlift.slice.SliceUtf8.toLowerCase;
 import static io.airlift.slice.SliceUtf8.toUpperCase;
+import static io.airlift.slice.Slices.utf8Slice;
 
+/**
+ * Case and whitespace functions with an ASCII fast path, see {@link AsciiStrings}; input holding
+ * any non-ASCII byte takes the UTF-8 aware path.
+ */
 public class StringFunctions {
 
 
@@ -17,6 +23,50 @@ public class StringFunctions {
     @LiteralParameters("x")
     @SqlType("varchar(x)")
     public static Slice upper(ConnectorSession session, @SqlType("varchar(x)") Slice slice) {
-        return toUpperCase(slice);
+        return AsciiStrings.isAscii(slice) ? AsciiStrings.toUpperCase(slice) : toUpperCase(slice);
+    }
+
+    @Description("Converts the string to lower case")
+    @ScalarFunction("to_lower")
+    @LiteralParameters("x")
+    @SqlType("varchar(x)")
+    public static Slice lower(@SqlType("varchar(x)") Slice slice) {
+        return AsciiStrings.isAscii(slice) ? AsciiStrings.toLowerCase(slice) : toLowerCase(slice);
+    }
+
+    @Description("Capitalizes the first letter of each word and lower cases the rest")
+    @ScalarFunction("initcap")
+    @LiteralParameters("x")
+    @SqlType("varchar(x)")
+    public static Slice initcap(@SqlType("varchar(x)") Slice slice) {
+        if (AsciiStrings.isAscii(slice)) {
+            return AsciiStrings.initcap(slice);
+        }
+        String value = slice.toStringUtf8();
+        StringBuilder result = new StringBuilder(value.length());
+        boolean wordStart = true;
+        for (int offset = 0; offset < value.length(); ) {
+            int codePoint = value.codePointAt(offset);
+            result.appendCodePoint(wordStart ? Character.toTitleCase(codePoint) : Character.toLowerCase(codePoint));
+            wordStart = !Character.isLetterOrDigit(codePoint);
+            offset += Character.charCount(codePoint);
+        }
+        return utf8Slice(result.toString());
+    }
+
+    @Description("Removes leading and trailing whitespace and collapses inner whitespace runs to one space")
+    @ScalarFunction("trim_normalize")
+    @LiteralParameters("x")
+    @SqlType("varchar(x)")
+    public static Slice trimNormalize(@SqlType("varchar(x)") Slice slice) {
+        return AsciiStrings.trimNormalize(slice);
+    }
+
+    @Description("Trims, collapses whitespace and lower cases the string, for use as a comparison key")
+    @ScalarFunction("normalize_key")
+    @LiteralParameters("x")
+    @SqlType("varchar(x)")
+    public static Slice normalizeKey(@SqlType("varchar(x)") Slice slice) {
+        return lower(AsciiStrings.trimNormalize(slice));
     }
 }
@@ -0,0 +1,353 @@
+package io.trino.plugin.base.security;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.airlift.log.Logger;
+import io.trino.spi.eventlistener.QueryCompletedEvent;
+import io.trino.spi.eventlistener.QueryStatistics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.LongSupplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Resource profiles of recurring workloads learned from completed queries, keyed by (user,
+ * source, client tags, query type): the inputs Trino has when it creates a session, before the
+ * query text is known. Each profile keeps exponentially weighted averages of peak memory and CPU
+ * time plus the rate of memory limit failures, and the session properties its workload class
+ * calls for, computed when a query is recorded so a session lookup is a single map read.
+ * <p>
+ * The audit listener records into the store published through {@link #install(WorkloadProfiles)}
+ * by the session property manager; until one is installed recording is a no-op. Profiles not seen
+ * within the maximum age are dropped periodically, and when the store is full a new workload
+ * replaces the least recently seen one. With a profile file set, profiles are written to it on the
+ * same schedule and when the listener shuts down, and read back at startup.
+ */
+class WorkloadProfiles {
+    private static final Logger LOG = Logger.get(WorkloadProfiles.class);
+    private static volatile WorkloadProfiles current;
+
+    private static final double WEIGHT = 0.2;
+    private static final Set<String> MEMORY_ERRORS = Set.of(
+        "EXCEEDED_LOCAL_MEMORY_LIMIT",
+        "EXCEEDED_GLOBAL_MEMORY_LIMIT",
+        "EXCEEDED_SPILL_LIMIT",
+        "CLUSTER_OUT_OF_MEMORY");
+
+    private final Tuning tuning;
+    private final int maxProfiles;
+    private final long maxAgeMillis;
+    private final Optional<Path> file;
+    private final LongSupplier clock;
+    private final Map<Key, Profile> profiles = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService writer;
+
+    WorkloadProfiles(Tuning tuning, int maxProfiles, long maxAgeMillis, Optional<Path> file, long persistMillis) {
+        this(tuning, maxProfiles, maxAgeMillis, file, persistMillis, System::currentTimeMillis);
+    }
+
+    WorkloadProfiles(Tuning tuning, int maxProfiles, long maxAgeMillis, Optional<Path> file, long persistMillis, LongSupplier clock) {
+        this.tuning = tuning;
+        this.maxProfiles = maxProfiles;
+        this.maxAgeMillis = maxAgeMillis;
+        this.file = file;
+        this.clock = clock;
+        file.ifPresent(this::read);
+        this.writer = newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("workload-profiles-writer").setDaemon(true).build());
+        writer.scheduleWithFixedDelay(this::persist, persistMillis, persistMillis, MILLISECONDS);
+    }
+
+    static void install(WorkloadProfiles profiles) {
+        current = profiles;
+    }
+
+    /**
+     * Records a completed query into the installed store, if any.
+     */
+    static void recordInstalled(QueryCompletedEvent event) {
+        WorkloadProfiles profiles = current;
+        if (profiles != null) {
+            profiles.record(event);
+        }
+    }
+
+    static void shutdownInstalled() {
+        WorkloadProfiles profiles = current;
+        if (profiles != null) {
+            profiles.shutdown();
+        }
+    }
+
+    void record(QueryCompletedEvent event) {
+        QueryStatistics statistics = event.getStatistics();
+        record(
+            Key.of(
+                event.getContext().getUser(),
+                event.getContext().getSource(),
+                event.getContext().getClientTags(),
+                event.getContext().getQueryType().map(Enum::name)),
+            statistics.getPeakUserMemoryBytes(),
+            statistics.getCpuTime().toMillis(),
+            event.getFailureInfo()
+                .map(failure -> MEMORY_ERRORS.contains(failure.getErrorCode().getName()))
+                .orElse(false));
+    }
+
+    void record(Key key, long peakMemory, long cpuMillis, boolean memoryFailure) {
+        long now = clock.getAsLong();
+        if (!profiles.containsKey(key) && profiles.size() >= maxProfiles) {
+            makeRoom(now);
+        }
+        profiles.compute(key, (ignored, profile) -> profile == null
+            ? tuning.tune(new Profile(1, peakMemory, cpuMillis, memoryFailure ? 1 : 0, now, Map.of()))
+            : tuning.tune(profile.update(peakMemory, cpuMillis, memoryFailure, now)));
+    }
+
+    /**
+     * Returns the tuned session properties of the workload, empty until it has enough samples.
+     */
+    Map<String, String> sessionProperties(String user, Optional<String> source, Set<String> clientTags, Optional<String> queryType) {
+        Profile profile = profiles.get(Key.of(user, source, clientTags, queryType));
+        return profile == null ? Map.of() : profile.sessionProperties();
+    }
+
+    int size() {
+        return profiles.size();
+    }
+
+    /**
+     * Drops expired profiles, then the least recently seen one if the store is still full. The scan
+     * only runs when a new workload arrives at a full store.
+     */
+    private synchronized void makeRoom(long now) {
+        if (profiles.size() < maxProfiles) {
+            return;
+        }
+        expire(now);
+        if (profiles.size() >= maxProfiles) {
+            profiles.entrySet().stream()
+                .min(Comparator.comparingLong(entry -> entry.getValue().lastSeenMillis()))
+                .ifPresent(entry -> profiles.remove(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    private void expire(long now) {
+        long oldest = now - maxAgeMillis;
+        profiles.values().removeIf(profile -> profile.lastSeenMillis() < oldest);
+    }
+
+    /**
+     * Drops profiles not seen within the maximum age and writes the rest to the file, if one is
+     * set, replacing it atomically so a crash mid-write keeps the previous copy.
+     */
+    void persist() {
+        expire(clock.getAsLong());
+        if (file.isEmpty()) {
+            return;
+        }
+        Path target = file.get();
+        try {
+            Files.createDirectories(target.toAbsolutePath().getParent());
+            Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+            try (BufferedWriter out = Files.newBufferedWriter(temporary, UTF_8)) {
+                for (Map.Entry<Key, Profile> entry : profiles.entrySet()) {
+                    Key key = entry.getKey();
+                    Profile profile = entry.getValue();
+                    if (!key.writable()) {
+                        continue;
+                    }
+                    out.write(String.join("\t",
+                        key.user(), key.source(), key.clientTags(), key.queryType(),
+                        Long.toString(profile.samples()),
+                        Double.toString(profile.peakMemoryBytes()),
+                        Double.toString(profile.cpuMillis()),
+                        Double.toString(profile.memoryFailureRate()),
+                        Long.toString(profile.lastSeenMillis())));
+                    out.newLine();
+                }
+            }
+            Files.move(temporary, target, REPLACE_EXISTING, ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn(e, "failed to write workload profiles to %s", target);
+        }
+    }
+
+    private void read(Path source) {
+        if (!Files.exists(source)) {
+            return;
+        }
+        List<Map.Entry<Key, Profile>> entries = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(source, UTF_8)) {
+                String[] fields = line.split("\t", -1);
+                if (fields.length != 9) {
+                    continue;
+                }
+                Profile profile = new Profile(
+                    Long.parseLong(fields[4]),
+                    Double.parseDouble(fields[5]),
+                    Double.parseDouble(fields[6]),
+                    Double.parseDouble(fields[7]),
+                    Long.parseLong(fields[8]),
+                    Map.of());
+                entries.add(Map.entry(new Key(fields[0], fields[1], fields[2], fields[3]), tuning.tune(profile)));
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warn(e, "failed to read workload profiles from %s, starting empty", source);
+            return;
+        }
+        long oldest = clock.getAsLong() - maxAgeMillis;
+        entries.stream()
+            .filter(entry -> entry.getValue().lastSeenMillis() >= oldest)
+            .sorted(Comparator.comparingLong((Map.Entry<Key, Profile> entry) -> entry.getValue().lastSeenMillis()).reversed())
+            .limit(maxProfiles)
+            .forEach(entry -> profiles.put(entry.getKey(), entry.getValue()));
+        LOG.info("loaded %s workload profiles from %s", profiles.size(), source);
+    }
+
+    void shutdown() {
+        writer.shutdownNow();
+        persist();
+    }
+
+    record Key(String user, String source, String clientTags, String queryType) {
+        static Key of(String user, Optional<String> source, Set<String> clientTags, Optional<String> queryType) {
+            String tags = clientTags.isEmpty() ? "" : String.join(",", ImmutableSortedSet.copyOf(clientTags));
+            return new Key(user, source.orElse(""), tags, queryType.orElse(""));
+        }
+
+        boolean writable() {
+            return (user + source + clientTags + queryType).chars().noneMatch(c -> c == '\t' || c == '\n' || c == '\r');
+        }
+    }
+
+    record Profile(
+        long samples,
+        double peakMemoryBytes,
+        double cpuMillis,
+        double memoryFailureRate,
+        long lastSeenMillis,
+        Map<String, String> sessionProperties)
+    {
+        Profile update(long peakMemory, long cpu, boolean memoryFailure, long now) {
+            return new Profile(
+                samples + 1,
+                peakMemoryBytes + WEIGHT * (peakMemory - peakMemoryBytes),
+                cpuMillis + WEIGHT * (cpu - cpuMillis),
+                memoryFailureRate + WEIGHT * ((memoryFailure ? 1 : 0) - memoryFailureRate),
+                now,
+                sessionProperties);
+        }
+
+        Profile withSessionProperties(Map<String, String> properties) {
+            return new Profile(samples, peakMemoryBytes, cpuMillis, memoryFailureRate, lastSeenMillis, properties);
+        }
+    }
+
+    /**
+     * Maps a profile to session properties: workloads that failed on memory limits or have a
+     * large peak get the memory-heavy properties, long CPU workloads the CPU-heavy ones and
+     * small, short workloads the light ones. Later classes override earlier ones per property.
+     * The property maps of all class combinations are built up front and shared by the profiles.
+     */
+    static final class Tuning {
+        private static final int LIGHT = 1;
+        private static final int CPU_HEAVY = 2;
+        private static final int MEMORY_HEAVY = 4;
+
+        private final int minSamples;
+        private final long heavyMemoryBytes;
+        private final long heavyCpuMillis;
+        private final long lightMemoryBytes;
+        private final long lightCpuMillis;
+        private final double memoryFailureRate;
+        private final List<Map<String, String>> classes = new ArrayList<>();
+
+        Tuning(
+            int minSamples,
+            long heavyMemoryBytes,
+            long heavyCpuMillis,
+            long lightMemoryBytes,
+            long lightCpuMillis,
+            double memoryFailureRate,
+            Map<String, String> memoryHeavy,
+            Map<String, String> cpuHeavy,
+            Map<String, String> light)
+        {
+            this.minSamples = minSamples;
+            this.heavyMemoryBytes = heavyMemoryBytes;
+            this.heavyCpuMillis = heavyCpuMillis;
+            this.lightMemoryBytes = lightMemoryBytes;
+            this.lightCpuMillis = lightCpuMillis;
+            this.memoryFailureRate = memoryFailureRate;
+            for (int mask = 0; mask < 8; mask++) {
+                Map<String, String> properties = new HashMap<>();
+                if ((mask & LIGHT) != 0) {
+                    properties.putAll(light);
+                }
+                if ((mask & CPU_HEAVY) != 0) {
+                    properties.putAll(cpuHeavy);
+                }
+                if ((mask & MEMORY_HEAVY) != 0) {
+                    properties.putAll(memoryHeavy);
+                }
+                classes.add(ImmutableMap.copyOf(properties));
+            }
+        }
+
+        Profile tune(Profile profile) {
+            if (profile.samples() < minSamples) {
+                return profile.withSessionProperties(Map.of());
+            }
+            int mask = 0;
+            if (profile.peakMemoryBytes() <= lightMemoryBytes && profile.cpuMillis() <= lightCpuMillis) {
+                mask |= LIGHT;
+            }
+            if (profile.cpuMillis() >= heavyCpuMillis) {
+                mask |= CPU_HEAVY;
+            }
+            if (profile.peakMemoryBytes() >= heavyMemoryBytes || profile.memoryFailureRate() >= memoryFailureRate) {
+                mask |= MEMORY_HEAVY;
+            }
+            return profile.withSessionProperties(classes.get(mask));
+        }
+
+        /**
+         * Parses {@code name=value,name=value} as written in the manager's properties file.
+         */
+        static Map<String, String> properties(String value) {
+            ImmutableMap.Builder<String, String> properties = ImmutableMap.builder();
+            for (String item : value.split(",")) {
+                item = item.trim();
+                if (item.isEmpty()) {
+                    continue;
+                }
+                int equals = item.indexOf('=');
+                if (equals <= 0) {
+                    throw new IllegalArgumentException("invalid session property: " + item);
+                }
+                properties.put(item.substring(0, equals).trim(), item.substring(equals + 1).trim());
+            }
+            return properties.buildOrThrow();
+        }
+    }
+}
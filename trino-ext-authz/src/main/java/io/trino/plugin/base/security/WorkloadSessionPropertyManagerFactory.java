@@ -0,0 +1,78 @@
+package io.trino.plugin.base.security;
+
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import io.trino.spi.session.SessionConfigurationContext;
+import io.trino.spi.session.SessionPropertyConfigurationManager;
+import io.trino.spi.session.SessionPropertyConfigurationManagerContext;
+import io.trino.spi.session.SessionPropertyConfigurationManagerFactory;
+
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Optional;
+
+public class WorkloadSessionPropertyManagerFactory implements SessionPropertyConfigurationManagerFactory {
+    static final String PROFILE_FILE = "workload.profile-file";
+    static final String PERSIST_INTERVAL = "workload.persist-interval";
+    static final String MAX_PROFILES = "workload.max-profiles";
+    static final String MAX_PROFILE_AGE = "workload.max-profile-age";
+    static final String MIN_SAMPLES = "workload.min-samples";
+    static final String HEAVY_MEMORY = "workload.heavy.memory";
+    static final String HEAVY_CPU = "workload.heavy.cpu";
+    static final String MEMORY_FAILURE_RATE = "workload.heavy.memory-failure-rate";
+    static final String LIGHT_MEMORY = "workload.light.memory";
+    static final String LIGHT_CPU = "workload.light.cpu";
+    static final String MEMORY_HEAVY_PROPERTIES = "workload.memory-heavy.properties";
+    static final String CPU_HEAVY_PROPERTIES = "workload.cpu-heavy.properties";
+    static final String LIGHT_PROPERTIES = "workload.light.properties";
+
+    @Override
+    public String getName() {
+        return "ext-workload";
+    }
+
+    @Override
+    public SessionPropertyConfigurationManager create(Map<String, String> config, SessionPropertyConfigurationManagerContext context) {
+        WorkloadProfiles.Tuning tuning = new WorkloadProfiles.Tuning(
+            Integer.parseInt(config.getOrDefault(MIN_SAMPLES, "5").trim()),
+            DataSize.valueOf(config.getOrDefault(HEAVY_MEMORY, "1GB").trim()).toBytes(),
+            Duration.valueOf(config.getOrDefault(HEAVY_CPU, "10m").trim()).toMillis(),
+            DataSize.valueOf(config.getOrDefault(LIGHT_MEMORY, "64MB").trim()).toBytes(),
+            Duration.valueOf(config.getOrDefault(LIGHT_CPU, "5s").trim()).toMillis(),
+            Double.parseDouble(config.getOrDefault(MEMORY_FAILURE_RATE, "0.1").trim()),
+            WorkloadProfiles.Tuning.properties(config.getOrDefault(MEMORY_HEAVY_PROPERTIES, "join_distribution_type=PARTITIONED")),
+            WorkloadProfiles.Tuning.properties(config.getOrDefault(CPU_HEAVY_PROPERTIES, "task_concurrency=32")),
+            WorkloadProfiles.Tuning.properties(config.getOrDefault(LIGHT_PROPERTIES, "join_distribution_type=BROADCAST,task_concurrency=4")));
+        String profileFile = config.getOrDefault(PROFILE_FILE, "").trim();
+        WorkloadProfiles profiles = new WorkloadProfiles(
+            tuning,
+            Integer.parseInt(config.getOrDefault(MAX_PROFILES, "10000").trim()),
+            Duration.valueOf(config.getOrDefault(MAX_PROFILE_AGE, "7d").trim()).toMillis(),
+            profileFile.isEmpty() ? Optional.empty() : Optional.of(Paths.get(profileFile)),
+            Duration.valueOf(config.getOrDefault(PERSIST_INTERVAL, "1m").trim()).toMillis());
+        WorkloadProfiles.install(profiles);
+        return new WorkloadSessionPropertyManager(profiles);
+    }
+}
+
+/**
+ * Applies the session properties learned for the session's workload as defaults; properties the
+ * client sets explicitly still take precedence.
+ */
+class WorkloadSessionPropertyManager implements SessionPropertyConfigurationManager {
+    private final WorkloadProfiles profiles;
+
+    WorkloadSessionPropertyManager(WorkloadProfiles profiles) {
+        this.profiles = profiles;
+    }
+
+    @Override
+    public Map<String, String> getSystemSessionProperties(SessionConfigurationContext context) {
+        return profiles.sessionProperties(context.getUser(), context.getSource(), context.getClientTags(), context.getQueryType());
+    }
+
+    @Override
+    public Map<String, Map<String, String>> getCatalogSessionProperties(SessionConfigurationContext context) {
+        return Map.of();
+    }
+}
@@ -0,0 +1,136 @@
+package io.trino.plugin.base.security;
+
+import io.trino.Session;
+import io.trino.plugin.tpcds.TpcdsPlugin;
+import io.trino.plugin.tpch.TpchPlugin;
+import io.trino.spi.security.Identity;
+import io.trino.testing.DistributedQueryRunner;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static io.trino.plugin.base.security.FileBasedAccessControlConfig.SECURITY_CONFIG_FILE;
+import static io.trino.testing.TestingSession.testSessionBuilder;
+
+/**
+ * Planning time of the EXPLAIN queries in {@code planning.mix} on an embedded coordinator with
+ * the tpch and tpcds catalogs, once per rules file: allow-all, the repository's rules file and a
+ * generated file of 50k table rules that the query user only matches at the end. Each query is
+ * reported as its median and p90 over the timed runs, followed by the access control calls it
+ * made per run and their average time, read from the profiling MXBeans.
+ * <p>
+ * Run with {@code ./gradlew :trino-ext-authz:planningBenchmark}, or pass the mix file, the rules
+ * file and optionally the number of timed runs to {@link #main}.
+ */
+public final class BenchmarkAccessControlPlanning {
+    private static final String USER = "admin";
+    private static final int LARGE_RULES = 50_000;
+    private static final int WARMUP_RUNS = 5;
+
+    private BenchmarkAccessControlPlanning() {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("usage: BenchmarkAccessControlPlanning <planning.mix> <rules.json> [runs]");
+            System.exit(1);
+        }
+        Map<String, String> queries = queries(Path.of(args[0]));
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        Path directory = Files.createTempDirectory("extauthz-planning");
+        Map<String, Path> rulesFiles = new LinkedHashMap<>();
+        rulesFiles.put("allow-all", Files.writeString(directory.resolve("allow-all.json"), "{}"));
+        rulesFiles.put("small", Path.of(args[1]));
+        rulesFiles.put("50k-rules", Files.writeString(directory.resolve("large.json"), largeRules()));
+
+        Session session = testSessionBuilder()
+            .setIdentity(Identity.ofUser(USER))
+            .setCatalog("tpch")
+            .setSchema("tiny")
+            .build();
+        try (DistributedQueryRunner queryRunner = DistributedQueryRunner.builder(session).setNodeCount(1).build()) {
+            queryRunner.installPlugin(new TpchPlugin());
+            queryRunner.createCatalog("tpch", "tpch");
+            queryRunner.installPlugin(new TpcdsPlugin());
+            queryRunner.createCatalog("tpcds", "tpcds");
+            queryRunner.installPlugin(new ExternalAuthsPlugin());
+
+            for (Map.Entry<String, Path> rules : rulesFiles.entrySet()) {
+                queryRunner.getCoordinator().getAccessControl().loadSystemAccessControl(
+                    ExternalAuthzSystemAccessControl.NAME,
+                    Map.of(SECURITY_CONFIG_FILE, rules.getValue().toString(), ExternalAuthzSystemAccessControl.PROFILE_CALLS, "true"));
+                System.out.printf("%n== %s (%s)%n", rules.getKey(), rules.getValue());
+                for (Map.Entry<String, String> query : queries.entrySet()) {
+                    run(queryRunner, query.getKey(), query.getValue(), runs);
+                }
+            }
+        }
+    }
+
+    private static void run(DistributedQueryRunner queryRunner, String name, String sql, int runs) throws Exception {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            queryRunner.execute(sql);
+        }
+        Map<String, long[]> before = calls();
+        long[] nanos = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            queryRunner.execute(sql);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Map<String, long[]> after = calls();
+        Arrays.sort(nanos);
+        System.out.printf("%-10s median %8.2fms  p90 %8.2fms%n", name, nanos[runs / 2] / 1e6, nanos[(int) Math.ceil(runs * 0.9) - 1] / 1e6);
+        for (Map.Entry<String, long[]> method : after.entrySet()) {
+            long[] previous = before.getOrDefault(method.getKey(), new long[2]);
+            long calls = method.getValue()[0] - previous[0];
+            if (calls > 0) {
+                long micros = method.getValue()[1] - previous[1];
+                System.out.printf("  %-32s %6.1f calls/query %8.1fus/call%n", method.getKey(), calls / (double) runs, micros / (double) calls);
+            }
+        }
+    }
+
+    private static Map<String, long[]> calls() throws Exception {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        Map<String, long[]> calls = new TreeMap<>();
+        for (ObjectName name : mBeanServer.queryNames(new ObjectName(QueryStatsCollector.JMX_DOMAIN + ":type=AccessControlCalls,*"), null)) {
+            calls.put(name.getKeyProperty("method"), new long[] {
+                (Long) mBeanServer.getAttribute(name, "Calls"),
+                (Long) mBeanServer.getAttribute(name, "TotalMicros")});
+        }
+        return calls;
+    }
+
+    private static Map<String, String> queries(Path mix) throws Exception {
+        Map<String, String> queries = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(mix)) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\|", 3);
+            queries.put(fields[0], fields[2]);
+        }
+        return queries;
+    }
+
+    // rules for other users ahead of the one the query user matches, so every check scans them all
+    private static String largeRules() {
+        List<String> tables = new ArrayList<>(LARGE_RULES + 1);
+        for (int i = 0; i < LARGE_RULES; i++) {
+            tables.add("{\"user\":\"user" + i + "\",\"catalog\":\"(tpch|tpcds)\",\"schema\":\"tiny\",\"table\":\"table" + i + "\",\"privileges\":[\"SELECT\"]}");
+        }
+        tables.add("{\"privileges\":[\"SELECT\",\"INSERT\",\"DELETE\",\"OWNERSHIP\"]}");
+        return "{\"catalogs\":[{\"allow\":\"all\"}],\"schemas\":[{\"owner\":true}],\"tables\":[\n" + String.join(",\n", tables) + "\n]}";
+    }
+}
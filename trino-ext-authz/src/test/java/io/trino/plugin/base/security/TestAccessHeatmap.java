@@ -0,0 +1,96 @@
+package io.trino.plugin.base.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestAccessHeatmap {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testCountsTrackedKeysExactly() {
+        AccessHeatmap heatmap = new AccessHeatmap(10, 10, 1024, 0.5, 3_600_000, Optional.empty());
+        try {
+            for (int i = 0; i < 3; i++) {
+                heatmap.recordTable("hive.finance.activity", 100, 10);
+                heatmap.recordColumn("hive.finance.activity.account", 100, 10);
+            }
+            heatmap.recordTable("tpch.tiny.nation", 5, 25);
+            heatmap.report();
+            assertArrayEquals(new String[] {"hive.finance.activity 3 300 30", "tpch.tiny.nation 1 5 25"}, heatmap.getTopTables());
+            assertArrayEquals(new String[] {"hive.finance.activity.account 3 300 30"}, heatmap.getTopColumns());
+            assertEquals(0, heatmap.getUntrackedAccesses());
+
+            // counters were halved after the report, and entries that reach zero reads are dropped
+            assertEquals("hive.finance.activity 1 150 15", heatmap.estimate("hive.finance.activity"));
+            assertEquals(1, heatmap.getTrackedTables());
+        } finally {
+            heatmap.shutdown();
+        }
+    }
+
+    @Test
+    public void testPromotesKeyReadMoreThanSmallestTracked() throws IOException {
+        Path file = directory.resolve("heatmap.tsv");
+        AccessHeatmap heatmap = new AccessHeatmap(2, 10, 1024, 0.5, 3_600_000, Optional.of(file));
+        try {
+            for (int i = 0; i < 5; i++) {
+                heatmap.recordTable("hive.a.first", 100, 10);
+            }
+            heatmap.recordTable("hive.a.second", 100, 10);
+
+            // one read is not more than the one of second
+            heatmap.recordTable("hive.a.third", 100, 10);
+            assertEquals(1, heatmap.getUntrackedAccesses());
+            assertEquals("hive.a.second 1 100 10", heatmap.estimate("hive.a.second"));
+
+            heatmap.recordTable("hive.a.third", 100, 10);
+            assertEquals(2, heatmap.getUntrackedAccesses());
+            assertEquals(2, heatmap.getTrackedTables());
+            // tracked from the sketch estimates, second moved into the sketches
+            assertEquals("hive.a.third 2 200 20", heatmap.estimate("hive.a.third"));
+            assertEquals("hive.a.second 1 100 10", heatmap.estimate("hive.a.second"));
+            heatmap.recordTable("hive.a.third", 100, 10);
+
+            heatmap.report();
+            assertArrayEquals(new String[] {"hive.a.first 5 500 50", "hive.a.third 3 300 30"}, heatmap.getTopTables());
+            assertEquals(List.of("table\thive.a.first\t5\t500\t50", "table\thive.a.third\t3\t300\t30"), Files.readAllLines(file).stream().sorted().toList());
+        } finally {
+            heatmap.shutdown();
+        }
+    }
+
+    @Test
+    public void testNewlyHotColumnDisplacesDecayedHistory() {
+        AccessHeatmap heatmap = new AccessHeatmap(2, 10, 1024, 0.9, 3_600_000, Optional.empty());
+        try {
+            for (int i = 0; i < 10; i++) {
+                heatmap.recordColumn("hive.a.t.old1", 1, 1);
+                heatmap.recordColumn("hive.a.t.old2", 1, 1);
+            }
+            // 10 reads decay to 9, 8 and 7
+            for (int i = 0; i < 3; i++) {
+                heatmap.report();
+            }
+            for (int i = 0; i < 8; i++) {
+                heatmap.recordColumn("hive.a.t.new", 1, 1);
+            }
+            heatmap.report();
+            String[] top = heatmap.getTopColumns();
+            assertEquals(2, top.length);
+            assertEquals("hive.a.t.new 8 8 8", top[0]);
+            assertEquals(2, heatmap.getTrackedColumns());
+        } finally {
+            heatmap.shutdown();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package io.trino.plugin.base.security;
+
+import io.airlift.slice.Slice;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.Locale.ROOT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestAsciiStrings {
+    @Test
+    public void testEveryAsciiByteInEveryLanePosition() {
+        // lengths past one word cover both the SWAR loop and the byte tail
+        for (int length = 1; length <= 17; length++) {
+            for (int position = 0; position < length; position++) {
+                for (int value = 0; value < 128; value++) {
+                    byte[] bytes = new byte[length];
+                    Arrays.fill(bytes, (byte) 'm');
+                    bytes[position] = (byte) value;
+                    String expected = new String(bytes, US_ASCII);
+                    Slice slice = wrappedBuffer(bytes);
+                    assertTrue(AsciiStrings.isAscii(slice));
+                    assertEquals(expected.toUpperCase(ROOT), AsciiStrings.toUpperCase(slice).toStringUtf8());
+                    assertEquals(expected.toLowerCase(ROOT), AsciiStrings.toLowerCase(slice).toStringUtf8());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRandomAsciiStrings() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            byte[] bytes = new byte[random.nextInt(64)];
+            for (int j = 0; j < bytes.length; j++) {
+                bytes[j] = (byte) random.nextInt(128);
+            }
+            String expected = new String(bytes, US_ASCII);
+            Slice slice = wrappedBuffer(bytes);
+            assertEquals(expected.toUpperCase(ROOT), AsciiStrings.toUpperCase(slice).toStringUtf8());
+            assertEquals(expected.toLowerCase(ROOT), AsciiStrings.toLowerCase(slice).toStringUtf8());
+        }
+    }
+
+    @Test
+    public void testIsAscii() {
+        assertTrue(AsciiStrings.isAscii(utf8Slice("")));
+        for (int length = 1; length <= 17; length++) {
+            for (int position = 0; position < length; position++) {
+                byte[] bytes = new byte[length];
+                Arrays.fill(bytes, (byte) 'x');
+                bytes[position] = (byte) 0x80;
+                assertFalse(AsciiStrings.isAscii(wrappedBuffer(bytes)), "length " + length + " position " + position);
+            }
+        }
+        assertFalse(AsciiStrings.isAscii(utf8Slice("straße")));
+    }
+
+    @Test
+    public void testInitcap() {
+        assertEquals("Hello World", AsciiStrings.initcap(utf8Slice("hello world")).toStringUtf8());
+        assertEquals("Hello-World 2nd Place", AsciiStrings.initcap(utf8Slice("HELLO-WORLD 2ND place")).toStringUtf8());
+        assertEquals("A1b C_D", AsciiStrings.initcap(utf8Slice("a1B c_d")).toStringUtf8());
+        assertEquals("", AsciiStrings.initcap(utf8Slice("")).toStringUtf8());
+    }
+
+    @Test
+    public void testTrimNormalize() {
+        assertEquals("a b c", AsciiStrings.trimNormalize(utf8Slice("  a \t b\n\n c \r")).toStringUtf8());
+        assertEquals("", AsciiStrings.trimNormalize(utf8Slice(" \t\n ")).toStringUtf8());
+        assertEquals("grüße aus köln", AsciiStrings.trimNormalize(utf8Slice(" grüße\u000B aus  köln ")).toStringUtf8());
+        Slice normalized = utf8Slice("already normal");
+        assertSame(normalized, AsciiStrings.trimNormalize(normalized));
+        assertEquals("trimmed", AsciiStrings.trimNormalize(utf8Slice("  trimmed ")).toStringUtf8());
+    }
+
+    @Test
+    public void testStringFunctionsFallBackForUtf8() {
+        // code point wise like the built-in upper(), so ß stays a single character
+        assertEquals("STRAßE ÄÖÜ", StringFunctions.upper(null, utf8Slice("straße äöü")).toStringUtf8());
+        assertEquals("äöü abc", StringFunctions.lower(utf8Slice("ÄÖÜ ABC")).toStringUtf8());
+        assertEquals("Élan Vital", StringFunctions.initcap(utf8Slice("éLAN vital")).toStringUtf8());
+        assertEquals("mixed key", StringFunctions.normalizeKey(utf8Slice("  MIXED \t KEY ")).toStringUtf8());
+    }
+}
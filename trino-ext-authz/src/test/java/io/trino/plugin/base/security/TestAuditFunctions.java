@@ -0,0 +1,128 @@
+package io.trino.plugin.base.security;
+
+import io.airlift.slice.Slice;
+import org.junit.jupiter.api.Test;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class TestAuditFunctions {
+    @Test
+    public void testRenderedLinesRoundTrip() {
+        String[] values = {
+            "plain",
+            "",
+            "say \"hi\"",
+            "C:\\trino\\etc",
+            "select 1\nfrom t\r\n\twhere x = 'y'",
+            "bell \u0007 and nul \u0000",
+            "grüße aus köln 日本 😀",
+            "ends with backslash \\",
+        };
+        for (String value : values) {
+            String line = AttributeLogger.newInstance()
+                .withAttribute("phase", "completed")
+                .withAttribute("query", value)
+                .withAttribute("user", "alice")
+                .render();
+            assertEquals(value, field(line, "query"), line);
+            assertEquals("alice", field(line, "user"), line);
+            assertEquals("completed", field(line, "phase"), line);
+        }
+    }
+
+    @Test
+    public void testRenderedNumbers() {
+        String line = AttributeLogger.newInstance()
+            .withAttribute("cpu_time", 1234L)
+            .withAttribute("rows", 0)
+            .withAttribute("delta", -42)
+            .withAttribute("user", "bob")
+            .render();
+        assertEquals(Long.valueOf(1234L), bigint(line, "cpu_time"));
+        assertEquals(Long.valueOf(0L), bigint(line, "rows"));
+        assertEquals(Long.valueOf(-42L), bigint(line, "delta"));
+        assertNull(bigint(line, "user"));
+        assertNull(bigint(line, "missing"));
+    }
+
+    @Test
+    public void testUnescapedValuesAreViews() {
+        Slice line = utf8Slice("{\"a\":\"x\",\"user\":\"alice\"}");
+        Slice value = AuditFunctions.auditField(line, utf8Slice("user"));
+        assertEquals("alice", value.toStringUtf8());
+        assertSame(line.byteArray(), value.byteArray());
+    }
+
+    @Test
+    public void testUnicodeEscapes() {
+        assertEquals("é", field("{\"k\":\"\\u00e9\"}", "k"));
+        assertEquals("😀", field("{\"k\":\"\\ud83d\\ude00\"}", "k"));
+        assertEquals("a\bb\fc/", field("{\"k\":\"a\\bb\\fc\\/\"}", "k"));
+        // truncated or invalid escapes are kept as written
+        assertEquals("\\u12", field("{\"k\":\"\\u12\"}", "k"));
+        assertEquals("\\uzzzzx", field("{\"k\":\"\\uzzzzx\"}", "k"));
+    }
+
+    @Test
+    public void testUnquotedValuesAndSpacing() {
+        String line = " { \"a\" : 12 , \"b\" :\"two\" ,\"c\":true }";
+        assertEquals("12", field(line, "a"));
+        assertEquals("two", field(line, "b"));
+        assertEquals("true", field(line, "c"));
+        assertEquals(Long.valueOf(12L), bigint(line, "a"));
+    }
+
+    @Test
+    public void testKeysMatchExactly() {
+        String line = "{\"user_name\":\"x\",\"use\":\"y\",\"user\":\"z\",\"us\\\"er\":\"w\"}";
+        assertEquals("z", field(line, "user"));
+        assertEquals("y", field(line, "use"));
+        assertNull(field(line, "u"));
+        // a key is compared as written, escapes included
+        assertEquals("w", field(line, "us\\\"er"));
+        // a key inside a value is not a key
+        assertNull(field("{\"a\":\"\\\"user\\\":\\\"evil\\\"\"}", "user"));
+    }
+
+    @Test
+    public void testNumericOverflowAndMalformedNumbers() {
+        assertEquals(Long.valueOf(999_999_999_999_999_999L), bigint("{\"n\":\"999999999999999999\"}", "n"));
+        assertEquals(Long.valueOf(-999_999_999_999_999_999L), bigint("{\"n\":-999999999999999999}", "n"));
+        // 19 digits could overflow and are rejected
+        assertNull(bigint("{\"n\":\"9223372036854775807\"}", "n"));
+        assertNull(bigint("{\"n\":\"\"}", "n"));
+        assertNull(bigint("{\"n\":\"-\"}", "n"));
+        assertNull(bigint("{\"n\":\"1.5\"}", "n"));
+        assertNull(bigint("{\"n\":\"12a\"}", "n"));
+        assertNull(bigint("{\"n\":\"+1\"}", "n"));
+    }
+
+    @Test
+    public void testMalformedLines() {
+        assertNull(field("", "a"));
+        assertNull(field("not json", "a"));
+        assertNull(field("[\"a\",\"b\"]", "a"));
+        assertNull(field("{", "a"));
+        assertNull(field("{}", "a"));
+        assertNull(field("{\"a\"", "a"));
+        assertNull(field("{\"a\":", "a"));
+        assertNull(field("{\"a\":\"unterminated", "a"));
+        assertNull(field("{\"a\" \"b\"}", "a"));
+        assertNull(field("{\"x\":\"1\" \"a\":\"2\"}", "a"));
+        assertNull(field("{\"x\":\"1\\\"}", "x"));
+        // fields before the damage are still found
+        assertEquals("1", field("{\"x\":\"1\",\"a\":", "x"));
+    }
+
+    private static String field(String line, String field) {
+        Slice value = AuditFunctions.auditField(utf8Slice(line), utf8Slice(field));
+        return value == null ? null : value.toStringUtf8();
+    }
+
+    private static Long bigint(String line, String field) {
+        return AuditFunctions.auditFieldBigint(utf8Slice(line), utf8Slice(field));
+    }
+}
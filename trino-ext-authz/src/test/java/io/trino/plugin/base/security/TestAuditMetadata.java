@@ -0,0 +1,101 @@
+package io.trino.plugin.base.security;
+
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.ConnectorTableHandle;
+import io.trino.spi.connector.Constraint;
+import io.trino.spi.connector.ConstraintApplicationResult;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.Range;
+import io.trino.spi.predicate.TupleDomain;
+import io.trino.spi.predicate.ValueSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.trino.spi.type.DateTimeEncoding.packDateTimeWithZone;
+import static io.trino.spi.type.TimeZoneKey.UTC_KEY;
+import static io.trino.spi.type.TimestampWithTimeZoneType.TIMESTAMP_TZ_MILLIS;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestAuditMetadata {
+    private final AuditMetadata metadata = new AuditMetadata();
+
+    @Test
+    public void testPushesDownUsers() {
+        AuditTableHandle handle = apply(
+            new AuditTableHandle(AuditTable.QUERIES),
+            Map.of(column(AuditTable.QUERIES, "user"), Domain.multipleValues(VARCHAR, List.of(utf8Slice("alice"), utf8Slice("bob"))))).orElseThrow();
+        assertEquals(Optional.of(Set.of("alice", "bob")), handle.users());
+        assertEquals(Long.MIN_VALUE, handle.minEndTimeMillis());
+        assertEquals(Long.MAX_VALUE, handle.maxEndTimeMillis());
+
+        // a second filter on the narrowed handle intersects the users
+        AuditTableHandle narrowed = apply(handle, Map.of(column(AuditTable.QUERIES, "user"), Domain.singleValue(VARCHAR, utf8Slice("bob")))).orElseThrow();
+        assertEquals(Optional.of(Set.of("bob")), narrowed.users());
+        assertTrue(apply(narrowed, Map.of(column(AuditTable.QUERIES, "user"), Domain.singleValue(VARCHAR, utf8Slice("bob")))).isEmpty());
+    }
+
+    @Test
+    public void testPushesDownEndTimeSpan() {
+        Domain endTime = Domain.create(ValueSet.ofRanges(
+            Range.range(TIMESTAMP_TZ_MILLIS, timestamp(1_000), true, timestamp(2_000), false),
+            Range.range(TIMESTAMP_TZ_MILLIS, timestamp(5_000), true, timestamp(6_000), true)), false);
+        AuditTableHandle handle = apply(new AuditTableHandle(AuditTable.QUERIES), Map.of(column(AuditTable.QUERIES, "end_time"), endTime)).orElseThrow();
+        // the covering span of both ranges, the exact ranges stay in the remaining filter
+        assertEquals(1_000, handle.minEndTimeMillis());
+        assertEquals(6_000, handle.maxEndTimeMillis());
+        assertFalse(handle.users().isPresent());
+
+        Domain after = Domain.create(ValueSet.ofRanges(Range.greaterThan(TIMESTAMP_TZ_MILLIS, timestamp(3_000))), false);
+        AuditTableHandle open = apply(new AuditTableHandle(AuditTable.QUERIES), Map.of(column(AuditTable.QUERIES, "end_time"), after)).orElseThrow();
+        assertEquals(3_000, open.minEndTimeMillis());
+        assertEquals(Long.MAX_VALUE, open.maxEndTimeMillis());
+    }
+
+    @Test
+    public void testIgnoresUnsupportedConstraints() {
+        // nullable user domains and end time on the per-user table are not pushed down
+        Domain withNull = Domain.create(ValueSet.of(VARCHAR, utf8Slice("alice")), true);
+        assertTrue(apply(new AuditTableHandle(AuditTable.QUERIES), Map.of(column(AuditTable.QUERIES, "user"), withNull)).isEmpty());
+        Domain endTime = Domain.create(ValueSet.ofRanges(Range.greaterThan(TIMESTAMP_TZ_MILLIS, timestamp(3_000))), false);
+        assertTrue(apply(new AuditTableHandle(AuditTable.BY_USER), Map.of(column(AuditTable.BY_USER, "last_end_time"), endTime)).isEmpty());
+        assertTrue(metadata.applyFilter(null, new AuditTableHandle(AuditTable.QUERIES), Constraint.alwaysTrue()).isEmpty());
+    }
+
+    @Test
+    public void testNoneMatchesNothing() {
+        Optional<ConstraintApplicationResult<ConnectorTableHandle>> result =
+            metadata.applyFilter(null, new AuditTableHandle(AuditTable.QUERIES), new Constraint(TupleDomain.none()));
+        AuditTableHandle handle = (AuditTableHandle) result.orElseThrow().getHandle();
+        assertEquals(Optional.of(Set.of()), handle.users());
+        assertFalse(handle.matches(TestQueryHistory.summary("q0", "alice", 1_000)));
+    }
+
+    private Optional<AuditTableHandle> apply(AuditTableHandle handle, Map<ColumnHandle, Domain> domains) {
+        Constraint constraint = new Constraint(TupleDomain.withColumnDomains(domains));
+        return metadata.applyFilter(null, handle, constraint).map(result -> {
+            assertEquals(constraint.getSummary(), result.getRemainingFilter());
+            return (AuditTableHandle) result.getHandle();
+        });
+    }
+
+    private static ColumnHandle column(AuditTable table, String name) {
+        for (int i = 0; i < table.getColumns().size(); i++) {
+            if (table.getColumns().get(i).getName().equals(name)) {
+                return new AuditColumnHandle(name, i);
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    private static long timestamp(long millis) {
+        return packDateTimeWithZone(millis, UTC_KEY);
+    }
+}
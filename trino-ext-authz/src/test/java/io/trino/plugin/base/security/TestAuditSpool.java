@@ -0,0 +1,144 @@
+package io.trino.plugin.base.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestAuditSpool {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testReplaysInAppendOrder() throws IOException {
+        AuditSpool spool = new AuditSpool(directory, 100, 10_000, 16);
+        assertTrue(spool.isEmpty());
+        for (int i = 0; i < 10; i++) {
+            spool.append(payload(i));
+        }
+        assertFalse(spool.isEmpty());
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), drain(spool));
+        assertTrue(spool.isEmpty());
+        spool.close();
+    }
+
+    @Test
+    public void testResumesAfterRestart() throws IOException {
+        AuditSpool spool = new AuditSpool(directory, 10_000, 100_000, 16);
+        for (int i = 0; i < 5; i++) {
+            spool.append(payload(i));
+        }
+        AuditSpool.Record first = spool.peek().orElseThrow();
+        spool.commit(first);
+        spool.close();
+
+        AuditSpool restarted = new AuditSpool(directory, 10_000, 100_000, 16);
+        restarted.append(payload(5));
+        assertEquals(List.of(1, 2, 3, 4, 5), drain(restarted));
+        restarted.close();
+    }
+
+    @Test
+    public void testDiscardsTornTail() throws IOException {
+        AuditSpool spool = new AuditSpool(directory, 10_000, 100_000, 16);
+        spool.append(payload(0));
+        spool.append(payload(1));
+        spool.close();
+        Path segment = segments().get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        Files.write(segment, java.util.Arrays.copyOf(bytes, bytes.length - 3));
+
+        AuditSpool restarted = new AuditSpool(directory, 10_000, 100_000, 16);
+        assertEquals(List.of(0), drain(restarted));
+        restarted.close();
+    }
+
+    @Test
+    public void testDropsOldestSegmentsBeyondSegmentLimit() throws IOException {
+        // two payloads fill a segment
+        AuditSpool spool = new AuditSpool(directory, 40, 100_000, 3);
+        for (int i = 0; i < 20; i++) {
+            spool.append(payload(i));
+        }
+        assertTrue(segments().size() <= 3, "segments: " + segments());
+        List<Integer> remaining = drain(spool);
+        assertEquals(19, (int) remaining.get(remaining.size() - 1));
+        assertTrue(remaining.size() <= 6, "remaining: " + remaining);
+        for (int i = 1; i < remaining.size(); i++) {
+            assertEquals(remaining.get(i - 1) + 1, (int) remaining.get(i));
+        }
+        spool.close();
+    }
+
+    @Test
+    public void testDropsOldestSegmentsBeyondSizeLimit() throws IOException {
+        AuditSpool spool = new AuditSpool(directory, 40, 100, 1_000);
+        for (int i = 0; i < 20; i++) {
+            spool.append(payload(i));
+            long total = 0;
+            for (Path segment : segments()) {
+                total += Files.size(segment);
+            }
+            // the segment being written may overshoot its size by one payload
+            assertTrue(total <= 100 + 24, "spool holds " + total + " bytes");
+        }
+        List<Integer> remaining = drain(spool);
+        assertEquals(19, (int) remaining.get(remaining.size() - 1));
+        spool.close();
+    }
+
+    @Test
+    public void testCommitOfDroppedSegment() throws IOException {
+        AuditSpool spool = new AuditSpool(directory, 40, 100_000, 2);
+        spool.append(payload(0));
+        spool.append(payload(1));
+        AuditSpool.Record inFlight = spool.peek().orElseThrow();
+        for (int i = 2; i < 10; i++) {
+            spool.append(payload(i));
+        }
+        spool.commit(inFlight);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.noneMatch(path -> path.getFileName().toString().equals(String.format("%020d.offset", inFlight.segment()))));
+        }
+        spool.close();
+    }
+
+    @Test
+    public void testRejectsInconsistentLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new AuditSpool(directory, 1_000, 100, 16));
+        assertThrows(IllegalArgumentException.class, () -> new AuditSpool(directory, 100, 1_000, 1));
+    }
+
+    private static byte[] payload(int value) {
+        return String.format("batch-%03d", value).getBytes(UTF_8);
+    }
+
+    private static List<Integer> drain(AuditSpool spool) throws IOException {
+        List<Integer> values = new ArrayList<>();
+        Optional<AuditSpool.Record> record = spool.peek();
+        while (record.isPresent()) {
+            values.add(Integer.parseInt(new String(record.get().payload(), UTF_8).substring("batch-".length())));
+            spool.commit(record.get());
+            record = spool.peek();
+        }
+        return values;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".spool")).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package io.trino.plugin.base.security;
+
+import io.airlift.slice.Slice;
+import io.trino.spi.TrinoException;
+import io.trino.spi.function.GroupedAccumulatorState;
+import org.junit.jupiter.api.Test;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestBloomFilters {
+    private static final int INSERTIONS = 100_000;
+    private static final int PROBES = 1_000_000;
+
+    @Test
+    public void testFalsePositiveRate() {
+        for (double expected : new double[] {0.1, 0.01, 0.001}) {
+            Slice filter = BloomFilters.create(INSERTIONS, expected);
+            for (long value = 0; value < INSERTIONS; value++) {
+                BloomFilters.put(filter, BloomFilters.hash(value));
+            }
+            for (long value = 0; value < INSERTIONS; value++) {
+                assertTrue(BloomFilters.mightContain(filter, BloomFilters.hash(value)), "false negative for " + value);
+            }
+            double observed = falsePositiveRate(filter);
+            assertTrue(observed < expected * 1.25, "observed " + observed + " for " + expected);
+        }
+    }
+
+    @Test
+    public void testVarcharValues() {
+        Slice filter = BloomFilters.create(1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            BloomFilters.put(filter, BloomFilters.hash(utf8Slice("user-" + i)));
+        }
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(BloomFilters.mightContain(filter, BloomFilters.hash(utf8Slice("user-" + i))));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (BloomFilters.mightContain(filter, BloomFilters.hash(utf8Slice("other-" + i)))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 1_250, falsePositives + " false positives");
+    }
+
+    @Test
+    public void testMergedPartialFiltersHaveNoFalseNegatives() {
+        Slice even = BloomFilters.create(INSERTIONS, 0.01);
+        Slice odd = BloomFilters.create(INSERTIONS, 0.01);
+        for (long value = 0; value < INSERTIONS; value++) {
+            BloomFilters.put(value % 2 == 0 ? even : odd, BloomFilters.hash(value));
+        }
+        BloomFilters.merge(even, odd);
+        for (long value = 0; value < INSERTIONS; value++) {
+            assertTrue(BloomFilters.mightContain(even, BloomFilters.hash(value)), "false negative for " + value);
+        }
+        assertTrue(falsePositiveRate(even) < 0.0125);
+
+        Slice other = BloomFilters.create(INSERTIONS * 2, 0.01);
+        assertThrows(TrinoException.class, () -> BloomFilters.merge(even, other));
+    }
+
+    @Test
+    public void testSizeIsCapped() {
+        Slice filter = BloomFilters.create(1_000_000_000L, 0.001);
+        assertEquals(2 + BloomFilters.MAX_BITS / Byte.SIZE, filter.length());
+    }
+
+    @Test
+    public void testRejectsInvalidArguments() {
+        assertThrows(TrinoException.class, () -> BloomFilters.create(0, 0.01));
+        assertThrows(TrinoException.class, () -> BloomFilters.create(100, 0));
+        assertThrows(TrinoException.class, () -> BloomFilters.create(100, 1));
+        assertThrows(TrinoException.class, () -> BloomFilters.mightContain(utf8Slice("not a filter"), 1));
+        assertFalse(BloomFilters.mightContain(BloomFilters.create(100, 0.01), BloomFilters.hash(42)));
+    }
+
+    @Test
+    public void testGroupedStateReportsFilters() {
+        BloomFilterState state = new BloomFilterStateFactory().createGroupedState();
+        GroupedAccumulatorState grouped = (GroupedAccumulatorState) state;
+        grouped.ensureCapacity(3);
+        long empty = state.getEstimatedSize();
+        Slice filter = BloomFilters.create(INSERTIONS, 0.01);
+        for (int group = 0; group < 3; group++) {
+            grouped.setGroupId(group);
+            state.setFilter(filter.copy());
+        }
+        assertEquals(empty + 3 * filter.getRetainedSize(), state.getEstimatedSize());
+        grouped.setGroupId(1);
+        state.setFilter(null);
+        assertEquals(empty + 2 * filter.getRetainedSize(), state.getEstimatedSize());
+
+        BloomFilterState single = new BloomFilterStateFactory().createSingleState();
+        long singleEmpty = single.getEstimatedSize();
+        single.setFilter(filter);
+        assertEquals(singleEmpty + filter.getRetainedSize(), single.getEstimatedSize());
+    }
+
+    private static double falsePositiveRate(Slice filter) {
+        int falsePositives = 0;
+        for (long value = INSERTIONS; value < INSERTIONS + PROBES; value++) {
+            if (BloomFilters.mightContain(filter, BloomFilters.hash(value))) {
+                falsePositives++;
+            }
+        }
+        return (double) falsePositives / PROBES;
+    }
+}
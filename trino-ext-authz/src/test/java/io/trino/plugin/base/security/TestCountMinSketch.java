@@ -0,0 +1,67 @@
+package io.trino.plugin.base.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestCountMinSketch {
+    @Test
+    public void testEqualStringHashCodesDoNotCollide() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+        sketch.add("Aa", 100);
+        assertEquals(100, sketch.estimate("Aa"));
+        assertEquals(0, sketch.estimate("BB"));
+
+        // longer keys built from colliding pairs share a hashCode too
+        sketch.add("AaAaAa", 50);
+        assertEquals("AaAaAa".hashCode(), "BBBBBB".hashCode());
+        assertEquals(0, sketch.estimate("BBBBBB"));
+    }
+
+    @Test
+    public void testNeverUndercounts() {
+        CountMinSketch sketch = new CountMinSketch(4, 256);
+        Map<String, Long> counts = new HashMap<>();
+        Random random = new Random(42);
+        long total = 0;
+        for (int i = 0; i < 20_000; i++) {
+            String key = "hive.sales.table" + random.nextInt(2_000);
+            long count = 1 + random.nextInt(10);
+            sketch.add(key, count);
+            counts.merge(key, count, Long::sum);
+            total += count;
+        }
+        long bound = (long) (Math.E * total / 256);
+        int within = 0;
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            long estimate = sketch.estimate(entry.getKey());
+            assertTrue(estimate >= entry.getValue(), entry.getKey());
+            if (estimate - entry.getValue() <= bound) {
+                within++;
+            }
+        }
+        // the bound holds with probability 1 - e^-4, about 98% of keys
+        assertTrue(within >= counts.size() * 0.95, within + " of " + counts.size());
+    }
+
+    @Test
+    public void testDecay() {
+        CountMinSketch sketch = new CountMinSketch(2, 64);
+        sketch.add("orders", 100);
+        sketch.decay(0.5);
+        assertEquals(50, sketch.estimate("orders"));
+    }
+
+    @Test
+    public void testRejectsInvalidShape() {
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0, 64));
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(4, 100));
+    }
+}
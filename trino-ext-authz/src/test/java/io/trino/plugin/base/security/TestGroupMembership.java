@@ -0,0 +1,79 @@
+package io.trino.plugin.base.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestGroupMembership {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testLookups() throws Exception {
+        Path file = directory.resolve("groups.txt");
+        Files.writeString(file, "# comment\nhr-all: alice, bob\nadmins:alice\nsales:bob\nfinance:carol\n");
+        GroupMembership membership = GroupMembership.load(file);
+        assertEquals(3, membership.size());
+        assertTrue(membership.isMember("alice", "admins"));
+        assertFalse(membership.isMember("bob", "admins"));
+        assertFalse(membership.isMember("dave", "hr-all"));
+
+        assertTrue(membership.isMember(utf8Slice("alice"), utf8Slice("hr-all")));
+        assertTrue(membership.isMember(utf8Slice("bob"), utf8Slice("sales")));
+        assertFalse(membership.isMember(utf8Slice("carol"), utf8Slice("sales")));
+        assertFalse(membership.isMember(utf8Slice("dave"), utf8Slice("sales")));
+        // values read from a block are usually views into a larger buffer
+        byte[] row = "xxbobyyhr-allzz".getBytes(UTF_8);
+        assertTrue(membership.isMember(wrappedBuffer(row, 2, 3), wrappedBuffer(row, 7, 6)));
+    }
+
+    @Test
+    public void testUsersWithSameGroupsShareOneSet() throws Exception {
+        Path file = directory.resolve("groups.txt");
+        Files.writeString(file, "a:u1,u2\nb:u1,u2\n");
+        GroupMembership membership = GroupMembership.load(file);
+        assertSame(membership.getGroups("u1"), membership.getGroups("u2"));
+    }
+
+    @Test
+    public void testRejectsInvalidEntry() throws Exception {
+        Path file = directory.resolve("groups.txt");
+        Files.writeString(file, "a:u1\nno separator\n");
+        IllegalArgumentException failure = assertThrows(IllegalArgumentException.class, () -> GroupMembership.load(file));
+        assertEquals("invalid entry in " + file + " at line 2", failure.getMessage());
+    }
+
+    @Test
+    public void testOptionalSourceAppearingLater() throws Exception {
+        Path source = directory.resolve("membership");
+        GroupMembership.Refreshing refreshing = new GroupMembership.Refreshing(source, 3_600_000, true);
+        try {
+            assertSame(GroupMembership.EMPTY, refreshing.get());
+            refreshing.refresh();
+            assertSame(GroupMembership.EMPTY, refreshing.get());
+
+            Files.createDirectory(source);
+            Files.writeString(source.resolve("hr-all"), "hr-all:alice\n");
+            refreshing.refresh();
+            assertTrue(refreshing.get().isMember(utf8Slice("alice"), utf8Slice("hr-all")));
+        } finally {
+            refreshing.shutdown();
+        }
+    }
+
+    @Test
+    public void testRequiredSourceMustExist() {
+        assertThrows(RuntimeException.class, () -> new GroupMembership.Refreshing(directory.resolve("missing"), 3_600_000));
+    }
+}
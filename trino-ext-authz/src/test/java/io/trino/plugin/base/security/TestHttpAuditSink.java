@@ -0,0 +1,158 @@
+package io.trino.plugin.base.security;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.zip.GZIPInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the sink against a stub collector on a local port that can be switched between accepting
+ * and failing requests.
+ */
+public class TestHttpAuditSink {
+    @TempDir
+    Path spoolDirectory;
+
+    private final List<String> received = new CopyOnWriteArrayList<>();
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicInteger requests = new AtomicInteger();
+    private HttpServer collector;
+
+    @BeforeEach
+    public void startCollector() throws IOException {
+        collector = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        collector.createContext("/v1/audit", this::handle);
+        collector.start();
+    }
+
+    @AfterEach
+    public void stopCollector() {
+        collector.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        int code = status.get();
+        if (code / 100 == 2) {
+            assertEquals("gzip", exchange.getRequestHeaders().getFirst("Content-Encoding"));
+            try (InputStream body = new GZIPInputStream(exchange.getRequestBody())) {
+                received.addAll(Arrays.asList(new String(body.readAllBytes(), UTF_8).split("\n")));
+            }
+        } else {
+            exchange.getRequestBody().readAllBytes();
+        }
+        exchange.sendResponseHeaders(code, -1);
+        exchange.close();
+    }
+
+    @Test
+    public void testDeliversBatches() throws Exception {
+        HttpAuditSink sink = sink(1_000, 60_000);
+        for (int i = 0; i < 5; i++) {
+            sink.writeLine(line(i));
+        }
+        sink.flush();
+        await(() -> received.size() == 5);
+        assertEquals(lines(0, 5), received);
+        sink.close();
+    }
+
+    @Test
+    public void testSealsFullBatches() throws Exception {
+        HttpAuditSink sink = sink(3, 60_000);
+        for (int i = 0; i < 6; i++) {
+            sink.writeLine(line(i));
+        }
+        await(() -> received.size() == 6);
+        assertEquals(2, requests.get());
+        sink.close();
+    }
+
+    @Test
+    public void testSpoolsWhileCollectorIsDownAndReplays() throws Exception {
+        status.set(503);
+        HttpAuditSink sink = sink(2, 100);
+        for (int i = 0; i < 6; i++) {
+            sink.writeLine(line(i));
+        }
+        await(() -> requests.get() > 0);
+        assertTrue(received.isEmpty());
+
+        status.set(200);
+        for (int i = 6; i < 8; i++) {
+            sink.writeLine(line(i));
+        }
+        await(() -> received.size() == 8);
+        // batches that failed concurrently may be spooled in either order, but each line arrives once
+        assertEquals(lines(0, 8), received.stream().sorted().toList());
+        sink.close();
+    }
+
+    @Test
+    public void testCloseSpoolsUndeliveredLines() throws Exception {
+        status.set(503);
+        HttpAuditSink sink = sink(1_000, 60_000);
+        sink.writeLine(line(0));
+        sink.close();
+
+        AuditSpool spool = new AuditSpool(spoolDirectory, 1 << 20, 16 << 20, 8);
+        assertFalse(spool.isEmpty());
+        spool.close();
+    }
+
+    private HttpAuditSink sink(int maxBatchLines, long lingerMillis) {
+        return new HttpAuditSink(
+            URI.create("http://127.0.0.1:" + collector.getAddress().getPort() + "/v1/audit"),
+            false,
+            3_600_000,
+            maxBatchLines,
+            1 << 20,
+            lingerMillis,
+            2,
+            Duration.ofSeconds(2),
+            new AuditSpool(spoolDirectory, 1 << 20, 16 << 20, 8));
+    }
+
+    private static String line(int value) {
+        return "{\"line\":\"" + value + "\"}";
+    }
+
+    private static List<String> lines(int from, int to) {
+        List<String> lines = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            lines.add(line(i));
+        }
+        return lines;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(15).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not met in time");
+            }
+            Thread.sleep(20);
+        }
+    }
+}
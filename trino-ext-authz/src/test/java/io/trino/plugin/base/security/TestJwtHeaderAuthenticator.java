@@ -0,0 +1,198 @@
+package io.trino.plugin.base.security;
+
+import io.trino.spi.security.AccessDeniedException;
+import io.trino.spi.security.HeaderAuthenticator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestJwtHeaderAuthenticator {
+    private static final long NOW_SECONDS = System.currentTimeMillis() / 1000;
+
+    @TempDir
+    Path directory;
+
+    private KeyPair rsa;
+    private KeyPair ec;
+    private Path keyFile;
+    private JsonWebKeySet keySet;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        KeyPairGenerator rsaGenerator = KeyPairGenerator.getInstance("RSA");
+        rsaGenerator.initialize(2048);
+        rsa = rsaGenerator.generateKeyPair();
+        KeyPairGenerator ecGenerator = KeyPairGenerator.getInstance("EC");
+        ecGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+        ec = ecGenerator.generateKeyPair();
+        keyFile = directory.resolve("jwks.json");
+        writeKeys(rsaJwk("rsa-1", rsa), ecJwk("ec-1", ec));
+        keySet = new JsonWebKeySet(keyFile, 3_600_000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        keySet.shutdown();
+    }
+
+    @Test
+    public void testAcceptsRsaAndEcTokens() throws Exception {
+        JwtHeaderAuthenticator authenticator = authenticator(Optional.empty(), Optional.empty());
+        assertEquals("alice", authenticate(authenticator, sign("RS256", "rsa-1", rsa.getPrivate(), claims("alice", NOW_SECONDS + 60))));
+        assertEquals("bob", authenticate(authenticator, sign("ES256", "ec-1", ec.getPrivate(), claims("bob", NOW_SECONDS + 60))));
+        // the cached path answers the same
+        assertEquals("alice", authenticate(authenticator, sign("RS256", "rsa-1", rsa.getPrivate(), claims("alice", NOW_SECONDS + 60))));
+    }
+
+    @Test
+    public void testRejectsInvalidTokens() throws Exception {
+        JwtHeaderAuthenticator authenticator = authenticator(Optional.of("https://gateway"), Optional.of("trino"));
+        String valid = "\"iss\":\"https://gateway\",\"aud\":[\"other\",\"trino\"]";
+        assertEquals("alice", authenticate(authenticator, sign("RS256", "rsa-1", rsa.getPrivate(), claims("alice", NOW_SECONDS + 60, valid))));
+
+        assertDenied(authenticator, "JWT expired", sign("RS256", "rsa-1", rsa.getPrivate(), claims("alice", NOW_SECONDS - 60, valid)));
+        assertDenied(authenticator, "JWT not yet valid", sign("RS256", "rsa-1", rsa.getPrivate(), claims("alice", NOW_SECONDS + 600, valid + ",\"nbf\":" + (NOW_SECONDS + 300))));
+        assertDenied(authenticator, "JWT has a malformed nbf claim", sign("RS256", "rsa-1", rsa.getPrivate(), claims("alice", NOW_SECONDS + 60, valid + ",\"nbf\":\"soon\"")));
+        assertDenied(authenticator, "JWT has no expiry", sign("RS256", "rsa-1", rsa.getPrivate(), "{\"sub\":\"alice\"," + valid + "}"));
+        assertDenied(authenticator, "JWT issuer not accepted", sign("RS256", "rsa-1", rsa.getPrivate(), claims("alice", NOW_SECONDS + 60, "\"iss\":\"evil\",\"aud\":\"trino\"")));
+        assertDenied(authenticator, "JWT audience not accepted", sign("RS256", "rsa-1", rsa.getPrivate(), claims("alice", NOW_SECONDS + 60, "\"iss\":\"https://gateway\",\"aud\":\"other\"")));
+        assertDenied(authenticator, "JWT signed with unknown key", sign("RS256", "rsa-2", rsa.getPrivate(), claims("alice", NOW_SECONDS + 60, valid)));
+        assertDenied(authenticator, "JWT algorithm does not match its key", sign("ES256", "rsa-1", ec.getPrivate(), claims("alice", NOW_SECONDS + 60, valid)));
+        assertDenied(authenticator, "malformed JWT", "not-a-token");
+
+        String token = sign("RS256", "rsa-1", rsa.getPrivate(), claims("alice", NOW_SECONDS + 60, valid));
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." + base64(claims("admin", NOW_SECONDS + 60, valid)) + "." + parts[2];
+        assertDenied(authenticator, "invalid JWT signature", forged);
+    }
+
+    @Test
+    public void testReloadOfUnchangedKeyKeepsCachedTokens() throws Exception {
+        JsonWebKeySet.Key before = keySet.get(Optional.of("rsa-1")).orElseThrow();
+        writeKeys(rsaJwk("rsa-1", rsa), ecJwk("ec-1", ec));
+        keySet.refresh();
+        JsonWebKeySet.Key after = keySet.get(Optional.of("rsa-1")).orElseThrow();
+        assertFalse(before == after);
+        assertTrue(keySet.contains(before));
+    }
+
+    @Test
+    public void testRotatedKeyInvalidatesCachedTokens() throws Exception {
+        JwtHeaderAuthenticator authenticator = authenticator(Optional.empty(), Optional.empty());
+        String token = sign("RS256", "rsa-1", rsa.getPrivate(), claims("alice", NOW_SECONDS + 60));
+        assertEquals("alice", authenticate(authenticator, token));
+        JsonWebKeySet.Key before = keySet.get(Optional.of("rsa-1")).orElseThrow();
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        writeKeys(rsaJwk("rsa-1", generator.generateKeyPair()), ecJwk("ec-1", ec));
+        keySet.refresh();
+
+        assertFalse(keySet.contains(before));
+        assertDenied(authenticator, "invalid JWT signature", token);
+    }
+
+    @Test
+    public void testRejectsDuplicateKeyIds() throws Exception {
+        writeKeys(rsaJwk("same", rsa), ecJwk("same", ec));
+        IllegalArgumentException failure = assertThrows(IllegalArgumentException.class, () -> new JsonWebKeySet(keyFile, 3_600_000));
+        assertEquals("duplicate key id same in " + keyFile, failure.getMessage());
+
+        // a reload of such a file keeps the previous keys
+        keySet.refresh();
+        assertTrue(keySet.get(Optional.of("rsa-1")).isPresent());
+    }
+
+    private JwtHeaderAuthenticator authenticator(Optional<String> issuer, Optional<String> audience) {
+        return new JwtHeaderAuthenticator(keySet, "Authorization", issuer, audience, "sub", 30_000, 100);
+    }
+
+    private static String authenticate(JwtHeaderAuthenticator authenticator, String token) {
+        return authenticator.createAuthenticatedPrincipal(headers(token)).getName();
+    }
+
+    private static void assertDenied(JwtHeaderAuthenticator authenticator, String message, String token) {
+        AccessDeniedException failure = assertThrows(AccessDeniedException.class, () -> authenticate(authenticator, token));
+        assertTrue(failure.getMessage().endsWith(message), failure.getMessage());
+    }
+
+    private static HeaderAuthenticator.Headers headers(String token) {
+        Map<String, List<String>> headers = Map.of("Authorization", List.of("Bearer " + token));
+        return headers::get;
+    }
+
+    private static String claims(String subject, long expires) {
+        return "{\"sub\":\"" + subject + "\",\"exp\":" + expires + "}";
+    }
+
+    private static String claims(String subject, long expires, String more) {
+        return "{\"sub\":\"" + subject + "\",\"exp\":" + expires + "," + more + "}";
+    }
+
+    private static String sign(String algorithm, String keyId, PrivateKey key, String claims) throws GeneralSecurityException {
+        String content = base64("{\"alg\":\"" + algorithm + "\",\"kid\":\"" + keyId + "\",\"typ\":\"JWT\"}") + "." + base64(claims);
+        Signature signer = Signature.getInstance(algorithm.startsWith("RS") ? "SHA256withRSA" : "SHA256withECDSAinP1363Format");
+        signer.initSign(key);
+        signer.update(content.getBytes(UTF_8));
+        return content + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signer.sign());
+    }
+
+    private static String rsaJwk(String keyId, KeyPair pair) {
+        RSAPublicKey key = (RSAPublicKey) pair.getPublic();
+        return "{\"kty\":\"RSA\",\"kid\":\"" + keyId + "\",\"use\":\"sig\",\"alg\":\"RS256\",\"n\":\"" + unsigned(key.getModulus()) + "\",\"e\":\"" + unsigned(key.getPublicExponent()) + "\"}";
+    }
+
+    private static String ecJwk(String keyId, KeyPair pair) {
+        ECPublicKey key = (ECPublicKey) pair.getPublic();
+        return "{\"kty\":\"EC\",\"kid\":\"" + keyId + "\",\"crv\":\"P-256\",\"alg\":\"ES256\",\"x\":\"" + unsigned(key.getW().getAffineX()) + "\",\"y\":\"" + unsigned(key.getW().getAffineY()) + "\"}";
+    }
+
+    private void writeKeys(String... keys) throws IOException {
+        List<String> jwks = new ArrayList<>(Arrays.asList(keys));
+        FileTime previous = Files.exists(keyFile) ? Files.getLastModifiedTime(keyFile) : null;
+        Files.writeString(keyFile, "{\"keys\":[" + String.join(",", jwks) + "]}");
+        if (previous != null) {
+            // the set reloads on a changed modification time, which may not tick within a test
+            Files.setLastModifiedTime(keyFile, FileTime.fromMillis(previous.toMillis() + 1_000));
+        }
+    }
+
+    private static String base64(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(UTF_8));
+    }
+
+    private static String unsigned(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes[0] == 0 && bytes.length > 1) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,113 @@
+package io.trino.plugin.base.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestLoginThrottle {
+    private final AtomicLong clock = new AtomicLong(SECONDS.toNanos(1_000));
+
+    @Test
+    public void testThrottlesAfterThreshold() {
+        LoginThrottle throttle = throttle(3, 1, 60);
+        for (int i = 0; i < 3; i++) {
+            throttle.recordFailure("alice");
+            assertFalse(throttle.isThrottled("alice"), "failure " + (i + 1));
+        }
+        throttle.recordFailure("alice");
+        assertTrue(throttle.isThrottled("alice"));
+        assertFalse(throttle.isThrottled("bob"));
+        advance(1);
+        assertFalse(throttle.isThrottled("alice"));
+    }
+
+    @Test
+    public void testDelayDoublesUpToMaximum() {
+        LoginThrottle throttle = throttle(0, 2, 16);
+        long[] expectedDelays = {2, 4, 8, 16, 16};
+        for (long delay : expectedDelays) {
+            throttle.recordFailure("alice");
+            advance(delay - 1);
+            assertTrue(throttle.isThrottled("alice"), "delay " + delay);
+            advance(1);
+            assertFalse(throttle.isThrottled("alice"), "delay " + delay);
+        }
+    }
+
+    @Test
+    public void testForgetsQuietNames() {
+        LoginThrottle throttle = throttle(2, 1, 10);
+        for (int i = 0; i < 3; i++) {
+            throttle.recordFailure("alice");
+        }
+        assertTrue(throttle.isThrottled("alice"));
+        // a cell quiet for twice the maximum delay starts over
+        advance(21);
+        throttle.recordFailure("alice");
+        assertFalse(throttle.isThrottled("alice"));
+    }
+
+    @Test
+    public void testRandomNamesDoNotThrottleOthers() {
+        LoginThrottle throttle = new LoginThrottle(1 << 16, 4, 5, 1, 60, clock::get);
+        for (int i = 0; i < 100_000; i++) {
+            throttle.recordFailure(UUID.randomUUID().toString());
+        }
+        int throttled = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (throttle.isThrottled("user" + i)) {
+                throttled++;
+            }
+        }
+        assertTrue(throttled == 0, throttled + " innocent names throttled");
+    }
+
+    @Test
+    public void testConcurrentFailuresAreNotLost() throws Exception {
+        int threads = 8;
+        int failuresPerThread = 10_000;
+        // throttled only if every single failure was counted
+        LoginThrottle exact = new LoginThrottle(1 << 10, 4, threads * failuresPerThread - 1, 1, 60, clock::get);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < failuresPerThread; i++) {
+                        exact.recordFailure("alice");
+                        exact.isThrottled("alice");
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(exact.isThrottled("alice"));
+    }
+
+    private LoginThrottle throttle(int threshold, long baseDelaySeconds, long maxDelaySeconds) {
+        return new LoginThrottle(1 << 12, 4, threshold, baseDelaySeconds, maxDelaySeconds, clock::get);
+    }
+
+    private void advance(long seconds) {
+        clock.addAndGet(SECONDS.toNanos(seconds));
+    }
+}
@@ -0,0 +1,123 @@
+package io.trino.plugin.base.security;
+
+import io.airlift.slice.Slice;
+import io.trino.spi.TrinoException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.trino.spi.StandardErrorCode.CONFIGURATION_INVALID;
+import static io.trino.spi.StandardErrorCode.INVALID_FUNCTION_ARGUMENT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestMaskingFunctions {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testMaskEmail() {
+        assertEquals("j*****@example.com", maskEmail("jürgen@example.com"));
+        // the kept first character is multibyte
+        assertEquals("ü***@example.de", maskEmail("über@example.de"));
+        assertEquals("😀***@example.com", maskEmail("😀abc@example.com"));
+        assertEquals("名**@example.jp", maskEmail("名前太@example.jp"));
+        // without an @ everything after the first character is masked
+        assertEquals("a**", maskEmail("abc"));
+        assertEquals("é*", maskEmail("éè"));
+        assertEquals("", maskEmail(""));
+        Slice nothingToMask = utf8Slice("a@example.com");
+        assertSame(nothingToMask, MaskingFunctions.maskEmail(nothingToMask));
+    }
+
+    @Test
+    public void testMaskKeepLast() {
+        assertEquals("***************1234", maskKeepLast("4111 1111 1111 1234", 4));
+        assertEquals("*****スト", maskKeepLast("日本語テキスト", 2));
+        assertEquals("**😀", maskKeepLast("ab😀", 1));
+        assertEquals("*é😀", maskKeepLast("xé😀", 2));
+        assertEquals("****", maskKeepLast("über", 0));
+        assertEquals("", maskKeepLast("", 3));
+        Slice kept = utf8Slice("ü😀");
+        assertSame(kept, MaskingFunctions.maskKeepLast(kept, 2));
+        assertSame(kept, MaskingFunctions.maskKeepLast(kept, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testRedactDigits() {
+        assertEquals("tel #### ### ünd ##", MaskingFunctions.redactDigits(utf8Slice("tel 0412 345 ünd 67")).toStringUtf8());
+        Slice noDigits = utf8Slice("keine Ziffern ß");
+        assertSame(noDigits, MaskingFunctions.redactDigits(noDigits));
+    }
+
+    /**
+     * The key file is read once per JVM after it loads successfully, so the failure and retry
+     * cases run in order in one test.
+     */
+    @Test
+    public void testTokenizeKeyLoadingAndRetry() throws Exception {
+        Path keyFile = directory.resolve("masking-keys.properties");
+        String previous = System.setProperty("extauthz.masking.key-file", keyFile.toString());
+        try {
+            assertConfigurationInvalid("not found");
+
+            Files.writeString(keyFile, "demo=not base64!\n");
+            assertConfigurationInvalid("is not valid base64");
+
+            Files.writeString(keyFile, "demo=" + Base64.getEncoder().encodeToString(new byte[8]) + "\n");
+            assertConfigurationInvalid("is shorter than 16 bytes");
+
+            byte[] demo = new byte[32];
+            byte[] other = new byte[32];
+            for (int i = 0; i < 32; i++) {
+                demo[i] = (byte) i;
+                other[i] = (byte) (i * 7);
+            }
+            Files.writeString(keyFile, "demo=" + Base64.getEncoder().encodeToString(demo) + "\nother = " + Base64.getEncoder().encodeToString(other) + "\n");
+            String token = tokenize("jürgen@example.com", "demo");
+            assertEquals(16, token.length());
+            assertTrue(token.matches("[0-9a-f]{16}"), token);
+            assertEquals(token, tokenize("jürgen@example.com", "demo"));
+            assertNotEquals(token, tokenize("jurgen@example.com", "demo"));
+            assertNotEquals(token, tokenize("jürgen@example.com", "other"));
+
+            TrinoException unknown = assertThrows(TrinoException.class, () -> tokenize("value", "missing"));
+            assertEquals(INVALID_FUNCTION_ARGUMENT.toErrorCode(), unknown.getErrorCode());
+
+            // loaded keys stay in use after the file goes away
+            Files.delete(keyFile);
+            assertEquals(token, tokenize("jürgen@example.com", "demo"));
+        } finally {
+            if (previous == null) {
+                System.clearProperty("extauthz.masking.key-file");
+            } else {
+                System.setProperty("extauthz.masking.key-file", previous);
+            }
+        }
+    }
+
+    private static void assertConfigurationInvalid(String message) {
+        TrinoException failure = assertThrows(TrinoException.class, () -> tokenize("value", "demo"));
+        assertEquals(CONFIGURATION_INVALID.toErrorCode(), failure.getErrorCode());
+        assertTrue(failure.getMessage().contains(message), failure.getMessage());
+    }
+
+    private static String maskEmail(String value) {
+        return MaskingFunctions.maskEmail(utf8Slice(value)).toStringUtf8();
+    }
+
+    private static String maskKeepLast(String value, long keep) {
+        return MaskingFunctions.maskKeepLast(utf8Slice(value), keep).toStringUtf8();
+    }
+
+    private static String tokenize(String value, String keyId) {
+        return MaskingFunctions.tokenize(utf8Slice(value), utf8Slice(keyId)).toStringUtf8();
+    }
+}
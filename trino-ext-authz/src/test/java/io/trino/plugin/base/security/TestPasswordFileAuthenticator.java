@@ -0,0 +1,74 @@
+package io.trino.plugin.base.security;
+
+import io.trino.spi.security.AccessDeniedException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestPasswordFileAuthenticator {
+    // "abc" at bcrypt cost 10 (a published test vector) and PBKDF2 with 1000 iterations
+    private static final String BCRYPT = "$2a$10$WvvTPHKwdBJ3uk0Z37EMR.hLA2W6N9AEBhEgrAOljy2Ae5MtaSIUi";
+    private static final String PBKDF2 = "1000:5b4240333032306164:715a88701821ac0fe6ae3f15799099878d8e449f5543a5d91b0b2e530a13e086344e096365598a706adaa3f27f2c1732c7ad6f29830f5e6da6c3d861684ba9a4";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testAcceptsValidHashes() {
+        PasswordFileAuthenticator.checkHash(BCRYPT);
+        PasswordFileAuthenticator.checkHash(PBKDF2);
+    }
+
+    @Test
+    public void testRejectsInvalidHashes() {
+        assertInvalid("$2y$10$tooshort", "malformed bcrypt hash");
+        assertInvalid("$2a$06$If6bvum7DFjUnE9p2uDeDu0YHzrHM6tf.iqN8.yx.jNN1ILEf7h0i", "bcrypt cost must be at least 8");
+        assertInvalid("plain", "hash is neither bcrypt nor PBKDF2");
+        assertInvalid("x:00:00", "PBKDF2 iteration count is not a number");
+        assertInvalid("10:00:00", "PBKDF2 iteration count must be at least 1000");
+        assertInvalid("1000:zz:00", "PBKDF2 salt is not hex");
+        assertInvalid("1000:00:abc", "PBKDF2 hash is not hex");
+        assertInvalid("1000::00", "PBKDF2 salt is not hex");
+    }
+
+    @Test
+    public void testRejectsFileWithInvalidEntry() throws IOException {
+        Path file = write("alice:" + BCRYPT, "bob:10:00:00");
+        IllegalArgumentException failure = assertThrows(IllegalArgumentException.class, () -> authenticator(file));
+        assertEquals("invalid entry in " + file + " at line 2: PBKDF2 iteration count must be at least 1000", failure.getMessage());
+    }
+
+    @Test
+    public void testAuthenticates() throws IOException {
+        PasswordFileAuthenticator authenticator = authenticator(write("alice:" + BCRYPT, "bob:" + PBKDF2));
+        assertEquals("alice", authenticator.createAuthenticatedPrincipal("alice", "abc").getName());
+        assertEquals("bob", authenticator.createAuthenticatedPrincipal("bob", "abc").getName());
+        assertEquals("alice", authenticator.createAuthenticatedPrincipal("alice", "abc").getName());
+        assertEquals(1, authenticator.getCachedLogins());
+        assertThrows(AccessDeniedException.class, () -> authenticator.createAuthenticatedPrincipal("alice", "wrong"));
+        assertThrows(AccessDeniedException.class, () -> authenticator.createAuthenticatedPrincipal("carol", "abc"));
+        assertEquals(2, authenticator.getFailedLogins());
+    }
+
+    private static void assertInvalid(String hash, String message) {
+        IllegalArgumentException failure = assertThrows(IllegalArgumentException.class, () -> PasswordFileAuthenticator.checkHash(hash));
+        assertEquals(message, failure.getMessage());
+    }
+
+    private Path write(String... lines) throws IOException {
+        Path file = directory.resolve("password.db");
+        Files.write(file, String.join("\n", lines).getBytes(UTF_8));
+        return file;
+    }
+
+    private static PasswordFileAuthenticator authenticator(Path file) {
+        return new PasswordFileAuthenticator(file, 60_000, 60_000, 100, new LoginThrottle(1024, 4, 5, 1, 60));
+    }
+}
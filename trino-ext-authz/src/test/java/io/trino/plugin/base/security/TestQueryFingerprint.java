@@ -0,0 +1,40 @@
+package io.trino.plugin.base.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class TestQueryFingerprint {
+    @Test
+    public void testLiteralsAndLists() {
+        assertEquals("select * from t where id in (?) and name = ?",
+            QueryFingerprint.normalize("SELECT * FROM t WHERE id IN (1, 2, 3) AND name = 'o''brien'"));
+        assertEquals("select * from t where id in (?)", QueryFingerprint.normalize("select * from t where id in ('a','b')"));
+        assertEquals("select x from t where x>=? and d = date ?", QueryFingerprint.normalize("select x from t where x>=1.5e3 and d = DATE '2024-01-01'"));
+        assertEquals("select ?", QueryFingerprint.normalize("select 'unterminated"));
+    }
+
+    @Test
+    public void testIdentifiersKeepDigitsAndQuotedCase() {
+        assertEquals("select t2.c1 from t2", QueryFingerprint.normalize("SELECT T2.C1 FROM T2"));
+        assertEquals("select \"MixedCase\" ,col1 from t", QueryFingerprint.normalize("select  \"MixedCase\" ,col1 from T"));
+        assertEquals("select \"a\"\"b\" from t", QueryFingerprint.normalize("select \"a\"\"b\" from t"));
+    }
+
+    @Test
+    public void testCommentsWhitespaceAndTerminators() {
+        assertEquals("select a from t limit ?", QueryFingerprint.normalize("SELECT a -- columns\nFROM t /* hint */ LIMIT 10;;  "));
+        assertEquals("select a from t", QueryFingerprint.normalize("\n\tselect\ta\n\nfrom   t\n;"));
+        assertEquals("", QueryFingerprint.normalize("-- only a comment"));
+    }
+
+    @Test
+    public void testFingerprintIgnoresLiteralsOnly() {
+        QueryFingerprint first = QueryFingerprint.of("SELECT * FROM orders WHERE custkey = 42 AND status IN ('F', 'O')");
+        QueryFingerprint second = QueryFingerprint.of("select *\nfrom orders where custkey = 7 and status in ('P')");
+        assertEquals(first.getNormalized(), second.getNormalized());
+        assertEquals(first.getHash(), second.getHash());
+        assertNotEquals(first.getHash(), QueryFingerprint.of("select * from lineitem where orderkey = 7").getHash());
+    }
+}
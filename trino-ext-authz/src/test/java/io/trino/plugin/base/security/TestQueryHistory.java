@@ -0,0 +1,73 @@
+package io.trino.plugin.base.security;
+
+import io.trino.plugin.base.security.QueryHistory.QuerySummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestQueryHistory {
+    @Test
+    public void testRingKeepsMostRecentOldestFirst() {
+        QueryHistory history = new QueryHistory(3, 100);
+        assertEquals(List.of(), ids(history.scan(summary -> true)));
+
+        history.add(summary("q0", "alice", 1_000));
+        history.add(summary("q1", "bob", 2_000));
+        assertEquals(List.of("q0", "q1"), ids(history.scan(summary -> true)));
+
+        for (int i = 2; i < 7; i++) {
+            history.add(summary("q" + i, i % 2 == 0 ? "alice" : "bob", i * 1_000L));
+        }
+        assertEquals(List.of("q4", "q5", "q6"), ids(history.scan(summary -> true)));
+        assertEquals(List.of("q4", "q6"), ids(history.scan(summary -> summary.user().equals("alice"))));
+    }
+
+    @Test
+    public void testScanSkipsSlotsOverwrittenWhileReading() {
+        QueryHistory history = new QueryHistory(4, 100);
+        for (int i = 0; i < 4; i++) {
+            history.add(summary("q" + i, "alice", i));
+        }
+        // two queries complete after the scan started: they overwrite the slots of q0 and q1,
+        // and the first of them is read before it is overwritten
+        List<QuerySummary> scanned = history.scan(summary -> {
+            if (summary.queryId().equals("q0")) {
+                history.add(summary("q4", "alice", 4));
+                history.add(summary("q5", "alice", 5));
+            }
+            return true;
+        });
+        // q1's slot now holds q5, tagged with a later sequence, so it is skipped instead of
+        // being returned out of order
+        assertEquals(List.of("q0", "q2", "q3"), ids(scanned));
+        assertEquals(List.of("q2", "q3", "q4", "q5"), ids(history.scan(summary -> true)));
+    }
+
+    @Test
+    public void testEndTimeAndUserMatching() {
+        QueryHistory history = new QueryHistory(10, 100);
+        history.add(summary("q0", "alice", 1_000));
+        history.add(summary("q1", "bob", 2_000));
+        history.add(summary("q2", "alice", 3_000));
+        AuditTableHandle handle = new AuditTableHandle(AuditTable.QUERIES, Optional.of(Set.of("alice")), 1_500, 3_000);
+        assertEquals(List.of("q2"), ids(history.scan(handle::matches)));
+    }
+
+    @Test
+    public void testRejectsEmptyCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new QueryHistory(0, 100));
+    }
+
+    static QuerySummary summary(String queryId, String user, long endTimeMillis) {
+        return new QuerySummary(queryId, user, "", "", "", "select 1", false, null, endTimeMillis - 10, endTimeMillis, 0, 1, 2, 3, 4, 5, 6);
+    }
+
+    private static List<String> ids(List<QuerySummary> summaries) {
+        return summaries.stream().map(QuerySummary::queryId).toList();
+    }
+}
@@ -0,0 +1,108 @@
+package io.trino.plugin.base.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestResourceGroupSelectors {
+    private static final String GROUPS = """
+        "rootGroups": [
+          {
+            "name": "global",
+            "hardConcurrencyLimit": 100,
+            "maxQueued": 1000,
+            "subGroups": [
+              {"name": "etl", "hardConcurrencyLimit": 1, "maxQueued": 1},
+              {"name": "loadgen", "hardConcurrencyLimit": 1, "maxQueued": 1},
+              {"name": "admin", "hardConcurrencyLimit": 1, "maxQueued": 1},
+              {"name": "bi", "hardConcurrencyLimit": 1, "maxQueued": 1},
+              {"name": "adhoc", "hardConcurrencyLimit": 1, "maxQueued": 1, "subGroups": [
+                {"name": "${USER}", "hardConcurrencyLimit": 1, "maxQueued": 1}
+              ]}
+            ]
+          }
+        ]
+        """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testIndexedAndPatternSelectorsKeepFileOrder() throws IOException {
+        // 0 and 2 are indexed by user name, 1 and 3 run their patterns
+        ResourceGroupSelectors selectors = load("""
+            {
+            %s,
+              "selectors": [
+                {"user": "admin", "source": "etl", "group": "global.etl"},
+                {"user": "ad.*", "source": "loadgen", "group": "global.loadgen"},
+                {"user": "admin|alice", "group": "global.admin"},
+                {"source": "superset.*", "group": "global.bi"},
+                {"group": "global.adhoc.${USER}"}
+              ]
+            }
+            """.formatted(GROUPS));
+        assertEquals(5, selectors.size());
+        assertEquals(List.of("global", "etl"), select(selectors, "admin", "etl"));
+        assertEquals(List.of("global", "loadgen"), select(selectors, "admin", "loadgen"));
+        assertEquals(List.of("global", "admin"), select(selectors, "admin", "superset-prod"));
+        assertEquals(List.of("global", "admin"), select(selectors, "alice", "loadgen"));
+        assertEquals(List.of("global", "loadgen"), select(selectors, "adam", "loadgen"));
+        assertEquals(List.of("global", "bi"), select(selectors, "carol", "superset-prod"));
+        assertEquals(List.of("global", "adhoc", "carol"), select(selectors, "carol", "cli"));
+        // cached selections give the same answer
+        assertEquals(List.of("global", "loadgen"), select(selectors, "admin", "loadgen"));
+    }
+
+    @Test
+    public void testShippedSelectorsSendLoadgenToItsGroup() throws IOException {
+        ResourceGroupSelectors selectors = ResourceGroupSelectors.load(Path.of("../coordinator/resource-groups.json"), 100);
+        assertEquals(List.of("global", "loadgen"), select(selectors, "admin", "loadgen"));
+        assertEquals(List.of("global", "admin"), select(selectors, "admin", "cli"));
+    }
+
+    @Test
+    public void testRejectsUnsupportedFields() {
+        assertUnsupported("""
+            {%s, "selectors": [{"user": "etl", "selectorResourceEstimate": {"executionTime": "<5m"}, "group": "global.etl"}]}
+            """.formatted(GROUPS), "selector has unsupported field selectorResourceEstimate");
+        assertUnsupported("""
+            {%s, "selectors": [], "cpuQuotaPeriod": "1h"}
+            """.formatted(GROUPS), "has unsupported field cpuQuotaPeriod");
+        assertUnsupported("""
+            {"rootGroups": [{"name": "global", "hardConcurrencyLimit": 1, "maxQueued": 1, "hardCpuLimit": "1h"}], "selectors": []}
+            """, "resource group global has unsupported field hardCpuLimit");
+        assertUnsupported("""
+            {"rootGroups": [{"name": "global", "hardConcurrencyLimit": 1, "maxQueued": 1, "subGroups": [
+              {"name": "etl", "hardConcurrencyLimit": 1, "maxQueued": 1, "softCpuLimit": "1h"}
+            ]}], "selectors": []}
+            """, "resource group etl has unsupported field softCpuLimit");
+    }
+
+    private void assertUnsupported(String json, String message) {
+        IllegalArgumentException failure = assertThrows(IllegalArgumentException.class, () -> load(json));
+        assertTrue(failure.getMessage().endsWith(message), failure.getMessage());
+    }
+
+    private ResourceGroupSelectors load(String json) throws IOException {
+        Path file = Files.writeString(directory.resolve("resource-groups.json"), json);
+        return ResourceGroupSelectors.load(file, 100);
+    }
+
+    private static List<String> select(ResourceGroupSelectors selectors, String user, String source) {
+        return selectors.select(new ResourceGroupSelectors.Criteria(user, Set.of(), Optional.of(source), Set.of(), Optional.empty()))
+            .orElseThrow()
+            .groupId()
+            .getSegments();
+    }
+}
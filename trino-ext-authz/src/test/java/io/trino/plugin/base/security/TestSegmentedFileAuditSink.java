@@ -0,0 +1,152 @@
+package io.trino.plugin.base.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestSegmentedFileAuditSink {
+    private static final Pattern QUERY_HASH = Pattern.compile("\"query_hash\":\"([0-9a-f]+)\"");
+    private static final Pattern QUERY = Pattern.compile("\"query\":\"((?:[^\"\\\\]|\\\\.)*)\"");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testDeduplicatedSegmentsRoundTrip() throws IOException {
+        List<String> texts = List.of(
+            "select * from hive.sales.orders where region = 'EMEA'",
+            "select count(*) from tpch.tiny.lineitem",
+            "select name from hive.hr.employees -- grüße\n where id = 1");
+        List<String> logged = new ArrayList<>();
+        // small segments so the same texts span several of them
+        try (SegmentedFileAuditSink sink = new SegmentedFileAuditSink(directory, true, 600, 3_600_000)) {
+            for (int i = 0; i < 30; i++) {
+                String text = texts.get(i % texts.size());
+                sink.log(AttributeLogger.newInstance().withAttribute("phase", "completed").withAttribute("query_id", "q" + i), text);
+                logged.add(text);
+            }
+        }
+
+        List<Path> segments = segments();
+        assertTrue(segments.size() > 2, "segments " + segments);
+        List<String> restored = new ArrayList<>();
+        boolean usedDictionary = false;
+        for (Path segment : segments) {
+            assertFalse(Files.exists(segment.resolveSibling(segment.getFileName() + ".log")), "rotated segments are compressed");
+            Map<String, String> dictionary = new HashMap<>();
+            for (String line : inflate(segment, ".queries.z")) {
+                assertTrue(line.contains("\"phase\":\"" + AuditSink.QUERY_TEXT_PHASE + "\""), line);
+                dictionary.put(match(QUERY_HASH, line), unescape(match(QUERY, line)));
+            }
+            // every hash resolves within its own segment
+            for (String line : inflate(segment, ".log.z")) {
+                String hash = match(QUERY_HASH, line);
+                assertTrue(dictionary.containsKey(hash), "segment " + segment + " misses " + hash);
+                restored.add(dictionary.get(hash));
+            }
+            usedDictionary |= !header(segment.resolveSibling(segment.getFileName() + ".queries.z")).isEmpty();
+        }
+        assertEquals(logged, restored);
+
+        // later segments deflate their query texts against the previous segment's
+        assertTrue(usedDictionary);
+        try (Stream<Path> dictionaries = Files.list(directory.resolve("dictionaries"))) {
+            assertTrue(dictionaries.findAny().isPresent());
+        }
+    }
+
+    @Test
+    public void testSegmentSizeCountsUtf8Bytes() throws IOException {
+        // each line is 62 characters but 112 bytes, so every line starts a new segment
+        String text = "ü".repeat(50);
+        try (SegmentedFileAuditSink sink = new SegmentedFileAuditSink(directory, false, 100, 3_600_000)) {
+            for (int i = 0; i < 3; i++) {
+                sink.log(AttributeLogger.newInstance().withAttribute("entry", text));
+            }
+        }
+        List<Path> segments = segments();
+        assertEquals(3, segments.size());
+        for (Path segment : segments) {
+            assertEquals(List.of("{\"entry\":\"" + text + "\"}"), inflate(segment, ".log.z"));
+        }
+    }
+
+    @Test
+    public void testInflateRejectsForeignFiles() throws IOException {
+        Path file = Files.writeString(directory.resolve("other.z"), "not a segment");
+        assertThrows(IOException.class, () -> SegmentedFileAuditSink.inflate(file, directory.resolve("dictionaries")));
+    }
+
+    @Test
+    public void testStdoutSinkWritesEachLineImmediately() {
+        PrintStream original = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured, true, UTF_8));
+        try {
+            StdoutAuditSink sink = new StdoutAuditSink(false, 3_600_000);
+            sink.flushEvery(60_000);
+            sink.log(AttributeLogger.newInstance().withAttribute("phase", "created"), "select 1");
+            // visible before any flush or close
+            assertEquals("{\"phase\":\"created\",\"query\":\"select 1\"}" + System.lineSeparator(), captured.toString(UTF_8));
+            sink.close();
+        } finally {
+            System.setOut(original);
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(Path::getFileName)
+                .map(Path::toString)
+                .filter(name -> name.endsWith(".log.z"))
+                .map(name -> directory.resolve(name.substring(0, name.length() - ".log.z".length())))
+                .sorted(Comparator.comparingInt(segment -> Integer.parseInt(segment.toString().substring(segment.toString().lastIndexOf('-') + 1))))
+                .toList();
+        }
+    }
+
+    private List<String> inflate(Path segment, String suffix) throws IOException {
+        byte[] content = SegmentedFileAuditSink.inflate(segment.resolveSibling(segment.getFileName() + suffix), directory.resolve("dictionaries"));
+        String text = new String(content, UTF_8);
+        return text.isEmpty() ? List.of() : List.of(text.split(System.lineSeparator()));
+    }
+
+    private static String header(Path compressed) throws IOException {
+        try (InputStream file = Files.newInputStream(compressed);
+                DataInputStream header = new DataInputStream(file)) {
+            header.readInt();
+            return header.readUTF();
+        }
+    }
+
+    private static String match(Pattern pattern, String line) {
+        Matcher matcher = pattern.matcher(line);
+        assertTrue(matcher.find(), line);
+        return matcher.group(1);
+    }
+
+    private static String unescape(String value) {
+        return value.replace("\\n", "\n").replace("\\\"", "\"").replace("\\\\", "\\");
+    }
+}
@@ -0,0 +1,83 @@
+package io.trino.plugin.base.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestSlidingWindowHistogram {
+    @Test
+    public void testBucketBounds() {
+        for (long value = 0; value < 100_000; value++) {
+            int index = SlidingWindowHistogram.bucketIndex(value);
+            long upper = SlidingWindowHistogram.bucketUpperBound(index);
+            assertTrue(upper >= value, "value " + value);
+            // within one sub-bucket, 1/8 of the power of two
+            assertTrue(upper - value <= value / 8, "value " + value + " upper " + upper);
+            if (index > 0) {
+                assertTrue(SlidingWindowHistogram.bucketUpperBound(index - 1) < value, "value " + value);
+            }
+        }
+        assertEquals(0, SlidingWindowHistogram.bucketIndex(-5));
+        assertEquals(SlidingWindowHistogram.BUCKET_COUNT - 1, SlidingWindowHistogram.bucketIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testPercentiles() {
+        SlidingWindowHistogram histogram = new SlidingWindowHistogram(10_000, 10);
+        for (int value = 1; value <= 1000; value++) {
+            histogram.record(value, 5_000);
+        }
+        SlidingWindowHistogram.Snapshot snapshot = histogram.snapshot(5_000);
+        assertEquals(1000, snapshot.getCount());
+        assertWithin(500, snapshot.getPercentile(0.5));
+        assertWithin(900, snapshot.getPercentile(0.9));
+        assertWithin(990, snapshot.getPercentile(0.99));
+        assertWithin(1000, snapshot.getMax());
+
+        SlidingWindowHistogram.Snapshot empty = new SlidingWindowHistogram(10_000, 10).snapshot(5_000);
+        assertEquals(0, empty.getCount());
+        assertEquals(0, empty.getPercentile(0.99));
+        assertEquals(0, empty.getMax());
+    }
+
+    @Test
+    public void testWindowRotation() {
+        SlidingWindowHistogram histogram = new SlidingWindowHistogram(10_000, 10);
+        histogram.record(100, 0);
+        histogram.record(200, 4_500);
+        assertEquals(2, histogram.snapshot(9_999).getCount());
+
+        // the slot of the first recording falls out of the window
+        assertEquals(1, histogram.snapshot(10_000).getCount());
+        assertWithin(200, histogram.snapshot(10_000).getMax());
+
+        // a recording ten slots later reuses the ring position of the one at 4.5s
+        histogram.record(5_000, 14_700);
+        SlidingWindowHistogram.Snapshot snapshot = histogram.snapshot(14_700);
+        assertEquals(1, snapshot.getCount());
+        assertWithin(5_000, snapshot.getMax());
+
+        assertEquals(0, histogram.snapshot(30_000).getCount());
+    }
+
+    @Test
+    public void testClockStepBackwardsIsDropped() {
+        SlidingWindowHistogram histogram = new SlidingWindowHistogram(10_000, 10);
+        histogram.record(100, 12_000);
+        // same ring position, an older interval
+        histogram.record(100, 2_000);
+        assertEquals(1, histogram.snapshot(12_000).getCount());
+    }
+
+    @Test
+    public void testRejectsInvalidWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowHistogram(10_000, 0));
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowHistogram(5, 10));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / 8, "expected about " + expected + " but was " + actual);
+    }
+}
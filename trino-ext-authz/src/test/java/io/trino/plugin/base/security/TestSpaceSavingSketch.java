@@ -0,0 +1,79 @@
+package io.trino.plugin.base.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestSpaceSavingSketch {
+    @Test
+    public void testEvictsSmallestCounter() {
+        SpaceSavingSketch<String> sketch = new SpaceSavingSketch<>(3);
+        sketch.add("a", 10);
+        sketch.add("b", 2);
+        sketch.add("c", 5);
+        sketch.add("b", 1);
+        // b at 3 is the smallest, d takes it over with 3 as its error
+        SpaceSavingSketch.Counter<String> d = sketch.add("d", 4);
+        assertEquals(7, d.getWeight());
+        assertEquals(3, d.getError());
+        assertEquals(1, d.getHits());
+        assertEquals(List.of("a", "d", "c"), keys(sketch.top(10)));
+
+        // c at 5 is now the smallest
+        sketch.add("e", 1);
+        assertEquals(List.of("a", "d", "e"), keys(sketch.top(10)));
+        assertEquals(List.of("a"), keys(sketch.top(1)));
+    }
+
+    @Test
+    public void testRandomStreamBounds() {
+        int capacity = 64;
+        SpaceSavingSketch<Integer> sketch = new SpaceSavingSketch<>(capacity);
+        Map<Integer, Long> actual = new HashMap<>();
+        Random random = new Random(42);
+        long total = 0;
+        for (int i = 0; i < 200_000; i++) {
+            // a skewed stream: a few heavy keys over a long tail
+            int key = random.nextInt(10) < 3 ? random.nextInt(8) : random.nextInt(5_000);
+            long weight = 1 + random.nextInt(100);
+            sketch.add(key, weight);
+            actual.merge(key, weight, Long::sum);
+            total += weight;
+        }
+
+        long counted = 0;
+        for (SpaceSavingSketch.Counter<Integer> counter : sketch.top(capacity)) {
+            long weight = actual.get(counter.getKey());
+            assertTrue(counter.getWeight() >= weight, "overestimates " + counter.getKey());
+            assertTrue(counter.getWeight() - counter.getError() <= weight, "error bounds " + counter.getKey());
+            counted += counter.getWeight();
+        }
+        // evictions hand the evicted weight to the new key, so nothing is lost
+        assertEquals(total, counted);
+        for (Map.Entry<Integer, Long> entry : actual.entrySet()) {
+            if (entry.getValue() > total / capacity) {
+                assertTrue(sketch.keys().contains(entry.getKey()), "heavy key " + entry.getKey());
+            }
+        }
+        List<SpaceSavingSketch.Counter<Integer>> top = sketch.top(8);
+        for (int i = 1; i < top.size(); i++) {
+            assertTrue(top.get(i - 1).getWeight() >= top.get(i).getWeight());
+        }
+    }
+
+    @Test
+    public void testRejectsEmptyCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new SpaceSavingSketch<String>(0));
+    }
+
+    private static <K> List<K> keys(List<SpaceSavingSketch.Counter<K>> counters) {
+        return counters.stream().map(SpaceSavingSketch.Counter::getKey).toList();
+    }
+}
@@ -0,0 +1,170 @@
+package io.trino.plugin.base.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestWorkloadProfiles {
+    private static final Map<String, String> MEMORY_HEAVY = Map.of("join_distribution_type", "PARTITIONED");
+    private static final Map<String, String> CPU_HEAVY = Map.of("task_concurrency", "32");
+    private static final Map<String, String> LIGHT = Map.of("join_distribution_type", "BROADCAST", "task_concurrency", "4");
+    // three samples, heavy from 1000 bytes or 10s of CPU or a 0.3 memory failure rate, light up to 100 bytes and 1s
+    private static final WorkloadProfiles.Tuning TUNING = new WorkloadProfiles.Tuning(3, 1000, 10_000, 100, 1000, 0.3, MEMORY_HEAVY, CPU_HEAVY, LIGHT);
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final List<WorkloadProfiles> created = new ArrayList<>();
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    public void tearDown() {
+        created.forEach(WorkloadProfiles::shutdown);
+    }
+
+    @Test
+    public void testClassifiesOnceEnoughSamples() {
+        WorkloadProfiles profiles = profiles(10, Optional.empty());
+        record(profiles, "dashboard", 50, 100, false);
+        record(profiles, "dashboard", 50, 100, false);
+        assertEquals(Map.of(), properties(profiles, "dashboard"));
+        record(profiles, "dashboard", 50, 100, false);
+        assertEquals(LIGHT, properties(profiles, "dashboard"));
+
+        // neither light nor heavy
+        for (int i = 0; i < 3; i++) {
+            record(profiles, "report", 500, 5_000, false);
+        }
+        assertEquals(Map.of(), properties(profiles, "report"));
+
+        // memory overrides CPU where both set a property
+        for (int i = 0; i < 3; i++) {
+            record(profiles, "etl", 5_000, 60_000, false);
+        }
+        assertEquals(Map.of("join_distribution_type", "PARTITIONED", "task_concurrency", "32"), properties(profiles, "etl"));
+    }
+
+    @Test
+    public void testMemoryFailureRateIsWeightedAverage() {
+        WorkloadProfiles profiles = profiles(10, Optional.empty());
+        for (int i = 0; i < 3; i++) {
+            record(profiles, "report", 500, 5_000, false);
+        }
+        // 0.2 after one failure
+        record(profiles, "report", 500, 5_000, true);
+        assertEquals(Map.of(), properties(profiles, "report"));
+        // 0.36 after two
+        record(profiles, "report", 500, 5_000, true);
+        assertEquals(MEMORY_HEAVY, properties(profiles, "report"));
+        // 0.288 after a success
+        record(profiles, "report", 500, 5_000, false);
+        assertEquals(Map.of(), properties(profiles, "report"));
+    }
+
+    @Test
+    public void testPeakMemoryIsWeightedAverage() {
+        WorkloadProfiles profiles = profiles(10, Optional.empty());
+        for (int i = 0; i < 3; i++) {
+            record(profiles, "dashboard", 50, 100, false);
+        }
+        assertEquals(LIGHT, properties(profiles, "dashboard"));
+        // 50 + 0.2 * (4000 - 50) = 840, no longer light but not yet heavy
+        record(profiles, "dashboard", 4_000, 100, false);
+        assertEquals(Map.of(), properties(profiles, "dashboard"));
+        // 840 + 0.2 * (4000 - 840) = 1472
+        record(profiles, "dashboard", 4_000, 100, false);
+        assertEquals(MEMORY_HEAVY, properties(profiles, "dashboard"));
+    }
+
+    @Test
+    public void testPersistAndReadRoundTrip() throws Exception {
+        Path file = directory.resolve("profiles/workloads.tsv");
+        WorkloadProfiles profiles = profiles(10, Optional.of(file));
+        for (int i = 0; i < 3; i++) {
+            profiles.record(WorkloadProfiles.Key.of("alice", Optional.of("superset"), Set.of("team:b", "team:a"), Optional.of("SELECT")), 50, 100, false);
+            record(profiles, "etl", 5_000, 60_000, i == 0);
+            record(profiles, "tab\tsource", 50, 100, false);
+        }
+        clock.addAndGet(1_000);
+        record(profiles, "once", 50, 100, false);
+        profiles.persist();
+        assertEquals(3, Files.readAllLines(file).size());
+
+        WorkloadProfiles restored = profiles(10, Optional.of(file));
+        assertEquals(3, restored.size());
+        assertEquals(LIGHT, restored.sessionProperties("alice", Optional.of("superset"), Set.of("team:a", "team:b"), Optional.of("SELECT")));
+        assertEquals(properties(profiles, "etl"), properties(restored, "etl"));
+        assertEquals(Map.of(), properties(restored, "once"));
+        // weighted averages continue where they left off
+        record(profiles, "once", 50, 100, false);
+        record(restored, "once", 50, 100, false);
+        record(profiles, "once", 50, 100, false);
+        record(restored, "once", 50, 100, false);
+        assertEquals(LIGHT, properties(profiles, "once"));
+        assertEquals(LIGHT, properties(restored, "once"));
+
+        // profiles older than the maximum age are not read back
+        clock.addAndGet(60_001);
+        assertEquals(0, profiles(10, Optional.of(file)).size());
+    }
+
+    @Test
+    public void testExpiresWithoutProfileFile() {
+        WorkloadProfiles profiles = profiles(10, Optional.empty());
+        record(profiles, "old", 50, 100, false);
+        clock.addAndGet(30_000);
+        record(profiles, "recent", 50, 100, false);
+        clock.addAndGet(40_000);
+        profiles.persist();
+        assertEquals(1, profiles.size());
+        assertEquals(Map.of(), properties(profiles, "old"));
+    }
+
+    @Test
+    public void testFullStoreEvictsLeastRecentlySeen() {
+        WorkloadProfiles profiles = profiles(2, Optional.empty());
+        for (int i = 0; i < 3; i++) {
+            record(profiles, "first", 50, 100, false);
+            clock.incrementAndGet();
+            record(profiles, "second", 50, 100, false);
+            clock.incrementAndGet();
+        }
+        // seen again, so second is now the oldest
+        record(profiles, "first", 50, 100, false);
+        clock.incrementAndGet();
+        record(profiles, "third", 50, 100, false);
+        assertEquals(2, profiles.size());
+        assertEquals(LIGHT, properties(profiles, "first"));
+        assertEquals(Map.of(), properties(profiles, "second"));
+        for (int i = 0; i < 2; i++) {
+            record(profiles, "third", 50, 100, false);
+        }
+        assertEquals(LIGHT, properties(profiles, "third"));
+        assertEquals(2, profiles.size());
+    }
+
+    private WorkloadProfiles profiles(int maxProfiles, Optional<Path> file) {
+        WorkloadProfiles profiles = new WorkloadProfiles(TUNING, maxProfiles, 60_000, file, 3_600_000, clock::get);
+        created.add(profiles);
+        return profiles;
+    }
+
+    private static void record(WorkloadProfiles profiles, String source, long peakMemory, long cpuMillis, boolean memoryFailure) {
+        profiles.record(WorkloadProfiles.Key.of("etl", Optional.of(source), Set.of(), Optional.empty()), peakMemory, cpuMillis, memoryFailure);
+    }
+
+    private static Map<String, String> properties(WorkloadProfiles profiles, String source) {
+        return profiles.sessionProperties("etl", Optional.of(source), Set.of(), Optional.empty());
+    }
+}